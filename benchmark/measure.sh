@@ -1,3 +1,4 @@
 #!/usr/bin/env bash
+# Extra JMH options may be passed, e.g. "./measure.sh EncoderBenchmark -f 1"
 mvn clean package
-java -jar ./target/benchmarks.jar
\ No newline at end of file
+java -jar ./target/benchmarks.jar -prof gc "$@"
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.sample;
+
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessageBuilder;
+import fixio.fixprotocol.FixMessageBuilderImpl;
+import fixio.fixprotocol.MessageTypes;
+import fixio.fixprotocol.PooledFixMessageBuilder;
+import fixio.netty.codec.Flyweights;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a NewOrderSingle(D) with each kind of {@link FixMessageBuilder}.
+ * <p>
+ * Pooled builders are recycled, as the encoder would do after writing them.
+ * </p>
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BuilderBenchmark {
+
+    @Benchmark
+    public FixMessageBuilder fixMessageBuilderImpl() {
+        final FixMessageBuilderImpl builder = new FixMessageBuilderImpl(MessageTypes.NEW_ORDER_SINGLE);
+        MessageShape.NEW_ORDER_SINGLE.fill(builder);
+        return builder;
+    }
+
+    @Benchmark
+    public void pooledFixMessageBuilder(Blackhole blackhole) {
+        final PooledFixMessageBuilder builder = PooledFixMessageBuilder.newInstance(MessageTypes.NEW_ORDER_SINGLE);
+        MessageShape.NEW_ORDER_SINGLE.fill(builder);
+        blackhole.consume(builder.size());
+        builder.recycle();
+    }
+
+    @Benchmark
+    public void pooledFixMessageBuilderPrimitive(Blackhole blackhole) {
+        final PooledFixMessageBuilder builder = PooledFixMessageBuilder.newInstance(MessageTypes.NEW_ORDER_SINGLE);
+        builder.add(FieldType.ClOrdID, MessageShape.CL_ORD_ID)
+                .add(FieldType.Account, "ACCOUNT-1")
+                .add(FieldType.Symbol, "EUR/USD")
+                .add(FieldType.Side, '1')
+                .add(FieldType.TransactTime, MessageShape.TRANSACT_TIME_MILLIS)
+                .addFixedPoint(FieldType.OrderQty, 1500, 0)
+                .add(FieldType.OrdType, '2')
+                .addFixedPoint(FieldType.Price, 123456, 5)
+                .add(FieldType.TimeInForce, '0');
+        blackhole.consume(builder.size());
+        builder.recycle();
+    }
+
+    @Benchmark
+    public void flyweightEncoder(Blackhole blackhole) {
+        final Flyweights.NewOrderSingleEncoder encoder = Flyweights.NewOrderSingleEncoder.newInstance()
+                .setClOrdID(MessageShape.CL_ORD_ID)
+                .setAccount("ACCOUNT-1")
+                .setSymbol("EUR/USD")
+                .setSide('1')
+                .setTransactTime(MessageShape.TRANSACT_TIME_NANOS)
+                .setOrderQty(1500, 0)
+                .setOrdType('2')
+                .setPrice(123456, 5)
+                .setTimeInForce('0');
+        blackhole.consume(encoder.body().readableBytes());
+        encoder.recycle();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BuilderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -32,57 +32,111 @@
 package org.sample;
 
 import fixio.netty.codec.FixMessageDecoder;
+import fixio.netty.codec.FixMessageFrameDecoder;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
-import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 import static java.nio.charset.StandardCharsets.US_ASCII;
-import static org.mockito.Mockito.mock;
 
+/**
+ * Decodes a single message with a decoder which lives as long as the trial, like in a real channel pipeline.
+ * Creating the decoder per invocation would measure its construction and a cold cumulation buffer instead.
+ */
 @Fork(3)
 @Warmup(iterations = 10)
 @Threads(6)
 @Measurement(iterations = 10)
 public class DecoderBenchmark {
 
-    private static final String MESSAGE = "8=FIX.4.29=39635=BZ34=148949=CME50=G52=20141210-04:12:58.68956=17ACPON57=DUMMY369=36701180=0K41181=42811350=428011=ACP141818477867860=20141210-04:12:58.686533=3797=Y893=Y1028=Y1300=991369=9971:21373=31374=91375=1453=2448=000447=D452=7448=US,IL447=D452=54534=341=ACP141818477617384=60535=99499752041=ACP141818477621484=60535=99499752141=ACP141818477625384=180535=99499752210=228";
-    private static ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+    private static final String MESSAGE = "8=FIX.4.29=39635=BZ34=148949=CME50=G52=20141210-04:12:58.68956=17ACPON57=DUMMY369=36701180=0K41181=42811350=428011=ACP141818477867860=20141210-04:12:58.686533=3797=Y893=Y1028=Y1300=991369=9971:21373=31374=91375=1453=2448=000447=D452=7448=US,IL447=D452=54534=341=ACP141818477617384=60535=99499752041=ACP141818477621484=60535=99499752141=ACP141818477625384=180535=99499752210=228";
+
+    public enum DecoderKind {
+        LEGACY {
+            @Override
+            ChannelHandler[] newDecoder() {
+                return new ChannelHandler[]{
+                        new DelimiterBasedFrameDecoder(1024, Unpooled.wrappedBuffer(new byte[]{1})),
+                        new FixMessageDecoder()
+                };
+            }
+        },
+        FRAME {
+            @Override
+            ChannelHandler[] newDecoder() {
+                return new ChannelHandler[]{new FixMessageFrameDecoder()};
+            }
+        },
+        ZERO_COPY {
+            @Override
+            ChannelHandler[] newDecoder() {
+                return new ChannelHandler[]{
+                        new FixMessageFrameDecoder(FixMessageFrameDecoder.DEFAULT_MAX_MESSAGE_LENGTH, true)
+                };
+            }
+        };
+
+        abstract ChannelHandler[] newDecoder();
+    }
 
     @State(Scope.Thread)
     public static class ThreadState {
-        private final ByteBuf byteBuf = Unpooled.wrappedBuffer(MESSAGE.getBytes(US_ASCII));
+        private final ByteBuf byteBuf = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(MESSAGE.getBytes(US_ASCII)));
+
+        @Param
+        public DecoderKind decoder;
 
-        private FixMessageDecoder decoder;
+        private EmbeddedChannel channel;
 
-        @Setup(Level.Invocation)
+        @Setup(Level.Trial)
         public void setup() {
-            decoder = new FixMessageDecoder();
-            byteBuf.resetReaderIndex();
-            byteBuf.retain();
+            channel = new EmbeddedChannel(decoder.newDecoder());
+            if (decode(this) == null) {
+                throw new IllegalStateException("Message is not decoded");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            channel.finishAndReleaseAll();
         }
     }
 
     @Benchmark
-    public void testDecodeMessage(ThreadState state) throws Exception {
-        state.decoder.channelRead(ctx, state.byteBuf);
+    public Object testDecodeMessage(ThreadState state) {
+        return decode(state);
+    }
+
+    private static Object decode(ThreadState state) {
+        state.channel.writeInbound(state.byteBuf.duplicate());
+        final Object message = state.channel.readInbound();
+        ReferenceCountUtil.release(message);
+        return message;
     }
 
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder()
                 .include(DecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
                 .build();
 
         new Runner(opt).run();
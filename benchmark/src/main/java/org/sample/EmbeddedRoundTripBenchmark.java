@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.sample;
+
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessage;
+import fixio.fixprotocol.MessageTypes;
+import fixio.fixprotocol.PooledFixMessageBuilder;
+import fixio.netty.codec.FixMessageEncoder;
+import fixio.netty.codec.FixMessageFrameDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a NewOrderSingle(D), decodes it on the "server" side, answers with an ExecutionReport(8)
+ * and decodes the answer on the "client" side, all in {@link EmbeddedChannel}s.
+ * <p>
+ * This is the codec part of {@link LoopbackRoundTripBenchmark}, without sockets, event loops and sessions.
+ * </p>
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class EmbeddedRoundTripBenchmark {
+
+    @Param({"false", "true"})
+    public boolean zeroCopy;
+
+    private EmbeddedChannel clientEncoder;
+    private EmbeddedChannel serverDecoder;
+    private EmbeddedChannel serverEncoder;
+    private EmbeddedChannel clientDecoder;
+    private int msgSeqNum;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        clientEncoder = new EmbeddedChannel(new FixMessageEncoder());
+        serverDecoder = new EmbeddedChannel(newDecoder());
+        serverEncoder = new EmbeddedChannel(new FixMessageEncoder());
+        clientDecoder = new EmbeddedChannel(newDecoder());
+    }
+
+    private FixMessageFrameDecoder newDecoder() {
+        return new FixMessageFrameDecoder(FixMessageFrameDecoder.DEFAULT_MAX_MESSAGE_LENGTH, zeroCopy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clientEncoder.finishAndReleaseAll();
+        serverDecoder.finishAndReleaseAll();
+        serverEncoder.finishAndReleaseAll();
+        clientDecoder.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int roundTrip() {
+        final int seqNum = ++msgSeqNum;
+        final PooledFixMessageBuilder order = PooledFixMessageBuilder.newInstance(MessageTypes.NEW_ORDER_SINGLE);
+        MessageShape.fillHeader(order.getHeader(), seqNum);
+        MessageShape.NEW_ORDER_SINGLE.fill(order);
+        final FixMessage request = transfer(order, clientEncoder, serverDecoder);
+
+        final PooledFixMessageBuilder report = PooledFixMessageBuilder.newInstance(MessageTypes.EXECUTION_REPORT);
+        MessageShape.fillHeader(report.getHeader(), seqNum);
+        report.add(FieldType.OrderID, "1")
+                .add(FieldType.ClOrdID, request.getString(FieldType.ClOrdID))
+                .add(FieldType.ExecID, "1")
+                .add(FieldType.ExecType, '0')
+                .add(FieldType.OrdStatus, '0')
+                .add(FieldType.Symbol, request.getString(FieldType.Symbol))
+                .add(FieldType.Side, '1')
+                .addFixedPoint(FieldType.LeavesQty, 1500, 0)
+                .addFixedPoint(FieldType.CumQty, 0, 0)
+                .addFixedPoint(FieldType.AvgPx, 0, 0);
+        ReferenceCountUtil.release(request);
+
+        final FixMessage response = transfer(report, serverEncoder, clientDecoder);
+        final int result = response.getHeader().getMsgSeqNum();
+        ReferenceCountUtil.release(response);
+        return result;
+    }
+
+    private static FixMessage transfer(PooledFixMessageBuilder message, EmbeddedChannel encoder, EmbeddedChannel decoder) {
+        encoder.writeOutbound(message);
+        final ByteBuf bytes = encoder.readOutbound();
+        decoder.writeInbound(bytes);
+        return decoder.readInbound();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(EmbeddedRoundTripBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
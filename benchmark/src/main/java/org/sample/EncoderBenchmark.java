@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.sample;
+
+import fixio.fixprotocol.FixMessageBuilder;
+import fixio.fixprotocol.PooledFixMessageBuilder;
+import fixio.netty.codec.FixMessageEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FixMessageEncoder#encode} for {@link MessageShape}s.
+ * <p>
+ * {@code encode} writes a prebuilt message, so only the encoder is measured,
+ * while {@code buildAndEncodePooled} also fills a {@link PooledFixMessageBuilder},
+ * which is how an application sends messages without garbage.
+ * Run with {@code -prof gc} to see {@code gc.alloc.rate.norm}.
+ * </p>
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class EncoderBenchmark {
+
+    @Param
+    public MessageShape shape;
+
+    private final FixMessageEncoder encoder = new FixMessageEncoder();
+    private FixMessageBuilder message;
+    private ByteBuf out;
+
+    @Setup
+    public void setup() {
+        message = shape.newMessage();
+        out = PooledByteBufAllocator.DEFAULT.directBuffer(4096);
+    }
+
+    @TearDown
+    public void tearDown() {
+        out.release();
+    }
+
+    @Benchmark
+    public ByteBuf encode() {
+        out.clear();
+        encoder.encode(null, message, out);
+        return out;
+    }
+
+    @Benchmark
+    public ByteBuf buildAndEncodePooled() {
+        final PooledFixMessageBuilder builder = PooledFixMessageBuilder.newInstance(shape.messageType());
+        MessageShape.fillHeader(builder.getHeader(), 1);
+        shape.fill(builder);
+        out.clear();
+        encoder.encode(null, builder, out);
+        return out;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(EncoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
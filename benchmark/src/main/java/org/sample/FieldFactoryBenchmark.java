@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.sample;
+
+import fixio.fixprotocol.DataType;
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.fields.AbstractField;
+import fixio.fixprotocol.fields.FieldFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Measures {@link FieldFactory#valueOf(int, byte[], int, int)} for a field of each common {@link DataType}.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FieldFactoryBenchmark {
+
+    @Param({"INT", "SEQNUM", "LENGTH", "NUMINGROUP", "STRING", "CHAR", "BOOLEAN",
+            "PRICE", "QTY", "AMT", "UTCTIMESTAMP", "LOCALMKTDATE", "UTCDATEONLY"})
+    public DataType type;
+
+    private int tag;
+    private byte[] value;
+
+    @Setup
+    public void setup() {
+        final FieldType field;
+        final String text;
+        switch (type) {
+            case INT -> {
+                field = FieldType.HeartBtInt;
+                text = "30";
+            }
+            case SEQNUM -> {
+                field = FieldType.MsgSeqNum;
+                text = "1489";
+            }
+            case LENGTH -> {
+                field = FieldType.BodyLength;
+                text = "396";
+            }
+            case NUMINGROUP -> {
+                field = FieldType.NoMDEntries;
+                text = "10";
+            }
+            case STRING -> {
+                field = FieldType.ClOrdID;
+                text = MessageShape.CL_ORD_ID;
+            }
+            case CHAR -> {
+                field = FieldType.Side;
+                text = "1";
+            }
+            case BOOLEAN -> {
+                field = FieldType.PossDupFlag;
+                text = "Y";
+            }
+            case PRICE -> {
+                field = FieldType.Price;
+                text = "1.23456";
+            }
+            case QTY -> {
+                field = FieldType.OrderQty;
+                text = "1500";
+            }
+            case AMT -> {
+                field = FieldType.Commission;
+                text = "12.5";
+            }
+            case UTCTIMESTAMP -> {
+                field = FieldType.TransactTime;
+                text = MessageShape.TRANSACT_TIME;
+            }
+            case LOCALMKTDATE -> {
+                field = FieldType.SettlDate;
+                text = "20141212";
+            }
+            case UTCDATEONLY -> {
+                field = FieldType.MDEntryDate;
+                text = "20141210";
+            }
+            default -> throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+        if (field.type() != type) {
+            throw new IllegalStateException(field + " is " + field.type() + ", not " + type);
+        }
+        tag = field.tag();
+        value = text.getBytes(US_ASCII);
+    }
+
+    @Benchmark
+    public AbstractField<?> valueOf() {
+        return FieldFactory.valueOf(tag, value, 0, value.length);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(FieldFactoryBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
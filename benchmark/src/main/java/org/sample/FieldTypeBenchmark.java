@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.sample;
+
+import fixio.fixprotocol.FieldType;
+import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link FieldType#forTag(int)} with the linear-scan map lookup it replaced.
+ * <p>
+ * The cost of {@code forTag} should not depend on the tag, while the cost of {@code arrayMapLookup}
+ * grows with the position of the tag in the dictionary and is the highest for unknown tags.
+ * </p>
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FieldTypeBenchmark {
+
+    @Param({"8", "1000", "1617", "9999"})
+    public int tag;
+
+    private Int2ObjectArrayMap<FieldType> arrayMap;
+
+    @Setup
+    public void setup() {
+        arrayMap = new Int2ObjectArrayMap<>(FieldType.values().length);
+        for (FieldType fieldType : FieldType.values()) {
+            if (fieldType.tag() > 0) {
+                arrayMap.put(fieldType.tag(), fieldType);
+            }
+        }
+    }
+
+    @Benchmark
+    public FieldType forTag() {
+        return FieldType.forTag(tag);
+    }
+
+    @Benchmark
+    public FieldType arrayMapLookup() {
+        final FieldType fieldType = arrayMap.get(tag);
+        return (fieldType != null) ? fieldType : FieldType.UNKNOWN;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(FieldTypeBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
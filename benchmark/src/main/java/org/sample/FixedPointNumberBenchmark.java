@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.sample;
+
+import fixio.fixprotocol.fields.FixedPointNumber;
+import fixio.fixprotocol.fields.MutableDecimal;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Parses and formats decimal values with {@link FixedPointNumber} and {@link MutableDecimal}.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class FixedPointNumberBenchmark {
+
+    @Param({"1500", "1.23456", "-0.000125"})
+    public String value;
+
+    private ByteBuf bytes;
+    private ByteBuf out;
+    private FixedPointNumber number;
+    private final MutableDecimal decimal = new MutableDecimal();
+
+    @Setup
+    public void setup() {
+        bytes = Unpooled.wrappedBuffer(value.getBytes(US_ASCII));
+        out = Unpooled.buffer(32);
+        number = new FixedPointNumber(value);
+        decimal.set(number);
+    }
+
+    @Benchmark
+    public FixedPointNumber parseFixedPointNumber() {
+        return new FixedPointNumber(value);
+    }
+
+    @Benchmark
+    public MutableDecimal parseMutableDecimal() {
+        return decimal.parse(bytes, 0, bytes.readableBytes());
+    }
+
+    @Benchmark
+    public String toStringFixedPointNumber() {
+        return number.toString();
+    }
+
+    @Benchmark
+    public byte[] toBytesFixedPointNumber() {
+        return number.toBytes();
+    }
+
+    @Benchmark
+    public int writeMutableDecimal() {
+        out.clear();
+        return decimal.writeTo(out);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(FixedPointNumberBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.sample;
+
+import fixio.FixClient;
+import fixio.FixServer;
+import fixio.events.LogonEvent;
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessage;
+import fixio.fixprotocol.MessageTypes;
+import fixio.fixprotocol.PooledFixMessageBuilder;
+import fixio.handlers.FixApplicationAdapter;
+import fixio.netty.pipeline.InMemorySessionRepository;
+import fixio.netty.pipeline.client.PropertyAuthenticationProvider;
+import fixio.netty.pipeline.client.PropertyFixSessionSettingsProviderImpl;
+import fixio.netty.pipeline.server.AcceptAllAuthenticator;
+import io.netty.channel.ChannelHandlerContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends a NewOrderSingle(D) from a {@link FixClient} to a {@link FixServer} over a local socket
+ * and waits for the ExecutionReport(8).
+ * <p>
+ * There is a single outstanding request, so throughput is the inverse of the average round-trip time.
+ * {@link Mode#SampleTime} reports latency percentiles.
+ * </p>
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+@State(Scope.Benchmark)
+public class LoopbackRoundTripBenchmark {
+
+    private static final long RESPONSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final AtomicLong responses = new AtomicLong();
+    private final CountDownLatch loggedOn = new CountDownLatch(1);
+    private FixServer server;
+    private FixClient client;
+    private long requests;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final int port = freePort();
+        server = new FixServer(port, new ServerApp(), new AcceptAllAuthenticator(), new InMemorySessionRepository());
+        server.start();
+
+        client = new FixClient(new ClientApp(), new InMemorySessionRepository());
+        final PropertyFixSessionSettingsProviderImpl settingsProvider = new PropertyFixSessionSettingsProviderImpl("/fixClient.properties");
+        client.setSessionSettingsProvider(settingsProvider);
+        client.setAuthenticationProvider(new PropertyAuthenticationProvider(settingsProvider.getProperties()));
+        client.connect("127.0.0.1", port);
+        if (!loggedOn.await(10, TimeUnit.SECONDS)) {
+            throw new TimeoutException("Logon is not completed");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        client.disconnect();
+        server.stop();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Benchmark
+    public long roundTrip() throws TimeoutException {
+        final PooledFixMessageBuilder order = PooledFixMessageBuilder.newInstance(MessageTypes.NEW_ORDER_SINGLE);
+        MessageShape.NEW_ORDER_SINGLE.fill(order);
+        final long expected = ++requests;
+        client.send(order);
+        final long deadline = System.nanoTime() + RESPONSE_TIMEOUT_NANOS;
+        long received;
+        while ((received = responses.get()) < expected) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new TimeoutException("No response to request " + expected);
+            }
+            Thread.onSpinWait();
+        }
+        return received;
+    }
+
+    private static class ServerApp extends FixApplicationAdapter {
+
+        @Override
+        public void onMessage(ChannelHandlerContext ctx, FixMessage msg, List<Object> out) {
+            if (MessageTypes.NEW_ORDER_SINGLE.equals(msg.getMessageType())) {
+                final PooledFixMessageBuilder report = PooledFixMessageBuilder.newInstance(MessageTypes.EXECUTION_REPORT);
+                report.add(FieldType.OrderID, "1")
+                        .add(FieldType.ClOrdID, msg.getString(FieldType.ClOrdID))
+                        .add(FieldType.ExecID, "1")
+                        .add(FieldType.ExecType, '0')
+                        .add(FieldType.OrdStatus, '0')
+                        .add(FieldType.Symbol, msg.getString(FieldType.Symbol))
+                        .add(FieldType.Side, '1')
+                        .addFixedPoint(FieldType.LeavesQty, 1500, 0)
+                        .addFixedPoint(FieldType.CumQty, 0, 0)
+                        .addFixedPoint(FieldType.AvgPx, 0, 0);
+                ctx.writeAndFlush(report);
+            }
+        }
+    }
+
+    private class ClientApp extends FixApplicationAdapter {
+
+        @Override
+        public void onMessage(ChannelHandlerContext ctx, FixMessage msg, List<Object> out) {
+            if (MessageTypes.EXECUTION_REPORT.equals(msg.getMessageType())) {
+                responses.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onLogon(ChannelHandlerContext ctx, LogonEvent msg) {
+            loggedOn.countDown();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LoopbackRoundTripBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
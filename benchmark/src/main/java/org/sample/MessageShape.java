@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.sample;
+
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessageBuilder;
+import fixio.fixprotocol.FixMessageBuilderImpl;
+import fixio.fixprotocol.FixMessageHeader;
+import fixio.fixprotocol.Group;
+import fixio.fixprotocol.MessageTypes;
+import fixio.fixprotocol.fields.FixedPointNumber;
+
+import java.time.Instant;
+
+/**
+ * Realistic message shapes used by benchmarks.
+ */
+public enum MessageShape {
+
+    /**
+     * Heartbeat(0): header only.
+     */
+    HEARTBEAT(MessageTypes.HEARTBEAT) {
+        @Override
+        void fill(FixMessageBuilder builder) {
+        }
+    },
+
+    /**
+     * NewOrderSingle(D) of a limit order.
+     */
+    NEW_ORDER_SINGLE(MessageTypes.NEW_ORDER_SINGLE) {
+        @Override
+        void fill(FixMessageBuilder builder) {
+            builder.add(FieldType.ClOrdID, CL_ORD_ID);
+            builder.add(FieldType.Account, "ACCOUNT-1");
+            builder.add(FieldType.Symbol, "EUR/USD");
+            builder.add(FieldType.Side, '1');
+            builder.add(FieldType.TransactTime, TRANSACT_TIME);
+            builder.add(FieldType.OrderQty, ORDER_QTY);
+            builder.add(FieldType.OrdType, '2');
+            builder.add(FieldType.Price, PRICE);
+            builder.add(FieldType.TimeInForce, '0');
+        }
+    },
+
+    /**
+     * MarketDataIncrementalRefresh(X) with {@link #MD_ENTRIES} entries.
+     */
+    MARKET_DATA_INCREMENTAL_REFRESH(MessageTypes.MARKET_DATA_INCREMENTAL_REFRESH) {
+        @Override
+        void fill(FixMessageBuilder builder) {
+            builder.add(FieldType.MDReqID, "REQ-1");
+            for (int i = 0; i < MD_ENTRIES; i++) {
+                final Group entry = builder.newGroup(FieldType.NoMDEntries, MD_ENTRIES);
+                entry.add(FieldType.MDUpdateAction, '0');
+                entry.add(FieldType.MDEntryType, (i % 2 == 0) ? '0' : '1');
+                entry.add(FieldType.Symbol, "EUR/USD");
+                entry.add(FieldType.MDEntryPx, PRICE);
+                entry.add(FieldType.MDEntrySize, ORDER_QTY);
+            }
+        }
+    };
+
+    static final int MD_ENTRIES = 10;
+    static final String CL_ORD_ID = "ACP1418184778678";
+    static final String TRANSACT_TIME = "20141210-04:12:58.686";
+    static final long TRANSACT_TIME_MILLIS = Instant.parse("2014-12-10T04:12:58.686Z").toEpochMilli();
+    static final long TRANSACT_TIME_NANOS = TRANSACT_TIME_MILLIS * 1_000_000L;
+    static final long SENDING_TIME_NANOS = Instant.parse("2014-12-10T04:12:58.689Z").toEpochMilli() * 1_000_000L;
+    static final FixedPointNumber ORDER_QTY = new FixedPointNumber(1500, (byte) 0);
+    static final FixedPointNumber PRICE = new FixedPointNumber(123456, (byte) 5);
+
+    private final String messageType;
+
+    MessageShape(String messageType) {
+        this.messageType = messageType;
+    }
+
+    /**
+     * Sets header fields which are set by the session handler of an established session.
+     */
+    static void fillHeader(FixMessageHeader header, int msgSeqNum) {
+        header.setBeginString("FIX.4.4");
+        header.setSenderCompID("CLIENT");
+        header.setTargetCompID("SERVER");
+        header.setMsgSeqNum(msgSeqNum);
+        header.setSendingTimeNanos(SENDING_TIME_NANOS);
+    }
+
+    public String messageType() {
+        return messageType;
+    }
+
+    abstract void fill(FixMessageBuilder builder);
+
+    /**
+     * @return a message with header and body
+     */
+    public FixMessageBuilder newMessage() {
+        final FixMessageBuilder builder = new FixMessageBuilderImpl(messageType);
+        fillHeader(builder.getHeader(), 1);
+        fill(builder);
+        return builder;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.sample;
+
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+import fixio.fixprotocol.fields.UTCTimestampCodec;
+import fixio.fixprotocol.fields.UTCTimestampField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses and formats UTCTimestamp values of each {@link TimeStampPrecision}.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class UTCTimestampBenchmark {
+
+    private static final long EPOCH_NANOS = MessageShape.TRANSACT_TIME_NANOS + 123_456L;
+
+    @Param
+    public TimeStampPrecision precision;
+
+    private byte[] bytes;
+    private byte[] dst;
+    private UTCTimestampField field;
+
+    @Setup
+    public void setup() {
+        bytes = UTCTimestampCodec.format(EPOCH_NANOS, precision);
+        dst = new byte[UTCTimestampCodec.PICOS_LENGTH];
+        field = new UTCTimestampField(60, EPOCH_NANOS, precision);
+    }
+
+    @Benchmark
+    public long parseEpochNanos() throws ParseException {
+        return UTCTimestampCodec.parseEpochNanos(bytes, 0, bytes.length);
+    }
+
+    @Benchmark
+    public UTCTimestampField parseField() throws ParseException {
+        return new UTCTimestampField(60, bytes, 0, bytes.length);
+    }
+
+    @Benchmark
+    public int format() {
+        return UTCTimestampCodec.format(EPOCH_NANOS, precision, dst, 0);
+    }
+
+    @Benchmark
+    public byte[] fieldGetBytes() {
+        return field.getBytes();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(UTCTimestampBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
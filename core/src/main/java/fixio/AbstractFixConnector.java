@@ -17,7 +17,10 @@
 package fixio;
 
 import fixio.handlers.FixApplication;
+import fixio.netty.pipeline.FixChannelSettings;
 import fixio.netty.pipeline.SessionRepository;
+import fixio.netty.transport.TransportSettings;
+import io.netty.channel.EventLoopGroup;
 
 /**
  * AbstractFixConnector is base class for {@link FixClient} and {@link FixServer}.
@@ -29,6 +32,10 @@ public abstract class AbstractFixConnector {
 
     private final FixApplication fixApplication;
     private final SessionRepository sessionRepository;
+    private FixChannelSettings channelSettings = FixChannelSettings.defaults();
+    private TransportSettings transportSettings = TransportSettings.defaults();
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
 
     protected AbstractFixConnector(FixApplication fixApplication, SessionRepository sessionRepository) {
         this.fixApplication = fixApplication;
@@ -42,4 +49,68 @@ public abstract class AbstractFixConnector {
     protected SessionRepository getSessionRepository() {
         return sessionRepository;
     }
+
+    protected FixChannelSettings getChannelSettings() {
+        return channelSettings;
+    }
+
+    /**
+     * Sets settings of channel pipelines created by this connector.
+     * Should be called before connection is established.
+     *
+     * @param channelSettings a channel settings
+     */
+    public void setChannelSettings(FixChannelSettings channelSettings) {
+        assert (channelSettings != null) : "FixChannelSettings is required";
+        this.channelSettings = channelSettings;
+    }
+
+    protected TransportSettings getTransportSettings() {
+        return transportSettings;
+    }
+
+    /**
+     * Sets transport and socket options of this connector.
+     * Should be called before connection is established.
+     *
+     * @param transportSettings a transport settings
+     */
+    public void setTransportSettings(TransportSettings transportSettings) {
+        assert (transportSettings != null) : "TransportSettings is required";
+        this.transportSettings = transportSettings;
+    }
+
+    /**
+     * @return externally owned event loop group of channels, or null if the connector creates its own
+     */
+    protected EventLoopGroup getBossGroup() {
+        return bossGroup;
+    }
+
+    /**
+     * @return externally owned event loop group of {@link FixApplication} handlers
+     */
+    protected EventLoopGroup getWorkerGroup() {
+        return workerGroup;
+    }
+
+    /**
+     * Uses externally owned event loop groups instead of creating new ones.
+     * The groups are not shut down by the connector, so they may be shared by many connectors.
+     * Should be called before connection is established.
+     * <p>
+     * The groups should be created by the transport of {@link #setTransportSettings(TransportSettings)},
+     * see {@link fixio.netty.transport.Transport#newEventLoopGroup(int)}.
+     * {@link FixServer} registers accepted channels in the worker group, or in the boss group if it is null.
+     * </p>
+     *
+     * @param bossGroup   a group to register channels in, or null to create groups per connection
+     * @param workerGroup a group to run {@link FixApplication} handlers in,
+     *                    or null to run them in the event loop of the channel
+     */
+    public void setEventLoopGroups(EventLoopGroup bossGroup, EventLoopGroup workerGroup) {
+        assert (bossGroup != null || workerGroup == null) : "Boss group is required";
+        this.bossGroup = bossGroup;
+        this.workerGroup = workerGroup;
+    }
 }
@@ -24,15 +24,15 @@ import fixio.netty.pipeline.client.FixInitiatorChannelInitializer;
 import fixio.netty.pipeline.client.FixSessionSettingsProvider;
 import fixio.netty.pipeline.client.MessageSequenceProvider;
 import fixio.netty.pipeline.client.PropertyFixSessionSettingsProviderImpl;
+import fixio.netty.transport.Transport;
+import fixio.netty.transport.TransportSettings;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +45,8 @@ public class FixClient extends AbstractFixConnector {
     private Channel channel;
     private EventLoopGroup bossEventLoopGroup;
     private EventLoopGroup workerEventLoopGroup;
+    private boolean ownsEventLoopGroups;
+    private FixClientManager manager;
     private FixSessionSettingsProvider sessionSettingsProvider;
     private MessageSequenceProvider messageSequenceProvider;
     private AuthenticationProvider authenticationProvider;
@@ -77,6 +79,13 @@ public class FixClient extends AbstractFixConnector {
         this.authenticationProvider = authenticationProvider;
     }
 
+    /**
+     * Makes connections hold a reference to event loops shared by clients of the manager.
+     */
+    void setManager(FixClientManager manager) {
+        this.manager = manager;
+    }
+
     /**
      * Connect and start FIX session to specified host and port.
      *
@@ -101,37 +110,58 @@ public class FixClient extends AbstractFixConnector {
     @SuppressWarnings("WeakerAccess")
     public ChannelFuture connectAsync(SocketAddress serverAddress) {
         LOGGER.info("FixClient is starting");
+        final TransportSettings transportSettings = getTransportSettings();
+        final Transport transport = transportSettings.getTransport();
         final Bootstrap b = new Bootstrap();
-        bossEventLoopGroup = new NioEventLoopGroup();
-        workerEventLoopGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors());
+        ownsEventLoopGroups = (getBossGroup() == null);
+        if (ownsEventLoopGroups) {
+            bossEventLoopGroup = transport.newEventLoopGroup(0);
+            workerEventLoopGroup = transport.newEventLoopGroup(Runtime.getRuntime().availableProcessors());
+        } else {
+            bossEventLoopGroup = getBossGroup();
+            workerEventLoopGroup = getWorkerGroup();
+        }
+        transportSettings.configure(b, transport);
         b.group(bossEventLoopGroup)
-                .channel(NioSocketChannel.class)
                 .remoteAddress(serverAddress)
-                .option(ChannelOption.TCP_NODELAY,
-                        Boolean.parseBoolean(System.getProperty(
-                                "nfs.rpc.tcp.nodelay", "true")))
                 .option(ChannelOption.ALLOCATOR, new PooledByteBufAllocator())
                 .handler(new FixInitiatorChannelInitializer<SocketChannel>(
                         workerEventLoopGroup,
                         sessionSettingsProvider,
                         authenticationProvider,
                         messageSequenceProvider,
-                        getFixApplication()
+                        getFixApplication(),
+                        getChannelSettings()
                 ))
                 .validate();
 
+        final FixClientManager manager = this.manager;
+        if (manager != null) {
+            manager.retain();
+        }
         final ChannelFuture connectFuture = b.connect();
-        return connectFuture.addListener(future -> channel = connectFuture.channel());
+        channel = connectFuture.channel();
+        return connectFuture.addListener(future -> {
+            if (manager != null) {
+                if (future.isSuccess()) {
+                    connectFuture.channel().closeFuture().addListener(closeFuture -> manager.release());
+                } else {
+                    manager.release();
+                }
+            }
+        });
     }
 
     @SuppressWarnings("WeakerAccess")
     public ChannelFuture disconnectAsync() {
         LOGGER.info("Closing connection to {}", channel.remoteAddress());
         return channel.close().addListener(future -> {
-            if (workerEventLoopGroup != null)
-                workerEventLoopGroup.shutdownGracefully();
-            if (bossEventLoopGroup != null)
-                bossEventLoopGroup.shutdownGracefully();
+            if (ownsEventLoopGroups) {
+                if (workerEventLoopGroup != null)
+                    workerEventLoopGroup.shutdownGracefully();
+                if (bossEventLoopGroup != null)
+                    bossEventLoopGroup.shutdownGracefully();
+            }
             bossEventLoopGroup = null;
             workerEventLoopGroup = null;
             LOGGER.info("Connection to {} was closed.", channel.remoteAddress());
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio;
+
+import fixio.handlers.FixApplication;
+import fixio.netty.pipeline.FixChannelSettings;
+import fixio.netty.pipeline.SessionRepository;
+import fixio.netty.transport.Transport;
+import fixio.netty.transport.TransportSettings;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Creates {@link FixClient}s sharing a fixed set of event loops, so many initiator sessions
+ * don't create threads of their own.
+ * <p>
+ * Event loops are reference counted: the manager holds one reference and every open connection holds another.
+ * Disconnecting a client doesn't stop event loops, they are shut down when the manager is {@link #close() closed}
+ * and the last connection is closed.
+ * </p>
+ * <pre>{@code
+ * FixClientManager manager = FixClientManager.newBuilder().ioThreads(4).build();
+ * FixClient client = manager.newClient(application, new InMemorySessionRepository());
+ * client.setSettingsResource("/client.properties");
+ * client.connect(host, port);
+ * ...
+ * manager.close();
+ * }</pre>
+ */
+public final class FixClientManager implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FixClientManager.class);
+
+    private static final AtomicIntegerFieldUpdater<FixClientManager> REF_CNT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(FixClientManager.class, "refCnt");
+    private static final AtomicIntegerFieldUpdater<FixClientManager> CLOSED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(FixClientManager.class, "closed");
+
+    private final TransportSettings transportSettings;
+    private final FixChannelSettings channelSettings;
+    private final EventLoopGroup eventLoopGroup;
+    private final EventLoopGroup applicationGroup;
+    private volatile int refCnt = 1;
+    private volatile int closed;
+
+    private FixClientManager(Builder builder) {
+        this.transportSettings = builder.transportSettings;
+        this.channelSettings = builder.channelSettings;
+        final Transport transport = transportSettings.getTransport();
+        final ThreadFactory threadFactory = (builder.threadFactory != null)
+                ? builder.threadFactory : new DefaultThreadFactory("fixio-client");
+        this.eventLoopGroup = transport.newEventLoopGroup(builder.ioThreads, threadFactory);
+        this.applicationGroup = (builder.applicationThreads > 0)
+                ? transport.newEventLoopGroup(builder.applicationThreads, threadFactory)
+                : null;
+        LOGGER.info("FixClientManager started {} {} event loop(s)", builder.ioThreads, transport);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a client using event loops and settings of this manager.
+     *
+     * @param fixApplication    an application
+     * @param sessionRepository a session repository
+     * @return a new client
+     * @throws IllegalStateException if the manager is closed
+     */
+    public FixClient newClient(FixApplication fixApplication, SessionRepository sessionRepository) {
+        if (closed != 0) {
+            throw new IllegalStateException("FixClientManager is closed");
+        }
+        final FixClient client = new FixClient(fixApplication, sessionRepository);
+        client.setTransportSettings(transportSettings);
+        client.setChannelSettings(channelSettings);
+        client.setEventLoopGroups(eventLoopGroup, applicationGroup);
+        client.setManager(this);
+        return client;
+    }
+
+    public EventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    /**
+     * @return number of open connections
+     */
+    public int getConnectionCount() {
+        return Math.max(refCnt - (closed == 0 ? 1 : 0), 0);
+    }
+
+    /**
+     * Acquires event loops for a new connection.
+     *
+     * @throws IllegalStateException if event loops are shut down
+     */
+    void retain() {
+        for (; ; ) {
+            final int count = refCnt;
+            if (count == 0) {
+                throw new IllegalStateException("FixClientManager is closed");
+            }
+            if (REF_CNT_UPDATER.compareAndSet(this, count, count + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Releases event loops of a closed connection, shutting them down if the manager is closed
+     * and it was the last connection.
+     */
+    void release() {
+        if (REF_CNT_UPDATER.decrementAndGet(this) == 0) {
+            LOGGER.info("Shutting down FixClientManager event loops");
+            eventLoopGroup.shutdownGracefully();
+            if (applicationGroup != null) {
+                applicationGroup.shutdownGracefully();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new clients. Event loops are shut down when all connections are closed.
+     */
+    @Override
+    public void close() {
+        if (CLOSED_UPDATER.compareAndSet(this, 0, 1)) {
+            release();
+        }
+    }
+
+    /**
+     * @return a future completed when event loops are terminated
+     */
+    public Future<?> terminationFuture() {
+        return eventLoopGroup.terminationFuture();
+    }
+
+    public static class Builder {
+
+        private int ioThreads = Runtime.getRuntime().availableProcessors();
+        private int applicationThreads;
+        private ThreadFactory threadFactory;
+        private TransportSettings transportSettings = TransportSettings.defaults();
+        private FixChannelSettings channelSettings = FixChannelSettings.defaults();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets number of event loops handling connections. Default is number of available processors.
+         *
+         * @param ioThreads a positive number
+         * @return this builder
+         */
+        public Builder ioThreads(int ioThreads) {
+            if (ioThreads <= 0) {
+                throw new IllegalArgumentException("ioThreads must be positive: " + ioThreads);
+            }
+            this.ioThreads = ioThreads;
+            return this;
+        }
+
+        /**
+         * Sets number of threads running {@link FixApplication} handlers.
+         * By default, handlers run in the event loop of the connection.
+         *
+         * @param applicationThreads a number of threads, or 0 to use connection event loops
+         * @return this builder
+         */
+        public Builder applicationThreads(int applicationThreads) {
+            if (applicationThreads < 0) {
+                throw new IllegalArgumentException("applicationThreads must not be negative: " + applicationThreads);
+            }
+            this.applicationThreads = applicationThreads;
+            return this;
+        }
+
+        /**
+         * Sets a factory of event loop threads, e.g. a factory pinning every thread to its own CPU core.
+         *
+         * @param threadFactory a thread factory, or null to use "fixio-client" threads
+         * @return this builder
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        public Builder transportSettings(TransportSettings transportSettings) {
+            assert (transportSettings != null) : "TransportSettings is required";
+            this.transportSettings = transportSettings;
+            return this;
+        }
+
+        public Builder channelSettings(FixChannelSettings channelSettings) {
+            assert (channelSettings != null) : "FixChannelSettings is required";
+            this.channelSettings = channelSettings;
+            return this;
+        }
+
+        public FixClientManager build() {
+            return new FixClientManager(this);
+        }
+    }
+}
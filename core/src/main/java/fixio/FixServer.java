@@ -18,82 +18,112 @@ package fixio;
 
 import fixio.handlers.FixApplication;
 import fixio.netty.pipeline.SessionRepository;
+import fixio.netty.pipeline.server.AcceptorSessionSettingsRegistry;
 import fixio.netty.pipeline.server.FixAcceptorChannelInitializer;
 import fixio.netty.pipeline.server.FixAuthenticator;
+import fixio.netty.transport.Transport;
+import fixio.netty.transport.TransportSettings;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 
 public class FixServer extends AbstractFixConnector {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FixServer.class);
     private final int port;
-    private Channel channel;
+    private final List<Channel> channels = new ArrayList<>();
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
+    private boolean ownsEventLoopGroups;
     private FixAuthenticator authenticator;
+    private final AcceptorSessionSettingsRegistry settingsRegistry;
 
     public FixServer(int port,
                      FixApplication fixApplication,
                      FixAuthenticator authenticator,
                      SessionRepository sessionRepository) {
+        this(port, fixApplication, authenticator, sessionRepository, null);
+    }
+
+    /**
+     * @param settingsRegistry sessions allowed to log on, or null to accept any session
+     */
+    public FixServer(int port,
+                     FixApplication fixApplication,
+                     FixAuthenticator authenticator,
+                     SessionRepository sessionRepository,
+                     AcceptorSessionSettingsRegistry settingsRegistry) {
         super(fixApplication, sessionRepository);
         assert (authenticator != null) : "Authenticator is required";
         this.authenticator = authenticator;
         this.port = port;
+        this.settingsRegistry = settingsRegistry;
     }
 
     public void start() throws InterruptedException {
-        bossGroup = new NioEventLoopGroup();
-        workerGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors());
+        final TransportSettings transportSettings = getTransportSettings();
+        final Transport transport = transportSettings.getTransport();
+        ownsEventLoopGroups = (getBossGroup() == null);
+        if (ownsEventLoopGroups) {
+            bossGroup = transport.newEventLoopGroup(transportSettings.getAcceptorCount());
+            workerGroup = transport.newEventLoopGroup(Runtime.getRuntime().availableProcessors());
+        } else {
+            bossGroup = getBossGroup();
+            workerGroup = (getWorkerGroup() != null) ? getWorkerGroup() : bossGroup;
+        }
         final ServerBootstrap bootstrap = new ServerBootstrap();
         final FixAcceptorChannelInitializer<SocketChannel> channelInitializer = new FixAcceptorChannelInitializer<>(
                 workerGroup,
                 getFixApplication(),
                 authenticator,
-                getSessionRepository()
+                getSessionRepository(),
+                getChannelSettings(),
+                settingsRegistry
         );
 
-
         bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
-                .childOption(ChannelOption.TCP_NODELAY,
-                        Boolean.parseBoolean(System.getProperty(
-                                "nfs.rpc.tcp.nodelay", "true")))
                 .childOption(ChannelOption.ALLOCATOR, new PooledByteBufAllocator())
                 .localAddress(new InetSocketAddress(port))
-                .childHandler(channelInitializer)
-                .validate();
+                .childHandler(channelInitializer);
+        final int acceptors = transportSettings.configure(bootstrap, transport);
+        bootstrap.validate();
 
-        ChannelFuture f = bootstrap.bind().sync();
-        LOGGER.info("FixServer is started at {}", f.channel().localAddress());
-        channel = f.channel();
+        for (int i = 0; i < acceptors; i++) {
+            ChannelFuture f = bootstrap.bind().sync();
+            channels.add(f.channel());
+        }
+        LOGGER.info("FixServer is started at {} using {} transport, {} acceptor(s)",
+                channels.get(0).localAddress(), transport, acceptors);
     }
 
     public void stop() {
-        if (channel == null) {
+        if (channels.isEmpty()) {
             throw new IllegalStateException("Server is not started.");
         }
         LOGGER.info("Stopping FixServer");
         try {
-            channel.close().sync();
-            channel = null;
+            for (Channel channel : channels) {
+                channel.close().sync();
+            }
+            channels.clear();
         } catch (InterruptedException e) {
             LOGGER.error("Error while stopping server", e);
         } finally {
-            bossGroup.shutdownGracefully();
+            if (ownsEventLoopGroups) {
+                bossGroup.shutdownGracefully();
+                workerGroup.shutdownGracefully();
+            }
             bossGroup = null;
-            workerGroup.shutdownGracefully();
             workerGroup = null;
         }
     }
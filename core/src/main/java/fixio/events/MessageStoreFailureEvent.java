@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.events;
+
+import fixio.fixprotocol.session.FixSession;
+
+/**
+ * Fired as a user event when a sent message could not be stored, so it can't be resent on ResendRequest(2).
+ * The message itself is sent anyway.
+ */
+public class MessageStoreFailureEvent extends AbstractAdminEvent {
+
+    private final int msgSeqNum;
+    private final RuntimeException cause;
+
+    public MessageStoreFailureEvent(FixSession session, int msgSeqNum, RuntimeException cause) {
+        super(session);
+        this.msgSeqNum = msgSeqNum;
+        this.cause = cause;
+    }
+
+    public int getMsgSeqNum() {
+        return msgSeqNum;
+    }
+
+    public RuntimeException getCause() {
+        return cause;
+    }
+}
@@ -53,6 +53,20 @@ public class FixConst {
         // to prevent instatiation
     }
 
+    /**
+     * @param precision a timestamp precision
+     * @return UTCTimestamp formatter of given precision
+     */
+    public static DateTimeFormatterWrapper dateTimeFormatter(TimeStampPrecision precision) {
+        return switch (precision) {
+            case SECONDS -> DATE_TIME_FORMATTER_SECONDS;
+            case MILLIS -> DATE_TIME_FORMATTER_MILLIS;
+            case MICROS -> DATE_TIME_FORMATTER_MICROS;
+            case NANOS -> DATE_TIME_FORMATTER_NANOS;
+            case PICOS -> DATE_TIME_FORMATTER_PICOS;
+        };
+    }
+
     public enum TimeStampPrecision {
         SECONDS,
         MILLIS,
@@ -16,6 +16,11 @@
 
 package fixio.fixprotocol;
 
+import fixio.fixprotocol.fields.CharField;
+import fixio.fixprotocol.fields.FixedPointNumber;
+import fixio.fixprotocol.fields.FloatField;
+import fixio.fixprotocol.fields.IntField;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -54,6 +59,97 @@ public interface FixMessage {
 
     String getMessageType();
 
+    /**
+     * Returns value of an integer field without boxing.
+     *
+     * @param tagNum       field tag number
+     * @param defaultValue value returned if message has no such field or field is not an integer
+     * @return field value or default value
+     */
+    default int getIntOrDefault(int tagNum, int defaultValue) {
+        if (getFirst(tagNum) instanceof IntField intField) {
+            return intField.intValue();
+        }
+        return defaultValue;
+    }
+
+    default int getIntOrDefault(FieldType field, int defaultValue) {
+        return getIntOrDefault(field.tag(), defaultValue);
+    }
+
+    /**
+     * Returns value of an integer field or a decimal field without fraction digits, e.g. Qty, without boxing.
+     *
+     * @param tagNum       field tag number
+     * @param defaultValue value returned if message has no such field or field is not numeric
+     * @return field value or default value
+     * @throws ArithmeticException if decimal value has fraction digits
+     */
+    default long getLong(int tagNum, long defaultValue) {
+        final FixMessageFragment field = getFirst(tagNum);
+        if (field instanceof IntField intField) {
+            return intField.intValue();
+        }
+        if (field instanceof FloatField floatField) {
+            return floatField.getValue().getScaledValue(0);
+        }
+        return defaultValue;
+    }
+
+    default long getLong(FieldType field, long defaultValue) {
+        return getLong(field.tag(), defaultValue);
+    }
+
+    /**
+     * Returns value of a char field without boxing.
+     *
+     * @param tagNum       field tag number
+     * @param defaultValue value returned if message has no such field
+     * @return field value or default value
+     * @throws IllegalArgumentException if field is not a char field
+     */
+    default char getChar(int tagNum, char defaultValue) {
+        final FixMessageFragment field = getFirst(tagNum);
+        if (field == null) {
+            return defaultValue;
+        }
+        if (field instanceof CharField charField) {
+            return charField.charValue();
+        }
+        throw new IllegalArgumentException("Tag " + tagNum + " is not a Field.");
+    }
+
+    default char getChar(FieldType field, char defaultValue) {
+        return getChar(field.tag(), defaultValue);
+    }
+
+    /**
+     * Returns decimal value, e.g. Price, as a long mantissa of given scale: <code>value * (10^scale)</code>.
+     * <p>
+     * E.g. Price "1.2345" is returned as 123450 with scale 5.
+     * </p>
+     *
+     * @param tagNum       field tag number
+     * @param scale        number of digits to the right of the decimal point
+     * @param defaultValue value returned if message has no such field or field is not numeric
+     * @return scaled value or default value
+     * @throws ArithmeticException if value has more fraction digits than the scale, or on overflow
+     */
+    default long getScaledPrice(int tagNum, int scale, long defaultValue) {
+        final FixMessageFragment field = getFirst(tagNum);
+        if (field instanceof FloatField floatField) {
+            return floatField.getValue().getScaledValue(scale);
+        }
+        if (field instanceof IntField intField) {
+            return FixedPointNumber.rescale(intField.intValue(), 0, scale);
+        }
+        return defaultValue;
+    }
+
+    default long getScaledPrice(FieldType field, int scale, long defaultValue) {
+        return getScaledPrice(field.tag(), scale, defaultValue);
+    }
+
     default FixMessageFragment getFirst(int tagNum) {
         final List<FixMessageFragment> body = getBody();
         for (int i = 0; i < body.size(); i++) {
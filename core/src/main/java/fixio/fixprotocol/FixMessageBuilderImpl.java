@@ -29,6 +29,7 @@ public class FixMessageBuilderImpl implements FixMessage, FixMessageBuilder {
     private final FixMessageHeader header;
     private final FixMessageTrailer trailer;
     private final List<FixMessageFragment> body;
+    private final TagIndex tagIndex;
 
     /**
      * Creates FixMessageBuilderImpl with expected body field count.
@@ -42,6 +43,7 @@ public class FixMessageBuilderImpl implements FixMessage, FixMessageBuilder {
         this.header = new FixMessageHeader();
         this.trailer = new FixMessageTrailer();
         body = new ArrayList<>(expectedBodyFieldCount);
+        tagIndex = new TagIndex(body);
     }
 
     /**
@@ -56,6 +58,7 @@ public class FixMessageBuilderImpl implements FixMessage, FixMessageBuilder {
         this.header = header;
         this.trailer = trailer;
         body = new ArrayList<>(DEFAULT_BODY_FIELD_COUNT);
+        tagIndex = new TagIndex(body);
     }
 
     /**
@@ -200,9 +203,29 @@ public class FixMessageBuilderImpl implements FixMessage, FixMessageBuilder {
         return body;
     }
 
+    @Override
+    public FixMessageFragment getFirst(int tagNum) {
+        return tagIndex.getFirst(tagNum);
+    }
+
+    /**
+     * Returns fragments with given tag number.
+     * The returned list is reused: it is valid until the next call or until the message is modified.
+     */
+    @Override
+    public List<FixMessageFragment> getAll(int tagNum) {
+        return tagIndex.getAll(tagNum);
+    }
+
+    @Override
+    public FixMessageFragment getLast(int tagNum) {
+        return tagIndex.getLast(tagNum);
+    }
+
     @Override
     public void copyBody(List<? extends FixMessageFragment> body) {
         this.body.clear();
+        tagIndex.invalidate();
         for (FixMessageFragment fragment : body) {
             this.body.add(fragment);
         }
@@ -17,16 +17,25 @@
 package fixio.fixprotocol;
 
 import fixio.fixprotocol.fields.DateTimeFormatterWrapper;
+import fixio.fixprotocol.fields.UTCTimestampCodec;
 
 import java.time.ZonedDateTime;
 import java.util.List;
 
 public class FixMessageHeader {
 
+    /**
+     * Value of {@link #getSendingTimeNanos()} when SendingTime is not set.
+     */
+    public static final long NO_SENDING_TIME = Long.MIN_VALUE;
+
     private String beginString;
     private String messageType;
     private int msgSeqNum;
     private ZonedDateTime sendingTime;
+    private long sendingTimeNanos = NO_SENDING_TIME;
+    private boolean possDupFlag;
+    private long origSendingTimeNanos = NO_SENDING_TIME;
     private String senderCompID;
     private String senderSubID;
     private String senderLocationID;
@@ -109,11 +118,60 @@ public class FixMessageHeader {
     }
 
     public ZonedDateTime getSendingTime() {
+        if (sendingTime == null && sendingTimeNanos != NO_SENDING_TIME) {
+            sendingTime = UTCTimestampCodec.toZonedDateTime(sendingTimeNanos);
+        }
         return sendingTime;
     }
 
     public void setSendingTime(ZonedDateTime sendingTime) {
         this.sendingTime = sendingTime;
+        this.sendingTimeNanos = (sendingTime != null) ? UTCTimestampCodec.toEpochNanos(sendingTime) : NO_SENDING_TIME;
+    }
+
+    /**
+     * @return SendingTime as nanoseconds since the epoch, or {@link #NO_SENDING_TIME}
+     */
+    public long getSendingTimeNanos() {
+        return sendingTimeNanos;
+    }
+
+    /**
+     * Sets SendingTime without creating {@link ZonedDateTime}.
+     *
+     * @param epochNanos nanoseconds since the epoch
+     */
+    public void setSendingTimeNanos(long epochNanos) {
+        this.sendingTime = null;
+        this.sendingTimeNanos = epochNanos;
+    }
+
+    /**
+     * @return true, if message is sent again with PossDupFlag(43)=Y
+     */
+    public boolean isPossDupFlag() {
+        return possDupFlag;
+    }
+
+    public void setPossDupFlag(boolean possDupFlag) {
+        this.possDupFlag = possDupFlag;
+    }
+
+    /**
+     * @return OrigSendingTime(122) as nanoseconds since the epoch, or {@link #NO_SENDING_TIME}
+     */
+    public long getOrigSendingTimeNanos() {
+        return origSendingTimeNanos;
+    }
+
+    /**
+     * Sets OrigSendingTime(122) of a possibly duplicated message.
+     * If it is not set, OrigSendingTime is sent equal to SendingTime(52).
+     *
+     * @param epochNanos nanoseconds since the epoch
+     */
+    public void setOrigSendingTimeNanos(long epochNanos) {
+        this.origSendingTimeNanos = epochNanos;
     }
 
     public List<FixMessageFragment> getCustomFields() {
@@ -132,6 +190,27 @@ public class FixMessageHeader {
         this.dateTimeFormatter = dateTimeFormatter;
     }
 
+    /**
+     * Resets all fields, so the header can be reused.
+     */
+    public void clear() {
+        beginString = null;
+        messageType = null;
+        msgSeqNum = 0;
+        sendingTime = null;
+        sendingTimeNanos = NO_SENDING_TIME;
+        possDupFlag = false;
+        origSendingTimeNanos = NO_SENDING_TIME;
+        senderCompID = null;
+        senderSubID = null;
+        senderLocationID = null;
+        targetCompID = null;
+        targetSubID = null;
+        targetLocationID = null;
+        customFields = null;
+        dateTimeFormatter = null;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -140,6 +219,9 @@ public class FixMessageHeader {
         sb.append(", senderCompID='").append(senderCompID).append('\'');
         sb.append(", targetCompID='").append(targetCompID).append('\'');
         sb.append(", msgSeqNum=").append(msgSeqNum);
+        if (possDupFlag) {
+            sb.append(", possDupFlag=Y");
+        }
         if (senderSubID != null) {
             sb.append(", senderSubID='").append(senderSubID).append('\'');
         }
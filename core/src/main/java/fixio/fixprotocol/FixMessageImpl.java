@@ -33,6 +33,20 @@ public class FixMessageImpl implements FixMessage {
     private final FixMessageHeader header = new FixMessageHeader();
     private final FixMessageTrailer trailer = new FixMessageTrailer();
     private final List<FixMessageFragment> body = new ArrayList<>();
+    private final GroupAssembler groupAssembler;
+    private final TagIndex tagIndex = new TagIndex(body);
+
+    public FixMessageImpl() {
+        groupAssembler = new GroupAssembler(body);
+    }
+
+    /**
+     * @param maxGroupDepth max nesting level of repeating groups of received fields
+     * @see #add(int, byte[], int, int)
+     */
+    public FixMessageImpl(int maxGroupDepth) {
+        groupAssembler = new GroupAssembler(body, maxGroupDepth);
+    }
 
     public FixMessageImpl add(int tagNum, byte[] value) {
         return add(tagNum, value, 0, value.length);
@@ -48,6 +62,14 @@ public class FixMessageImpl implements FixMessage {
         return this;
     }
 
+    /**
+     * Adds a received field to the message.
+     * <p>
+     * Header fields are stored in the {@link FixMessageHeader}.
+     * Fields of repeating groups known for the message type are collected into {@link GroupField}s,
+     * so fields should be added in the order they are received.
+     * </p>
+     */
     public FixMessageImpl add(int tagNum, byte[] value, int offset, int length) {
         assert (tagNum > 0) : "TagNum must be positive. Got " + tagNum;
         assert (value != null) : "Value must be specified.";
@@ -74,7 +96,7 @@ public class FixMessageImpl implements FixMessage {
                 header.setMessageType(((StringField) field).getValue().intern());
                 break;
             default:
-                body.add(field);
+                groupAssembler.add(field, header.getMessageType());
                 break;
         }
         return this;
@@ -85,6 +107,25 @@ public class FixMessageImpl implements FixMessage {
         return body;
     }
 
+    @Override
+    public FixMessageFragment getFirst(int tagNum) {
+        return tagIndex.getFirst(tagNum);
+    }
+
+    /**
+     * Returns fragments with given tag number.
+     * The returned list is reused: it is valid until the next call or until the message is modified.
+     */
+    @Override
+    public List<FixMessageFragment> getAll(int tagNum) {
+        return tagIndex.getAll(tagNum);
+    }
+
+    @Override
+    public FixMessageFragment getLast(int tagNum) {
+        return tagIndex.getLast(tagNum);
+    }
+
     @Override
     public String getString(int tagNum) {
         FixMessageFragment item = getFirst(tagNum);
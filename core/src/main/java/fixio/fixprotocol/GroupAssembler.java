@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol;
+
+import fixio.fixprotocol.fields.IntField;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds {@link GroupField}s and {@link Group}s from a stream of fields in a single pass,
+ * using {@link GroupLayout}s of the message type.
+ * <p>
+ * Fields are appended to the message body, unless they belong to a repeating group.
+ * A group ends when a field which is not a member of the group is added,
+ * or when the delimiter tag is seen after the declared number of entries.
+ * </p>
+ * <p>
+ * <strong>This class is not thread safe!</strong>
+ * </p>
+ */
+public final class GroupAssembler {
+
+    /**
+     * Limits preallocated group size, since the declared number of entries is not trusted.
+     */
+    private static final int MAX_EXPECTED_GROUP_SIZE = 16;
+
+    private final List<FixMessageFragment> body;
+    private final int maxDepth;
+    private String layoutsMessageType;
+    private Int2ObjectMap<GroupLayout> layouts;
+    private GroupLayout[] layoutStack;
+    private GroupField[] groupFields;
+    private Group[] entries;
+    private int[] remainingEntries;
+    private int depth;
+
+    /**
+     * @param body a list to append message body fields to
+     */
+    public GroupAssembler(List<FixMessageFragment> body) {
+        this(body, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param body     a list to append message body fields to
+     * @param maxDepth max nesting level of repeating groups
+     */
+    public GroupAssembler(List<FixMessageFragment> body, int maxDepth) {
+        assert (maxDepth > 0) : "MaxDepth must be positive.";
+        this.body = body;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Appends a field to the message body or to the current group entry.
+     *
+     * @param field       a field
+     * @param messageType a MsgType(35) of the message
+     * @throws IllegalArgumentException if groups are nested deeper than allowed
+     */
+    public void add(FixMessageFragment<?> field, String messageType) {
+        final int tagNum = field.getTagNum();
+        while (depth > 0) {
+            final int top = depth - 1;
+            final GroupLayout layout = layoutStack[top];
+            if (tagNum == layout.getDelimiterTag()) {
+                if (remainingEntries[top] > 0) {
+                    remainingEntries[top]--;
+                    final Group entry = new Group();
+                    groupFields[top].add(entry);
+                    entries[top] = entry;
+                    entry.add(field);
+                    return;
+                }
+            } else if (entries[top] != null && layout.isMember(tagNum)) {
+                final GroupField nested = startGroup(layout.getNestedGroup(tagNum), field);
+                entries[top].add(nested != null ? nested : field);
+                return;
+            }
+            pop();
+        }
+        GroupField group = null;
+        if (field instanceof IntField) {
+            group = startGroup(layouts(messageType).get(tagNum), field);
+        }
+        body.add(group != null ? group : field);
+    }
+
+    private Int2ObjectMap<GroupLayout> layouts(String messageType) {
+        if (layouts == null || !messageTypeEquals(messageType)) {
+            layouts = GroupLayout.forMessageType(messageType);
+            layoutsMessageType = messageType;
+        }
+        return layouts;
+    }
+
+    private boolean messageTypeEquals(String messageType) {
+        return (messageType == null) ? layoutsMessageType == null : messageType.equals(layoutsMessageType);
+    }
+
+    private GroupField startGroup(GroupLayout layout, FixMessageFragment<?> field) {
+        if (layout == null || !(field instanceof IntField)) {
+            return null;
+        }
+        final int count = ((IntField) field).intValue();
+        if (count < 0) {
+            return null;
+        }
+        final GroupField group = new GroupField(field.getTagNum(), Math.min(count, MAX_EXPECTED_GROUP_SIZE));
+        if (count > 0) {
+            push(layout, group, count);
+        }
+        return group;
+    }
+
+    private void push(GroupLayout layout, GroupField group, int count) {
+        if (depth == maxDepth) {
+            throw new IllegalArgumentException("Repeating groups are nested deeper than " + maxDepth);
+        }
+        if (layoutStack == null) {
+            layoutStack = new GroupLayout[4];
+            groupFields = new GroupField[4];
+            entries = new Group[4];
+            remainingEntries = new int[4];
+        } else if (depth == layoutStack.length) {
+            final int capacity = depth << 1;
+            layoutStack = Arrays.copyOf(layoutStack, capacity);
+            groupFields = Arrays.copyOf(groupFields, capacity);
+            entries = Arrays.copyOf(entries, capacity);
+            remainingEntries = Arrays.copyOf(remainingEntries, capacity);
+        }
+        layoutStack[depth] = layout;
+        groupFields[depth] = group;
+        entries[depth] = null;
+        remainingEntries[depth] = count;
+        depth++;
+    }
+
+    private void pop() {
+        depth--;
+        layoutStack[depth] = null;
+        groupFields[depth] = null;
+        entries[depth] = null;
+    }
+}
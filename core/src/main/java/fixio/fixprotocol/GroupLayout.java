@@ -0,0 +1,199 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Layout of a repeating group: a tag holding number of entries, a delimiter tag starting each entry,
+ * tags of member fields and layouts of nested groups.
+ * <p>
+ * Layouts are generated from FIX 5.0 SP2 dictionary.
+ * Same group may have different layouts in different messages,
+ * e.g. NoMDEntries starts with MDUpdateAction in MarketDataIncrementalRefresh
+ * and with MDEntryType in MarketDataSnapshotFullRefresh,
+ * so layouts are looked up by message type with {@link #forMessageType(String)}.
+ * </p>
+ */
+public final class GroupLayout {
+
+    private final int countTag;
+    private final int delimiterTag;
+    private final IntOpenHashSet memberTags = new IntOpenHashSet();
+    private final Int2ObjectOpenHashMap<GroupLayout> nestedGroups = new Int2ObjectOpenHashMap<>(0);
+
+    private GroupLayout(int countTag, int delimiterTag) {
+        this.countTag = countTag;
+        this.delimiterTag = delimiterTag;
+    }
+
+    /**
+     * Returns layouts of groups of given message type, by group count tag.
+     *
+     * @param messageType a MsgType(35) value
+     * @return an unmodifiable map of layouts. If message type is unknown, layouts of all known groups are returned.
+     */
+    public static Int2ObjectMap<GroupLayout> forMessageType(String messageType) {
+        if (messageType != null) {
+            Int2ObjectMap<GroupLayout> layouts = Registry.BY_MESSAGE_TYPE.get(messageType);
+            if (layouts != null) {
+                return layouts;
+            }
+        }
+        return Registry.ANY_MESSAGE_TYPE;
+    }
+
+    public int getCountTag() {
+        return countTag;
+    }
+
+    /**
+     * @return tag of the first field of every group entry
+     */
+    public int getDelimiterTag() {
+        return delimiterTag;
+    }
+
+    /**
+     * Checks whether tag belongs to a group entry, including delimiter tag and count tags of nested groups.
+     *
+     * @param tagNum a tag number
+     * @return true, if tag is a member of the group
+     */
+    public boolean isMember(int tagNum) {
+        return memberTags.contains(tagNum);
+    }
+
+    /**
+     * @param countTag count tag of a nested group
+     * @return layout of nested group or null, if there is no nested group with given count tag
+     */
+    public GroupLayout getNestedGroup(int countTag) {
+        return nestedGroups.get(countTag);
+    }
+
+    @Override
+    public String toString() {
+        return "GroupLayout{" + countTag + ", delimiter=" + delimiterTag + ", members=" + memberTags + '}';
+    }
+
+    /**
+     * Parses layouts written as {@code countTag{delimiterTag,memberTag,nestedCountTag{...},...},...}.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private int position;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        static Int2ObjectMap<GroupLayout> parse(String text) {
+            final Parser parser = new Parser(text);
+            final Int2ObjectOpenHashMap<GroupLayout> layouts = new Int2ObjectOpenHashMap<>();
+            while (parser.position < text.length()) {
+                final GroupLayout layout = parser.group(parser.tag());
+                layouts.putIfAbsent(layout.countTag, layout);
+                parser.skip(',');
+            }
+            layouts.trim();
+            return layouts;
+        }
+
+        private GroupLayout group(int countTag) {
+            expect('{');
+            final int delimiterTag = tag();
+            final GroupLayout layout = new GroupLayout(countTag, delimiterTag);
+            int tag = delimiterTag;
+            while (true) {
+                layout.memberTags.add(tag);
+                if (peek() == '{') {
+                    layout.nestedGroups.putIfAbsent(tag, group(tag));
+                }
+                if (skip('}')) {
+                    break;
+                }
+                expect(',');
+                tag = tag();
+            }
+            layout.memberTags.trim();
+            layout.nestedGroups.trim();
+            return layout;
+        }
+
+        private int tag() {
+            int tag = 0;
+            final int start = position;
+            while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                tag = tag * 10 + (text.charAt(position++) - '0');
+            }
+            if (position == start) {
+                throw new IllegalStateException("Tag expected at " + position + ": " + text);
+            }
+            return tag;
+        }
+
+        private char peek() {
+            return (position < text.length()) ? text.charAt(position) : 0;
+        }
+
+        private boolean skip(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!skip(c)) {
+                throw new IllegalStateException("'" + c + "' expected at " + position + ": " + text);
+            }
+        }
+    }
+
+    /**
+     * Holds parsed layouts. Loaded on first use.
+     */
+    private static final class Registry {
+
+        static final Map<String, Int2ObjectMap<GroupLayout>> BY_MESSAGE_TYPE;
+        static final Int2ObjectMap<GroupLayout> ANY_MESSAGE_TYPE;
+
+        static {
+            final String[] definitions = GroupLayoutDefinitions.DEFINITIONS;
+            final Map<String, Int2ObjectMap<GroupLayout>> byMessageType = new HashMap<>(definitions.length);
+            final Int2ObjectOpenHashMap<GroupLayout> any = new Int2ObjectOpenHashMap<>();
+            for (int i = 0; i < definitions.length; i += 2) {
+                final Int2ObjectMap<GroupLayout> layouts = Parser.parse(definitions[i + 1]);
+                byMessageType.put(definitions[i], Int2ObjectMaps.unmodifiable(layouts));
+                for (GroupLayout layout : layouts.values()) {
+                    any.putIfAbsent(layout.countTag, layout);
+                }
+            }
+            any.trim();
+            BY_MESSAGE_TYPE = byMessageType;
+            ANY_MESSAGE_TYPE = Int2ObjectMaps.unmodifiable(any);
+        }
+    }
+}
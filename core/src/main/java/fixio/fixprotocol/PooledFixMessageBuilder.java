@@ -0,0 +1,429 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol;
+
+import fixio.fixprotocol.fields.FieldFactory;
+import fixio.fixprotocol.fields.FixedPointNumber;
+import fixio.fixprotocol.fields.MutableDecimal;
+import fixio.fixprotocol.fields.StringField;
+import io.netty.util.internal.ObjectPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recyclable {@link FixMessageBuilder} storing field values in primitive arrays instead of field objects.
+ * <p>
+ * Integer, decimal and string fields are kept as {@code (tagNum, kind, value, aux)} entries,
+ * string values are copied to a shared byte slab. Other fields and repeating groups are kept as fragments.
+ * Arrays grow as needed and are reused, so building a message of a recycled instance allocates nothing.
+ * </p>
+ * <p>
+ * Instances are taken from a per-thread pool with {@link #newInstance(String)} and are returned to the pool by
+ * {@link fixio.netty.codec.FixMessageEncoder} after the message is written, so the builder must not be used
+ * after it is passed to {@link io.netty.channel.Channel#write(Object)}.
+ * A builder which is never written may be {@link #recycle() recycled} explicitly or just dropped.
+ * </p>
+ * <p>
+ * {@link #getBody()} creates field objects, it is intended for logging and application callbacks.
+ * </p>
+ * <p>
+ * <strong>This class is not thread safe!</strong>
+ * </p>
+ */
+public final class PooledFixMessageBuilder implements FixMessageBuilder {
+
+    /**
+     * Entry holding an int value, see {@link #longValue(int)}.
+     */
+    public static final byte KIND_INT = 0;
+    /**
+     * Entry holding a fixed-point decimal: {@link #longValue(int)} is a scaled value, {@link #aux(int)} is a scale.
+     */
+    public static final byte KIND_FIXED_POINT = 1;
+    /**
+     * Entry holding ASCII string: {@link #longValue(int)} is an offset in {@link #slab()}, {@link #aux(int)} is a length.
+     */
+    public static final byte KIND_STRING = 2;
+    /**
+     * Entry holding a {@link FixMessageFragment}, see {@link #fragment(int)}.
+     */
+    public static final byte KIND_FRAGMENT = 3;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_SLAB_CAPACITY = 256;
+
+    private static final ObjectPool<PooledFixMessageBuilder> POOL = ObjectPool.newPool(PooledFixMessageBuilder::new);
+
+    private final ObjectPool.Handle<PooledFixMessageBuilder> handle;
+    private final FixMessageHeader header = new FixMessageHeader();
+    private int[] tags = new int[INITIAL_CAPACITY];
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private DataType[] types = new DataType[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int[] aux = new int[INITIAL_CAPACITY];
+    private FixMessageFragment[] fragments = new FixMessageFragment[INITIAL_CAPACITY];
+    private byte[] slab = new byte[INITIAL_SLAB_CAPACITY];
+    private int slabLength;
+    private int size;
+    private List<FixMessageFragment> body;
+
+    private PooledFixMessageBuilder(ObjectPool.Handle<PooledFixMessageBuilder> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Takes a builder from the pool of the current thread.
+     *
+     * @param messageType value of message type (tag 35)
+     * @return an empty builder
+     */
+    public static PooledFixMessageBuilder newInstance(String messageType) {
+        final PooledFixMessageBuilder builder = POOL.get();
+        builder.header.setMessageType(messageType);
+        return builder;
+    }
+
+    private static boolean isIntType(DataType type) {
+        return switch (type) {
+            case INT, LENGTH, SEQNUM, NUMINGROUP, FLOAT, PRICE, PRICEOFFSET, QTY, AMT, PERCENTAGE -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isDecimalType(DataType type) {
+        return switch (type) {
+            case FLOAT, PRICE, PRICEOFFSET, QTY, AMT, PERCENTAGE -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isStringType(DataType type) {
+        return switch (type) {
+            case STRING, CHAR, LOCALMKTDATE, MONTHYEAR, CURRENCY, COUNTRY, EXCHANGE, LANGUAGE -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Clears the builder and returns it to the pool.
+     */
+    public void recycle() {
+        header.clear();
+        Arrays.fill(fragments, 0, size, null);
+        Arrays.fill(types, 0, size, null);
+        size = 0;
+        slabLength = 0;
+        body = null;
+        handle.recycle(this);
+    }
+
+    /**
+     * @return number of body entries
+     */
+    public int size() {
+        return size;
+    }
+
+    public int tagNum(int index) {
+        return tags[index];
+    }
+
+    /**
+     * @return one of {@link #KIND_INT}, {@link #KIND_FIXED_POINT}, {@link #KIND_STRING}, {@link #KIND_FRAGMENT}
+     */
+    public byte kind(int index) {
+        return kinds[index];
+    }
+
+    public long longValue(int index) {
+        return values[index];
+    }
+
+    public int aux(int index) {
+        return aux[index];
+    }
+
+    public FixMessageFragment fragment(int index) {
+        return fragments[index];
+    }
+
+    /**
+     * @return bytes of string values, valid until the builder is modified
+     */
+    public byte[] slab() {
+        return slab;
+    }
+
+    /**
+     * Adds a decimal field without creating a {@link FixedPointNumber}.
+     *
+     * @param tagNum      a tag number
+     * @param scaledValue unscaled value, e.g. 12345 for 123.45
+     * @param scale       number of fraction digits, from 0 to 18
+     * @return this builder
+     */
+    public PooledFixMessageBuilder addFixedPoint(int tagNum, long scaledValue, int scale) {
+        assert (tagNum > 0) : "TagNum must be positive. Got " + tagNum;
+        if (scale < 0 || scale > 18) {
+            throw new IllegalArgumentException("Invalid scale: " + scale);
+        }
+        final int i = append(tagNum, KIND_FIXED_POINT, DataType.FLOAT);
+        values[i] = scaledValue;
+        aux[i] = scale;
+        return this;
+    }
+
+    public PooledFixMessageBuilder addFixedPoint(FieldType field, long scaledValue, int scale) {
+        return addFixedPoint(field.tag(), scaledValue, scale);
+    }
+
+    public PooledFixMessageBuilder addFixedPoint(FieldType field, MutableDecimal value) {
+        return addFixedPoint(field.tag(), value.getScaledValue(), value.getScale());
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(FieldType field, String value) {
+        return add(field.type(), field.tag(), value);
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(FieldType field, char value) {
+        return addFragment(FieldFactory.fromIntValue(field.type(), field.tag(), value));
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(int tagNum, String value) {
+        return add(FieldType.forTag(tagNum).type(), tagNum, value);
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(DataType type, int tagNum, String value) {
+        assert (tagNum > 0) : "TagNum must be positive. Got " + tagNum;
+        assert (value != null) : "Value must be specified.";
+        if (!isStringType(type)) {
+            return addFragment(FieldFactory.fromStringValue(type, tagNum, value));
+        }
+        final int length = value.length();
+        ensureSlabCapacity(length);
+        for (int j = 0; j < length; j++) {
+            slab[slabLength + j] = (byte) value.charAt(j);
+        }
+        final int i = append(tagNum, KIND_STRING, type);
+        values[i] = slabLength;
+        aux[i] = length;
+        slabLength += length;
+        return this;
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(FieldType field, int value) {
+        return add(field.type(), field.tag(), value);
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(int tagNum, int value) {
+        return add(FieldType.forTag(tagNum).type(), tagNum, value);
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(DataType type, int tagNum, int value) {
+        assert (tagNum > 0) : "Tag must be positive.";
+        if (!isIntType(type)) {
+            return addFragment(FieldFactory.fromIntValue(type, tagNum, value));
+        }
+        values[append(tagNum, KIND_INT, type)] = value;
+        return this;
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(FieldType field, long value) {
+        return add(field.type(), field.tag(), value);
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(int tagNum, long value) {
+        return add(FieldType.forTag(tagNum).type(), tagNum, value);
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(DataType type, int tagNum, long value) {
+        assert (tagNum > 0) : "Tag must be positive.";
+        if (!isIntType(type)) {
+            return addFragment(FieldFactory.fromLongValue(type, tagNum, value));
+        }
+        // same as IntField
+        values[append(tagNum, KIND_INT, type)] = (int) value;
+        return this;
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(FieldType field, FixedPointNumber value) {
+        return add(field.type(), field.tag(), value);
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(int tagNum, FixedPointNumber value) {
+        return add(FieldType.forTag(tagNum).type(), tagNum, value);
+    }
+
+    @Override
+    public PooledFixMessageBuilder add(DataType type, int tagNum, FixedPointNumber value) {
+        assert (tagNum > 0) : "TagNum must be positive. Got " + tagNum;
+        assert (value != null) : "Value must be specified.";
+        if (!isDecimalType(type)) {
+            return addFragment(FieldFactory.fromFixedPointValue(type, tagNum, value));
+        }
+        final int i = append(tagNum, KIND_FIXED_POINT, type);
+        values[i] = value.getScaledValue();
+        aux[i] = value.getScale();
+        return this;
+    }
+
+    @Override
+    public Group newGroup(int tagNum) {
+        return addGroup(tagNum, new Group());
+    }
+
+    @Override
+    public Group newGroup(int tagNum, int expectedGroupSize) {
+        return addGroup(tagNum, new Group(expectedGroupSize));
+    }
+
+    @Override
+    public Group newGroup(FieldType fieldType) {
+        return newGroup(fieldType.tag());
+    }
+
+    @Override
+    public Group newGroup(FieldType fieldType, int expectedGroupSize) {
+        return newGroup(fieldType.tag(), expectedGroupSize);
+    }
+
+    @Override
+    public FixMessageHeader getHeader() {
+        return header;
+    }
+
+    @Override
+    public void copyHeader(FixMessageHeader header) {
+        this.header.setMessageType(header.getMessageType());
+        this.header.setMsgSeqNum(header.getMsgSeqNum());
+        this.header.setSenderCompID(header.getSenderCompID());
+        this.header.setSenderSubID(header.getSenderSubID());
+        this.header.setSenderLocationID(header.getSenderLocationID());
+        this.header.setBeginString(header.getBeginString());
+        this.header.setTargetCompID(header.getTargetCompID());
+        this.header.setTargetSubID(header.getTargetSubID());
+        this.header.setTargetLocationID(header.getTargetLocationID());
+    }
+
+    /**
+     * Creates field objects of the body entries.
+     *
+     * @return an unmodifiable list, valid until the builder is modified
+     */
+    @Override
+    public List<FixMessageFragment> getBody() {
+        if (body == null) {
+            final List<FixMessageFragment> fields = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                fields.add(toFragment(i));
+            }
+            body = Collections.unmodifiableList(fields);
+        }
+        return body;
+    }
+
+    @Override
+    public void copyBody(List<? extends FixMessageFragment> body) {
+        Arrays.fill(fragments, 0, size, null);
+        size = 0;
+        slabLength = 0;
+        for (FixMessageFragment fragment : body) {
+            addFragment(fragment);
+        }
+    }
+
+    private FixMessageFragment toFragment(int i) {
+        return switch (kinds[i]) {
+            case KIND_INT -> FieldFactory.fromIntValue(types[i], tags[i], (int) values[i]);
+            case KIND_FIXED_POINT -> FieldFactory.fromFixedPointValue(DataType.FLOAT, tags[i],
+                    new FixedPointNumber(values[i], (byte) aux[i]));
+            case KIND_STRING -> new StringField(tags[i], slab, (int) values[i], aux[i]);
+            default -> fragments[i];
+        };
+    }
+
+    private PooledFixMessageBuilder addFragment(FixMessageFragment fragment) {
+        fragments[append(fragment.getTagNum(), KIND_FRAGMENT, null)] = fragment;
+        return this;
+    }
+
+    private Group addGroup(int tagNum, Group group) {
+        GroupField groupField = null;
+        for (int i = size - 1; i >= 0; i--) {
+            if (tags[i] == tagNum) {
+                if (fragments[i] instanceof GroupField field) {
+                    groupField = field;
+                }
+                break;
+            }
+        }
+        if (groupField == null) {
+            groupField = new GroupField(tagNum);
+            addFragment(groupField);
+        }
+        groupField.add(group);
+        return group;
+    }
+
+    private int append(int tagNum, byte kind, DataType type) {
+        if (size == tags.length) {
+            final int capacity = size << 1;
+            tags = Arrays.copyOf(tags, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            types = Arrays.copyOf(types, capacity);
+            values = Arrays.copyOf(values, capacity);
+            aux = Arrays.copyOf(aux, capacity);
+            fragments = Arrays.copyOf(fragments, capacity);
+        }
+        final int i = size++;
+        tags[i] = tagNum;
+        kinds[i] = kind;
+        types[i] = type;
+        body = null;
+        return i;
+    }
+
+    private void ensureSlabCapacity(int length) {
+        if (slabLength + length > slab.length) {
+            slab = Arrays.copyOf(slab, Math.max(slab.length << 1, slabLength + length));
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(512);
+        final String sp = System.lineSeparator();
+        sb.append(sp);
+        sb.append("header{").append(header).append("}").append(sp);
+        sb.append("body{").append(getBody()).append("}").append(sp);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Finds message body fragments by tag number.
+ * <p>
+ * Small bodies are scanned linearly. For a body of more than {@link #LINEAR_SCAN_THRESHOLD} fragments,
+ * an open-addressing table of tag numbers to first and last positions is built on the first lookup.
+ * Positions of repeated tags are linked, so all fragments with the same tag are found without scanning.
+ * Fragments appended to the body later are indexed on the next lookup.
+ * If the body is modified otherwise, {@link #invalidate()} should be called.
+ * </p>
+ * <p>
+ * <strong>This class is not thread safe!</strong>
+ * </p>
+ */
+final class TagIndex {
+
+    static final int LINEAR_SCAN_THRESHOLD = 8;
+
+    private static final int NONE = -1;
+    private static final int MIN_CAPACITY = 32;
+
+    private final List<? extends FixMessageFragment> body;
+    private final FragmentsView view = new FragmentsView();
+
+    /**
+     * Tag numbers, 0 marks an empty slot.
+     */
+    private int[] tags;
+    private int[] firstPositions;
+    private int[] lastPositions;
+    private int[] counts;
+    /**
+     * Next position of the same tag, by position.
+     */
+    private int[] nextPositions;
+    private int mask;
+    private int distinctTags;
+    private int indexedSize;
+
+    TagIndex(List<? extends FixMessageFragment> body) {
+        this.body = body;
+    }
+
+    /**
+     * Discards indexed positions, e.g. when the body is cleared.
+     */
+    void invalidate() {
+        if (tags != null) {
+            Arrays.fill(tags, 0);
+        }
+        distinctTags = 0;
+        indexedSize = 0;
+    }
+
+    FixMessageFragment getFirst(int tagNum) {
+        if (!ensureIndexed()) {
+            for (int i = 0, size = body.size(); i < size; i++) {
+                final FixMessageFragment fragment = body.get(i);
+                if (fragment.getTagNum() == tagNum) {
+                    return fragment;
+                }
+            }
+            return null;
+        }
+        final int slot = slot(tagNum);
+        if (slot < 0) {
+            return null;
+        }
+        final FixMessageFragment fragment = body.get(firstPositions[slot]);
+        if (fragment.getTagNum() != tagNum) {
+            // body was modified in place
+            invalidate();
+            return getFirst(tagNum);
+        }
+        return fragment;
+    }
+
+    FixMessageFragment getLast(int tagNum) {
+        if (!ensureIndexed()) {
+            for (int i = body.size() - 1; i >= 0; i--) {
+                final FixMessageFragment fragment = body.get(i);
+                if (fragment.getTagNum() == tagNum) {
+                    return fragment;
+                }
+            }
+            return null;
+        }
+        final int slot = slot(tagNum);
+        if (slot < 0) {
+            return null;
+        }
+        final FixMessageFragment fragment = body.get(lastPositions[slot]);
+        if (fragment.getTagNum() != tagNum) {
+            // body was modified in place
+            invalidate();
+            return getLast(tagNum);
+        }
+        return fragment;
+    }
+
+    /**
+     * Returns fragments with given tag number.
+     *
+     * The view is reused: it is valid until the next call or until the body is modified.
+     *
+     * @param tagNum a tag number
+     * @return an unmodifiable view of the body
+     */
+    List<FixMessageFragment> getAll(int tagNum) {
+        if (!ensureIndexed()) {
+            int first = NONE;
+            int count = 0;
+            for (int i = 0, size = body.size(); i < size; i++) {
+                if (body.get(i).getTagNum() == tagNum) {
+                    if (first == NONE) {
+                        first = i;
+                    }
+                    count++;
+                }
+            }
+            return (count == 0) ? Collections.emptyList() : view.reset(tagNum, first, count);
+        }
+        final int slot = slot(tagNum);
+        if (slot < 0) {
+            return Collections.emptyList();
+        }
+        return view.reset(tagNum, firstPositions[slot], counts[slot]);
+    }
+
+    private int nextPosition(int position, int tagNum) {
+        if (tags != null && position < indexedSize) {
+            return nextPositions[position];
+        }
+        for (int i = position + 1, size = body.size(); i < size; i++) {
+            if (body.get(i).getTagNum() == tagNum) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Indexes fragments appended since the last lookup.
+     *
+     * @return false, if body is small and should be scanned linearly
+     */
+    private boolean ensureIndexed() {
+        final int size = body.size();
+        if (tags == null) {
+            if (size <= LINEAR_SCAN_THRESHOLD) {
+                return false;
+            }
+            allocate(Math.max(MIN_CAPACITY, HashCommon.nextPowerOfTwo(size * 2)));
+            nextPositions = new int[size];
+        } else if (size < indexedSize) {
+            invalidate();
+        }
+        if (size > indexedSize) {
+            if (nextPositions.length < size) {
+                nextPositions = Arrays.copyOf(nextPositions, Math.max(size, nextPositions.length * 2));
+            }
+            for (int position = indexedSize; position < size; position++) {
+                put(body.get(position).getTagNum(), position);
+            }
+            indexedSize = size;
+        }
+        return true;
+    }
+
+    private void allocate(int capacity) {
+        tags = new int[capacity];
+        firstPositions = new int[capacity];
+        lastPositions = new int[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(int tagNum) {
+        int slot = HashCommon.mix(tagNum) & mask;
+        int tag;
+        while ((tag = tags[slot]) != 0) {
+            if (tag == tagNum) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NONE;
+    }
+
+    private void put(int tagNum, int position) {
+        nextPositions[position] = NONE;
+        int slot = HashCommon.mix(tagNum) & mask;
+        int tag;
+        while ((tag = tags[slot]) != 0) {
+            if (tag == tagNum) {
+                nextPositions[lastPositions[slot]] = position;
+                lastPositions[slot] = position;
+                counts[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        tags[slot] = tagNum;
+        firstPositions[slot] = position;
+        lastPositions[slot] = position;
+        counts[slot] = 1;
+        if (++distinctTags * 2 > tags.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        final int[] oldTags = tags;
+        final int[] oldFirstPositions = firstPositions;
+        final int[] oldLastPositions = lastPositions;
+        final int[] oldCounts = counts;
+        allocate(oldTags.length * 2);
+        for (int i = 0; i < oldTags.length; i++) {
+            final int tagNum = oldTags[i];
+            if (tagNum != 0) {
+                int slot = HashCommon.mix(tagNum) & mask;
+                while (tags[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                tags[slot] = tagNum;
+                firstPositions[slot] = oldFirstPositions[i];
+                lastPositions[slot] = oldLastPositions[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Fragments with the same tag, read from the body on access.
+     * One instance is reset for every lookup.
+     */
+    private final class FragmentsView extends AbstractList<FixMessageFragment> implements RandomAccess {
+
+        private int tagNum;
+        private int firstPosition;
+        private int size;
+        private int cursorIndex;
+        private int cursorPosition;
+
+        private FragmentsView reset(int tagNum, int firstPosition, int size) {
+            this.tagNum = tagNum;
+            this.firstPosition = firstPosition;
+            this.size = size;
+            this.cursorIndex = 0;
+            this.cursorPosition = firstPosition;
+            return this;
+        }
+
+        @Override
+        public FixMessageFragment get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            if (index < cursorIndex) {
+                cursorPosition = firstPosition;
+                cursorIndex = 0;
+            }
+            while (cursorIndex < index) {
+                cursorPosition = nextPosition(cursorPosition, tagNum);
+                cursorIndex++;
+            }
+            return body.get(cursorPosition);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -115,7 +115,7 @@ public class FieldFactory {
 
     public static <F extends AbstractField<?>> F fromLongValue(int tagNum, long value) {
         FieldType fieldType = FieldType.forTag(tagNum);
-        return fromLongValue(fieldType, value);
+        return fromLongValue(fieldType.type(), tagNum, value);
     }
 
     public static <F extends AbstractField<?>> F fromLongValue(FieldType fieldType, long value) {
@@ -15,6 +15,8 @@
  */
 package fixio.fixprotocol.fields;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
 /**
  * High performance thread-safe Fixed-Point Number implementation.
  * <p>
@@ -26,6 +28,18 @@ package fixio.fixprotocol.fields;
  */
 public class FixedPointNumber extends Number {
 
+    /**
+     * Powers of ten which fit into long.
+     */
+    static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
     /**
      * Negative or positive scaled value decimal value: <code>scaledValue := value * (10^scale)</code>
      */
@@ -83,8 +97,7 @@ public class FixedPointNumber extends Number {
 
     public FixedPointNumber(double value, int precision) {
         this.scale = (byte) precision;
-        long factor = (long) Math.pow(10.0, scale);
-        scaledValue = Math.round(value * factor);
+        scaledValue = Math.round(value * doublePow10(scale));
     }
 
     public FixedPointNumber(String s) {
@@ -101,7 +114,7 @@ public class FixedPointNumber extends Number {
         if (scale == 0) {
             return scaledValue;
         }
-        return scaledValue / ((long) Math.pow(10.0, scale));
+        return (scale < POW10.length) ? scaledValue / POW10[scale] : 0;
     }
 
     @Override
@@ -112,14 +125,68 @@ public class FixedPointNumber extends Number {
 
     @Override
     public double doubleValue() {
-        double factor = Math.pow(10.0, scale);
-        return scaledValue / factor;
+        return scaledValue / doublePow10(scale);
+    }
+
+    static double doublePow10(int scale) {
+        return (scale < POW10.length) ? POW10[scale] : Math.pow(10.0, scale);
     }
 
     public long getScaledValue() {
         return scaledValue;
     }
 
+    /**
+     * Returns value scaled to given scale: <code>value * (10^scale)</code>.
+     *
+     * @param scale number of digits to the right of the decimal point
+     * @return scaled value
+     * @throws ArithmeticException if value has more significant fraction digits than the scale, or on overflow
+     */
+    public long getScaledValue(int scale) {
+        return rescale(scaledValue, this.scale, scale);
+    }
+
+    /**
+     * Converts scaled value from one scale to another without loss of precision.
+     *
+     * @param scaledValue a scaled value
+     * @param fromScale   scale of the value
+     * @param toScale     required scale
+     * @return value scaled to {@code toScale}
+     * @throws ArithmeticException if precision is lost or on overflow
+     */
+    public static long rescale(long scaledValue, int fromScale, int toScale) {
+        if (toScale < 0 || fromScale < 0) {
+            throw new ArithmeticException("Scale should not be negative");
+        }
+        if (toScale == fromScale) {
+            return scaledValue;
+        }
+        if (toScale > fromScale) {
+            final int diff = toScale - fromScale;
+            if (diff >= POW10.length) {
+                if (scaledValue == 0) {
+                    return 0;
+                }
+                throw new ArithmeticException("Overflow");
+            }
+            return Math.multiplyExact(scaledValue, POW10[diff]);
+        }
+        final int diff = fromScale - toScale;
+        if (diff >= POW10.length) {
+            if (scaledValue == 0) {
+                return 0;
+            }
+            throw new ArithmeticException("Rounding necessary");
+        }
+        final long factor = POW10[diff];
+        if (scaledValue % factor != 0) {
+            throw new ArithmeticException("Rounding necessary");
+        }
+        return scaledValue / factor;
+    }
+
     public byte getScale() {
         return scale;
     }
@@ -141,38 +208,59 @@ public class FixedPointNumber extends Number {
         return result;
     }
 
-    private String insertPointBefore(int idx) {
-        StringBuilder sb = new StringBuilder("0.");
-        for (int i = idx; i < 0; i++) {
-            sb.append("0");
+    /**
+     * Returns length of the decimal representation: {@code [-]integerPart[.fraction]},
+     * fraction is zero-padded to the scale. Zero is always written as {@code "0"}.
+     */
+    static int formattedLength(long scaledValue, int scale) {
+        final int sign = (scaledValue < 0) ? 1 : 0;
+        // digits are counted on a negative value, so Long.MIN_VALUE is handled too
+        final long v = (scaledValue < 0) ? scaledValue : -scaledValue;
+        int digits = 1;
+        for (long t = v; t <= -10; t /= 10) {
+            digits++;
         }
-        return sb.toString();
-    }
-
-    @Override
-    public String toString() {
         if (scale == 0 || scaledValue == 0) {
-            return String.valueOf(scaledValue);
+            return sign + digits;
         }
-        int factor = (int) Math.pow(10.0, scale);
-        long beforePoint = scaledValue / factor;
+        return sign + Math.max(digits, scale + 1) + 1;
+    }
 
-        long afterPoint = Math.abs(scaledValue - beforePoint * factor);
-        if (beforePoint == 0 && scaledValue < 0) {
-            return "-0." + afterPoint;
+    /**
+     * Writes decimal representation of {@link #formattedLength(long, int)} bytes into the array.
+     */
+    static void format(long scaledValue, int scale, byte[] dst, int offset, int length) {
+        long v = scaledValue;
+        int start = offset;
+        if (v < 0) {
+            dst[start++] = '-';
         } else {
-            String scaledStr = String.valueOf(scaledValue);
-            int idx = scaledStr.length() - scale;
-            String insertPoint;
-            if (idx <= 0) {
-                insertPoint = insertPointBefore(idx);
-                idx = 0;
+            v = -v;
+        }
+        final int end = offset + length;
+        final int pointIndex = (scale == 0 || scaledValue == 0) ? -1 : end - 1 - scale;
+        for (int i = end - 1; i >= start; i--) {
+            if (i == pointIndex) {
+                dst[i] = '.';
             } else {
-                insertPoint = ".";
+                dst[i] = (byte) ('0' - (int) (v % 10));
+                v /= 10;
             }
-            return new StringBuilder(scaledStr)
-                    .insert(idx, insertPoint)
-                    .toString();
         }
     }
+
+    /**
+     * @return ASCII bytes of {@link #toString()}
+     */
+    public byte[] toBytes() {
+        final byte[] bytes = new byte[formattedLength(scaledValue, scale)];
+        format(scaledValue, scale, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        final byte[] bytes = toBytes();
+        return new String(bytes, 0, bytes.length, US_ASCII);
+    }
 }
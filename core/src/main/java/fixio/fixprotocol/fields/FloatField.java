@@ -17,8 +17,6 @@ package fixio.fixprotocol.fields;
 
 import java.util.Objects;
 
-import static java.nio.charset.StandardCharsets.US_ASCII;
-
 public class FloatField extends AbstractField<FixedPointNumber> {
 
     private final FixedPointNumber value;
@@ -40,8 +38,7 @@ public class FloatField extends AbstractField<FixedPointNumber> {
 
     @Override
     public byte[] getBytes() {
-        String s = value.toString();
-        return s.getBytes(US_ASCII);
+        return value.toBytes();
     }
 
     public float floatValue() {
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol.fields;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.charset.StandardCharsets;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Mutable fixed-point decimal: a long scaled value and a scale, see {@link FixedPointNumber}.
+ * <p>
+ * Arithmetic, comparison and rescaling use a power-of-ten table and never allocate.
+ * Values are parsed from a {@link ByteBuf} range and written to a {@link ByteBuf}, so prices and quantities
+ * can be handled on the order path without creating garbage.
+ * Scaled values are exact: operations throw {@link ArithmeticException} on overflow or loss of precision.
+ * </p>
+ * <p>
+ * <strong>This class is not thread safe!</strong>
+ * </p>
+ */
+public final class MutableDecimal implements Comparable<MutableDecimal> {
+
+    /**
+     * Max length of formatted value: sign, digits of max scale, and a point.
+     */
+    private static final int MAX_FORMATTED_LENGTH = 1 + Byte.MAX_VALUE + 1 + 1;
+
+    private static final FastThreadLocal<byte[]> SCRATCH = new FastThreadLocal<>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[MAX_FORMATTED_LENGTH];
+        }
+    };
+
+    private long scaledValue;
+    private byte scale;
+
+    public MutableDecimal() {
+    }
+
+    public MutableDecimal(long scaledValue, int scale) {
+        set(scaledValue, scale);
+    }
+
+    private static byte checkScale(int scale) {
+        if (scale < 0 || scale > Byte.MAX_VALUE) {
+            throw new ArithmeticException("Scale out of range: " + scale);
+        }
+        return (byte) scale;
+    }
+
+    /**
+     * Compares {@code value * 10^diff} with {@code other}, without overflow.
+     */
+    private static int compareScaledUp(long value, int diff, long other) {
+        if (value == 0) {
+            return -Long.signum(other);
+        }
+        if (diff >= FixedPointNumber.POW10.length) {
+            return Long.signum(value);
+        }
+        final long factor = FixedPointNumber.POW10[diff];
+        final long limit = Long.MAX_VALUE / factor;
+        if (value > limit || value < -limit) {
+            // magnitude of scaled value exceeds any long
+            return Long.signum(value);
+        }
+        return Long.compare(value * factor, other);
+    }
+
+    public MutableDecimal set(long scaledValue, int scale) {
+        this.scale = checkScale(scale);
+        this.scaledValue = scaledValue;
+        return this;
+    }
+
+    public MutableDecimal set(MutableDecimal value) {
+        this.scaledValue = value.scaledValue;
+        this.scale = value.scale;
+        return this;
+    }
+
+    public MutableDecimal set(FixedPointNumber value) {
+        return set(value.getScaledValue(), value.getScale());
+    }
+
+    public MutableDecimal setZero() {
+        scaledValue = 0;
+        scale = 0;
+        return this;
+    }
+
+    public long getScaledValue() {
+        return scaledValue;
+    }
+
+    /**
+     * Returns value scaled to given scale: <code>value * (10^scale)</code>.
+     *
+     * @throws ArithmeticException if value has more significant fraction digits than the scale, or on overflow
+     */
+    public long getScaledValue(int scale) {
+        return FixedPointNumber.rescale(scaledValue, this.scale, scale);
+    }
+
+    public byte getScale() {
+        return scale;
+    }
+
+    public boolean isZero() {
+        return scaledValue == 0;
+    }
+
+    public int signum() {
+        return Long.signum(scaledValue);
+    }
+
+    /**
+     * Changes the scale, keeping the value.
+     *
+     * @throws ArithmeticException if precision is lost or on overflow
+     */
+    public MutableDecimal rescale(int scale) {
+        final byte newScale = checkScale(scale);
+        scaledValue = FixedPointNumber.rescale(scaledValue, this.scale, newScale);
+        this.scale = newScale;
+        return this;
+    }
+
+    /**
+     * Adds a value. The result has the greater of two scales.
+     *
+     * @throws ArithmeticException on overflow
+     */
+    public MutableDecimal add(long scaledValue, int scale) {
+        checkScale(scale);
+        if (scale > this.scale) {
+            rescale(scale);
+            this.scaledValue = Math.addExact(this.scaledValue, scaledValue);
+        } else {
+            this.scaledValue = Math.addExact(this.scaledValue, FixedPointNumber.rescale(scaledValue, scale, this.scale));
+        }
+        return this;
+    }
+
+    public MutableDecimal add(MutableDecimal value) {
+        return add(value.scaledValue, value.scale);
+    }
+
+    /**
+     * Subtracts a value. The result has the greater of two scales.
+     *
+     * @throws ArithmeticException on overflow
+     */
+    public MutableDecimal subtract(long scaledValue, int scale) {
+        checkScale(scale);
+        if (scale > this.scale) {
+            rescale(scale);
+            this.scaledValue = Math.subtractExact(this.scaledValue, scaledValue);
+        } else {
+            this.scaledValue = Math.subtractExact(this.scaledValue, FixedPointNumber.rescale(scaledValue, scale, this.scale));
+        }
+        return this;
+    }
+
+    public MutableDecimal subtract(MutableDecimal value) {
+        return subtract(value.scaledValue, value.scale);
+    }
+
+    public MutableDecimal negate() {
+        scaledValue = Math.negateExact(scaledValue);
+        return this;
+    }
+
+    /**
+     * Compares numeric values, regardless of scales: {@code 1.0} is equal to {@code 1.00}.
+     */
+    public int compareTo(long scaledValue, int scale) {
+        if (scale == this.scale) {
+            return Long.compare(this.scaledValue, scaledValue);
+        }
+        if (scale > this.scale) {
+            return compareScaledUp(this.scaledValue, scale - this.scale, scaledValue);
+        }
+        return -compareScaledUp(scaledValue, this.scale - scale, this.scaledValue);
+    }
+
+    @Override
+    public int compareTo(MutableDecimal o) {
+        return compareTo(o.scaledValue, o.scale);
+    }
+
+    /**
+     * Parses a decimal value, the scale is the number of fraction digits.
+     *
+     * @param buf    source buffer
+     * @param offset value index in the buffer
+     * @param length value length
+     * @return this decimal
+     * @throws NumberFormatException if value is not a decimal number
+     * @throws ArithmeticException   on overflow
+     */
+    public MutableDecimal parse(ByteBuf buf, int offset, int length) {
+        if (length <= 0) {
+            throw new NumberFormatException("Empty value");
+        }
+        final byte first = buf.getByte(offset);
+        final boolean negative = first == '-';
+        int i = (negative || first == '+') ? 1 : 0;
+        if (i == length) {
+            throw new NumberFormatException("Invalid decimal value");
+        }
+        long mantissa = 0;
+        int fractionDigits = -1;
+        for (; i < length; i++) {
+            final byte b = buf.getByte(offset + i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (b < '0' || b > '9') {
+                throw new NumberFormatException("Invalid decimal value: " + buf.toString(offset, length, StandardCharsets.US_ASCII));
+            }
+            // accumulated as negative, so Long.MIN_VALUE is parsed too
+            mantissa = Math.subtractExact(Math.multiplyExact(mantissa, 10), b - '0');
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        return set(negative ? mantissa : Math.negateExact(mantissa), Math.max(fractionDigits, 0));
+    }
+
+    /**
+     * Writes the value as {@code [-]integerPart[.fraction]}, fraction is zero-padded to the scale.
+     *
+     * @param out destination buffer
+     * @return number of written bytes
+     */
+    public int writeTo(ByteBuf out) {
+        final int length = FixedPointNumber.formattedLength(scaledValue, scale);
+        out.ensureWritable(length);
+        final int index = out.writerIndex();
+        if (out.hasArray()) {
+            FixedPointNumber.format(scaledValue, scale, out.array(), out.arrayOffset() + index, length);
+            out.writerIndex(index + length);
+        } else {
+            final byte[] bytes = SCRATCH.get();
+            FixedPointNumber.format(scaledValue, scale, bytes, 0, length);
+            out.writeBytes(bytes, 0, length);
+        }
+        return length;
+    }
+
+    public long longValue() {
+        return (scale < FixedPointNumber.POW10.length) ? scaledValue / FixedPointNumber.POW10[scale] : 0;
+    }
+
+    public double doubleValue() {
+        return scaledValue / FixedPointNumber.doublePow10(scale);
+    }
+
+    public FixedPointNumber toFixedPointNumber() {
+        return new FixedPointNumber(scaledValue, scale);
+    }
+
+    @Override
+    public String toString() {
+        final int length = FixedPointNumber.formattedLength(scaledValue, scale);
+        final byte[] bytes = new byte[length];
+        FixedPointNumber.format(scaledValue, scale, bytes, 0, length);
+        return new String(bytes, 0, length, US_ASCII);
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol.fields;
+
+import fixio.fixprotocol.FixConst;
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Parses and formats UTCTimestamp values, {@code yyyyMMdd-HH:mm:ss[.sss[sss[sss[sss]]]]},
+ * without {@link java.time.format.DateTimeFormatter}.
+ * <p>
+ * Timestamps are represented as nanoseconds since the epoch, so picoseconds are truncated.
+ * Supported range is from 1677-09-21 to 2262-04-11.
+ * </p>
+ */
+public final class UTCTimestampCodec {
+
+    public static final int SECONDS_LENGTH = 17;
+    public static final int MILLIS_LENGTH = 21;
+    public static final int MICROS_LENGTH = 24;
+    public static final int NANOS_LENGTH = 27;
+    public static final int PICOS_LENGTH = 30;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int[] FRACTION_SCALE = {
+            1_000_000_000, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1
+    };
+
+    /**
+     * Buffer for timestamps read from or written to direct buffers.
+     */
+    private static final FastThreadLocal<byte[]> SCRATCH = new FastThreadLocal<>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[PICOS_LENGTH];
+        }
+    };
+
+    private UTCTimestampCodec() {
+    }
+
+    /**
+     * @param precision timestamp precision
+     * @return length of formatted timestamp
+     */
+    public static int length(TimeStampPrecision precision) {
+        return switch (precision) {
+            case SECONDS -> SECONDS_LENGTH;
+            case MILLIS -> MILLIS_LENGTH;
+            case MICROS -> MICROS_LENGTH;
+            case NANOS -> NANOS_LENGTH;
+            case PICOS -> PICOS_LENGTH;
+        };
+    }
+
+    /**
+     * Guesses precision by timestamp length: fraction digits which don't make a complete precision are ignored.
+     *
+     * @param length length of formatted timestamp
+     * @return timestamp precision
+     */
+    public static TimeStampPrecision precisionOf(int length) {
+        if (length >= PICOS_LENGTH) {
+            return TimeStampPrecision.PICOS;
+        } else if (length >= NANOS_LENGTH) {
+            return TimeStampPrecision.NANOS;
+        } else if (length >= MICROS_LENGTH) {
+            return TimeStampPrecision.MICROS;
+        } else if (length >= MILLIS_LENGTH) {
+            return TimeStampPrecision.MILLIS;
+        }
+        return TimeStampPrecision.SECONDS;
+    }
+
+    /**
+     * Returns precision of one of {@link FixConst} date-time formatters.
+     *
+     * @param formatter a formatter
+     * @return timestamp precision or null, if formatter is not a {@link FixConst} UTCTimestamp formatter.
+     */
+    public static TimeStampPrecision precisionOf(DateTimeFormatterWrapper formatter) {
+        if (formatter == FixConst.DATE_TIME_FORMATTER_MILLIS) {
+            return TimeStampPrecision.MILLIS;
+        } else if (formatter == FixConst.DATE_TIME_FORMATTER_SECONDS) {
+            return TimeStampPrecision.SECONDS;
+        } else if (formatter == FixConst.DATE_TIME_FORMATTER_MICROS) {
+            return TimeStampPrecision.MICROS;
+        } else if (formatter == FixConst.DATE_TIME_FORMATTER_NANOS) {
+            return TimeStampPrecision.NANOS;
+        } else if (formatter == FixConst.DATE_TIME_FORMATTER_PICOS) {
+            return TimeStampPrecision.PICOS;
+        }
+        return null;
+    }
+
+    public static long toEpochNanos(ZonedDateTime dateTime) {
+        return dateTime.toEpochSecond() * NANOS_PER_SECOND + dateTime.getNano();
+    }
+
+    public static ZonedDateTime toZonedDateTime(long epochNanos) {
+        return ZonedDateTime.ofInstant(toInstant(epochNanos), FixConst.DEFAULT_ZONE_ID);
+    }
+
+    public static Instant toInstant(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND), Math.floorMod(epochNanos, NANOS_PER_SECOND));
+    }
+
+    /**
+     * Parses UTCTimestamp.
+     *
+     * @param bytes  source bytes
+     * @param offset timestamp offset
+     * @param length timestamp length
+     * @return nanoseconds since the epoch
+     * @throws ParseException if timestamp is malformed
+     */
+    public static long parseEpochNanos(byte[] bytes, int offset, int length) throws ParseException {
+        if (length < SECONDS_LENGTH) {
+            throw error(bytes, offset, length, 0);
+        }
+        final int year = digits(bytes, offset, 4);
+        final int month = digits(bytes, offset + 4, 2);
+        final int day = digits(bytes, offset + 6, 2);
+        final int hour = digits(bytes, offset + 9, 2);
+        final int minute = digits(bytes, offset + 12, 2);
+        final int second = digits(bytes, offset + 15, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0
+                || bytes[offset + 8] != '-' || bytes[offset + 11] != ':' || bytes[offset + 14] != ':') {
+            throw error(bytes, offset, length, 0);
+        }
+        int nanos = 0;
+        if (length > SECONDS_LENGTH) {
+            if (bytes[offset + SECONDS_LENGTH] != '.' || length == SECONDS_LENGTH + 1) {
+                throw error(bytes, offset, length, SECONDS_LENGTH);
+            }
+            // digits beyond nanoseconds are checked, but ignored
+            final int fractionDigits = length - SECONDS_LENGTH - 1;
+            final int digits = Math.min(fractionDigits, 9);
+            nanos = digits(bytes, offset + SECONDS_LENGTH + 1, digits);
+            if (nanos < 0 || (fractionDigits > 9 && !isDigits(bytes, offset + SECONDS_LENGTH + 10, fractionDigits - 9))) {
+                throw error(bytes, offset, length, SECONDS_LENGTH + 1);
+            }
+            nanos *= FRACTION_SCALE[digits];
+        }
+        return epochNanos(year, month, day, hour, minute, second, nanos, bytes, offset, length);
+    }
+
+    /**
+     * Parses UTCTimestamp from the buffer, without changing its indexes.
+     *
+     * @param buf    source buffer
+     * @param index  timestamp index in the buffer
+     * @param length timestamp length
+     * @return nanoseconds since the epoch
+     * @throws ParseException if timestamp is malformed
+     */
+    public static long parseEpochNanos(ByteBuf buf, int index, int length) throws ParseException {
+        if (buf.hasArray()) {
+            return parseEpochNanos(buf.array(), buf.arrayOffset() + index, length);
+        }
+        // timestamps longer than picoseconds are unusual, but are parsed as they are from an array
+        final byte[] bytes = (length <= PICOS_LENGTH) ? SCRATCH.get() : new byte[length];
+        buf.getBytes(index, bytes, 0, length);
+        return parseEpochNanos(bytes, 0, length);
+    }
+
+    /**
+     * Formats UTCTimestamp into the array.
+     *
+     * @param epochNanos nanoseconds since the epoch
+     * @param precision  timestamp precision
+     * @param dst        destination array
+     * @param offset     offset in the destination array
+     * @return number of written bytes
+     */
+    public static int format(long epochNanos, TimeStampPrecision precision, byte[] dst, int offset) {
+        formatSeconds(Math.floorDiv(epochNanos, NANOS_PER_SECOND), dst, offset);
+        return SECONDS_LENGTH + formatFraction((int) Math.floorMod(epochNanos, NANOS_PER_SECOND), precision,
+                dst, offset + SECONDS_LENGTH);
+    }
+
+    /**
+     * Formats date and time till seconds, {@code yyyyMMdd-HH:mm:ss}.
+     *
+     * @param epochSecond seconds since the epoch
+     * @param dst         destination array
+     * @param offset      offset in the destination array
+     * @return number of written bytes
+     */
+    public static int formatSeconds(long epochSecond, byte[] dst, int offset) {
+        final long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        final int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+        // days to civil date, see http://howardhinnant.github.io/date_algorithms.html
+        final long z = epochDay + 719468;
+        final long era = Math.floorDiv(z, 146097);
+        final int dayOfEra = (int) (z - era * 146097);
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int mp = (5 * dayOfYear + 2) / 153;
+        final int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        final int month = mp < 10 ? mp + 3 : mp - 9;
+        final int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+        writeDigits(dst, offset, year, 4);
+        writeDigits(dst, offset + 4, month, 2);
+        writeDigits(dst, offset + 6, day, 2);
+        dst[offset + 8] = '-';
+        writeDigits(dst, offset + 9, secondOfDay / 3600, 2);
+        dst[offset + 11] = ':';
+        writeDigits(dst, offset + 12, secondOfDay / 60 % 60, 2);
+        dst[offset + 14] = ':';
+        writeDigits(dst, offset + 15, secondOfDay % 60, 2);
+        return SECONDS_LENGTH;
+    }
+
+    /**
+     * Formats fraction of second, including the decimal point, e.g. {@code .123} for milliseconds.
+     *
+     * @param nanos     nanosecond of second
+     * @param precision timestamp precision
+     * @param dst       destination array
+     * @param offset    offset in the destination array
+     * @return number of written bytes, 0 for {@link TimeStampPrecision#SECONDS}
+     */
+    public static int formatFraction(int nanos, TimeStampPrecision precision, byte[] dst, int offset) {
+        switch (precision) {
+            case SECONDS:
+                return 0;
+            case MILLIS:
+                dst[offset] = '.';
+                writeDigits(dst, offset + 1, nanos / 1_000_000, 3);
+                return MILLIS_LENGTH - SECONDS_LENGTH;
+            case MICROS:
+                dst[offset] = '.';
+                writeDigits(dst, offset + 1, nanos / 1_000, 6);
+                return MICROS_LENGTH - SECONDS_LENGTH;
+            case NANOS:
+                dst[offset] = '.';
+                writeDigits(dst, offset + 1, nanos, 9);
+                return NANOS_LENGTH - SECONDS_LENGTH;
+            default:
+                dst[offset] = '.';
+                writeDigits(dst, offset + 1, nanos, 9);
+                dst[offset + 10] = '0';
+                dst[offset + 11] = '0';
+                dst[offset + 12] = '0';
+                return PICOS_LENGTH - SECONDS_LENGTH;
+        }
+    }
+
+    /**
+     * Writes UTCTimestamp to the buffer.
+     *
+     * @param out        destination buffer
+     * @param epochNanos nanoseconds since the epoch
+     * @param precision  timestamp precision
+     * @return number of written bytes
+     */
+    public static int write(ByteBuf out, long epochNanos, TimeStampPrecision precision) {
+        final int length = length(precision);
+        out.ensureWritable(length);
+        if (out.hasArray()) {
+            final int index = out.writerIndex();
+            format(epochNanos, precision, out.array(), out.arrayOffset() + index);
+            out.writerIndex(index + length);
+        } else {
+            final byte[] bytes = SCRATCH.get();
+            format(epochNanos, precision, bytes, 0);
+            out.writeBytes(bytes, 0, length);
+        }
+        return length;
+    }
+
+    /**
+     * Formats UTCTimestamp into a new array.
+     *
+     * @param epochNanos nanoseconds since the epoch
+     * @param precision  timestamp precision
+     * @return formatted timestamp
+     */
+    public static byte[] format(long epochNanos, TimeStampPrecision precision) {
+        final byte[] bytes = new byte[length(precision)];
+        format(epochNanos, precision, bytes, 0);
+        return bytes;
+    }
+
+    private static long epochNanos(int year, int month, int day, int hour, int minute, int second, int nanos,
+                                     byte[] bytes, int offset, int length) throws ParseException {
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 60) {
+            throw error(bytes, offset, length, 0);
+        }
+        // civil date to days, see http://howardhinnant.github.io/date_algorithms.html
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = Math.floorDiv(y, 400);
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        final long epochDay = era * 146097L + dayOfEra - 719468;
+        // leap second is counted as the last second of the day
+        final int secondOfDay = hour * 3600 + minute * 60 + Math.min(second, 59);
+        return (epochDay * SECONDS_PER_DAY + secondOfDay) * NANOS_PER_SECOND + nanos;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> ((year & 3) == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * @return parsed value or -1, if there are non-digit characters
+     */
+    private static int digits(byte[] bytes, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            final int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean isDigits(byte[] bytes, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeDigits(byte[] dst, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            dst[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static ParseException error(byte[] bytes, int offset, int length, int errorOffset) {
+        return new ParseException("Unparseable UTCTimestamp: " + new String(bytes, offset, length, US_ASCII), errorOffset);
+    }
+}
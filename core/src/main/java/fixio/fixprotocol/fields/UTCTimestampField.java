@@ -15,123 +15,94 @@
  */
 package fixio.fixprotocol.fields;
 
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+
 import java.text.ParseException;
 import java.time.ZonedDateTime;
 import java.util.Objects;
 
-import static fixio.fixprotocol.FixConst.DATE_TIME_FORMATTER_MICROS;
-import static fixio.fixprotocol.FixConst.DATE_TIME_FORMATTER_MILLIS;
-import static fixio.fixprotocol.FixConst.DATE_TIME_FORMATTER_NANOS;
-import static fixio.fixprotocol.FixConst.DATE_TIME_FORMATTER_PICOS;
-import static fixio.fixprotocol.FixConst.DATE_TIME_FORMATTER_SECONDS;
-import static fixio.fixprotocol.FixConst.DATE_TIME_PATTERN_MICROS_LENGTH;
-import static fixio.fixprotocol.FixConst.DATE_TIME_PATTERN_MILLIS;
-import static fixio.fixprotocol.FixConst.DATE_TIME_PATTERN_MILLIS_LENGTH;
-import static fixio.fixprotocol.FixConst.DATE_TIME_PATTERN_NANOS_LENGTH;
-import static fixio.fixprotocol.FixConst.DATE_TIME_PATTERN_PICOS_LENGTH;
-import static fixio.fixprotocol.FixConst.DATE_TIME_PATTERN_SECONDS_LENGTH;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 
-
+/**
+ * UTCTimestamp field, {@code yyyyMMdd-HH:mm:ss[.sss[sss[sss[sss]]]]}.
+ * <p>
+ * Value is kept as nanoseconds since the epoch, {@link ZonedDateTime} is created on first {@link #getValue()} call.
+ * Precision of parsed value is kept when the field is formatted.
+ * </p>
+ *
+ * @see UTCTimestampCodec
+ */
 public class UTCTimestampField extends AbstractField<ZonedDateTime> {
 
-    private final ZonedDateTime value;
-    private final int valueLen;
-
+    private final long epochNanos;
+    private final TimeStampPrecision precision;
+    private ZonedDateTime value;
 
     public UTCTimestampField(int tagNum, byte[] bytes, int offset, int length) throws ParseException {
         super(tagNum);
-        this.value = parse(bytes, offset, length);
-        this.valueLen = length;
+        this.epochNanos = UTCTimestampCodec.parseEpochNanos(bytes, offset, length);
+        this.precision = UTCTimestampCodec.precisionOf(length);
     }
 
     public UTCTimestampField(int tagNum, String timestampString) throws ParseException {
-        super(tagNum);
-        this.value = parse(timestampString);
-        this.valueLen = timestampString.length();
+        this(tagNum, bytes(timestampString), 0, timestampString.length());
     }
 
     public UTCTimestampField(int tagNum, ZonedDateTime value) {
         super(tagNum);
         this.value = value;
-        this.valueLen = DATE_TIME_PATTERN_MILLIS.length();
+        this.epochNanos = UTCTimestampCodec.toEpochNanos(value);
+        this.precision = TimeStampPrecision.MILLIS;
+    }
+
+    public UTCTimestampField(int tagNum, long epochNanos, TimeStampPrecision precision) {
+        super(tagNum);
+        assert (precision != null) : "TimeStampPrecision is required";
+        this.epochNanos = epochNanos;
+        this.precision = precision;
     }
 
     public static ZonedDateTime parse(byte[] bytes) throws ParseException {
-        return parse(new String(bytes, US_ASCII));
+        return parse(bytes, 0, bytes.length);
     }
 
     public static ZonedDateTime parse(byte[] bytes, int offset, int length) throws ParseException {
-        return parse(new String(bytes, offset, length, US_ASCII));
+        return UTCTimestampCodec.toZonedDateTime(UTCTimestampCodec.parseEpochNanos(bytes, offset, length));
     }
 
     public static ZonedDateTime parse(String timestampString) throws ParseException {
-        if (timestampString != null) {
-            int len = timestampString.length();
-            // most likely scenario
-            switch (len) {
-                case 17:
-                    return DATE_TIME_FORMATTER_SECONDS.parseZonedDateTime(timestampString);
-                case 21:
-                    return DATE_TIME_FORMATTER_MILLIS.parseZonedDateTime(timestampString);
-                case 24:
-                    return DATE_TIME_FORMATTER_MICROS.parseZonedDateTime(timestampString);
-                case 27:
-                    return DATE_TIME_FORMATTER_NANOS.parseZonedDateTime(timestampString);
-                case 30:
-                    return DATE_TIME_FORMATTER_PICOS.parseZonedDateTime(timestampString);
-                default:
-                    // try to guess
-                    if (len > DATE_TIME_PATTERN_PICOS_LENGTH) {
-                        return DATE_TIME_FORMATTER_PICOS.parseZonedDateTime(timestampString.substring(0, DATE_TIME_PATTERN_PICOS_LENGTH));
-                    } else if (len > DATE_TIME_PATTERN_NANOS_LENGTH) {
-                        return DATE_TIME_FORMATTER_NANOS.parseZonedDateTime(timestampString.substring(0, DATE_TIME_PATTERN_NANOS_LENGTH));
-                    } else if (len > DATE_TIME_PATTERN_MICROS_LENGTH) {
-                        return DATE_TIME_FORMATTER_MICROS.parseZonedDateTime(timestampString.substring(0, DATE_TIME_PATTERN_MICROS_LENGTH));
-                    } else if (len > DATE_TIME_PATTERN_MILLIS_LENGTH) {
-                        return DATE_TIME_FORMATTER_MILLIS.parseZonedDateTime(timestampString.substring(0, DATE_TIME_PATTERN_MILLIS_LENGTH));
-                    } else {
-                        return DATE_TIME_FORMATTER_SECONDS.parseZonedDateTime(timestampString.substring(0, DATE_TIME_PATTERN_SECONDS_LENGTH));
-                    }
-            }
+        return parse(bytes(timestampString));
+    }
 
+    private static byte[] bytes(String timestampString) throws ParseException {
+        if (timestampString == null) {
+            throw new ParseException("Timestamp is null", -1);
         }
-        throw new ParseException("Timestamp is null", -1);
+        return timestampString.getBytes(US_ASCII);
     }
 
     @Override
     public ZonedDateTime getValue() {
+        if (value == null) {
+            value = UTCTimestampCodec.toZonedDateTime(epochNanos);
+        }
         return value;
     }
 
+    /**
+     * @return nanoseconds since the epoch
+     */
+    public long getEpochNanos() {
+        return epochNanos;
+    }
+
+    public TimeStampPrecision getPrecision() {
+        return precision;
+    }
+
     @Override
     public byte[] getBytes() {
-        // most likely scenario
-        switch (valueLen) {
-            case 17:
-                return DATE_TIME_FORMATTER_SECONDS.format(value).getBytes(US_ASCII);
-            case 21:
-                return DATE_TIME_FORMATTER_MILLIS.format(value).getBytes(US_ASCII);
-            case 24:
-                return DATE_TIME_FORMATTER_MICROS.format(value).getBytes(US_ASCII);
-            case 27:
-                return DATE_TIME_FORMATTER_NANOS.format(value).getBytes(US_ASCII);
-            case 30:
-                return DATE_TIME_FORMATTER_PICOS.format(value).getBytes(US_ASCII);
-            default:
-                // try to guess
-                if (valueLen > DATE_TIME_PATTERN_PICOS_LENGTH) {
-                    return DATE_TIME_FORMATTER_PICOS.format(value).getBytes(US_ASCII);
-                } else if (valueLen > DATE_TIME_PATTERN_NANOS_LENGTH) {
-                    return DATE_TIME_FORMATTER_NANOS.format(value).getBytes(US_ASCII);
-                } else if (valueLen > DATE_TIME_PATTERN_MICROS_LENGTH) {
-                    return DATE_TIME_FORMATTER_MICROS.format(value).getBytes(US_ASCII);
-                } else if (valueLen > DATE_TIME_PATTERN_MILLIS_LENGTH) {
-                    return DATE_TIME_FORMATTER_MILLIS.format(value).getBytes(US_ASCII);
-                } else {
-                    return DATE_TIME_FORMATTER_SECONDS.format(value).getBytes(US_ASCII);
-                }
-        }
+        return UTCTimestampCodec.format(epochNanos, precision);
     }
 
     @Override
@@ -139,12 +110,12 @@ public class UTCTimestampField extends AbstractField<ZonedDateTime> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         UTCTimestampField that = (UTCTimestampField) o;
-        return valueLen == that.valueLen &&
-                Objects.equals(value, that.value);
+        return precision == that.precision &&
+                Objects.equals(getValue(), that.getValue());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(value, valueLen);
+        return Objects.hash(getValue(), precision);
     }
 }
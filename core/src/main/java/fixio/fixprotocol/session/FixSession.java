@@ -21,7 +21,6 @@ import fixio.fixprotocol.FixMessageBuilder;
 import fixio.fixprotocol.FixMessageHeader;
 import fixio.fixprotocol.fields.DateTimeFormatterWrapper;
 
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import static fixio.fixprotocol.FixConst.TimeStampPrecision.MICROS;
@@ -34,8 +33,9 @@ public class FixSession {
 
     private static final AtomicIntegerFieldUpdater<FixSession> INCOMING_SEQ_NUM_UPDATER = AtomicIntegerFieldUpdater.newUpdater
             (FixSession.class, "nextIncomingMessageSeqNum");
+    private static final AtomicIntegerFieldUpdater<FixSession> OUTGOING_SEQ_NUM_UPDATER = AtomicIntegerFieldUpdater.newUpdater
+            (FixSession.class, "nextOutgoingMessageSeqNum");
 
-    private final AtomicInteger nextOutgoingMessageSeqNum = new AtomicInteger();
     private final String beginString;
     private final String senderCompID;
     private final String senderSubID;
@@ -47,6 +47,7 @@ public class FixSession {
     private final String defaultApplExtID;
     private final SessionId sessionId;
     private volatile int nextIncomingMessageSeqNum;
+    private volatile int nextOutgoingMessageSeqNum;
     private DateTimeFormatterWrapper dateTimeFormatter = FixConst.DATE_TIME_FORMATTER_MILLIS;
 
     private FixSession(Builder builder) {
@@ -110,11 +111,11 @@ public class FixSession {
     }
 
     public int getNextOutgoingMessageSeqNum() {
-        return nextOutgoingMessageSeqNum.get();
+        return nextOutgoingMessageSeqNum;
     }
 
     public void setNextOutgoingMessageSeqNum(int nextOutgoingMessageSeqNum) {
-        this.nextOutgoingMessageSeqNum.set(nextOutgoingMessageSeqNum);
+        this.nextOutgoingMessageSeqNum = nextOutgoingMessageSeqNum;
     }
 
     public int getNextIncomingMessageSeqNum() {
@@ -126,7 +127,7 @@ public class FixSession {
     }
 
     public int getNextOutgoingMsgSeqNum() {
-        return nextOutgoingMessageSeqNum.get();
+        return nextOutgoingMessageSeqNum;
     }
 
     public boolean checkAndIncrementIncomingSeqNum(final int num) {
@@ -148,7 +149,7 @@ public class FixSession {
             header.setBeginString(beginString);
         }
         if (header.getMsgSeqNum() == 0) {
-            header.setMsgSeqNum(nextOutgoingMessageSeqNum.getAndIncrement());
+            header.setMsgSeqNum(OUTGOING_SEQ_NUM_UPDATER.getAndIncrement(this));
         }
         //
         if (header.getSenderCompID() == null || "".equals(header.getSenderCompID())) {
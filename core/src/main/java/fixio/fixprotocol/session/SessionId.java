@@ -15,8 +15,21 @@
  */
 package fixio.fixprotocol.session;
 
+import fixio.fixprotocol.FixMessageHeader;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Identifies a FIX session by CompIDs, SubIDs and LocationIDs of both parties.
+ * <p>
+ * Hash code is calculated once. Use {@link #intern()} to get a canonical instance,
+ * so equal identifiers are compared by reference and their strings are not kept twice.
+ * </p>
+ */
 public class SessionId {
 
+    private static final ConcurrentHashMap<SessionId, SessionId> CANONICAL = new ConcurrentHashMap<>();
+
     private final String senderCompID;
     private final String targetCompID;
     private final String senderSubID;
@@ -40,10 +53,75 @@ public class SessionId {
         this.hash = calculateHash();
     }
 
+    /**
+     * Returns identifier of the session, to which the message header belongs.
+     *
+     * @param header a message header
+     * @return a session identifier, not interned
+     */
+    public static SessionId of(FixMessageHeader header) {
+        return new SessionId(
+                header.getSenderCompID(),
+                header.getTargetCompID(),
+                header.getSenderSubID(),
+                header.getTargetSubID(),
+                header.getSenderLocationID(),
+                header.getTargetLocationID()
+        );
+    }
+
+    /**
+     * Calculates hash code of the identifier of the session, to which the message header belongs,
+     * without creating the identifier.
+     *
+     * @param header a message header
+     * @return hash code equal to {@code SessionId.of(header).hashCode()}
+     */
+    public static int hash(FixMessageHeader header) {
+        return hash(header.getSenderCompID(), header.getTargetCompID(),
+                header.getSenderSubID(), header.getTargetSubID(),
+                header.getSenderLocationID(), header.getTargetLocationID());
+    }
+
+    private static int hash(String senderCompID, String targetCompID,
+                            String senderSubID, String targetSubID,
+                            String senderLocationID, String targetLocationID) {
+        int result = senderCompID.hashCode();
+        result = 31 * result + targetCompID.hashCode();
+        if (senderSubID != null) {
+            result = 31 * result + senderSubID.hashCode();
+        }
+        if (targetSubID != null) {
+            result = 31 * result + targetSubID.hashCode();
+        }
+        if (senderLocationID != null) {
+            result = 31 * result + senderLocationID.hashCode();
+        }
+        if (targetLocationID != null) {
+            result = 31 * result + targetLocationID.hashCode();
+        }
+        return result;
+    }
+
     private static boolean idEquals(String s1, String s2) {
         return (s1 == null && s2 == null) || (s1 != null && s1.equals(s2));
     }
 
+    /**
+     * Tells whether the message header belongs to this session, without creating an identifier.
+     *
+     * @param header a message header
+     * @return true, if this identifier is equal to {@code SessionId.of(header)}
+     */
+    public boolean matches(FixMessageHeader header) {
+        return idEquals(senderCompID, header.getSenderCompID()) &&
+                idEquals(targetCompID, header.getTargetCompID()) &&
+                idEquals(senderSubID, header.getSenderSubID()) &&
+                idEquals(targetSubID, header.getTargetSubID()) &&
+                idEquals(senderLocationID, header.getSenderLocationID()) &&
+                idEquals(targetLocationID, header.getTargetLocationID());
+    }
+
     public String getSenderCompID() {
         return senderCompID;
     }
@@ -68,6 +146,17 @@ public class SessionId {
         return targetLocationID;
     }
 
+    /**
+     * Returns a canonical instance equal to this one. Canonical instances are never released,
+     * so this should be used for configured sessions, not for identifiers received from untrusted parties.
+     *
+     * @return canonical instance
+     */
+    public SessionId intern() {
+        final SessionId canonical = CANONICAL.putIfAbsent(this, this);
+        return (canonical != null) ? canonical : this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -88,20 +177,25 @@ public class SessionId {
     }
 
     private int calculateHash() {
-        int result = senderCompID.hashCode();
-        result = 31 * result + targetCompID.hashCode();
+        return hash(senderCompID, targetCompID, senderSubID, targetSubID, senderLocationID, targetLocationID);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(64).append(senderCompID);
         if (senderSubID != null) {
-            result = 31 * result + senderSubID.hashCode();
-        }
-        if (targetSubID != null) {
-            result = 31 * result + targetSubID.hashCode();
+            sb.append('/').append(senderSubID);
         }
         if (senderLocationID != null) {
-            result = 31 * result + senderLocationID.hashCode();
+            sb.append('@').append(senderLocationID);
+        }
+        sb.append("->").append(targetCompID);
+        if (targetSubID != null) {
+            sb.append('/').append(targetSubID);
         }
         if (targetLocationID != null) {
-            result = 31 * result + targetLocationID.hashCode();
+            sb.append('@').append(targetLocationID);
         }
-        return result;
+        return sb.toString();
     }
 }
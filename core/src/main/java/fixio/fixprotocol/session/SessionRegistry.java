@@ -0,0 +1,226 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol.session;
+
+import fixio.fixprotocol.FixMessageHeader;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of active {@link FixSession}s, looked up by {@link SessionId} or by a received message header.
+ * <p>
+ * {@link #get(FixMessageHeader)} resolves a session from header fields without creating a {@link SessionId}:
+ * sessions are indexed in an immutable hash table, which is replaced when sessions are registered or removed.
+ * Lookups are lock-free; registration is expected to be rare, e.g. on Logon.
+ * </p>
+ * <p>
+ * {@link #find(ByteBuf, int, int, int, int)} resolves a session from SenderCompID(49) and TargetCompID(56)
+ * values in a received buffer, without creating Strings: sessions are also indexed by CompID bytes.
+ * </p>
+ * <p>
+ * Identifiers are matched as they are in {@link FixSession}: e.g. acceptor sessions are created from received Logon,
+ * so their SenderCompID is SenderCompID of received messages.
+ * </p>
+ */
+public final class SessionRegistry {
+
+    private final ConcurrentHashMap<SessionId, FixSession> sessions = new ConcurrentHashMap<>();
+    private volatile Entry[] table = new Entry[16];
+    private volatile CompIDEntry[] compIDTable = new CompIDEntry[16];
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hash(ByteBuf buf, int index, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + buf.getByte(index + i);
+        }
+        return h;
+    }
+
+    private static int hash(byte[] bytes) {
+        int h = 0;
+        for (byte b : bytes) {
+            h = 31 * h + b;
+        }
+        return h;
+    }
+
+    private static int mix(int senderHash, int targetHash) {
+        return mix(31 * senderHash + targetHash);
+    }
+
+    private static boolean equals(byte[] bytes, ByteBuf buf, int index, int length) {
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != buf.getByte(index + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public FixSession get(SessionId sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    /**
+     * Finds a session by identifiers in a message header, without allocation.
+     *
+     * @param header a message header
+     * @return a session or null, if there is no such session
+     */
+    public FixSession get(FixMessageHeader header) {
+        if (header.getSenderCompID() == null || header.getTargetCompID() == null) {
+            return null;
+        }
+        final Entry[] table = this.table;
+        final int h = SessionId.hash(header);
+        for (Entry e = table[mix(h) & (table.length - 1)]; e != null; e = e.next) {
+            if (e.hash == h && e.session.getId().matches(header)) {
+                return e.session;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a session by CompID values in a buffer, without allocation.
+     * <p>
+     * SubIDs and LocationIDs are not compared: check them if the message may have them.
+     * </p>
+     *
+     * @param buf          a buffer
+     * @param senderIndex  index of SenderCompID value
+     * @param senderLength length of SenderCompID value
+     * @param targetIndex  index of TargetCompID value
+     * @param targetLength length of TargetCompID value
+     * @return a session or null, if there is no such session, or if several sessions have these CompIDs
+     * and differ by SubIDs or LocationIDs only
+     */
+    public FixSession find(ByteBuf buf, int senderIndex, int senderLength, int targetIndex, int targetLength) {
+        final CompIDEntry[] table = this.compIDTable;
+        final int h = mix(hash(buf, senderIndex, senderLength), hash(buf, targetIndex, targetLength));
+        for (CompIDEntry e = table[h & (table.length - 1)]; e != null; e = e.next) {
+            if (e.hash == h
+                    && equals(e.senderCompID, buf, senderIndex, senderLength)
+                    && equals(e.targetCompID, buf, targetIndex, targetLength)) {
+                return e.session;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Registers a session, unless a session with the same {@link SessionId} is registered.
+     *
+     * @param session a session
+     * @return previously registered session, or null if given session is registered
+     */
+    public FixSession putIfAbsent(FixSession session) {
+        final FixSession existing = sessions.putIfAbsent(session.getId(), session);
+        if (existing == null) {
+            rebuild();
+        }
+        return existing;
+    }
+
+    /**
+     * Removes a session.
+     *
+     * @param sessionId session identifier
+     * @return removed session or null
+     */
+    public FixSession remove(SessionId sessionId) {
+        final FixSession removed = sessions.remove(sessionId);
+        if (removed != null) {
+            rebuild();
+        }
+        return removed;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private synchronized void rebuild() {
+        int capacity = 16;
+        while (capacity < sessions.size() * 2) {
+            capacity <<= 1;
+        }
+        final Entry[] newTable = new Entry[capacity];
+        final CompIDEntry[] newCompIDTable = new CompIDEntry[capacity];
+        for (FixSession session : sessions.values()) {
+            final int h = session.getId().hashCode();
+            final int i = mix(h) & (capacity - 1);
+            newTable[i] = new Entry(h, session, newTable[i]);
+
+            final byte[] sender = session.getSenderCompID().getBytes(StandardCharsets.US_ASCII);
+            final byte[] target = session.getTargetCompID().getBytes(StandardCharsets.US_ASCII);
+            final int compIDHash = mix(hash(sender), hash(target));
+            final int j = compIDHash & (capacity - 1);
+            CompIDEntry e = newCompIDTable[j];
+            while (e != null && !(e.hash == compIDHash
+                    && Arrays.equals(e.senderCompID, sender)
+                    && Arrays.equals(e.targetCompID, target))) {
+                e = e.next;
+            }
+            if (e != null) {
+                // CompIDs are not enough to tell sessions apart
+                e.session = null;
+            } else {
+                newCompIDTable[j] = new CompIDEntry(sender, target, compIDHash, session, newCompIDTable[j]);
+            }
+        }
+        table = newTable;
+        compIDTable = newCompIDTable;
+    }
+
+    private static final class Entry {
+        final int hash;
+        final FixSession session;
+        final Entry next;
+
+        Entry(int hash, FixSession session, Entry next) {
+            this.hash = hash;
+            this.session = session;
+            this.next = next;
+        }
+    }
+
+    private static final class CompIDEntry {
+        final byte[] senderCompID;
+        final byte[] targetCompID;
+        final int hash;
+        final CompIDEntry next;
+        FixSession session;
+
+        CompIDEntry(byte[] senderCompID, byte[] targetCompID, int hash, FixSession session, CompIDEntry next) {
+            this.senderCompID = senderCompID;
+            this.targetCompID = targetCompID;
+            this.hash = hash;
+            this.session = session;
+            this.next = next;
+        }
+    }
+}
@@ -23,7 +23,6 @@ import fixio.validator.BusinessRejectException;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
-import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,18 +33,22 @@ public class FixApplicationAdapter extends MessageToMessageDecoder<Object> imple
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FixApplicationAdapter.class);
 
+    /**
+     * Dispatches received message to application callbacks.
+     * <p>
+     * The message is released by {@link MessageToMessageDecoder} when this method returns,
+     * so reference-counted messages, like {@link fixio.netty.codec.ByteBufFixMessage},
+     * should be retained if they are added to {@code out} or used later.
+     * </p>
+     */
     @Override
     protected void decode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
-        try {
-            if (msg instanceof FixMessage message) {
-                onMessage(ctx, message, out);
-            } else if (msg instanceof LogonEvent event) {
-                onLogon(ctx, event);
-            } else if (msg instanceof LogoutEvent event) {
-                onLogout(ctx, event);
-            }
-        } finally {
-            ReferenceCountUtil.release(msg);
+        if (msg instanceof FixMessage message) {
+            onMessage(ctx, message, out);
+        } else if (msg instanceof LogonEvent event) {
+            onLogon(ctx, event);
+        } else if (msg instanceof LogoutEvent event) {
+            onLogout(ctx, event);
         }
     }
 
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.codec;
+
+import fixio.fixprotocol.FixMessage;
+import fixio.fixprotocol.MessageTypes;
+import io.netty.buffer.ByteBuf;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable table of well known ASCII strings, like BeginString(8) and MsgType(35) values.
+ * <p>
+ * Values are looked up by bytes in a {@link ByteBuf}, so a known value is decoded without allocation.
+ * </p>
+ */
+final class AsciiStringTable {
+
+    /**
+     * Known BeginString(8) values.
+     */
+    static final AsciiStringTable BEGIN_STRINGS = new AsciiStringTable(
+            FixMessage.FIX_4_0, FixMessage.FIX_4_1, FixMessage.FIX_4_2,
+            FixMessage.FIX_4_3, FixMessage.FIX_4_4, FixMessage.FIX_5_0);
+
+    /**
+     * Known MsgType(35) values: constants of {@link MessageTypes}.
+     */
+    static final AsciiStringTable MESSAGE_TYPES = new AsciiStringTable(constants(MessageTypes.class));
+
+    private final String[] table;
+
+    AsciiStringTable(String... values) {
+        int capacity = 16;
+        while (capacity < values.length * 2) {
+            capacity <<= 1;
+        }
+        table = new String[capacity];
+        for (String value : values) {
+            int i = hash(value) & (capacity - 1);
+            while (table[i] != null && !table[i].equals(value)) {
+                i = (i + 1) & (capacity - 1);
+            }
+            table[i] = value;
+        }
+    }
+
+    private static String[] constants(Class<?> type) {
+        final List<String> values = new ArrayList<>();
+        for (Field field : type.getFields()) {
+            final int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers) && field.getType() == String.class) {
+                try {
+                    values.add((String) field.get(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return values.toArray(new String[0]);
+    }
+
+    private static int hash(String value) {
+        int h = 0;
+        for (int i = 0; i < value.length(); i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(ByteBuf buf, int index, int length) {
+        int h = 0;
+        for (int i = index; i < index + length; i++) {
+            h = 31 * h + (buf.getByte(i) & 0xFF);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String value, ByteBuf buf, int index, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != (buf.getByte(index + i) & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds a known value equal to given bytes.
+     *
+     * @return a known value or null
+     */
+    String find(ByteBuf buf, int index, int length) {
+        final int mask = table.length - 1;
+        for (int i = hash(buf, index, length) & mask; table[i] != null; i = (i + 1) & mask) {
+            if (matches(table[i], buf, index, length)) {
+                return table[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes ASCII bytes, returning a known value when there is one, or a new String otherwise.
+     */
+    String decode(ByteBuf buf, int index, int length) {
+        final String value = find(buf, index, length);
+        return (value != null) ? value : buf.toString(index, length, StandardCharsets.US_ASCII);
+    }
+}
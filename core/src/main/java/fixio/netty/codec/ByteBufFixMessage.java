@@ -0,0 +1,425 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.codec;
+
+import fixio.fixprotocol.DataType;
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessage;
+import fixio.fixprotocol.FixMessageFragment;
+import fixio.fixprotocol.Group;
+import fixio.fixprotocol.GroupAssembler;
+import fixio.fixprotocol.GroupField;
+import fixio.fixprotocol.fields.AbstractField;
+import fixio.fixprotocol.fields.FieldFactory;
+import fixio.fixprotocol.fields.FixedPointNumber;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ReferenceCounted;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only {@link FixMessage} backed by the received bytes.
+ * <p>
+ * The message keeps a retained slice of the inbound {@link ByteBuf} and an index of
+ * body fields: {@code (tagNum, valueOffset, valueLength)} triplets.
+ * Field values are parsed only when requested.
+ * Header fields are parsed during decoding, so the header stays available after the message is released,
+ * except SenderCompID(49) and TargetCompID(56): see {@link ByteBufFixMessageHeader}.
+ * </p>
+ * <p>
+ * Field accessors, like {@link #getString(int)}, look through all body fields, including fields of repeating groups.
+ * {@link #getBody()} returns fields with repeating groups collected into {@link GroupField}s.
+ * </p>
+ * <p>
+ * The message is {@link ReferenceCounted}: it is released by {@link fixio.handlers.FixApplicationAdapter}
+ * after {@link fixio.handlers.FixApplication#onMessage} returns.
+ * Call {@link #retain()} to use the message body later.
+ * </p>
+ *
+ * @see FixMessageFrameDecoder
+ */
+public class ByteBufFixMessage implements FixMessage, ReferenceCounted {
+
+    static final int ENTRY_SIZE = 3;
+
+    private final ByteBuf content;
+    private final ByteBufFixMessageHeader header;
+    private final int[] fields;
+    private final int fieldCount;
+    private final int checksum;
+    private final int maxGroupDepth;
+    private List<FixMessageFragment> body;
+
+    ByteBufFixMessage(ByteBuf content, ByteBufFixMessageHeader header, int[] fields, int fieldCount, int checksum,
+                      int maxGroupDepth) {
+        this.content = content;
+        this.header = header;
+        this.fields = fields;
+        this.fieldCount = fieldCount;
+        this.checksum = checksum;
+        this.maxGroupDepth = maxGroupDepth;
+    }
+
+    static int parseInt(ByteBuf buf, int offset, int length) {
+        if (length <= 0) {
+            throw new NumberFormatException("Empty value");
+        }
+        final boolean negative = buf.getByte(offset) == '-';
+        int i = negative ? 1 : 0;
+        if (i == length) {
+            throw new NumberFormatException("Invalid int value");
+        }
+        int value = 0;
+        for (; i < length; i++) {
+            final byte b = buf.getByte(offset + i);
+            if (b < '0' || b > '9') {
+                throw new NumberFormatException("Invalid int value: " + buf.toString(offset, length, StandardCharsets.US_ASCII));
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses decimal value into a long mantissa of given scale.
+     *
+     * @throws NumberFormatException if value is not a decimal number
+     * @throws ArithmeticException   if value has more fraction digits than the scale, or on overflow
+     */
+    static long parseScaled(ByteBuf buf, int offset, int length, int scale) {
+        if (length <= 0) {
+            throw new NumberFormatException("Empty value");
+        }
+        final byte first = buf.getByte(offset);
+        final boolean negative = first == '-';
+        int i = (negative || first == '+') ? 1 : 0;
+        if (i == length) {
+            throw new NumberFormatException("Invalid decimal value");
+        }
+        long mantissa = 0;
+        int fractionDigits = -1;
+        for (; i < length; i++) {
+            final byte b = buf.getByte(offset + i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (b < '0' || b > '9') {
+                throw new NumberFormatException("Invalid decimal value: " + buf.toString(offset, length, StandardCharsets.US_ASCII));
+            }
+            mantissa = Math.addExact(Math.multiplyExact(mantissa, 10), b - '0');
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        return FixedPointNumber.rescale(negative ? -mantissa : mantissa, Math.max(fractionDigits, 0), scale);
+    }
+
+    private static boolean isDecimalType(DataType type) {
+        return switch (type) {
+            case FLOAT, PRICE, PRICEOFFSET, QTY, AMT, PERCENTAGE -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isIntType(DataType type) {
+        return switch (type) {
+            case INT, LENGTH, SEQNUM, NUMINGROUP -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Returns a buffer holding the message bytes, from BeginString(8) till CheckSum(10), inclusive.
+     *
+     * @return message bytes
+     */
+    public ByteBuf content() {
+        return content;
+    }
+
+    /**
+     * @return number of body fields
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public int getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public ByteBufFixMessageHeader getHeader() {
+        return header;
+    }
+
+    @Override
+    public String getMessageType() {
+        return header.getMessageType();
+    }
+
+    /**
+     * @throws IllegalArgumentException if repeating groups are nested deeper than the decoder allows
+     */
+    @Override
+    public List<FixMessageFragment> getBody() {
+        if (body == null) {
+            final List<FixMessageFragment> fragments = new ArrayList<>(fieldCount);
+            final GroupAssembler groupAssembler = new GroupAssembler(fragments, maxGroupDepth);
+            final String messageType = header.getMessageType();
+            for (int i = 0; i < fieldCount; i++) {
+                groupAssembler.add(field(i), messageType);
+            }
+            body = Collections.unmodifiableList(fragments);
+        }
+        return body;
+    }
+
+    public List<Group> getGroups(int tagNum) {
+        for (FixMessageFragment fragment : getBody()) {
+            if (fragment.getTagNum() == tagNum && fragment instanceof GroupField groupField) {
+                return groupField.getGroups();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public FixMessageFragment getFirst(int tagNum) {
+        final int i = indexOf(tagNum);
+        return (i < 0) ? null : field(i);
+    }
+
+    @Override
+    public FixMessageFragment getLast(int tagNum) {
+        final int i = lastIndexOf(tagNum);
+        return (i < 0) ? null : field(i);
+    }
+
+    @Override
+    public Integer getInt(int tagNum) {
+        final int i = indexOf(tagNum);
+        if (i < 0 || !isIntType(FieldType.forTag(tagNum).type())) {
+            return null;
+        }
+        return parseInt(content, valueOffset(i), valueLength(i));
+    }
+
+    @Override
+    public Integer getInt(FieldType field) {
+        return getInt(field.tag());
+    }
+
+    @Override
+    public int getIntOrDefault(int tagNum, int defaultValue) {
+        final int i = indexOf(tagNum);
+        if (i < 0 || !isIntType(FieldType.forTag(tagNum).type())) {
+            return defaultValue;
+        }
+        return parseInt(content, valueOffset(i), valueLength(i));
+    }
+
+    @Override
+    public long getLong(int tagNum, long defaultValue) {
+        return getScaledPrice(tagNum, 0, defaultValue);
+    }
+
+    @Override
+    public long getScaledPrice(int tagNum, int scale, long defaultValue) {
+        final int i = indexOf(tagNum);
+        if (i < 0) {
+            return defaultValue;
+        }
+        final DataType type = FieldType.forTag(tagNum).type();
+        if (!isIntType(type) && !isDecimalType(type)) {
+            return defaultValue;
+        }
+        return parseScaled(content, valueOffset(i), valueLength(i), scale);
+    }
+
+    /**
+     * Returns field value as it is in the message.
+     *
+     * @param tagNum field tag number
+     * @return field value or null, if message has no such field
+     */
+    @Override
+    public String getString(int tagNum) {
+        final int i = indexOf(tagNum);
+        if (i < 0) {
+            return null;
+        }
+        return content.toString(valueOffset(i), valueLength(i), StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String getString(FieldType field) {
+        return getString(field.tag());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T getValue(int tagNum) {
+        final int i = indexOf(tagNum);
+        if (i < 0) {
+            return null;
+        }
+        return (T) field(i).getValue();
+    }
+
+    @Override
+    public <T> T getValue(FieldType field) {
+        return getValue(field.tag());
+    }
+
+    @Override
+    public Character getChar(int tagNum) {
+        final int i = indexOf(tagNum);
+        if (i < 0) {
+            return null;
+        }
+        if (FieldType.forTag(tagNum).type() != DataType.CHAR) {
+            throw new IllegalArgumentException("Tag " + tagNum + " is not a Field.");
+        }
+        return (char) content.getByte(valueOffset(i));
+    }
+
+    @Override
+    public Character getChar(FieldType fieldType) {
+        return getChar(fieldType.tag());
+    }
+
+    @Override
+    public char getChar(int tagNum, char defaultValue) {
+        final int i = indexOf(tagNum);
+        if (i < 0) {
+            return defaultValue;
+        }
+        if (FieldType.forTag(tagNum).type() != DataType.CHAR) {
+            throw new IllegalArgumentException("Tag " + tagNum + " is not a Field.");
+        }
+        return (char) content.getByte(valueOffset(i));
+    }
+
+    private int indexOf(int tagNum) {
+        final int[] fields = this.fields;
+        final int end = fieldCount * ENTRY_SIZE;
+        for (int i = 0; i < end; i += ENTRY_SIZE) {
+            if (fields[i] == tagNum) {
+                return i / ENTRY_SIZE;
+            }
+        }
+        return -1;
+    }
+
+    private int lastIndexOf(int tagNum) {
+        final int[] fields = this.fields;
+        for (int i = (fieldCount - 1) * ENTRY_SIZE; i >= 0; i -= ENTRY_SIZE) {
+            if (fields[i] == tagNum) {
+                return i / ENTRY_SIZE;
+            }
+        }
+        return -1;
+    }
+
+    private int tagNum(int i) {
+        return fields[i * ENTRY_SIZE];
+    }
+
+    private int valueOffset(int i) {
+        return fields[i * ENTRY_SIZE + 1];
+    }
+
+    private int valueLength(int i) {
+        return fields[i * ENTRY_SIZE + 2];
+    }
+
+    private AbstractField<?> field(int i) {
+        final int offset = valueOffset(i);
+        final int length = valueLength(i);
+        if (content.hasArray()) {
+            return FieldFactory.valueOf(tagNum(i), content.array(), content.arrayOffset() + offset, length);
+        }
+        return FieldFactory.valueOf(tagNum(i), ByteBufUtil.getBytes(content, offset, length, false), 0, length);
+    }
+
+    @Override
+    public int refCnt() {
+        return content.refCnt();
+    }
+
+    @Override
+    public ByteBufFixMessage retain() {
+        content.retain();
+        return this;
+    }
+
+    @Override
+    public ByteBufFixMessage retain(int increment) {
+        content.retain(increment);
+        return this;
+    }
+
+    @Override
+    public ByteBufFixMessage touch() {
+        content.touch();
+        return this;
+    }
+
+    @Override
+    public ByteBufFixMessage touch(Object hint) {
+        content.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return content.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return content.release(decrement);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(512);
+        final String sp = System.lineSeparator();
+        sb.append(sp);
+        sb.append("header{").append(header).append("}").append(sp);
+        sb.append("body{");
+        if (content.refCnt() > 0) {
+            for (int i = 0; i < fieldCount; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(tagNum(i)).append('=')
+                        .append(content.toString(valueOffset(i), valueLength(i), StandardCharsets.US_ASCII));
+            }
+        } else {
+            sb.append("(released)");
+        }
+        sb.append("}").append(sp);
+        sb.append("trailer{checkSum=").append(checksum).append('}').append(sp);
+        return sb.toString();
+    }
+}
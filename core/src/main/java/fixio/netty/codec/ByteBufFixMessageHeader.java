@@ -0,0 +1,168 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.codec;
+
+import fixio.fixprotocol.FixMessageHeader;
+import fixio.fixprotocol.session.FixSession;
+import fixio.fixprotocol.session.SessionId;
+import fixio.fixprotocol.session.SessionRegistry;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Header of {@link ByteBufFixMessage}.
+ * <p>
+ * SenderCompID(49) and TargetCompID(56) are kept as positions in the received bytes
+ * and are decoded only when requested, so routing a message to its session doesn't create Strings.
+ * Read them before the message is released.
+ * </p>
+ */
+public final class ByteBufFixMessageHeader extends FixMessageHeader {
+
+    private ByteBuf content;
+    private int senderCompIDIndex;
+    private int senderCompIDLength;
+    private int targetCompIDIndex;
+    private int targetCompIDLength;
+
+    void setContent(ByteBuf content) {
+        this.content = content;
+    }
+
+    void setSenderCompID(int index, int length) {
+        super.setSenderCompID(null);
+        this.senderCompIDIndex = index;
+        this.senderCompIDLength = length;
+    }
+
+    void setTargetCompID(int index, int length) {
+        super.setTargetCompID(null);
+        this.targetCompIDIndex = index;
+        this.targetCompIDLength = length;
+    }
+
+    /**
+     * @return received bytes, which SenderCompID and TargetCompID positions refer to
+     */
+    public ByteBuf content() {
+        return content;
+    }
+
+    /**
+     * @return index of SenderCompID value in {@link #content()}
+     */
+    public int getSenderCompIDIndex() {
+        return senderCompIDIndex;
+    }
+
+    /**
+     * @return length of SenderCompID value in {@link #content()}, or 0 if it was not received
+     */
+    public int getSenderCompIDLength() {
+        return senderCompIDLength;
+    }
+
+    /**
+     * @return index of TargetCompID value in {@link #content()}
+     */
+    public int getTargetCompIDIndex() {
+        return targetCompIDIndex;
+    }
+
+    /**
+     * @return length of TargetCompID value in {@link #content()}, or 0 if it was not received
+     */
+    public int getTargetCompIDLength() {
+        return targetCompIDLength;
+    }
+
+    /**
+     * Finds the session of this message.
+     * The session is looked up by received CompID bytes, so CompIDs are not decoded when the session is registered.
+     *
+     * @param registry registered sessions
+     * @return a session or null, if there is no such session
+     * @see SessionRegistry#find(ByteBuf, int, int, int, int)
+     */
+    public FixSession findSession(SessionRegistry registry) {
+        if (senderCompIDLength > 0 && targetCompIDLength > 0) {
+            final FixSession session = registry.find(content, senderCompIDIndex, senderCompIDLength,
+                    targetCompIDIndex, targetCompIDLength);
+            if (session != null && matchesSubIDs(session.getId())) {
+                return session;
+            }
+        }
+        return registry.get(this);
+    }
+
+    private boolean matchesSubIDs(SessionId sessionId) {
+        return Objects.equals(sessionId.getSenderSubID(), getSenderSubID())
+                && Objects.equals(sessionId.getSenderLocationID(), getSenderLocationID())
+                && Objects.equals(sessionId.getTargetSubID(), getTargetSubID())
+                && Objects.equals(sessionId.getTargetLocationID(), getTargetLocationID());
+    }
+
+    @Override
+    public String getSenderCompID() {
+        String senderCompID = super.getSenderCompID();
+        if (senderCompID == null && senderCompIDLength > 0) {
+            senderCompID = content.toString(senderCompIDIndex, senderCompIDLength, StandardCharsets.US_ASCII);
+            super.setSenderCompID(senderCompID);
+        }
+        return senderCompID;
+    }
+
+    @Override
+    public void setSenderCompID(String senderCompID) {
+        super.setSenderCompID(senderCompID);
+        senderCompIDLength = 0;
+    }
+
+    @Override
+    public String getTargetCompID() {
+        String targetCompID = super.getTargetCompID();
+        if (targetCompID == null && targetCompIDLength > 0) {
+            targetCompID = content.toString(targetCompIDIndex, targetCompIDLength, StandardCharsets.US_ASCII);
+            super.setTargetCompID(targetCompID);
+        }
+        return targetCompID;
+    }
+
+    @Override
+    public void setTargetCompID(String targetCompID) {
+        super.setTargetCompID(targetCompID);
+        targetCompIDLength = 0;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        content = null;
+        senderCompIDLength = 0;
+        targetCompIDLength = 0;
+    }
+
+    @Override
+    public String toString() {
+        if (content != null && content.refCnt() > 0) {
+            getSenderCompID();
+            getTargetCompID();
+        }
+        return super.toString();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.codec;
+
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+/**
+ * Defines how {@link FixMessageFrameDecoder} accumulates received bytes until a whole message is available.
+ */
+public enum Cumulation {
+
+    /**
+     * Received bytes are copied into a single buffer, which is expanded as needed.
+     * Message bytes are contiguous, which is the fastest for small messages.
+     */
+    MERGE(ByteToMessageDecoder.MERGE_CUMULATOR),
+
+    /**
+     * Received buffers are added to a {@link io.netty.buffer.CompositeByteBuf} without copying.
+     * Suits large messages, e.g. SecurityList(y), received in many reads.
+     */
+    COMPOSITE(ByteToMessageDecoder.COMPOSITE_CUMULATOR);
+
+    private final ByteToMessageDecoder.Cumulator cumulator;
+
+    Cumulation(ByteToMessageDecoder.Cumulator cumulator) {
+        this.cumulator = cumulator;
+    }
+
+    public ByteToMessageDecoder.Cumulator cumulator() {
+        return cumulator;
+    }
+}
@@ -42,6 +42,9 @@ import java.util.List;
  * which is responsible for detecting FIX Protocol tags.
  * </p>
  * <p>
+ * Consider using {@link FixMessageFrameDecoder} instead, which decodes whole message in a single pass.
+ * </p>
+ * <p>
  * <strong>This class is not thread safe!</strong>
  * It should be a separate instance per {@link io.netty.channel.Channel}.
  * </p>
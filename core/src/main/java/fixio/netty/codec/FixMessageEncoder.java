@@ -16,28 +16,121 @@
 
 package fixio.netty.codec;
 
+import fixio.events.MessageStoreFailureEvent;
 import fixio.fixprotocol.FixConst;
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
 import fixio.fixprotocol.FixMessageBuilder;
 import fixio.fixprotocol.FixMessageFragment;
 import fixio.fixprotocol.FixMessageHeader;
 import fixio.fixprotocol.Group;
 import fixio.fixprotocol.GroupField;
+import fixio.fixprotocol.PooledFixMessageBuilder;
 import fixio.fixprotocol.fields.AbstractField;
+import fixio.fixprotocol.fields.CharField;
 import fixio.fixprotocol.fields.DateTimeFormatterWrapper;
+import fixio.fixprotocol.fields.FixedPointNumber;
+import fixio.fixprotocol.fields.FloatField;
+import fixio.fixprotocol.fields.IntField;
+import fixio.fixprotocol.fields.StringField;
+import fixio.fixprotocol.fields.UTCTimestampCodec;
+import fixio.fixprotocol.fields.UTCTimestampField;
+import fixio.fixprotocol.session.FixSession;
+import fixio.netty.pipeline.AbstractSessionHandler;
+import fixio.netty.pipeline.FixClock;
+import fixio.store.MessageStore;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
-
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encodes {@link FixMessageBuilder} directly into the outbound {@link ByteBuf}.
+ * <p>
+ * Space for BeginString(8) and BodyLength(9) is reserved before the message body,
+ * BodyLength value is backfilled when the body is written.
+ * Tag numbers are copied from a precomputed table, numbers are written digit by digit
+ * and the checksum is accumulated while writing, so no intermediate buffers, strings or byte arrays are created.
+ * </p>
+ * <p>
+ * SendingTime(52) and other UTCTimestamp fields are written with {@link FixClock#writeTimestamp},
+ * which renders date and time till seconds once per second.
+ * </p>
+ * <p>
+ * If a {@link MessageStore} is given, encoded messages of established sessions are appended to it
+ * straight from the outbound buffer. The MsgSeqNum of a message is already used when it is encoded,
+ * so a message which can't be stored is sent anyway: the failure is logged, counted
+ * and fired as {@link MessageStoreFailureEvent}.
+ * </p>
+ * <p>
+ * Body of a {@link PooledFixMessageBuilder} is written from its primitive arrays,
+ * and the builder is returned to its pool after encoding.
+ * Body of a {@link FlyweightEncoder} is already encoded, it is copied as is.
+ * </p>
+ * <p>
+ * Encoder never flushes the channel: flushing is up to the writer, see {@link fixio.netty.pipeline.FlushMode}.
+ * </p>
+ */
 @ChannelHandler.Sharable
 public class FixMessageEncoder extends MessageToByteEncoder<FixMessageBuilder> {
 
-    private static final Charset CHARSET = StandardCharsets.US_ASCII;
+    private static final Logger LOGGER = LoggerFactory.getLogger(FixMessageEncoder.class);
+    private static final byte SOH = 1;
+
+    /**
+     * Tags below this number are written from {@link #TAG_BYTES}.
+     */
+    private static final int TAG_TABLE_SIZE = 10000;
+    private static final int TAG_TABLE_ENTRY_SIZE = 5;
+    /**
+     * {@code "tag="} bytes of tags from 0 to {@link #TAG_TABLE_SIZE} - 1, {@link #TAG_TABLE_ENTRY_SIZE} bytes per tag.
+     */
+    private static final byte[] TAG_BYTES = new byte[TAG_TABLE_SIZE * TAG_TABLE_ENTRY_SIZE];
+    private static final int[] TAG_LENGTHS = new int[TAG_TABLE_SIZE];
+    private static final int[] TAG_SUMS = new int[TAG_TABLE_SIZE];
+
+    /**
+     * Number of digits reserved for BodyLength value: enough for any int.
+     */
+    private static final int MAX_BODY_LENGTH_DIGITS = 10;
+
+    static {
+        for (int tag = 0; tag < TAG_TABLE_SIZE; tag++) {
+            final String s = tag + "=";
+            int sum = 0;
+            for (int i = 0; i < s.length(); i++) {
+                TAG_BYTES[tag * TAG_TABLE_ENTRY_SIZE + i] = (byte) s.charAt(i);
+                sum += s.charAt(i);
+            }
+            TAG_LENGTHS[tag] = s.length();
+            TAG_SUMS[tag] = sum;
+        }
+    }
+
+    private final MessageStore messageStore;
+    private final LongAdder storeFailures = new LongAdder();
+
+    public FixMessageEncoder() {
+        this(null);
+    }
+
+    /**
+     * @param messageStore a store of sent messages, or null
+     */
+    public FixMessageEncoder(MessageStore messageStore) {
+        this.messageStore = messageStore;
+    }
+
+    /**
+     * @return number of sent messages which could not be stored
+     */
+    public long getStoreFailureCount() {
+        return storeFailures.sum();
+    }
 
     private static void validateRequiredFields(FixMessageHeader header) {
         if (header.getBeginString() == null) {
@@ -54,100 +147,394 @@ public class FixMessageEncoder extends MessageToByteEncoder<FixMessageBuilder> {
         }
     }
 
-    private static void writeField(int fieldNum, AbstractField field, ByteBuf out) {
-        out.writeBytes(Integer.toString(fieldNum).getBytes(CHARSET));
-        out.writeByte('=');
-        out.writeBytes(field.getBytes());
-        out.writeByte(1);
+    static int calculateChecksum(ByteBuf buf, int offset) {
+        int sum = 0;
+        for (int i = offset; i < buf.writerIndex(); i++) {
+            sum += buf.getByte(i);
+        }
+        return sum % 256;
     }
 
-    private static void writeField(int fieldNum, String stringValue, ByteBuf out) {
-        out.writeBytes(Integer.toString(fieldNum).getBytes(CHARSET));
+    /**
+     * Writes {@code "tag="}.
+     *
+     * @return sum of written bytes
+     */
+    static int writeTag(ByteBuf out, int tagNum) {
+        if (tagNum >= 0 && tagNum < TAG_TABLE_SIZE) {
+            out.writeBytes(TAG_BYTES, tagNum * TAG_TABLE_ENTRY_SIZE, TAG_LENGTHS[tagNum]);
+            return TAG_SUMS[tagNum];
+        }
+        final int sum = writeLong(out, tagNum);
         out.writeByte('=');
-        out.writeBytes(stringValue.getBytes(CHARSET));
-        out.writeByte(1);
+        return sum + '=';
     }
 
-    static int calculateChecksum(ByteBuf buf, int offset) {
+    /**
+     * Writes decimal representation of the value.
+     *
+     * @return sum of written bytes
+     */
+    static int writeLong(ByteBuf out, long value) {
         int sum = 0;
-        for (int i = offset; i < buf.writerIndex(); i++) {
-            sum += buf.getByte(i);
+        // digits are taken from a negative value, so Long.MIN_VALUE is handled too
+        long v = value;
+        if (v < 0) {
+            out.writeByte('-');
+            sum += '-';
+        } else {
+            v = -v;
         }
-        return sum % 256;
+        int digits = 1;
+        for (long t = v; t <= -10; t /= 10) {
+            digits++;
+        }
+        out.ensureWritable(digits);
+        final int start = out.writerIndex();
+        for (int i = start + digits - 1; i >= start; i--) {
+            final int b = '0' - (int) (v % 10);
+            out.setByte(i, b);
+            sum += b;
+            v /= 10;
+        }
+        out.writerIndex(start + digits);
+        return sum;
+    }
+
+    /**
+     * Writes fixed-point number as {@code [-]integerPart[.fraction]}, fraction is zero-padded to the scale.
+     *
+     * @return sum of written bytes
+     */
+    static int writeFixedPoint(ByteBuf out, long scaledValue, int scale) {
+        if (scale == 0 || scaledValue == 0) {
+            return writeLong(out, scaledValue);
+        }
+        int sum = 0;
+        long v = scaledValue;
+        if (v < 0) {
+            out.writeByte('-');
+            sum += '-';
+        } else {
+            v = -v;
+        }
+        int digits = 1;
+        for (long t = v; t <= -10; t /= 10) {
+            digits++;
+        }
+        // at least one digit before the point
+        digits = Math.max(digits, scale + 1);
+        out.ensureWritable(digits + 1);
+        final int start = out.writerIndex();
+        final int pointIndex = start + digits - scale;
+        for (int i = start + digits; i >= start; i--) {
+            final int b;
+            if (i == pointIndex) {
+                b = '.';
+            } else {
+                b = '0' - (int) (v % 10);
+                v /= 10;
+            }
+            out.setByte(i, b);
+            sum += b;
+        }
+        out.writerIndex(start + digits + 1);
+        return sum;
+    }
+
+    /**
+     * Writes ASCII characters of the string.
+     *
+     * @return sum of written bytes
+     */
+    static int writeString(ByteBuf out, String value) {
+        final int length = value.length();
+        out.ensureWritable(length);
+        final int start = out.writerIndex();
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            final int b = (byte) value.charAt(i);
+            out.setByte(start + i, b);
+            sum += b & 0xFF;
+        }
+        out.writerIndex(start + length);
+        return sum;
+    }
+
+    private static int writeTimestamp(ByteBuf out, long epochNanos, TimeStampPrecision precision) {
+        final int start = out.writerIndex();
+        FixClock.writeTimestamp(out, epochNanos, precision);
+        int sum = 0;
+        for (int i = start, end = out.writerIndex(); i < end; i++) {
+            sum += out.getByte(i);
+        }
+        return sum;
     }
 
-    private static void encodeHeader(FixMessageHeader header, ByteBuf out) {
+    private static int writeBytes(ByteBuf out, byte[] value) {
+        return writeBytes(out, value, 0, value.length);
+    }
+
+    private static int writeBytes(ByteBuf out, byte[] value, int offset, int length) {
+        out.writeBytes(value, offset, length);
+        int sum = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            sum += value[i] & 0xFF;
+        }
+        return sum;
+    }
+
+    private static int writeField(ByteBuf out, int tagNum, String value) {
+        final int sum = writeTag(out, tagNum) + writeString(out, value);
+        out.writeByte(SOH);
+        return sum + SOH;
+    }
 
+    private static int writeField(ByteBuf out, int tagNum, long value) {
+        final int sum = writeTag(out, tagNum) + writeLong(out, value);
+        out.writeByte(SOH);
+        return sum + SOH;
+    }
+
+    private static int writeField(ByteBuf out, AbstractField<?> field) {
+        int sum = writeTag(out, field.getTagNum());
+        if (field instanceof StringField stringField) {
+            sum += writeBytes(out, stringField.getBytes());
+        } else if (field instanceof IntField intField) {
+            sum += writeLong(out, intField.intValue());
+        } else if (field instanceof CharField charField) {
+            final int b = (byte) charField.charValue();
+            out.writeByte(b);
+            sum += b & 0xFF;
+        } else if (field instanceof FloatField floatField) {
+            final FixedPointNumber value = floatField.getValue();
+            sum += writeFixedPoint(out, value.getScaledValue(), value.getScale());
+        } else if (field instanceof UTCTimestampField timestampField) {
+            sum += writeTimestamp(out, timestampField.getEpochNanos(), timestampField.getPrecision());
+        } else {
+            sum += writeBytes(out, field.getBytes());
+        }
+        out.writeByte(SOH);
+        return sum + SOH;
+    }
+
+    /**
+     * Writes body entries of a pooled builder straight from its primitive arrays.
+     *
+     * @return sum of written bytes
+     */
+    private static int encodeBody(ByteBuf out, PooledFixMessageBuilder msg) {
+        int sum = 0;
+        for (int i = 0, size = msg.size(); i < size; i++) {
+            switch (msg.kind(i)) {
+                case PooledFixMessageBuilder.KIND_INT -> sum += writeField(out, msg.tagNum(i), msg.longValue(i));
+                case PooledFixMessageBuilder.KIND_FIXED_POINT -> {
+                    sum += writeTag(out, msg.tagNum(i)) + writeFixedPoint(out, msg.longValue(i), msg.aux(i)) + SOH;
+                    out.writeByte(SOH);
+                }
+                case PooledFixMessageBuilder.KIND_STRING -> {
+                    sum += writeTag(out, msg.tagNum(i))
+                            + writeBytes(out, msg.slab(), (int) msg.longValue(i), msg.aux(i)) + SOH;
+                    out.writeByte(SOH);
+                }
+                default -> sum += encodeMessageFragment(out, msg.fragment(i));
+            }
+        }
+        return sum;
+    }
+
+    private static boolean isNotEmpty(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private static int encodeHeader(FixMessageHeader header, ByteBuf out) {
+        int sum = 0;
         // message type
-        writeField(35, header.getMessageType(), out);
+        sum += writeField(out, 35, header.getMessageType());
 
         // SenderCompID
-        writeField(49, header.getSenderCompID(), out);
+        sum += writeField(out, 49, header.getSenderCompID());
 
         // TargetCompID
-        writeField(56, header.getTargetCompID(), out);
+        sum += writeField(out, 56, header.getTargetCompID());
 
         // MsgSeqNum
-        writeField(34, Integer.toString(header.getMsgSeqNum()), out);
+        sum += writeField(out, 34, header.getMsgSeqNum());
+
+        // PossDupFlag
+        if (header.isPossDupFlag()) {
+            sum += writeField(out, 43, "Y");
+        }
 
         // SenderSubID
-        if (header.getSenderSubID() != null && !"".equals(header.getSenderSubID())) {
-            writeField(50, header.getSenderSubID(), out);
+        if (isNotEmpty(header.getSenderSubID())) {
+            sum += writeField(out, 50, header.getSenderSubID());
         }
         // SenderLocationID
-        if (header.getSenderLocationID() != null && !"".equals(header.getSenderLocationID())) {
-            writeField(142, header.getSenderLocationID(), out);
+        if (isNotEmpty(header.getSenderLocationID())) {
+            sum += writeField(out, 142, header.getSenderLocationID());
         }
 
         // TargetSubID
-        if (header.getTargetSubID() != null && !"".equals(header.getTargetSubID())) {
-            writeField(57, header.getTargetSubID(), out);
+        if (isNotEmpty(header.getTargetSubID())) {
+            sum += writeField(out, 57, header.getTargetSubID());
         }
         // TargetLocationID
-        if (header.getTargetLocationID() != null && !"".equals(header.getTargetLocationID())) {
-            writeField(143, header.getTargetLocationID(), out);
+        if (isNotEmpty(header.getTargetLocationID())) {
+            sum += writeField(out, 143, header.getTargetLocationID());
         }
 
         // SendingTime
         DateTimeFormatterWrapper formatter = (header.getDateTimeFormatter() != null) ? header.getDateTimeFormatter() : FixConst.DATE_TIME_FORMATTER_MILLIS;
-        String timeStr = formatter.format(header.getSendingTime());
-        writeField(52, timeStr, out);
+        TimeStampPrecision precision = UTCTimestampCodec.precisionOf(formatter);
+        if (precision != null && header.getSendingTimeNanos() != FixMessageHeader.NO_SENDING_TIME) {
+            sum += writeTag(out, 52) + writeTimestamp(out, header.getSendingTimeNanos(), precision) + SOH;
+            out.writeByte(SOH);
+        } else {
+            sum += writeField(out, 52, formatter.format(header.getSendingTime()));
+        }
+
+        // OrigSendingTime
+        if (header.isPossDupFlag()) {
+            final long origSendingTime = (header.getOrigSendingTimeNanos() != FixMessageHeader.NO_SENDING_TIME)
+                    ? header.getOrigSendingTimeNanos() : header.getSendingTimeNanos();
+            if (origSendingTime != FixMessageHeader.NO_SENDING_TIME) {
+                sum += writeTag(out, 122) + writeTimestamp(out, origSendingTime, (precision != null) ? precision : TimeStampPrecision.MILLIS) + SOH;
+                out.writeByte(SOH);
+            }
+        }
 
         // customize tag
         List<FixMessageFragment> customFields = header.getCustomFields();
         if (customFields != null) {
-            for (FixMessageFragment customField : customFields) {
-                encodeMessageFragment(out, customField);
+            for (int i = 0, size = customFields.size(); i < size; i++) {
+                sum += encodeMessageFragment(out, customFields.get(i));
             }
         }
+        return sum;
     }
 
-    private static int fillBodyBuf(final ByteBuf payloadBuf,
-                                   FixMessageBuilder msg,
-                                   FixMessageHeader header) {
-
-        encodeHeader(header, payloadBuf);
-
-        // message body
-        for (FixMessageFragment component : msg.getBody()) {
-            encodeMessageFragment(payloadBuf, component);
+    static int encodeMessageFragment(ByteBuf out, FixMessageFragment<?> messageFragment) {
+        if (messageFragment instanceof AbstractField<?> field) {
+            return writeField(out, field);
         }
-        return payloadBuf.writerIndex();
+        int sum = 0;
+        if (messageFragment instanceof GroupField groupField) {
+            final List<Group> groups = groupField.getGroups();
+            sum += writeField(out, groupField.getTagNum(), groups.size());
+            for (int i = 0, groupCount = groups.size(); i < groupCount; i++) {
+                final List<FixMessageFragment> contents = groups.get(i).getContents();
+                for (int j = 0, size = contents.size(); j < size; j++) {
+                    sum += encodeMessageFragment(out, contents.get(j));
+                }
+            }
+        }
+        return sum;
     }
 
-    private static void encodeMessageFragment(ByteBuf payloadBuf,
-                                              FixMessageFragment messageFragment) {
-        if (messageFragment instanceof AbstractField field) {
-            writeField(messageFragment.getTagNum(), field, payloadBuf);
-        } else if (messageFragment instanceof GroupField groupField) {
-            writeField(groupField.getTagNum(), Integer.toString(groupField.getGroupCount()), payloadBuf);
-            for (Group c : groupField.getValue()) {
-                List<FixMessageFragment> contents = c.getContents();
-                for (FixMessageFragment content : contents) {
-                    encodeMessageFragment(payloadBuf, content);
+    /**
+     * Writes a stored message for resending in response to ResendRequest(2).
+     * <p>
+     * PossDupFlag(43)=Y is added, SendingTime(52) is replaced with the given time
+     * and the original one is written as OrigSendingTime(122). BodyLength(9) and CheckSum(10) are recalculated.
+     * Other fields are copied as is.
+     * </p>
+     *
+     * @param message          readable bytes of encoded message
+     * @param sendingTimeNanos new SendingTime, nanoseconds since the epoch
+     * @param precision        precision of new SendingTime
+     * @param out              destination buffer
+     * @throws IllegalArgumentException if message is malformed
+     */
+    public static void encodeResend(ByteBuf message, long sendingTimeNanos, TimeStampPrecision precision, ByteBuf out) {
+        final int start = message.readerIndex();
+        final int end = message.writerIndex();
+        final int timestampLength = UTCTimestampCodec.length(precision);
+
+        // first pass: find BeginString and calculate BodyLength
+        int beginStringEnd = -1;
+        int bodyLength = 0;
+        boolean sendingTimeFound = false;
+        int pos = start;
+        while (pos < end) {
+            final int equalsIndex = message.indexOf(pos, end, (byte) '=');
+            final int valueEnd = (equalsIndex < 0) ? -1 : message.indexOf(equalsIndex, end, SOH);
+            if (valueEnd < 0) {
+                throw new IllegalArgumentException("Malformed message at " + (pos - start));
+            }
+            final int tagNum = parseTagNum(message, pos, equalsIndex);
+            if (pos == start && tagNum != 8) {
+                throw new IllegalArgumentException("Malformed message: BeginString(8) expected");
+            }
+            if (tagNum == 10) {
+                break;
+            }
+            switch (tagNum) {
+                case 8 -> beginStringEnd = valueEnd + 1;
+                case 9, 43, 122 -> {
                 }
+                case 52 -> {
+                    sendingTimeFound = true;
+                    // 52=<new time>|43=Y|122=<original time>|
+                    bodyLength += 3 + timestampLength + 1 + 5 + 4 + (valueEnd - equalsIndex - 1) + 1;
+                }
+                default -> bodyLength += valueEnd + 1 - pos;
             }
+            pos = valueEnd + 1;
+        }
+        if (pos >= end) {
+            throw new IllegalArgumentException("Malformed message: CheckSum(10) expected");
         }
+        if (!sendingTimeFound) {
+            bodyLength += 3 + timestampLength + 1 + 5;
+        }
+        final int checksumStart = pos;
+
+        // second pass: write
+        final int messageStart = out.writerIndex();
+        out.ensureWritable(beginStringEnd - start + 2 + MAX_BODY_LENGTH_DIGITS + 1 + bodyLength + 7);
+        out.writeBytes(message, start, beginStringEnd - start);
+        writeTag(out, 9);
+        writeLong(out, bodyLength);
+        out.writeByte(SOH);
+        pos = beginStringEnd;
+        while (pos < checksumStart) {
+            final int equalsIndex = message.indexOf(pos, checksumStart, (byte) '=');
+            final int valueEnd = message.indexOf(equalsIndex, checksumStart, SOH);
+            switch (parseTagNum(message, pos, equalsIndex)) {
+                case 9, 43, 122 -> {
+                }
+                case 52 -> {
+                    writeTag(out, 52);
+                    FixClock.writeTimestamp(out, sendingTimeNanos, precision);
+                    out.writeByte(SOH);
+                    writeField(out, 43, "Y");
+                    writeTag(out, 122);
+                    out.writeBytes(message, equalsIndex + 1, valueEnd - equalsIndex);
+                }
+                default -> out.writeBytes(message, pos, valueEnd + 1 - pos);
+            }
+            pos = valueEnd + 1;
+        }
+        if (!sendingTimeFound) {
+            writeTag(out, 52);
+            FixClock.writeTimestamp(out, sendingTimeNanos, precision);
+            out.writeByte(SOH);
+            writeField(out, 43, "Y");
+        }
+        writeChecksumField(out, calculateChecksum(out, messageStart));
+    }
+
+    private static int parseTagNum(ByteBuf message, int start, int end) {
+        int tagNum = 0;
+        for (int i = start; i < end; i++) {
+            final byte b = message.getByte(i);
+            if (b < '0' || b > '9') {
+                throw new IllegalArgumentException("Malformed tag at " + i);
+            }
+            tagNum = tagNum * 10 + (b - '0');
+        }
+        return tagNum;
     }
 
     static void writeChecksumField(ByteBuf out, int value) {
@@ -164,39 +551,101 @@ public class FixMessageEncoder extends MessageToByteEncoder<FixMessageBuilder> {
         out.writeByte((byte) 1);
     }
 
+    /**
+     * Encodes the message. {@link PooledFixMessageBuilder}s and {@link FlyweightEncoder}s are recycled afterwards,
+     * even if encoding fails.
+     */
     @Override
     public void encode(ChannelHandlerContext ctx,
                        FixMessageBuilder msg,
                        ByteBuf out) {
+        try {
+            encodeMessage(ctx, msg, out);
+        } finally {
+            if (msg instanceof PooledFixMessageBuilder pooled) {
+                pooled.recycle();
+            } else if (msg instanceof FlyweightEncoder flyweight) {
+                flyweight.recycle();
+            }
+        }
+    }
+
+    private void encodeMessage(ChannelHandlerContext ctx, FixMessageBuilder msg, ByteBuf out) {
         final FixMessageHeader header = msg.getHeader();
         validateRequiredFields(header);
 
         final int initialOffset = out.writerIndex();
+        final String beginString = header.getBeginString();
+
+        // "8=" beginString SOH "9="
+        final int prefixLength = 2 + beginString.length() + 1 + 2;
+        final int bodyOffset = initialOffset + prefixLength + MAX_BODY_LENGTH_DIGITS + 1;
+        out.ensureWritable(bodyOffset - initialOffset);
+        out.writerIndex(bodyOffset);
+
+        int sum = encodeHeader(header, out);
+        if (msg instanceof PooledFixMessageBuilder pooled) {
+            sum += encodeBody(out, pooled);
+        } else if (msg instanceof FlyweightEncoder flyweight) {
+            out.writeBytes(flyweight.body(), flyweight.body().readerIndex(), flyweight.body().readableBytes());
+            sum += flyweight.bodySum();
+        } else {
+            final List<? extends FixMessageFragment> body = msg.getBody();
+            for (int i = 0, size = body.size(); i < size; i++) {
+                sum += encodeMessageFragment(out, body.get(i));
+            }
+        }
+        final int bodyEnd = out.writerIndex();
+        final int bodyLength = bodyEnd - bodyOffset;
 
-        final ByteBufAllocator byteBufAllocator = ctx.alloc();
-
-        final ByteBuf bodyBuf = byteBufAllocator.buffer();
-        final ByteBuf headBuf = byteBufAllocator.buffer();
-
-        int bodyLength = fillBodyBuf(bodyBuf, msg, header);
-
-        // begin string
-        writeField(8, header.getBeginString(), headBuf);
-        // body length
-        writeField(9, Integer.toString(bodyLength), headBuf);
-
-        out.writeBytes(headBuf);
-        out.writeBytes(bodyBuf);
-
-        int checksum = calculateChecksum(out, initialOffset);
+        // backfill BeginString and BodyLength, right before the body
+        int digits = 1;
+        for (int t = bodyLength; t >= 10; t /= 10) {
+            digits++;
+        }
+        final int start = bodyOffset - 1 - digits - prefixLength;
+        out.writerIndex(start);
+        sum += writeTag(out, 8) + writeString(out, beginString) + SOH;
+        out.writeByte(SOH);
+        sum += writeTag(out, 9) + writeLong(out, bodyLength) + SOH;
+        out.writeByte(SOH);
+        out.writerIndex(bodyEnd);
+
+        int messageStart = initialOffset;
+        if (start != initialOffset) {
+            if (out.readerIndex() == initialOffset) {
+                // nothing was written before the message, just skip unused reserved bytes
+                out.readerIndex(start);
+                messageStart = start;
+            } else {
+                out.setBytes(initialOffset, out, start, bodyEnd - start);
+                out.writerIndex(bodyEnd - (start - initialOffset));
+            }
+        }
 
         // Checksum
-        writeChecksumField(out, checksum);
-        ctx.flush();
+        writeChecksumField(out, sum & 0xFF);
 
-        headBuf.release();
-        bodyBuf.release();
-        assert (headBuf.refCnt() == 0);
-        assert (bodyBuf.refCnt() == 0);
+        if (messageStore != null && !header.isPossDupFlag()) {
+            store(ctx, header, out, messageStart);
+        }
+    }
+
+    private void store(ChannelHandlerContext ctx, FixMessageHeader header, ByteBuf out, int messageStart) {
+        final FixSession session = ctx.channel().attr(AbstractSessionHandler.FIX_SESSION_KEY).get();
+        final int msgSeqNum = header.getMsgSeqNum();
+        if (session != null && msgSeqNum > 0) {
+            try {
+                if (msgSeqNum == 1) {
+                    // outgoing sequence numbers were reset, messages of the previous sequence must not be resent
+                    messageStore.reset(session.getId());
+                }
+                messageStore.append(session.getId(), msgSeqNum, out, messageStart, out.writerIndex() - messageStart);
+            } catch (RuntimeException e) {
+                storeFailures.increment();
+                LOGGER.warn("{}: message {} is sent, but not stored", session.getId(), msgSeqNum, e);
+                ctx.fireUserEventTriggered(new MessageStoreFailureEvent(session, msgSeqNum, e));
+            }
+        }
     }
 }
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package fixio.netty.codec;
+
+import fixio.fixprotocol.FixMessage;
+import fixio.fixprotocol.FixMessageImpl;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.ByteProcessor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decodes a stream of bytes into FixMessages in a single pass.
+ * <p>
+ * Message boundaries are detected using BodyLength(9): once the whole frame
+ * {@code 8=...|9=NNN|...|10=CCC|} is available it is scanned once,
+ * computing the checksum and adding fields to the {@link FixMessageImpl} as they are found.
+ * One message is emitted per frame.
+ * </p>
+ * <pre><code>
+ * ChannelPipeline pipeline = ch.pipeline();
+ * pipeline.addLast("fixMessageDecoder", new FixMessageFrameDecoder());
+ * pipeline.addLast("fixMessageEncoder", new FixMessageEncoder());
+ * </code></pre>
+ * <p>
+ * In zero-copy mode {@link ByteBufFixMessage}s are emitted instead of {@link FixMessageImpl}s.
+ * They refer to a retained slice of the received bytes and should be released after processing.
+ * </p>
+ * <p>
+ * When a malformed frame is detected it is skipped and {@link DecoderException} is thrown,
+ * so decoding may continue from the next message.
+ * </p>
+ * <p>
+ * Received data is limited, so a peer can't make the decoder allocate without bound:
+ * message length is checked as soon as BodyLength(9) is read, before the message is accumulated,
+ * the number of fields is counted while the frame is scanned, and the nesting of repeating groups
+ * is checked while groups are assembled. See {@link Cumulation} for accumulation of received bytes.
+ * </p>
+ * <p>
+ * <strong>This class is not thread safe!</strong>
+ * It should be a separate instance per {@link io.netty.channel.Channel}.
+ * </p>
+ */
+public class FixMessageFrameDecoder extends ByteToMessageDecoder {
+
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = 1024 * 1024;
+    public static final int DEFAULT_MAX_FIELD_COUNT = 65536;
+    public static final int DEFAULT_MAX_GROUP_DEPTH = 8;
+
+    private static final byte SOH = 1;
+    /**
+     * Length of "10=CCC|"
+     */
+    private static final int CHECKSUM_FIELD_LENGTH = 7;
+    /**
+     * Max length of "8=FIXT.1.1|" prefix we are ready to wait for.
+     */
+    private static final int MAX_BEGIN_STRING_LENGTH = 32;
+    /**
+     * Max length of BodyLength value.
+     */
+    private static final int MAX_BODY_LENGTH_DIGITS = 9;
+    /**
+     * Max tag num, before the last digit is appended. Tags have at most 9 digits, so they never overflow.
+     */
+    private static final int MAX_TAG_NUM_PREFIX = 99_999_999;
+
+    private final int maxMessageLength;
+    private final int maxFieldCount;
+    private final int maxGroupDepth;
+    private final FieldIndexer indexer;
+    private byte[] frame;
+    private long bytesToDiscard;
+
+    public FixMessageFrameDecoder() {
+        this(DEFAULT_MAX_MESSAGE_LENGTH);
+    }
+
+    public FixMessageFrameDecoder(int maxMessageLength) {
+        this(maxMessageLength, false);
+    }
+
+    /**
+     * @param maxMessageLength max length of the message, in bytes
+     * @param zeroCopy         if true, {@link ByteBufFixMessage}s are produced
+     */
+    public FixMessageFrameDecoder(int maxMessageLength, boolean zeroCopy) {
+        this(maxMessageLength, DEFAULT_MAX_FIELD_COUNT, DEFAULT_MAX_GROUP_DEPTH, zeroCopy);
+    }
+
+    /**
+     * @param maxMessageLength max length of the message, in bytes
+     * @param maxFieldCount    max number of fields in the message, including header and trailer
+     * @param maxGroupDepth    max nesting level of repeating groups
+     * @param zeroCopy         if true, {@link ByteBufFixMessage}s are produced
+     */
+    public FixMessageFrameDecoder(int maxMessageLength, int maxFieldCount, int maxGroupDepth, boolean zeroCopy) {
+        if (maxMessageLength <= 0) {
+            throw new IllegalArgumentException("maxMessageLength must be positive but got " + maxMessageLength);
+        }
+        if (maxFieldCount <= 0) {
+            throw new IllegalArgumentException("maxFieldCount must be positive but got " + maxFieldCount);
+        }
+        if (maxGroupDepth <= 0) {
+            throw new IllegalArgumentException("maxGroupDepth must be positive but got " + maxGroupDepth);
+        }
+        this.maxMessageLength = maxMessageLength;
+        this.maxFieldCount = maxFieldCount;
+        this.maxGroupDepth = maxGroupDepth;
+        if (zeroCopy) {
+            indexer = new FieldIndexer(maxFieldCount, maxGroupDepth);
+        } else {
+            indexer = null;
+            frame = new byte[1024];
+        }
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        if (bytesToDiscard > 0) {
+            discard(in);
+            return;
+        }
+        final FixMessage message = decodeFrame(in);
+        if (message != null) {
+            out.add(message);
+        }
+    }
+
+    private FixMessage decodeFrame(ByteBuf in) {
+        final int start = in.readerIndex();
+        final int end = in.writerIndex();
+
+        // BeginString(8)
+        if (end - start < 2) {
+            return null;
+        }
+        if (in.getByte(start) != '8' || in.getByte(start + 1) != '=') {
+            skipToNextMessage(in, start);
+            throw new CorruptedFrameException("BeginString tag expected, but got: " + preview(in, start));
+        }
+        final int beginStringEnd = in.indexOf(start + 2, Math.min(end, start + MAX_BEGIN_STRING_LENGTH), SOH);
+        if (beginStringEnd < 0) {
+            if (end - start >= MAX_BEGIN_STRING_LENGTH) {
+                skipToNextMessage(in, start);
+                throw new CorruptedFrameException("BeginString is too long: " + preview(in, start));
+            }
+            return null;
+        }
+
+        // BodyLength(9)
+        int index = beginStringEnd + 1;
+        if (end - index < 2) {
+            return null;
+        }
+        if (in.getByte(index) != '9' || in.getByte(index + 1) != '=') {
+            skipToNextMessage(in, start);
+            throw new CorruptedFrameException("BodyLength(9) expected after BeginString(8)");
+        }
+        index += 2;
+        int bodyLength = 0;
+        int digits = 0;
+        while (true) {
+            if (index >= end) {
+                return null;
+            }
+            final byte b = in.getByte(index++);
+            if (b == SOH) {
+                break;
+            }
+            if (b < '0' || b > '9' || ++digits > MAX_BODY_LENGTH_DIGITS) {
+                skipToNextMessage(in, start);
+                throw new CorruptedFrameException("Invalid BodyLength(9) value");
+            }
+            bodyLength = bodyLength * 10 + (b - '0');
+        }
+        if (digits == 0) {
+            skipToNextMessage(in, start);
+            throw new CorruptedFrameException("Invalid BodyLength(9) value");
+        }
+
+        final long frameLength = (long) (index - start) + bodyLength + CHECKSUM_FIELD_LENGTH;
+        if (frameLength > maxMessageLength) {
+            bytesToDiscard = frameLength;
+            discard(in);
+            throw new TooLongFrameException("Message length " + frameLength + " exceeds " + maxMessageLength);
+        }
+        if (end - start < frameLength) {
+            return null;
+        }
+
+        final int length = (int) frameLength;
+        final int checksumIndex = length - CHECKSUM_FIELD_LENGTH;
+        final int checksumStart = start + checksumIndex;
+        if (in.getByte(checksumStart - 1) != SOH
+                || in.getByte(checksumStart) != '1' || in.getByte(checksumStart + 1) != '0'
+                || in.getByte(checksumStart + 2) != '=' || in.getByte(start + length - 1) != SOH) {
+            skipToNextMessage(in, start);
+            throw new CorruptedFrameException("CheckSum(10) expected at position " + checksumIndex
+                    + ", BodyLength(9) value is probably invalid: " + bodyLength);
+        }
+
+        if (indexer != null) {
+            final ByteBuf content = in.retainedSlice(start, length);
+            in.skipBytes(length);
+            try {
+                return indexer.index(content, checksumIndex, length);
+            } catch (RuntimeException e) {
+                content.release();
+                throw e;
+            }
+        }
+
+        if (frame.length < length) {
+            frame = new byte[Math.max(length, frame.length << 1)];
+        }
+        final byte[] bytes = frame;
+        in.getBytes(start, bytes, 0, length);
+        in.skipBytes(length);
+        return parse(bytes, checksumIndex, length);
+    }
+
+    private FixMessageImpl parse(byte[] bytes, int checksumIndex, int length) {
+        final FixMessageImpl message = new FixMessageImpl(maxGroupDepth);
+        int sum = 0;
+        int i = 0;
+        // CheckSum(10) is added after the loop
+        int fieldsLeft = maxFieldCount - 1;
+        while (i < checksumIndex) {
+            if (--fieldsLeft < 0) {
+                throw new DecoderException("Message has more than " + maxFieldCount + " fields");
+            }
+            int tagNum = 0;
+            byte b;
+            while ((b = bytes[i++]) != '=') {
+                if (b < '0' || b > '9' || i >= checksumIndex) {
+                    throw new DecoderException("Invalid tag at position " + (i - 1));
+                }
+                if (tagNum > MAX_TAG_NUM_PREFIX) {
+                    throw new DecoderException("Tag is too long at position " + (i - 1));
+                }
+                tagNum = tagNum * 10 + (b - '0');
+                sum += b;
+            }
+            sum += '=';
+            if (tagNum <= 0) {
+                throw new DecoderException("Tag num must be positive but got " + tagNum);
+            }
+            final int valueOffset = i;
+            while ((b = bytes[i]) != SOH) {
+                sum += b;
+                i++;
+            }
+            sum += SOH;
+            try {
+                message.add(tagNum, bytes, valueOffset, i - valueOffset);
+            } catch (IllegalArgumentException e) {
+                throw new DecoderException("Invalid value of tag " + tagNum, e);
+            }
+            i++;
+        }
+
+        final int checksumValueIndex = checksumIndex + 3;
+        for (int j = checksumValueIndex; j < length - 1; j++) {
+            if (bytes[j] < '0' || bytes[j] > '9') {
+                throw new DecoderException("Invalid CheckSum(10) value");
+            }
+        }
+        message.add(10, bytes, checksumValueIndex, 3);
+
+        final int declaredChecksum = message.getChecksum();
+        final int checksum = sum & 0xFF;
+        if (declaredChecksum != checksum) {
+            throw new DecoderException("Checksum mismatch. Expected: " + declaredChecksum + " but found: " + checksum);
+        }
+        return message;
+    }
+
+    /**
+     * Skips bytes of malformed frame up to the beginning of the next message, if any.
+     */
+    private static void skipToNextMessage(ByteBuf in, int start) {
+        final int end = in.writerIndex();
+        int index = start + 1;
+        while (index < end) {
+            final int soh = in.indexOf(index, end, SOH);
+            if (soh < 0) {
+                break;
+            }
+            if (soh + 2 >= end) {
+                // next message may begin right after the last SOH
+                in.readerIndex(soh + 1);
+                return;
+            }
+            if (in.getByte(soh + 1) == '8' && in.getByte(soh + 2) == '=') {
+                in.readerIndex(soh + 1);
+                return;
+            }
+            index = soh + 1;
+        }
+        in.readerIndex(end);
+    }
+
+    private void discard(ByteBuf in) {
+        final int localBytesToDiscard = (int) Math.min(bytesToDiscard, in.readableBytes());
+        in.skipBytes(localBytesToDiscard);
+        bytesToDiscard -= localBytesToDiscard;
+    }
+
+    private static String preview(ByteBuf in, int start) {
+        final int length = Math.min(10, in.writerIndex() - start);
+        String value = in.toString(start, length, StandardCharsets.US_ASCII);
+        if (in.writerIndex() - start > 10) {
+            value += "...";
+        }
+        return value;
+    }
+
+    /**
+     * Builds {@link ByteBufFixMessage} field index in a single pass over the frame bytes.
+     */
+    private static final class FieldIndexer implements ByteProcessor {
+
+        private final int maxFieldCount;
+        private final int maxGroupDepth;
+        private int[] fields = new int[64 * ByteBufFixMessage.ENTRY_SIZE];
+        private int fieldCount;
+        private int fieldsLeft;
+        private ByteBuf content;
+        private ByteBufFixMessageHeader header;
+        private int position;
+        private int tagNum;
+        private int valueOffset;
+        private boolean inValue;
+        private int sum;
+
+        FieldIndexer(int maxFieldCount, int maxGroupDepth) {
+            this.maxFieldCount = maxFieldCount;
+            this.maxGroupDepth = maxGroupDepth;
+        }
+
+        ByteBufFixMessage index(ByteBuf content, int checksumIndex, int length) {
+            this.content = content;
+            this.header = new ByteBufFixMessageHeader();
+            header.setContent(content);
+            fieldCount = 0;
+            // CheckSum(10) is not indexed
+            fieldsLeft = maxFieldCount - 1;
+            position = 0;
+            tagNum = 0;
+            inValue = false;
+            sum = 0;
+            try {
+                content.forEachByte(0, checksumIndex, this);
+
+                final int checksumValueIndex = checksumIndex + 3;
+                final int declaredChecksum;
+                try {
+                    declaredChecksum = ByteBufFixMessage.parseInt(content, checksumValueIndex, length - 1 - checksumValueIndex);
+                } catch (NumberFormatException e) {
+                    throw new DecoderException("Invalid CheckSum(10) value", e);
+                }
+                final int checksum = sum & 0xFF;
+                if (declaredChecksum != checksum) {
+                    throw new DecoderException("Checksum mismatch. Expected: " + declaredChecksum + " but found: " + checksum);
+                }
+                return new ByteBufFixMessage(content, header, Arrays.copyOf(fields, fieldCount * ByteBufFixMessage.ENTRY_SIZE),
+                        fieldCount, declaredChecksum, maxGroupDepth);
+            } finally {
+                this.content = null;
+                this.header = null;
+            }
+        }
+
+        @Override
+        public boolean process(byte b) {
+            sum += b;
+            if (inValue) {
+                if (b == SOH) {
+                    addField(tagNum, valueOffset, position - valueOffset);
+                    inValue = false;
+                    tagNum = 0;
+                }
+            } else if (b == '=') {
+                if (tagNum <= 0) {
+                    throw new DecoderException("Tag num must be positive but got " + tagNum);
+                }
+                inValue = true;
+                valueOffset = position + 1;
+            } else if (b >= '0' && b <= '9') {
+                if (tagNum > MAX_TAG_NUM_PREFIX) {
+                    throw new DecoderException("Tag is too long at position " + position);
+                }
+                tagNum = tagNum * 10 + (b - '0');
+            } else {
+                throw new DecoderException("Invalid tag at position " + position);
+            }
+            position++;
+            return true;
+        }
+
+        private void addField(int tagNum, int offset, int length) {
+            if (length <= 0) {
+                throw new DecoderException("Value length must be positive but was " + length + ", tag " + tagNum);
+            }
+            if (--fieldsLeft < 0) {
+                throw new DecoderException("Message has more than " + maxFieldCount + " fields");
+            }
+            switch (tagNum) {
+                case 8:
+                    header.setBeginString(AsciiStringTable.BEGIN_STRINGS.decode(content, offset, length));
+                    break;
+                case 35:
+                    header.setMessageType(AsciiStringTable.MESSAGE_TYPES.decode(content, offset, length));
+                    break;
+                case 49:
+                    header.setSenderCompID(offset, length);
+                    break;
+                case 56:
+                    header.setTargetCompID(offset, length);
+                    break;
+                case 34:
+                    try {
+                        header.setMsgSeqNum(ByteBufFixMessage.parseInt(content, offset, length));
+                    } catch (NumberFormatException e) {
+                        throw new DecoderException("Invalid MsgSeqNum(34) value", e);
+                    }
+                    break;
+                default:
+                    final int i = fieldCount * ByteBufFixMessage.ENTRY_SIZE;
+                    if (i == fields.length) {
+                        fields = Arrays.copyOf(fields, fields.length << 1);
+                    }
+                    fields[i] = tagNum;
+                    fields[i + 1] = offset;
+                    fields[i + 2] = length;
+                    fieldCount++;
+            }
+        }
+    }
+}
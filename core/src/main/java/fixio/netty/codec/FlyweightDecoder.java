@@ -0,0 +1,233 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.codec;
+
+import fixio.fixprotocol.GroupLayout;
+import fixio.fixprotocol.fields.UTCTimestampCodec;
+import io.netty.buffer.ByteBuf;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * Base class of generated flyweight message decoders, see {@link Flyweights}.
+ * <p>
+ * A decoder is wrapped around received message bytes and indexes positions of the message fields
+ * in a single pass: each known field gets a fixed slot holding value offset and length.
+ * Getters parse values straight from the buffer into primitives, no field objects are created.
+ * </p>
+ * <p>
+ * Only fields of the message itself are indexed, including NumInGroup fields.
+ * Fields of repeating groups are skipped, use {@link ByteBufFixMessage#getGroups(int)} to read them.
+ * Fields of header and trailer are skipped as well, they are available from {@link ByteBufFixMessage#getHeader()}.
+ * </p>
+ * <p>
+ * The decoder does not retain the buffer: it is valid while the wrapped message is not released.
+ * Decoders are meant to be reused, e.g. one instance per handler.
+ * </p>
+ * <p>
+ * <strong>This class is not thread safe!</strong>
+ * </p>
+ */
+public abstract class FlyweightDecoder {
+
+    private static final byte SOH = 1;
+    private static final int ABSENT = -1;
+
+    private final String messageType;
+    private final Int2ObjectMap<GroupLayout> groupLayouts;
+    private final int[] offsets;
+    private final int[] lengths;
+    private ByteBuf buffer;
+    private GroupLayout[] layoutStack = new GroupLayout[4];
+    private int[] remainingEntries = new int[4];
+
+    protected FlyweightDecoder(String messageType, int fieldCount) {
+        this.messageType = messageType;
+        this.groupLayouts = GroupLayout.forMessageType(messageType);
+        this.offsets = new int[fieldCount];
+        this.lengths = new int[fieldCount];
+        Arrays.fill(lengths, ABSENT);
+    }
+
+    /**
+     * Returns slot of the field, or a negative number if the field is not indexed.
+     */
+    protected abstract int fieldIndex(int tagNum);
+
+    /**
+     * @return MsgType(35) of decoded messages
+     */
+    public String getMessageType() {
+        return messageType;
+    }
+
+    /**
+     * Wraps the decoder around a received message.
+     *
+     * @param message a message of this decoder type
+     * @return this decoder
+     * @throws IllegalArgumentException if message type does not match
+     */
+    public FlyweightDecoder wrap(ByteBufFixMessage message) {
+        if (!messageType.equals(message.getMessageType())) {
+            throw new IllegalArgumentException("Expected MsgType " + messageType + " but was " + message.getMessageType());
+        }
+        final ByteBuf content = message.content();
+        return wrap(content, content.readerIndex(), content.readableBytes());
+    }
+
+    /**
+     * Wraps the decoder around encoded fields, e.g. a whole message or just its body.
+     *
+     * @param buffer message bytes
+     * @param offset index of the first field
+     * @param length number of bytes to index
+     * @return this decoder
+     * @throws IllegalArgumentException if fields are malformed
+     */
+    public FlyweightDecoder wrap(ByteBuf buffer, int offset, int length) {
+        Arrays.fill(lengths, ABSENT);
+        this.buffer = buffer;
+        final int end = offset + length;
+        int depth = 0;
+        int pos = offset;
+        while (pos < end) {
+            int tagNum = 0;
+            byte b;
+            while (pos < end && (b = buffer.getByte(pos)) != '=') {
+                if (b < '0' || b > '9') {
+                    throw new IllegalArgumentException("Malformed tag at " + (pos - offset));
+                }
+                tagNum = tagNum * 10 + (b - '0');
+                pos++;
+            }
+            final int valueOffset = pos + 1;
+            final int valueEnd = (valueOffset < end) ? buffer.indexOf(valueOffset, end, SOH) : -1;
+            if (valueEnd < 0) {
+                throw new IllegalArgumentException("Malformed field at " + (pos - offset));
+            }
+            pos = valueEnd + 1;
+
+            // skip fields of repeating groups, the same way as GroupAssembler
+            boolean groupMember = false;
+            while (depth > 0) {
+                final GroupLayout layout = layoutStack[depth - 1];
+                if (tagNum == layout.getDelimiterTag() && remainingEntries[depth - 1] > 0) {
+                    remainingEntries[depth - 1]--;
+                    groupMember = true;
+                    break;
+                } else if (tagNum != layout.getDelimiterTag() && layout.isMember(tagNum)) {
+                    final GroupLayout nested = layout.getNestedGroup(tagNum);
+                    if (nested != null) {
+                        depth = push(depth, nested, valueOffset, valueEnd);
+                    }
+                    groupMember = true;
+                    break;
+                }
+                depth--;
+            }
+            if (groupMember) {
+                continue;
+            }
+            final int index = fieldIndex(tagNum);
+            if (index >= 0 && lengths[index] == ABSENT) {
+                offsets[index] = valueOffset;
+                lengths[index] = valueEnd - valueOffset;
+            }
+            final GroupLayout layout = groupLayouts.get(tagNum);
+            if (layout != null) {
+                depth = push(depth, layout, valueOffset, valueEnd);
+            }
+        }
+        return this;
+    }
+
+    private int push(int depth, GroupLayout layout, int valueOffset, int valueEnd) {
+        final int count = ByteBufFixMessage.parseInt(buffer, valueOffset, valueEnd - valueOffset);
+        if (count <= 0) {
+            return depth;
+        }
+        if (depth == layoutStack.length) {
+            layoutStack = Arrays.copyOf(layoutStack, depth << 1);
+            remainingEntries = Arrays.copyOf(remainingEntries, depth << 1);
+        }
+        layoutStack[depth] = layout;
+        remainingEntries[depth] = count;
+        return depth + 1;
+    }
+
+    /**
+     * @return wrapped buffer
+     */
+    public ByteBuf buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return true, if the field of the slot is present in the message
+     */
+    protected final boolean has(int index) {
+        return lengths[index] != ABSENT;
+    }
+
+    /**
+     * @return value offset of the field in the {@link #buffer()}, or -1 if the field is not present
+     */
+    protected final int valueOffset(int index) {
+        return has(index) ? offsets[index] : ABSENT;
+    }
+
+    /**
+     * @return value length of the field, or -1 if the field is not present
+     */
+    protected final int valueLength(int index) {
+        return lengths[index];
+    }
+
+    protected final int getInt(int index) {
+        return has(index) ? ByteBufFixMessage.parseInt(buffer, offsets[index], lengths[index]) : 0;
+    }
+
+    protected final long getScaled(int index, int scale) {
+        return has(index) ? ByteBufFixMessage.parseScaled(buffer, offsets[index], lengths[index], scale) : 0;
+    }
+
+    protected final char getChar(int index) {
+        return has(index) ? (char) buffer.getByte(offsets[index]) : 0;
+    }
+
+    protected final boolean getBoolean(int index) {
+        return has(index) && buffer.getByte(offsets[index]) == 'Y';
+    }
+
+    protected final long getTimestamp(int index) {
+        if (!has(index)) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return UTCTimestampCodec.parseEpochNanos(buffer, offsets[index], lengths[index]);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    protected final String getString(int index) {
+        return has(index) ? buffer.toString(offsets[index], lengths[index], StandardCharsets.US_ASCII) : null;
+    }
+}
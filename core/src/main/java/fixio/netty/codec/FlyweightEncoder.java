@@ -0,0 +1,357 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.codec;
+
+import fixio.fixprotocol.DataType;
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+import fixio.fixprotocol.FixMessageBuilder;
+import fixio.fixprotocol.FixMessageFragment;
+import fixio.fixprotocol.FixMessageHeader;
+import fixio.fixprotocol.Group;
+import fixio.fixprotocol.GroupAssembler;
+import fixio.fixprotocol.GroupField;
+import fixio.fixprotocol.fields.FieldFactory;
+import fixio.fixprotocol.fields.FixedPointNumber;
+import fixio.fixprotocol.fields.UTCTimestampCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.internal.ObjectPool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base class of generated flyweight message encoders, see {@link Flyweights}.
+ * <p>
+ * Setters of a generated encoder append {@code tag=value} to the body buffer right away,
+ * in the order they are called: the encoder does not reorder fields, so they must be set in the order
+ * required by the message layout. Repeating group is written by its {@code newNoXxx(numInGroup)} method,
+ * which writes the NumInGroup field and returns typed setters of the entry fields, followed by fields of each entry.
+ * Checksum of the body is accumulated while writing, and {@link FixMessageEncoder} copies the body
+ * into the outbound buffer without looking at the fields.
+ * </p>
+ * <p>
+ * Instances are taken from a per-thread pool with {@code newInstance()} and are returned to the pool by
+ * {@link FixMessageEncoder} after the message is written, so the encoder must not be used
+ * after it is passed to {@link io.netty.channel.Channel#write(Object)}.
+ * </p>
+ * <p>
+ * Generic {@code add(...)} methods are supported for fields not covered by the generated setters.
+ * Entries of a group added with {@code newGroup(...)} are filled after the group is added, so they are kept
+ * until the next field is written or the message is encoded.
+ * {@link #getBody()} parses the written body, it is intended for logging and application callbacks.
+ * </p>
+ * <p>
+ * <strong>This class is not thread safe!</strong>
+ * </p>
+ */
+public abstract class FlyweightEncoder implements FixMessageBuilder {
+
+    private static final byte SOH = 1;
+    private static final int INITIAL_CAPACITY = 256;
+
+    @SuppressWarnings("rawtypes")
+    private final ObjectPool.Handle handle;
+    private final String messageType;
+    private final FixMessageHeader header = new FixMessageHeader();
+    private final ByteBuf body = Unpooled.buffer(INITIAL_CAPACITY);
+    private TimeStampPrecision timestampPrecision = TimeStampPrecision.MILLIS;
+    private int bodySum;
+    private GroupField pendingGroup;
+
+    protected FlyweightEncoder(ObjectPool.Handle<? extends FlyweightEncoder> handle, String messageType) {
+        this.handle = handle;
+        this.messageType = messageType;
+        header.setMessageType(messageType);
+    }
+
+    /**
+     * Sets precision of UTCTimestamp fields written by the generated setters. Default is {@link TimeStampPrecision#MILLIS}.
+     */
+    public FlyweightEncoder timestampPrecision(TimeStampPrecision timestampPrecision) {
+        assert (timestampPrecision != null) : "TimestampPrecision must be specified.";
+        this.timestampPrecision = timestampPrecision;
+        return this;
+    }
+
+    /**
+     * Clears the encoder and returns it to the pool.
+     */
+    @SuppressWarnings("unchecked")
+    public void recycle() {
+        header.clear();
+        header.setMessageType(messageType);
+        body.clear();
+        bodySum = 0;
+        pendingGroup = null;
+        timestampPrecision = TimeStampPrecision.MILLIS;
+        handle.recycle(this);
+    }
+
+    /**
+     * @return written body fields, without header and trailer
+     */
+    public ByteBuf body() {
+        appendPendingGroup();
+        return body;
+    }
+
+    /**
+     * @return sum of written body bytes
+     */
+    int bodySum() {
+        appendPendingGroup();
+        return bodySum;
+    }
+
+    /**
+     * Writes the group added with {@code newGroup(...)}, once its entries are filled.
+     */
+    private void appendPendingGroup() {
+        final GroupField group = pendingGroup;
+        if (group != null) {
+            pendingGroup = null;
+            bodySum += FixMessageEncoder.encodeMessageFragment(body, group);
+        }
+    }
+
+    protected final void appendInt(int tagNum, long value) {
+        appendPendingGroup();
+        bodySum += FixMessageEncoder.writeTag(body, tagNum) + FixMessageEncoder.writeLong(body, value) + SOH;
+        body.writeByte(SOH);
+    }
+
+    protected final void appendFixedPoint(int tagNum, long scaledValue, int scale) {
+        appendPendingGroup();
+        bodySum += FixMessageEncoder.writeTag(body, tagNum) + FixMessageEncoder.writeFixedPoint(body, scaledValue, scale) + SOH;
+        body.writeByte(SOH);
+    }
+
+    protected final void appendChar(int tagNum, char value) {
+        appendPendingGroup();
+        final int b = (byte) value;
+        bodySum += FixMessageEncoder.writeTag(body, tagNum) + (b & 0xFF) + SOH;
+        body.writeByte(b);
+        body.writeByte(SOH);
+    }
+
+    protected final void appendBoolean(int tagNum, boolean value) {
+        appendChar(tagNum, value ? 'Y' : 'N');
+    }
+
+    protected final void appendTimestamp(int tagNum, long epochNanos) {
+        appendPendingGroup();
+        bodySum += FixMessageEncoder.writeTag(body, tagNum);
+        final int start = body.writerIndex();
+        UTCTimestampCodec.write(body, epochNanos, timestampPrecision);
+        for (int i = start, end = body.writerIndex(); i < end; i++) {
+            bodySum += body.getByte(i);
+        }
+        bodySum += SOH;
+        body.writeByte(SOH);
+    }
+
+    protected final void appendString(int tagNum, CharSequence value) {
+        assert (value != null) : "Value must be specified.";
+        appendPendingGroup();
+        bodySum += FixMessageEncoder.writeTag(body, tagNum);
+        final int length = value.length();
+        body.ensureWritable(length + 1);
+        final int start = body.writerIndex();
+        for (int i = 0; i < length; i++) {
+            final int b = (byte) value.charAt(i);
+            body.setByte(start + i, b);
+            bodySum += b & 0xFF;
+        }
+        body.writerIndex(start + length);
+        bodySum += SOH;
+        body.writeByte(SOH);
+    }
+
+    private FlyweightEncoder appendFragment(FixMessageFragment<?> fragment) {
+        appendPendingGroup();
+        bodySum += FixMessageEncoder.encodeMessageFragment(body, fragment);
+        return this;
+    }
+
+    @Override
+    public FlyweightEncoder add(FieldType field, String value) {
+        return add(field.type(), field.tag(), value);
+    }
+
+    @Override
+    public FlyweightEncoder add(FieldType field, char value) {
+        return appendFragment(FieldFactory.fromIntValue(field.type(), field.tag(), value));
+    }
+
+    @Override
+    public FlyweightEncoder add(int tagNum, String value) {
+        return add(FieldType.forTag(tagNum).type(), tagNum, value);
+    }
+
+    @Override
+    public FlyweightEncoder add(DataType type, int tagNum, String value) {
+        return appendFragment(FieldFactory.fromStringValue(type, tagNum, value));
+    }
+
+    @Override
+    public FlyweightEncoder add(FieldType field, int value) {
+        return add(field.type(), field.tag(), value);
+    }
+
+    @Override
+    public FlyweightEncoder add(int tagNum, int value) {
+        return add(FieldType.forTag(tagNum).type(), tagNum, value);
+    }
+
+    @Override
+    public FlyweightEncoder add(DataType type, int tagNum, int value) {
+        return appendFragment(FieldFactory.fromIntValue(type, tagNum, value));
+    }
+
+    @Override
+    public FlyweightEncoder add(FieldType field, long value) {
+        return add(field.type(), field.tag(), value);
+    }
+
+    @Override
+    public FlyweightEncoder add(int tagNum, long value) {
+        return add(FieldType.forTag(tagNum).type(), tagNum, value);
+    }
+
+    @Override
+    public FlyweightEncoder add(DataType type, int tagNum, long value) {
+        return appendFragment(FieldFactory.fromLongValue(type, tagNum, value));
+    }
+
+    @Override
+    public FlyweightEncoder add(FieldType field, FixedPointNumber value) {
+        return add(field.type(), field.tag(), value);
+    }
+
+    @Override
+    public FlyweightEncoder add(int tagNum, FixedPointNumber value) {
+        return add(FieldType.forTag(tagNum).type(), tagNum, value);
+    }
+
+    @Override
+    public FlyweightEncoder add(DataType type, int tagNum, FixedPointNumber value) {
+        return appendFragment(FieldFactory.fromFixedPointValue(type, tagNum, value));
+    }
+
+    /**
+     * Adds an entry of a repeating group. Entries added one after another are entries of the same group,
+     * which is written with its NumInGroup field when the next field is written.
+     * Generated {@code newNoXxx(numInGroup)} methods write groups without keeping the entries.
+     */
+    @Override
+    public Group newGroup(int tagNum) {
+        return addGroup(tagNum, new Group());
+    }
+
+    @Override
+    public Group newGroup(int tagNum, int expectedGroupSize) {
+        return addGroup(tagNum, new Group(expectedGroupSize));
+    }
+
+    @Override
+    public Group newGroup(FieldType fieldType) {
+        return newGroup(fieldType.tag());
+    }
+
+    @Override
+    public Group newGroup(FieldType fieldType, int expectedGroupSize) {
+        return newGroup(fieldType.tag(), expectedGroupSize);
+    }
+
+    private Group addGroup(int tagNum, Group group) {
+        if (pendingGroup == null || pendingGroup.getTagNum() != tagNum) {
+            appendPendingGroup();
+            pendingGroup = new GroupField(tagNum);
+        }
+        pendingGroup.add(group);
+        return group;
+    }
+
+    @Override
+    public FixMessageHeader getHeader() {
+        return header;
+    }
+
+    @Override
+    public void copyHeader(FixMessageHeader header) {
+        this.header.setMessageType(header.getMessageType());
+        this.header.setMsgSeqNum(header.getMsgSeqNum());
+        this.header.setSenderCompID(header.getSenderCompID());
+        this.header.setSenderSubID(header.getSenderSubID());
+        this.header.setSenderLocationID(header.getSenderLocationID());
+        this.header.setBeginString(header.getBeginString());
+        this.header.setTargetCompID(header.getTargetCompID());
+        this.header.setTargetSubID(header.getTargetSubID());
+        this.header.setTargetLocationID(header.getTargetLocationID());
+    }
+
+    /**
+     * Parses the written body into fields, collecting repeating groups.
+     *
+     * @return a new unmodifiable list
+     */
+    @Override
+    public List<FixMessageFragment> getBody() {
+        appendPendingGroup();
+        final List<FixMessageFragment> fragments = new ArrayList<>();
+        final GroupAssembler groupAssembler = new GroupAssembler(fragments);
+        final byte[] array = body.array();
+        final int arrayOffset = body.arrayOffset();
+        final int end = body.writerIndex();
+        int pos = body.readerIndex();
+        while (pos < end) {
+            final int equalsIndex = body.indexOf(pos, end, (byte) '=');
+            final int valueEnd = body.indexOf(equalsIndex, end, SOH);
+            int tagNum = 0;
+            for (int i = pos; i < equalsIndex; i++) {
+                tagNum = tagNum * 10 + (body.getByte(i) - '0');
+            }
+            groupAssembler.add(FieldFactory.valueOf(tagNum, array, arrayOffset + equalsIndex + 1, valueEnd - equalsIndex - 1),
+                    messageType);
+            pos = valueEnd + 1;
+        }
+        return Collections.unmodifiableList(fragments);
+    }
+
+    @Override
+    public void copyBody(List<? extends FixMessageFragment> body) {
+        this.body.clear();
+        bodySum = 0;
+        pendingGroup = null;
+        for (FixMessageFragment fragment : body) {
+            appendFragment(fragment);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(512);
+        final String sp = System.lineSeparator();
+        sb.append(sp);
+        sb.append("header{").append(header).append("}").append(sp);
+        sb.append("body{").append(body.toString(StandardCharsets.US_ASCII).replace((char) SOH, '|')).append("}").append(sp);
+        return sb.toString();
+    }
+}
@@ -21,7 +21,6 @@ import fixio.fixprotocol.FieldType;
 import fixio.fixprotocol.FixMessage;
 import fixio.fixprotocol.FixMessageBuilder;
 import fixio.fixprotocol.FixMessageBuilderImpl;
-import fixio.fixprotocol.FixMessageHeader;
 import fixio.fixprotocol.MessageTypes;
 import fixio.fixprotocol.session.FixSession;
 import fixio.handlers.FixApplication;
@@ -32,6 +31,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageCodec;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 
 import java.util.List;
@@ -42,7 +42,11 @@ public abstract class AbstractSessionHandler extends MessageToMessageCodec<FixMe
     private final FixApplication fixApplication;
     private final FixClock fixClock;
     private final SessionRepository sessionRepository;
-
+    private ReorderQueue reorderQueue = new ReorderQueue(ReorderQueue.DEFAULT_CAPACITY);
+    /**
+     * Highest MsgSeqNum received ahead of expected one, or 0 if there is no gap.
+     */
+    private int gapEndSeqNum;
 
     protected AbstractSessionHandler(FixApplication fixApplication,
                                      FixClock fixClock,
@@ -56,7 +60,9 @@ public abstract class AbstractSessionHandler extends MessageToMessageCodec<FixMe
 
     private static FixMessageBuilderImpl createReject(FixMessage originalMsg) {
         final FixMessageBuilderImpl reject = new FixMessageBuilderImpl(MessageTypes.REJECT);
-        reject.add(FieldType.RefSeqNum, originalMsg.getInt(FieldType.MsgSeqNum.tag()));
+        final Integer refSeqNum = originalMsg.getInt(FieldType.MsgSeqNum.tag());
+        // decoded messages keep MsgSeqNum in the header
+        reject.add(FieldType.RefSeqNum, (refSeqNum != null) ? refSeqNum : originalMsg.getHeader().getMsgSeqNum());
         reject.add(FieldType.RefMsgType, originalMsg.getMessageType());
         return reject;
     }
@@ -85,6 +91,34 @@ public abstract class AbstractSessionHandler extends MessageToMessageCodec<FixMe
                 getLogger().info("Fix Session Closed. {}", session);
             }
         }
+        reorderQueue.clear();
+        gapEndSeqNum = 0;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        reorderQueue.clear();
+        super.handlerRemoved(ctx);
+    }
+
+    /**
+     * Sets maximum distance from expected MsgSeqNum of messages held until a sequence gap is filled.
+     * Should be called before the channel becomes active.
+     *
+     * @param capacity reorder queue capacity
+     */
+    public void setReorderQueueCapacity(int capacity) {
+        if (capacity != reorderQueue.getCapacity()) {
+            reorderQueue.clear();
+            reorderQueue = new ReorderQueue(capacity);
+        }
+    }
+
+    /**
+     * @return queue of messages received ahead of expected MsgSeqNum, providing queue depth and gap duration metrics
+     */
+    public ReorderQueue getReorderQueue() {
+        return reorderQueue;
     }
 
     protected void prepareMessageToSend(ChannelHandlerContext ctx, FixMessageBuilder response) {
@@ -93,7 +127,7 @@ public abstract class AbstractSessionHandler extends MessageToMessageCodec<FixMe
 
     protected void prepareMessageToSend(ChannelHandlerContext ctx, FixSession session, FixMessageBuilder response) {
         session.prepareOutgoing(response);
-        response.getHeader().setSendingTime(fixClock.now());
+        response.getHeader().setSendingTimeNanos(fixClock.epochNanos());
         getFixApplication().beforeSendMessage(ctx, response);
     }
 
@@ -118,7 +152,7 @@ public abstract class AbstractSessionHandler extends MessageToMessageCodec<FixMe
     protected void encode(ChannelHandlerContext ctx, FixMessageBuilder msg, List<Object> out) throws Exception {
         prepareMessageToSend(ctx, msg);
         getLogger().trace("Sending outbound: {}", msg);
-        out.add(msg);
+        out.add(ReferenceCountUtil.retain(msg));
     }
 
     @Override
@@ -130,13 +164,131 @@ public abstract class AbstractSessionHandler extends MessageToMessageCodec<FixMe
             return;
         }
 
-        FixMessageHeader header = msg.getHeader();
+        final int msgSeqNum = msg.getHeader().getMsgSeqNum();
+        final int expectedMsgSeqNum = session.getNextIncomingMessageSeqNum();
+        if (msgSeqNum > expectedMsgSeqNum && !isSequenceResetMode(msg)) {
+            if (queueOutOfSequence(session, msg)) {
+                ctx.writeAndFlush(newResendRequest(ctx, session, expectedMsgSeqNum, 0));
+            }
+            return;
+        }
+        process(ctx, session, msg, out);
+        processQueued(ctx, session, out);
+    }
+
+    private void process(ChannelHandlerContext ctx, FixSession session, FixMessage msg, List<Object> out) {
+        if (MessageTypes.SEQUENCE_RESET.equals(msg.getMessageType())) {
+            handleSequenceReset(ctx, session, msg);
+            return;
+        }
 
-        final int msgSeqNum = header.getMsgSeqNum();
+        final int msgSeqNum = msg.getHeader().getMsgSeqNum();
         if (!session.checkAndIncrementIncomingSeqNum(msgSeqNum)) {
+            if (msgSeqNum < session.getNextIncomingMessageSeqNum() && isPossDup(msg)) {
+                getLogger().debug("Ignoring possible duplicate MsgSeqNum={}.", msgSeqNum);
+                return;
+            }
             getLogger().error("MessageSeqNum={} != expected {}.", msgSeqNum, session.getNextIncomingMessageSeqNum());
         }
-        out.add(msg);
+        // message is released by codec after decoding
+        out.add(ReferenceCountUtil.retain(msg));
+    }
+
+    /**
+     * Holds a message received ahead of expected MsgSeqNum until the gap is filled.
+     * If the message is too far ahead, it is dropped and is expected to be resent.
+     *
+     * @param session a session
+     * @param msg     a message with MsgSeqNum greater than expected
+     * @return true, if the message opens a new gap and a ResendRequest(2) should be sent
+     */
+    protected boolean queueOutOfSequence(FixSession session, FixMessage msg) {
+        final int msgSeqNum = msg.getHeader().getMsgSeqNum();
+        final int expectedMsgSeqNum = session.getNextIncomingMessageSeqNum();
+        final boolean newGap = gapEndSeqNum == 0;
+        gapEndSeqNum = Math.max(gapEndSeqNum, msgSeqNum);
+        if (reorderQueue.offer(msgSeqNum, msg, expectedMsgSeqNum)) {
+            getLogger().debug("Queued MsgSeqNum={}, expected {}. Queue size: {}.",
+                    msgSeqNum, expectedMsgSeqNum, reorderQueue.size());
+        } else {
+            getLogger().warn("Dropped MsgSeqNum={}, expected {}. Queue size: {}.",
+                    msgSeqNum, expectedMsgSeqNum, reorderQueue.size());
+        }
+        return newGap;
+    }
+
+    /**
+     * Creates a ResendRequest(2) prepared for sending.
+     *
+     * @param beginSeqNo first MsgSeqNum to resend
+     * @param endSeqNo   last MsgSeqNum to resend, or 0 for all messages after BeginSeqNo
+     */
+    protected FixMessageBuilder newResendRequest(ChannelHandlerContext ctx, FixSession session, int beginSeqNo, int endSeqNo) {
+        final FixMessageBuilder resendRequest = new FixMessageBuilderImpl(MessageTypes.RESEND_REQUEST);
+        resendRequest.add(FieldType.BeginSeqNo, beginSeqNo);
+        resendRequest.add(FieldType.EndSeqNo, endSeqNo);
+        prepareMessageToSend(ctx, session, resendRequest);
+        return resendRequest;
+    }
+
+    /**
+     * Processes queued messages which became in sequence.
+     */
+    private void processQueued(ChannelHandlerContext ctx, FixSession session, List<Object> out) {
+        if (gapEndSeqNum == 0) {
+            return;
+        }
+        FixMessage queued;
+        while ((queued = reorderQueue.poll(session.getNextIncomingMessageSeqNum())) != null) {
+            try {
+                if (MessageTypes.LOGON.equals(queued.getMessageType())) {
+                    // Logon was processed when received
+                    session.checkAndIncrementIncomingSeqNum(queued.getHeader().getMsgSeqNum());
+                } else {
+                    process(ctx, session, queued, out);
+                }
+            } finally {
+                ReferenceCountUtil.release(queued);
+            }
+        }
+        if (reorderQueue.isEmpty() && session.getNextIncomingMessageSeqNum() > gapEndSeqNum) {
+            getLogger().info("Sequence gap closed at MsgSeqNum={} in {} us.",
+                    gapEndSeqNum, reorderQueue.getLastGapNanos() / 1000);
+            gapEndSeqNum = 0;
+        }
+    }
+
+    /**
+     * Applies SequenceReset(4): in GapFill mode it must be the next expected message,
+     * in Reset mode it is applied regardless of MsgSeqNum. Sequence can't be reset to a lower number.
+     */
+    private void handleSequenceReset(ChannelHandlerContext ctx, FixSession session, FixMessage msg) {
+        final int msgSeqNum = msg.getHeader().getMsgSeqNum();
+        final int expectedMsgSeqNum = session.getNextIncomingMessageSeqNum();
+        final int newSeqNo = msg.getIntOrDefault(FieldType.NewSeqNo, 0);
+        if (Boolean.TRUE.equals(msg.getValue(FieldType.GapFillFlag)) && msgSeqNum != expectedMsgSeqNum) {
+            if (msgSeqNum > expectedMsgSeqNum || !isPossDup(msg)) {
+                getLogger().error("SequenceReset-GapFill MessageSeqNum={} != expected {}.", msgSeqNum, expectedMsgSeqNum);
+            }
+            return;
+        }
+        if (newSeqNo < expectedMsgSeqNum) {
+            getLogger().error("SequenceReset NewSeqNo={} < expected {}.", newSeqNo, expectedMsgSeqNum);
+            sendReject(ctx, msg, false);
+            return;
+        }
+        getLogger().debug("SequenceReset: next expected MsgSeqNum {} -> {}.", expectedMsgSeqNum, newSeqNo);
+        session.setNextIncomingMessageSeqNum(newSeqNo);
+        reorderQueue.discardBelow(newSeqNo);
+    }
+
+    private static boolean isPossDup(FixMessage msg) {
+        return Boolean.TRUE.equals(msg.getValue(FieldType.PossDupFlag));
+    }
+
+    private static boolean isSequenceResetMode(FixMessage msg) {
+        return MessageTypes.SEQUENCE_RESET.equals(msg.getMessageType())
+                && !Boolean.TRUE.equals(msg.getValue(FieldType.GapFillFlag));
     }
 
     @Override
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+/**
+ * Defines where {@link fixio.handlers.FixApplication} handlers are invoked.
+ *
+ * @see FixChannelSettings#getApplicationDispatchMode()
+ */
+public enum ApplicationDispatchMode {
+
+    /**
+     * Handlers run in an event loop of the worker group passed to {@link FixChannelInitializer}.
+     */
+    WORKER_GROUP,
+
+    /**
+     * Handlers run in the event loop of the channel, without a thread hop.
+     * They must not block.
+     */
+    IO_LOOP,
+
+    /**
+     * Handlers run in a {@link RingBufferEventExecutorGroup}: messages are passed to a handler thread
+     * through a bounded ring buffer. Every session is served by a single handler thread, so message order is kept.
+     * A channel stops reading while the ring of its handler thread is filled up.
+     */
+    RING_BUFFER,
+
+    /**
+     * Every session gets its own virtual thread, so handlers may block.
+     * Platform threads are used when virtual threads are not supported by the JVM.
+     */
+    VIRTUAL_THREAD
+}
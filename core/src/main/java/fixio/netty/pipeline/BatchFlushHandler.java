@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delays flushes until {@code maxMessages} flush requests are received
+ * or {@code maxDelayMicros} elapsed since the first pending flush request.
+ * <p>
+ * Pending writes are also flushed when the channel becomes unwritable, is closed or the handler is removed.
+ * </p>
+ * <p>
+ * <strong>This handler is stateful and can't be shared between channels.</strong>
+ * </p>
+ */
+public class BatchFlushHandler extends ChannelDuplexHandler {
+
+    private final int maxMessages;
+    private final long maxDelayMicros;
+    private final Runnable flushTask;
+
+    private ChannelHandlerContext ctx;
+    private int pendingFlushes;
+    private Future<?> scheduledFlush;
+
+    /**
+     * @param maxMessages    number of flush requests causing an immediate flush
+     * @param maxDelayMicros maximum delay of a flush request, in microseconds
+     */
+    public BatchFlushHandler(int maxMessages, long maxDelayMicros) {
+        if (maxMessages <= 0) {
+            throw new IllegalArgumentException("maxMessages must be positive: " + maxMessages);
+        }
+        if (maxDelayMicros <= 0) {
+            throw new IllegalArgumentException("maxDelayMicros must be positive: " + maxDelayMicros);
+        }
+        this.maxMessages = maxMessages;
+        this.maxDelayMicros = maxDelayMicros;
+        this.flushTask = () -> {
+            scheduledFlush = null;
+            if (pendingFlushes > 0) {
+                flushNow(ctx);
+            }
+        };
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        flushIfNeeded(ctx);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        if (++pendingFlushes >= maxMessages) {
+            flushNow(ctx);
+        } else if (scheduledFlush == null) {
+            scheduledFlush = ctx.executor().schedule(flushTask, maxDelayMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (!ctx.channel().isWritable()) {
+            // make room in the outbound buffer
+            flushIfNeeded(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfNeeded(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfNeeded(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        flushIfNeeded(ctx);
+        ctx.fireExceptionCaught(cause);
+    }
+
+    int getPendingFlushes() {
+        return pendingFlushes;
+    }
+
+    private void flushIfNeeded(ChannelHandlerContext ctx) {
+        if (pendingFlushes > 0) {
+            flushNow(ctx);
+        }
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        pendingFlushes = 0;
+        ctx.flush();
+    }
+}
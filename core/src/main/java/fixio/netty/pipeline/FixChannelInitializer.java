@@ -19,17 +19,22 @@ package fixio.netty.pipeline;
 import fixio.fixprotocol.FixMessage;
 import fixio.fixprotocol.FixMessageBuilder;
 import fixio.handlers.FixApplication;
-import fixio.netty.codec.FixMessageDecoder;
 import fixio.netty.codec.FixMessageEncoder;
-import io.netty.buffer.Unpooled;
+import fixio.netty.codec.FixMessageFrameDecoder;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.handler.codec.DelimiterBasedFrameDecoder;
 import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * FixChannelInitializer
@@ -38,37 +43,122 @@ import io.netty.handler.logging.LoggingHandler;
  */
 public abstract class FixChannelInitializer<C extends Channel> extends ChannelInitializer<C> {
 
-    protected static final String TAG_DECODER_HANDLER_NAME = "tagDecoder";
+    private static final Logger LOGGER = LoggerFactory.getLogger(FixChannelInitializer.class);
+
+    protected static final String DECODER_HANDLER_NAME = "fixMessageDecoder";
+    /**
+     * Name of the first handler of the pipeline, which was a frame decoder in front of the message decoder.
+     *
+     * @deprecated messages are decoded by a single handler, use {@link #DECODER_HANDLER_NAME}
+     */
+    @Deprecated
+    protected static final String TAG_DECODER_HANDLER_NAME = DECODER_HANDLER_NAME;
+    protected static final String FLUSH_HANDLER_NAME = "flush";
+    protected static final String APPLICATION_HANDLER_NAME = "app";
+    protected static final String BACKPRESSURE_HANDLER_NAME = "backpressure";
     private static final FixMessageEncoder ENCODER = new FixMessageEncoder();
     private final EventLoopGroup workerGroup;
 
     private final FixApplication fixApplication;
+    private final FixChannelSettings settings;
+    private final FixMessageEncoder encoder;
 
     private final TestRequestHandler testRequestHandler = new TestRequestHandler();
 
     protected FixChannelInitializer(EventLoopGroup workerGroup, FixApplication fixApplication) {
+        this(workerGroup, fixApplication, FixChannelSettings.defaults());
+    }
+
+    protected FixChannelInitializer(EventLoopGroup workerGroup,
+                                    FixApplication fixApplication,
+                                    FixChannelSettings settings) {
+        assert (settings != null) : "FixChannelSettings is required";
         this.workerGroup = workerGroup;
         this.fixApplication = fixApplication;
+        this.settings = settings;
+        this.encoder = (settings.getMessageStore() != null) ? new FixMessageEncoder(settings.getMessageStore()) : ENCODER;
+        if (settings.getApplicationDispatchMode() == ApplicationDispatchMode.VIRTUAL_THREAD
+                && !VirtualThreads.isSupported()) {
+            LOGGER.warn("Virtual threads are not supported by this JVM, a platform thread is started per session");
+        }
     }
 
     @Override
     public void initChannel(C ch) throws Exception {
         final ChannelPipeline pipeline = ch.pipeline();
-        pipeline.addLast(TAG_DECODER_HANDLER_NAME, new DelimiterBasedFrameDecoder(1024, Unpooled.wrappedBuffer(new byte[]{1})));
-        pipeline.addLast("fixMessageDecoder", new FixMessageDecoder());
-        pipeline.addLast("fixMessageEncoder", ENCODER);
+        final FixMessageFrameDecoder decoder = new FixMessageFrameDecoder(settings.getMaxMessageLength(),
+                settings.getMaxFieldCount(), settings.getMaxGroupDepth(), settings.isZeroCopyDecoding());
+        decoder.setCumulator(settings.getCumulation().cumulator());
+        pipeline.addLast(DECODER_HANDLER_NAME, decoder);
+        // outbound flushes pass it after the encoder, but before SslHandler and the socket
+        final ChannelHandler flushHandler = createFlushHandler();
+        if (flushHandler != null) {
+            pipeline.addLast(FLUSH_HANDLER_NAME, flushHandler);
+        }
+        pipeline.addLast("fixMessageEncoder", encoder);
         pipeline.addLast("logging", new LoggingHandler("fix", LogLevel.DEBUG));
-        pipeline.addLast("session", createSessionHandler()); // handle fix session
+        pipeline.addLast("heartbeat", new HeartbeatHandler(settings.getHeartbeatTimer())); // send and expect heartbeats
+        final MessageToMessageCodec<FixMessage, FixMessageBuilder> sessionHandler = createSessionHandler();
+        if (sessionHandler instanceof AbstractSessionHandler abstractSessionHandler) {
+            abstractSessionHandler.setReorderQueueCapacity(settings.getReorderQueueCapacity());
+        }
+        pipeline.addLast("session", sessionHandler); // handle fix session
         pipeline.addLast("testRequest", testRequestHandler); // process test requests
+        pipeline.addLast("resendRequest", new ResendRequestHandler(
+                settings.getMessageStore(), settings.getResendBatchSize(), FixClock.systemUTC())); // process resend requests
         if (fixApplication != null) {
-            pipeline.addLast(workerGroup, "app", fixApplication); // process application events events
+            pipeline.addLast(createApplicationExecutor(ch), APPLICATION_HANDLER_NAME, fixApplication); // process application events events
+            // stop reading while the ring of the application handler is filled up
+            if (pipeline.context(APPLICATION_HANDLER_NAME).executor()
+                    instanceof RingBufferEventExecutorGroup.RingBufferEventExecutor executor) {
+                pipeline.addBefore(APPLICATION_HANDLER_NAME, BACKPRESSURE_HANDLER_NAME,
+                        new RingBufferBackpressureHandler(executor));
+            }
         }
 
     }
 
+    /**
+     * Creates a handler implementing {@link FixChannelSettings#getFlushMode()}.
+     *
+     * @return a handler or null, if flushes are not delayed
+     */
+    protected ChannelHandler createFlushHandler() {
+        return switch (settings.getFlushMode()) {
+            case CONSOLIDATE -> new FlushConsolidationHandler(settings.getFlushBatchSize(), true);
+            case BATCH -> new BatchFlushHandler(settings.getFlushBatchSize(), settings.getFlushBatchDelayMicros());
+            case IMMEDIATE -> null;
+        };
+    }
+
+    /**
+     * Creates an executor of {@link FixApplication} handler, according to
+     * {@link FixChannelSettings#getApplicationDispatchMode()}.
+     *
+     * @param ch a channel
+     * @return an executor group or null, if the handler runs in the event loop of the channel
+     */
+    protected EventExecutorGroup createApplicationExecutor(C ch) {
+        return switch (settings.getApplicationDispatchMode()) {
+            case WORKER_GROUP -> workerGroup;
+            case IO_LOOP -> null;
+            case RING_BUFFER -> settings.getApplicationExecutor();
+            case VIRTUAL_THREAD -> {
+                final EventExecutor executor = new DefaultEventExecutor(VirtualThreads.threadFactory());
+                // pending events, like channelInactive, are processed during quiet period
+                ch.closeFuture().addListener(future -> executor.shutdownGracefully());
+                yield executor;
+            }
+        };
+    }
+
     protected abstract MessageToMessageCodec<FixMessage, FixMessageBuilder> createSessionHandler();
 
     protected FixApplication getFixApplication() {
         return fixApplication;
     }
+
+    protected FixChannelSettings getSettings() {
+        return settings;
+    }
 }
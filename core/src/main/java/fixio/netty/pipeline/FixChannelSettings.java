@@ -0,0 +1,401 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import fixio.netty.codec.Cumulation;
+import fixio.netty.codec.FixMessageFrameDecoder;
+import fixio.store.MessageStore;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * Settings of the {@link io.netty.channel.ChannelPipeline} created by {@link FixChannelInitializer}.
+ */
+public class FixChannelSettings {
+
+    private static final FixChannelSettings DEFAULT = newBuilder().build();
+
+    public static final int DEFAULT_FLUSH_BATCH_SIZE = 64;
+    public static final long DEFAULT_FLUSH_BATCH_DELAY_MICROS = 100;
+
+    private final boolean zeroCopyDecoding;
+    private final FlushMode flushMode;
+    private final int flushBatchSize;
+    private final long flushBatchDelayMicros;
+    private final MessageStore messageStore;
+    private final int resendBatchSize;
+    private final int reorderQueueCapacity;
+    private final Timer heartbeatTimer;
+    private final ApplicationDispatchMode applicationDispatchMode;
+    private final EventExecutorGroup applicationExecutor;
+    private final int maxMessageLength;
+    private final int maxFieldCount;
+    private final int maxGroupDepth;
+    private final Cumulation cumulation;
+
+    private FixChannelSettings(Builder builder) {
+        this.zeroCopyDecoding = builder.zeroCopyDecoding;
+        this.flushMode = builder.flushMode;
+        this.flushBatchSize = builder.flushBatchSize;
+        this.flushBatchDelayMicros = builder.flushBatchDelayMicros;
+        this.messageStore = builder.messageStore;
+        this.resendBatchSize = builder.resendBatchSize;
+        this.reorderQueueCapacity = builder.reorderQueueCapacity;
+        this.heartbeatTimer = builder.heartbeatTimer;
+        this.applicationDispatchMode = builder.applicationDispatchMode;
+        this.applicationExecutor = builder.applicationExecutor;
+        this.maxMessageLength = builder.maxMessageLength;
+        this.maxFieldCount = builder.maxFieldCount;
+        this.maxGroupDepth = builder.maxGroupDepth;
+        this.cumulation = builder.cumulation;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static FixChannelSettings defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Whether received messages are decoded into {@link fixio.netty.codec.ByteBufFixMessage}s.
+     *
+     * @return true if zero-copy decoding is enabled.
+     * @see fixio.netty.codec.ByteBufFixMessage
+     */
+    public boolean isZeroCopyDecoding() {
+        return zeroCopyDecoding;
+    }
+
+    public FlushMode getFlushMode() {
+        return flushMode;
+    }
+
+    /**
+     * Maximum number of flush requests consolidated into a single flush.
+     * Used by {@link FlushMode#CONSOLIDATE} and {@link FlushMode#BATCH}.
+     *
+     * @return flush batch size
+     */
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    /**
+     * Maximum delay of a flush request in {@link FlushMode#BATCH} mode.
+     *
+     * @return flush delay, in microseconds
+     */
+    public long getFlushBatchDelayMicros() {
+        return flushBatchDelayMicros;
+    }
+
+    /**
+     * Store of sent messages. Messages are stored by {@link fixio.netty.codec.FixMessageEncoder}.
+     *
+     * @return a message store or null, if sent messages are not stored
+     */
+    public MessageStore getMessageStore() {
+        return messageStore;
+    }
+
+    /**
+     * Maximum number of messages resent between flushes, see {@link ResendRequestHandler}.
+     *
+     * @return resend batch size
+     */
+    public int getResendBatchSize() {
+        return resendBatchSize;
+    }
+
+    /**
+     * Maximum distance from expected MsgSeqNum of messages held until a sequence gap is filled,
+     * see {@link ReorderQueue}.
+     *
+     * @return reorder queue capacity
+     */
+    public int getReorderQueueCapacity() {
+        return reorderQueueCapacity;
+    }
+
+    /**
+     * Timer checking heartbeat intervals, see {@link HeartbeatHandler}.
+     *
+     * @return a timer shared by channels
+     */
+    public Timer getHeartbeatTimer() {
+        return (heartbeatTimer != null) ? heartbeatTimer : HeartbeatHandler.sharedTimer();
+    }
+
+    public ApplicationDispatchMode getApplicationDispatchMode() {
+        return applicationDispatchMode;
+    }
+
+    /**
+     * Executor of {@link fixio.handlers.FixApplication} handlers in {@link ApplicationDispatchMode#RING_BUFFER} mode.
+     *
+     * @return an executor group shared by channels
+     */
+    public EventExecutorGroup getApplicationExecutor() {
+        return (applicationExecutor != null) ? applicationExecutor : RingBufferEventExecutorGroup.shared();
+    }
+
+    /**
+     * @return max length of received message, in bytes
+     */
+    public int getMaxMessageLength() {
+        return maxMessageLength;
+    }
+
+    /**
+     * @return max number of fields in received message
+     */
+    public int getMaxFieldCount() {
+        return maxFieldCount;
+    }
+
+    /**
+     * @return max nesting level of repeating groups in received message
+     */
+    public int getMaxGroupDepth() {
+        return maxGroupDepth;
+    }
+
+    public Cumulation getCumulation() {
+        return cumulation;
+    }
+
+    public static class Builder {
+
+        private boolean zeroCopyDecoding;
+        private FlushMode flushMode = FlushMode.IMMEDIATE;
+        private int flushBatchSize = DEFAULT_FLUSH_BATCH_SIZE;
+        private long flushBatchDelayMicros = DEFAULT_FLUSH_BATCH_DELAY_MICROS;
+        private MessageStore messageStore;
+        private int resendBatchSize = ResendRequestHandler.DEFAULT_BATCH_SIZE;
+        private int reorderQueueCapacity = ReorderQueue.DEFAULT_CAPACITY;
+        private Timer heartbeatTimer;
+        private ApplicationDispatchMode applicationDispatchMode = ApplicationDispatchMode.WORKER_GROUP;
+        private EventExecutorGroup applicationExecutor;
+        private int maxMessageLength = FixMessageFrameDecoder.DEFAULT_MAX_MESSAGE_LENGTH;
+        private int maxFieldCount = FixMessageFrameDecoder.DEFAULT_MAX_FIELD_COUNT;
+        private int maxGroupDepth = FixMessageFrameDecoder.DEFAULT_MAX_GROUP_DEPTH;
+        private Cumulation cumulation = Cumulation.MERGE;
+
+        private Builder() {
+        }
+
+        /**
+         * Decode received messages into read-only {@link fixio.netty.codec.ByteBufFixMessage}s
+         * referring to the received bytes instead of copying every field value.
+         * <p>
+         * Such messages are released after {@link fixio.handlers.FixApplication#onMessage} returns,
+         * so they should be retained when passed on or used later.
+         * </p>
+         *
+         * @param zeroCopyDecoding true to enable zero-copy decoding
+         * @return this builder
+         */
+        public Builder zeroCopyDecoding(boolean zeroCopyDecoding) {
+            this.zeroCopyDecoding = zeroCopyDecoding;
+            return this;
+        }
+
+        /**
+         * Defines when written messages are flushed to the socket. Default is {@link FlushMode#IMMEDIATE}.
+         *
+         * @param flushMode a flush mode
+         * @return this builder
+         */
+        public Builder flushMode(FlushMode flushMode) {
+            assert (flushMode != null) : "FlushMode is required";
+            this.flushMode = flushMode;
+            return this;
+        }
+
+        /**
+         * Enables {@link FlushMode#BATCH} mode.
+         *
+         * @param maxMessages    number of flush requests causing an immediate flush
+         * @param maxDelayMicros maximum delay of a flush request, in microseconds
+         * @return this builder
+         */
+        public Builder batchFlush(int maxMessages, long maxDelayMicros) {
+            if (maxMessages <= 0) {
+                throw new IllegalArgumentException("maxMessages must be positive: " + maxMessages);
+            }
+            if (maxDelayMicros <= 0) {
+                throw new IllegalArgumentException("maxDelayMicros must be positive: " + maxDelayMicros);
+            }
+            this.flushMode = FlushMode.BATCH;
+            this.flushBatchSize = maxMessages;
+            this.flushBatchDelayMicros = maxDelayMicros;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of flush requests consolidated into a single flush.
+         *
+         * @param flushBatchSize a positive number
+         * @return this builder
+         */
+        public Builder flushBatchSize(int flushBatchSize) {
+            if (flushBatchSize <= 0) {
+                throw new IllegalArgumentException("flushBatchSize must be positive: " + flushBatchSize);
+            }
+            this.flushBatchSize = flushBatchSize;
+            return this;
+        }
+
+        /**
+         * Stores sent messages, so they can be resent. The store is shared by all channels and is not closed by them.
+         *
+         * @param messageStore a message store, e.g. {@link fixio.store.MemoryMappedMessageStore}
+         * @return this builder
+         */
+        public Builder messageStore(MessageStore messageStore) {
+            this.messageStore = messageStore;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of messages resent between flushes.
+         *
+         * @param resendBatchSize a positive number
+         * @return this builder
+         */
+        public Builder resendBatchSize(int resendBatchSize) {
+            if (resendBatchSize <= 0) {
+                throw new IllegalArgumentException("resendBatchSize must be positive: " + resendBatchSize);
+            }
+            this.resendBatchSize = resendBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets maximum distance from expected MsgSeqNum of messages held until a sequence gap is filled.
+         * Messages received further ahead are dropped and are expected to be resent.
+         *
+         * @param reorderQueueCapacity a positive number, rounded up to a power of two
+         * @return this builder
+         */
+        public Builder reorderQueueCapacity(int reorderQueueCapacity) {
+            if (reorderQueueCapacity <= 0 || reorderQueueCapacity > 1 << 30) {
+                throw new IllegalArgumentException("Invalid reorderQueueCapacity: " + reorderQueueCapacity);
+            }
+            this.reorderQueueCapacity = reorderQueueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets a timer checking heartbeat intervals of all channels,
+         * instead of {@link HeartbeatHandler#sharedTimer()}. The timer is not stopped by channels.
+         *
+         * @param heartbeatTimer a timer, e.g. {@link io.netty.util.HashedWheelTimer}
+         * @return this builder
+         */
+        public Builder heartbeatTimer(Timer heartbeatTimer) {
+            this.heartbeatTimer = heartbeatTimer;
+            return this;
+        }
+
+        /**
+         * Defines where {@link fixio.handlers.FixApplication} handlers are invoked.
+         * Default is {@link ApplicationDispatchMode#WORKER_GROUP}.
+         *
+         * @param applicationDispatchMode a dispatch mode
+         * @return this builder
+         */
+        public Builder applicationDispatchMode(ApplicationDispatchMode applicationDispatchMode) {
+            assert (applicationDispatchMode != null) : "ApplicationDispatchMode is required";
+            this.applicationDispatchMode = applicationDispatchMode;
+            return this;
+        }
+
+        /**
+         * Enables {@link ApplicationDispatchMode#RING_BUFFER} mode with given executor,
+         * instead of {@link RingBufferEventExecutorGroup#shared()}. The executor is not shut down by channels.
+         *
+         * @param applicationExecutor an executor group, e.g. {@link RingBufferEventExecutorGroup}
+         * @return this builder
+         */
+        public Builder ringBufferDispatch(EventExecutorGroup applicationExecutor) {
+            this.applicationDispatchMode = ApplicationDispatchMode.RING_BUFFER;
+            this.applicationExecutor = applicationExecutor;
+            return this;
+        }
+
+        /**
+         * Sets max length of received message. Longer messages are discarded as soon as BodyLength(9) is read.
+         *
+         * @param maxMessageLength a positive number of bytes
+         * @return this builder
+         */
+        public Builder maxMessageLength(int maxMessageLength) {
+            if (maxMessageLength <= 0) {
+                throw new IllegalArgumentException("maxMessageLength must be positive: " + maxMessageLength);
+            }
+            this.maxMessageLength = maxMessageLength;
+            return this;
+        }
+
+        /**
+         * Sets max number of fields in received message, including header and trailer fields.
+         *
+         * @param maxFieldCount a positive number
+         * @return this builder
+         */
+        public Builder maxFieldCount(int maxFieldCount) {
+            if (maxFieldCount <= 0) {
+                throw new IllegalArgumentException("maxFieldCount must be positive: " + maxFieldCount);
+            }
+            this.maxFieldCount = maxFieldCount;
+            return this;
+        }
+
+        /**
+         * Sets max nesting level of repeating groups in received message.
+         *
+         * @param maxGroupDepth a positive number
+         * @return this builder
+         */
+        public Builder maxGroupDepth(int maxGroupDepth) {
+            if (maxGroupDepth <= 0) {
+                throw new IllegalArgumentException("maxGroupDepth must be positive: " + maxGroupDepth);
+            }
+            this.maxGroupDepth = maxGroupDepth;
+            return this;
+        }
+
+        /**
+         * Defines how received bytes are accumulated until a whole message is available.
+         * Default is {@link Cumulation#MERGE}.
+         *
+         * @param cumulation a cumulation strategy
+         * @return this builder
+         */
+        public Builder cumulation(Cumulation cumulation) {
+            assert (cumulation != null) : "Cumulation is required";
+            this.cumulation = cumulation;
+            return this;
+        }
+
+        public FixChannelSettings build() {
+            return new FixChannelSettings(this);
+        }
+    }
+}
@@ -16,6 +16,10 @@
 package fixio.netty.pipeline;
 
 import fixio.fixprotocol.FixConst;
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+import fixio.fixprotocol.fields.UTCTimestampCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
 
 import java.time.Clock;
 import java.time.Instant;
@@ -31,16 +35,25 @@ public class FixClock extends Clock {
 
     private static final FixClock INSTANCE = new FixClock(Clock.system(FixConst.DEFAULT_ZONE_ID));
 
+    private static final FastThreadLocal<RenderedSecond> RENDERED_SECOND = new FastThreadLocal<>() {
+        @Override
+        protected RenderedSecond initialValue() {
+            return new RenderedSecond();
+        }
+    };
+
     private final Clock clock;
     private final ZoneId zoneId;
     private final long initialNanos;
     private final Instant initialInstant;
+    private final long initialEpochNanos;
 
     private FixClock(Clock clock) {
         this.clock = clock;
         this.zoneId = clock.getZone();
         this.initialInstant = clock.instant();
         this.initialNanos = System.nanoTime();
+        this.initialEpochNanos = initialInstant.getEpochSecond() * 1_000_000_000L + initialInstant.getNano();
     }
 
     public static FixClock systemUTC() {
@@ -65,4 +78,47 @@ public class FixClock extends Clock {
     public ZonedDateTime now() {
         return ZonedDateTime.now(this);
     }
+
+    /**
+     * Returns current time without creating {@link Instant}.
+     *
+     * @return nanoseconds since the epoch
+     */
+    public long epochNanos() {
+        return initialEpochNanos + (System.nanoTime() - initialNanos);
+    }
+
+    /**
+     * Writes UTCTimestamp to the buffer.
+     * <p>
+     * Date and time till seconds are rendered once per second and per thread, i.e. per event loop,
+     * so consecutive timestamps within a second are a copy of cached bytes plus sub-second digits.
+     * </p>
+     *
+     * @param out        destination buffer
+     * @param epochNanos nanoseconds since the epoch, e.g. {@link #epochNanos()}
+     * @param precision  timestamp precision
+     * @return number of written bytes
+     */
+    public static int writeTimestamp(ByteBuf out, long epochNanos, TimeStampPrecision precision) {
+        final RenderedSecond rendered = RENDERED_SECOND.get();
+        final long epochSecond = Math.floorDiv(epochNanos, 1_000_000_000L);
+        if (epochSecond != rendered.epochSecond) {
+            UTCTimestampCodec.formatSeconds(epochSecond, rendered.bytes, 0);
+            rendered.epochSecond = epochSecond;
+        }
+        final int length = UTCTimestampCodec.SECONDS_LENGTH + UTCTimestampCodec.formatFraction(
+                (int) Math.floorMod(epochNanos, 1_000_000_000L), precision, rendered.bytes, UTCTimestampCodec.SECONDS_LENGTH);
+        out.writeBytes(rendered.bytes, 0, length);
+        return length;
+    }
+
+    /**
+     * Timestamp bytes of the last rendered second.
+     */
+    private static final class RenderedSecond {
+
+        private final byte[] bytes = new byte[UTCTimestampCodec.PICOS_LENGTH];
+        private long epochSecond = Long.MIN_VALUE;
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+/**
+ * Defines when messages written to a FIX channel are flushed to the socket.
+ *
+ * @see FixChannelSettings.Builder#flushMode(FlushMode)
+ */
+public enum FlushMode {
+
+    /**
+     * Every flush request is passed to the socket immediately.
+     */
+    IMMEDIATE,
+
+    /**
+     * Flush requests are consolidated until the event loop completes reading or runs its next task,
+     * see {@link io.netty.handler.flush.FlushConsolidationHandler}.
+     */
+    CONSOLIDATE,
+
+    /**
+     * Flush requests are delayed until a number of messages is written or a time window elapses,
+     * see {@link BatchFlushHandler}.
+     */
+    BATCH
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessage;
+import fixio.fixprotocol.FixMessageBuilderImpl;
+import fixio.fixprotocol.MessageTypes;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Enforces HeartBtInt(108) of Logon messages.
+ * <p>
+ * Sends a Heartbeat when nothing was sent during heartbeat interval.
+ * When nothing was received during heartbeat interval plus a transmission allowance of 20%,
+ * sends a TestRequest, and if nothing is received during the same time after it,
+ * sends a Logout and closes the connection.
+ * </p>
+ * <p>
+ * Reads and writes only record current time. Idle time is checked by a single {@link Timeout}
+ * per channel, scheduled on a {@link Timer} shared by all channels, see {@link #sharedTimer()},
+ * and rescheduled after every check to the nearest deadline.
+ * </p>
+ * <p>
+ * The handler should be placed before the session handler, so it sees every received message
+ * and every message sent by session and application handlers.
+ * </p>
+ */
+public class HeartbeatHandler extends ChannelDuplexHandler implements TimerTask {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HeartbeatHandler.class);
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final Timer timer;
+    private final LongSupplier nanoTicker;
+    private ChannelHandlerContext ctx;
+    private Timeout timeout;
+    private long intervalNanos;
+    private long lastReadNanos;
+    private long lastWriteNanos;
+    private long testRequestNanos = NONE;
+    private int testRequestCount;
+
+    public HeartbeatHandler(Timer timer) {
+        this(timer, System::nanoTime);
+    }
+
+    HeartbeatHandler(Timer timer, LongSupplier nanoTicker) {
+        assert (timer != null) : "Timer is required";
+        this.timer = timer;
+        this.nanoTicker = nanoTicker;
+    }
+
+    /**
+     * Returns a timer shared by heartbeat handlers of all channels. Its thread is started on first use.
+     *
+     * @return a timing wheel with 100 ms tick
+     */
+    public static Timer sharedTimer() {
+        return SharedTimer.INSTANCE;
+    }
+
+    /**
+     * @return heartbeat interval in nanoseconds, or 0 if heartbeats are not started yet
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+        lastReadNanos = lastWriteNanos = nanoTicker.getAsLong();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        stop();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        stop();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        lastReadNanos = nanoTicker.getAsLong();
+        testRequestNanos = NONE;
+        if (msg instanceof FixMessage fixMessage && MessageTypes.LOGON.equals(fixMessage.getMessageType())) {
+            start(fixMessage.getIntOrDefault(FieldType.HeartBtInt.tag(), 0));
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        lastWriteNanos = nanoTicker.getAsLong();
+        if (msg instanceof FixMessage fixMessage && MessageTypes.LOGON.equals(fixMessage.getMessageType())) {
+            start(fixMessage.getIntOrDefault(FieldType.HeartBtInt.tag(), 0));
+        }
+        ctx.write(msg, promise);
+    }
+
+    /**
+     * (Re)starts heartbeats with HeartBtInt of the last Logon seen, so both parties use the interval
+     * of acceptor's Logon response.
+     */
+    private void start(int heartBtIntSec) {
+        if (heartBtIntSec <= 0) {
+            return;
+        }
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        intervalNanos = TimeUnit.SECONDS.toNanos(heartBtIntSec);
+        LOGGER.debug("Heartbeat interval: {}s", heartBtIntSec);
+        schedule(intervalNanos);
+    }
+
+    private void stop() {
+        intervalNanos = 0;
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+
+    private void schedule(long delayNanos) {
+        timeout = timer.newTimeout(this, Math.max(delayNanos, 0), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Called by the timer thread, checks idle time on the channel event loop.
+     */
+    @Override
+    public void run(Timeout timeout) {
+        if (!timeout.isCancelled()) {
+            ctx.executor().execute(() -> check(timeout));
+        }
+    }
+
+    /**
+     * @param scheduled the timeout, which triggered the check. The check is skipped, if heartbeats were
+     *                  stopped or restarted after it expired, so a channel never has two timeouts scheduled.
+     */
+    void check(Timeout scheduled) {
+        if (scheduled != timeout) {
+            return;
+        }
+        timeout = null;
+        if (intervalNanos == 0 || !ctx.channel().isActive()) {
+            return;
+        }
+        final long timeoutNanos = intervalNanos + intervalNanos / 5;
+        long now = nanoTicker.getAsLong();
+        if (testRequestNanos != NONE) {
+            if (now - testRequestNanos >= timeoutNanos) {
+                LOGGER.warn("No response to TestRequest in {} ms. Closing connection {}.",
+                        TimeUnit.NANOSECONDS.toMillis(now - testRequestNanos), ctx.channel());
+                final FixMessageBuilderImpl logout = new FixMessageBuilderImpl(MessageTypes.LOGOUT);
+                logout.add(FieldType.Text, "Heartbeat timeout");
+                stop();
+                ctx.channel().writeAndFlush(logout).addListener(ChannelFutureListener.CLOSE);
+                return;
+            }
+        } else if (now - lastReadNanos >= timeoutNanos) {
+            final FixMessageBuilderImpl testRequest = new FixMessageBuilderImpl(MessageTypes.TEST_REQUEST);
+            testRequest.add(FieldType.TestReqID, Integer.toString(++testRequestCount));
+            ctx.channel().writeAndFlush(testRequest);
+            testRequestNanos = now;
+        }
+        if (now - lastWriteNanos >= intervalNanos) {
+            ctx.channel().writeAndFlush(new FixMessageBuilderImpl(MessageTypes.HEARTBEAT));
+        }
+        now = nanoTicker.getAsLong();
+        final long readDeadline = ((testRequestNanos != NONE) ? testRequestNanos : lastReadNanos) + timeoutNanos;
+        final long writeDeadline = lastWriteNanos + intervalNanos;
+        schedule(Math.min(readDeadline, writeDeadline) - now);
+    }
+
+    private static final class SharedTimer {
+        static final HashedWheelTimer INSTANCE = new HashedWheelTimer(
+                new DefaultThreadFactory("fixio-heartbeat", true), 100, TimeUnit.MILLISECONDS);
+    }
+}
@@ -18,27 +18,19 @@ package fixio.netty.pipeline;
 import fixio.fixprotocol.FixMessageHeader;
 import fixio.fixprotocol.session.FixSession;
 import fixio.fixprotocol.session.SessionId;
-
-import java.util.concurrent.ConcurrentHashMap;
+import fixio.fixprotocol.session.SessionRegistry;
+import fixio.netty.codec.ByteBufFixMessageHeader;
 
 public class InMemorySessionRepository implements SessionRepository {
 
-    private final ConcurrentHashMap<SessionId, FixSession> sessions = new ConcurrentHashMap<>();
-
-    private static SessionId createSessionId(FixMessageHeader header) {
-        return new SessionId(
-                header.getSenderCompID(),
-                header.getTargetCompID(),
-                header.getSenderSubID(),
-                header.getTargetSubID(),
-                header.getSenderLocationID(),
-                header.getTargetLocationID()
-        );
-    }
+    private final SessionRegistry sessions = new SessionRegistry();
 
     @Override
     public FixSession getOrCreateSession(FixMessageHeader header) {
-        SessionId id = createSessionId(header);
+        final FixSession session = findSession(header);
+        if (session != null) {
+            return session;
+        }
 
         FixSession newSession = FixSession.newBuilder()
                 .beginString(header.getBeginString())
@@ -53,7 +45,7 @@ public class InMemorySessionRepository implements SessionRepository {
         newSession.setNextIncomingMessageSeqNum(1);
         newSession.setNextOutgoingMessageSeqNum(1);
 
-        final FixSession existingSession = sessions.putIfAbsent(id, newSession);
+        final FixSession existingSession = sessions.putIfAbsent(newSession);
         return existingSession == null ? newSession : existingSession;
 
     }
@@ -66,13 +58,18 @@ public class InMemorySessionRepository implements SessionRepository {
      */
     @Override
     public FixSession getSession(FixMessageHeader header) {
-        SessionId id = createSessionId(header);
-
-        return sessions.get(id);
+        return findSession(header);
     }
 
     @Override
     public void removeSession(SessionId sessionId) {
         sessions.remove(sessionId);
     }
+
+    private FixSession findSession(FixMessageHeader header) {
+        if (header instanceof ByteBufFixMessageHeader byteBufHeader) {
+            return byteBufHeader.findSession(sessions);
+        }
+        return sessions.get(header);
+    }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import fixio.fixprotocol.FixMessage;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Holds messages received with MsgSeqNum(34) higher than expected, until the gap is filled.
+ * <p>
+ * Messages are kept in a ring indexed by MsgSeqNum, so only messages within {@code capacity}
+ * from the expected sequence number are held. Messages beyond it are rejected by {@link #offer}
+ * and are expected to be resent by the counterparty.
+ * Queued messages are retained and are released when polled by the caller, discarded or cleared.
+ * </p>
+ * <p>
+ * Queue depth and gap duration are measured. A gap is opened when the first message is queued
+ * and is closed when the queue becomes empty.
+ * </p>
+ * <p>
+ * <strong>This class is not thread safe!</strong> It is used on the channel event loop.
+ * </p>
+ */
+public final class ReorderQueue {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int mask;
+    private FixMessage[] messages;
+    private int[] seqNums;
+    private int size;
+    private int maxSize;
+    private long gapStartNanos;
+    private long gapCount;
+    private long lastGapNanos;
+    private long maxGapNanos;
+    private long totalGapNanos;
+
+    /**
+     * @param capacity maximum distance from expected sequence number, rounded up to a power of two
+     */
+    public ReorderQueue(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.mask = (capacity == 1) ? 0 : Integer.highestOneBit(capacity - 1) * 2 - 1;
+    }
+
+    /**
+     * Queues a message received ahead of the expected one.
+     *
+     * @param msgSeqNum         message sequence number, greater than expected one
+     * @param message           a message, retained if queued
+     * @param expectedMsgSeqNum next expected sequence number
+     * @return false, if message is too far ahead or a message with such sequence number is already queued
+     */
+    public boolean offer(int msgSeqNum, FixMessage message, int expectedMsgSeqNum) {
+        assert (msgSeqNum > expectedMsgSeqNum) : "Message is not ahead of expected one";
+        if (msgSeqNum - expectedMsgSeqNum > mask) {
+            return false;
+        }
+        if (messages == null) {
+            messages = new FixMessage[mask + 1];
+            seqNums = new int[mask + 1];
+        }
+        final int i = msgSeqNum & mask;
+        final FixMessage queued = messages[i];
+        if (queued != null) {
+            if (seqNums[i] == msgSeqNum) {
+                return false;
+            }
+            // left behind by a sequence reset
+            ReferenceCountUtil.release(queued);
+            size--;
+        }
+        messages[i] = ReferenceCountUtil.retain(message);
+        seqNums[i] = msgSeqNum;
+        if (size++ == 0) {
+            gapStartNanos = System.nanoTime();
+            gapCount++;
+        }
+        if (size > maxSize) {
+            maxSize = size;
+        }
+        return true;
+    }
+
+    /**
+     * Removes message with expected sequence number. Caller is responsible for releasing the message.
+     *
+     * @param expectedMsgSeqNum next expected sequence number
+     * @return a message or null, if there is no such message queued
+     */
+    public FixMessage poll(int expectedMsgSeqNum) {
+        if (size == 0) {
+            return null;
+        }
+        final int i = expectedMsgSeqNum & mask;
+        final FixMessage message = messages[i];
+        if (message == null || seqNums[i] != expectedMsgSeqNum) {
+            return null;
+        }
+        messages[i] = null;
+        if (--size == 0) {
+            closeGap();
+        }
+        return message;
+    }
+
+    /**
+     * Releases messages with sequence numbers lower than given, e.g. after SequenceReset.
+     *
+     * @param msgSeqNum a sequence number
+     */
+    public void discardBelow(int msgSeqNum) {
+        if (size == 0) {
+            return;
+        }
+        for (int i = 0; i < messages.length; i++) {
+            if (messages[i] != null && seqNums[i] < msgSeqNum) {
+                ReferenceCountUtil.release(messages[i]);
+                messages[i] = null;
+                if (--size == 0) {
+                    closeGap();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases all queued messages.
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        for (int i = 0; i < messages.length; i++) {
+            if (messages[i] != null) {
+                ReferenceCountUtil.release(messages[i]);
+                messages[i] = null;
+            }
+        }
+        size = 0;
+        closeGap();
+    }
+
+    private void closeGap() {
+        lastGapNanos = System.nanoTime() - gapStartNanos;
+        maxGapNanos = Math.max(maxGapNanos, lastGapNanos);
+        totalGapNanos += lastGapNanos;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return number of queued messages
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return maximum distance from expected sequence number
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return maximum number of queued messages so far
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return number of gaps so far, including the current one
+     */
+    public long getGapCount() {
+        return gapCount;
+    }
+
+    /**
+     * @return duration of the current gap in nanoseconds, or 0 if there is no gap
+     */
+    public long getCurrentGapNanos() {
+        return (size == 0) ? 0 : System.nanoTime() - gapStartNanos;
+    }
+
+    /**
+     * @return duration of the last closed gap in nanoseconds
+     */
+    public long getLastGapNanos() {
+        return lastGapNanos;
+    }
+
+    /**
+     * @return duration of the longest closed gap in nanoseconds
+     */
+    public long getMaxGapNanos() {
+        return maxGapNanos;
+    }
+
+    /**
+     * @return total duration of closed gaps in nanoseconds
+     */
+    public long getTotalGapNanos() {
+        return totalGapNanos;
+    }
+}
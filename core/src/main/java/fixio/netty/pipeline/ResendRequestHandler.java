@@ -0,0 +1,269 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+import fixio.fixprotocol.FixMessage;
+import fixio.fixprotocol.FixMessageBuilderImpl;
+import fixio.fixprotocol.MessageTypes;
+import fixio.fixprotocol.fields.UTCTimestampCodec;
+import fixio.fixprotocol.session.FixSession;
+import fixio.netty.codec.FixMessageEncoder;
+import fixio.store.MessageStore;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Handles ResendRequest(2) messages: replays requested messages from the {@link MessageStore}.
+ * <p>
+ * Application messages are sent again with PossDupFlag(43)=Y and OrigSendingTime(122).
+ * Administrative messages, and messages missing in the store, are replaced with SequenceReset-GapFill(4),
+ * consecutive ones are coalesced into a single GapFill.
+ * If there is no store, the whole range is gap filled.
+ * </p>
+ * <p>
+ * Messages are replayed on the event loop in batches of {@code batchSize} messages with a flush per batch.
+ * Next batch is scheduled as a new event loop task, so other channels are served meanwhile.
+ * When the channel becomes not writable, that is its outbound buffer exceeds the high water mark,
+ * replay is suspended until the channel is writable again.
+ * </p>
+ * <p>
+ * A new ResendRequest restarts the replay with the requested range.
+ * </p>
+ */
+public class ResendRequestHandler extends MessageToMessageDecoder<FixMessage> {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResendRequestHandler.class);
+
+    private final MessageStore messageStore;
+    private final int batchSize;
+    private final FixClock fixClock;
+    private final Runnable replayTask;
+    private ChannelHandlerContext ctx;
+    private ByteBuf stored;
+    private FixSession session;
+    private int nextSeqNum;
+    private int endSeqNum;
+    private int gapStart;
+    private boolean replaying;
+    private boolean scheduled;
+
+    /**
+     * @param messageStore a store of sent messages, or null
+     * @param batchSize    maximum number of messages written between flushes
+     * @param fixClock     a clock
+     */
+    public ResendRequestHandler(MessageStore messageStore, int batchSize, FixClock fixClock) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        assert (fixClock != null) : "Clock is required";
+        this.messageStore = messageStore;
+        this.batchSize = batchSize;
+        this.fixClock = fixClock;
+        this.replayTask = this::replay;
+    }
+
+    /**
+     * Checks whether a message is replaced with GapFill instead of being sent again:
+     * all session level messages except Reject(3) are.
+     * MsgType(35) of encoded message is the third field, after BeginString(8) and BodyLength(9).
+     */
+    private static boolean isAdminMessage(ByteBuf message) {
+        final int start = message.readerIndex();
+        final int end = message.writerIndex();
+        final int bodyLengthEnd = message.indexOf(message.indexOf(start, end, (byte) 1) + 1, end, (byte) 1);
+        final int valueStart = bodyLengthEnd + 4;
+        if (bodyLengthEnd < 0 || valueStart + 1 >= end
+                || message.getByte(bodyLengthEnd + 1) != '3' || message.getByte(bodyLengthEnd + 2) != '5') {
+            return true;
+        }
+        if (message.getByte(valueStart + 1) != 1) {
+            // all admin message types are single character
+            return false;
+        }
+        return switch (message.getByte(valueStart)) {
+            case '0', '1', '2', '4', '5', 'A' -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public boolean acceptInboundMessage(Object msg) {
+        return (msg instanceof FixMessage fm
+                && MessageTypes.RESEND_REQUEST.equals(fm.getMessageType()));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, FixMessage msg, List<Object> out) {
+        final FixSession fixSession = ctx.channel().attr(AbstractSessionHandler.FIX_SESSION_KEY).get();
+        if (fixSession == null) {
+            LOGGER.warn("Session not established. Skipping ResendRequest: {}", msg);
+            return;
+        }
+        final int beginSeqNo = Math.max(msg.getIntOrDefault(FieldType.BeginSeqNo, 1), 1);
+        final int lastSentSeqNum = fixSession.getNextOutgoingMsgSeqNum() - 1;
+        int endSeqNo = msg.getIntOrDefault(FieldType.EndSeqNo, 0);
+        if (endSeqNo == 0 || endSeqNo > lastSentSeqNum) {
+            // 0 means infinity
+            endSeqNo = lastSentSeqNum;
+        }
+        if (beginSeqNo > endSeqNo) {
+            LOGGER.warn("Nothing to resend: BeginSeqNo={}, EndSeqNo={}, last sent {}.", beginSeqNo, endSeqNo, lastSentSeqNum);
+            return;
+        }
+        if (replaying) {
+            LOGGER.info("Restarting replay of [{}, {}].", nextSeqNum, endSeqNum);
+        }
+        LOGGER.info("Resending messages [{}, {}].", beginSeqNo, endSeqNo);
+        this.ctx = ctx;
+        this.session = fixSession;
+        this.nextSeqNum = beginSeqNo;
+        this.endSeqNum = endSeqNo;
+        this.gapStart = -1;
+        this.replaying = true;
+        if (!scheduled) {
+            replay();
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (replaying && !scheduled && ctx.channel().isWritable()) {
+            // may be fired by a flush during replay, so never replay recursively
+            scheduled = true;
+            ctx.executor().execute(replayTask);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        stopReplay();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        stopReplay();
+        super.handlerRemoved(ctx);
+    }
+
+    /**
+     * @return true, if messages are being resent
+     */
+    boolean isReplaying() {
+        return replaying;
+    }
+
+    private void replay() {
+        scheduled = false;
+        if (!replaying) {
+            return;
+        }
+        final ChannelHandlerContext ctx = this.ctx;
+        if (!ctx.channel().isActive()) {
+            stopReplay();
+            return;
+        }
+        final TimeStampPrecision precision = precision(session);
+        int written = 0;
+        while (nextSeqNum <= endSeqNum) {
+            if (!ctx.channel().isWritable()) {
+                // continued by channelWritabilityChanged
+                ctx.flush();
+                return;
+            }
+            if (written >= batchSize) {
+                ctx.flush();
+                scheduled = true;
+                ctx.executor().execute(replayTask);
+                return;
+            }
+            final int seqNum = nextSeqNum++;
+            if (readStored(seqNum) && !isAdminMessage(stored)) {
+                if (gapStart > 0) {
+                    writeGapFill(ctx, gapStart, seqNum);
+                    written++;
+                }
+                final ByteBuf message = ctx.alloc().buffer(stored.readableBytes() + 64);
+                try {
+                    FixMessageEncoder.encodeResend(stored, fixClock.epochNanos(), precision, message);
+                } catch (IllegalArgumentException e) {
+                    message.release();
+                    LOGGER.error("Can't resend stored message {}, gap filling it.", seqNum, e);
+                    if (gapStart < 0) {
+                        gapStart = seqNum;
+                    }
+                    continue;
+                }
+                ctx.write(message, ctx.voidPromise());
+                written++;
+            } else if (gapStart < 0) {
+                gapStart = seqNum;
+            }
+        }
+        if (gapStart > 0) {
+            writeGapFill(ctx, gapStart, endSeqNum + 1);
+        }
+        ctx.flush();
+        LOGGER.info("Resent messages till {}.", endSeqNum);
+        stopReplay();
+    }
+
+    private boolean readStored(int seqNum) {
+        if (messageStore == null) {
+            return false;
+        }
+        if (stored == null) {
+            stored = ctx.alloc().buffer();
+        }
+        stored.clear();
+        return messageStore.get(session.getId(), seqNum, stored);
+    }
+
+    private void writeGapFill(ChannelHandlerContext ctx, int msgSeqNum, int newSeqNo) {
+        final FixMessageBuilderImpl gapFill = new FixMessageBuilderImpl(MessageTypes.SEQUENCE_RESET);
+        gapFill.getHeader().setMsgSeqNum(msgSeqNum);
+        gapFill.getHeader().setPossDupFlag(true);
+        gapFill.add(FieldType.GapFillFlag, "Y");
+        gapFill.add(FieldType.NewSeqNo, newSeqNo);
+        ctx.write(gapFill, ctx.voidPromise());
+        gapStart = -1;
+    }
+
+    private static TimeStampPrecision precision(FixSession session) {
+        final TimeStampPrecision precision = UTCTimestampCodec.precisionOf(session.getDateTimeFormatter());
+        return (precision != null) ? precision : TimeStampPrecision.MILLIS;
+    }
+
+    private void stopReplay() {
+        replaying = false;
+        session = null;
+        if (stored != null) {
+            stored.release();
+            stored = null;
+        }
+    }
+}
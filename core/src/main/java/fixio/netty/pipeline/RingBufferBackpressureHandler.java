@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * Stops reading from the channel, when the {@link RingBufferEventExecutorGroup} executor of the next handler
+ * has more pending tasks than its high water mark. The executor resumes reading when it drains below
+ * its low water mark, so the event loop is never blocked and received messages are never dropped.
+ * <p>
+ * The handler must run in the event loop of the channel.
+ * <strong>It is stateful and can't be shared between channels.</strong>
+ * </p>
+ */
+class RingBufferBackpressureHandler extends ChannelInboundHandlerAdapter {
+
+    private final RingBufferEventExecutorGroup.RingBufferEventExecutor executor;
+
+    RingBufferBackpressureHandler(RingBufferEventExecutorGroup.RingBufferEventExecutor executor) {
+        assert (executor != null) : "executor is required";
+        this.executor = executor;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        ctx.fireChannelRead(msg);
+        final ChannelConfig config = ctx.channel().config();
+        if (config.isAutoRead() && executor.isAboveHighWaterMark()) {
+            config.setAutoRead(false);
+            executor.resumeBelowLowWaterMark(ctx.channel());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.MultithreadEventExecutorGroup;
+import io.netty.util.concurrent.RejectedExecutionHandlers;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Event executors with bounded, preallocated task queues, see {@link ApplicationDispatchMode#RING_BUFFER}.
+ * <p>
+ * Every executor owns a thread draining a fixed-size lock-free ring of tasks.
+ * Netty binds every channel to a single executor of the group, so tasks of a session are executed in order.
+ * </p>
+ * <p>
+ * Submitting threads are never blocked and tasks are never rejected: when a ring is full, tasks wait
+ * in an unbounded overflow queue, which is moved to the ring as it drains.
+ * Channels are kept from filling it by {@link RingBufferBackpressureHandler}: a channel stops reading
+ * when the ring holds more than {@code highWaterMark} tasks, and it resumes when the ring holds
+ * {@code lowWaterMark} tasks or less.
+ * </p>
+ */
+public class RingBufferEventExecutorGroup extends MultithreadEventExecutorGroup {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Time of running tasks between checks for scheduled tasks.
+     */
+    private static final long TASK_BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * @param nThreads number of handler threads
+     * @param capacity capacity of the ring of every thread, rounded up to a power of two
+     */
+    public RingBufferEventExecutorGroup(int nThreads, int capacity) {
+        this(nThreads, new DefaultThreadFactory("fixio-app", true), capacity);
+    }
+
+    /**
+     * Creates a group with water marks at a quarter and three quarters of the capacity.
+     */
+    public RingBufferEventExecutorGroup(int nThreads, ThreadFactory threadFactory, int capacity) {
+        this(nThreads, threadFactory, capacity, capacity / 4, capacity - capacity / 4);
+    }
+
+    /**
+     * @param nThreads      number of handler threads
+     * @param threadFactory factory of handler threads
+     * @param capacity      capacity of the ring of every thread, rounded up to a power of two
+     * @param lowWaterMark  number of pending tasks, below which paused channels resume reading
+     * @param highWaterMark number of pending tasks, above which channels stop reading
+     */
+    public RingBufferEventExecutorGroup(int nThreads, ThreadFactory threadFactory, int capacity,
+                                        int lowWaterMark, int highWaterMark) {
+        super(nThreads, threadFactory, checkCapacity(capacity, lowWaterMark, highWaterMark), lowWaterMark, highWaterMark);
+    }
+
+    private static int checkCapacity(int capacity, int lowWaterMark, int highWaterMark) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (lowWaterMark < 0 || lowWaterMark > highWaterMark || highWaterMark > capacity) {
+            throw new IllegalArgumentException("Water marks must satisfy 0 <= lowWaterMark <= highWaterMark <= capacity: "
+                    + lowWaterMark + ", " + highWaterMark + ", " + capacity);
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns the group used when {@link FixChannelSettings} have no application executor.
+     * It has a thread per available processor, and its threads are daemons.
+     *
+     * @return a group shared by channels
+     */
+    public static RingBufferEventExecutorGroup shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    @Override
+    protected EventExecutor newChild(Executor executor, Object... args) {
+        final int capacity = (Integer) args[0];
+        final int lowWaterMark = (Integer) args[1];
+        final int highWaterMark = (Integer) args[2];
+        return new RingBufferEventExecutor(this, executor, capacity, lowWaterMark, highWaterMark);
+    }
+
+    private static final class SharedHolder {
+        private static final RingBufferEventExecutorGroup INSTANCE =
+                new RingBufferEventExecutorGroup(Runtime.getRuntime().availableProcessors(), DEFAULT_CAPACITY);
+    }
+
+    static final class RingBufferEventExecutor extends SingleThreadEventExecutor {
+
+        private final Queue<Runnable> ring;
+        private final Queue<Runnable> overflow = PlatformDependent.newMpscQueue();
+        private final Queue<Channel> paused = PlatformDependent.newMpscQueue();
+        private final int lowWaterMark;
+        private final int highWaterMark;
+        private volatile Thread thread;
+
+        private RingBufferEventExecutor(RingBufferEventExecutorGroup parent, Executor executor, int capacity,
+                                        int lowWaterMark, int highWaterMark) {
+            this(parent, executor, PlatformDependent.newFixedMpscQueue(capacity), lowWaterMark, highWaterMark);
+        }
+
+        private RingBufferEventExecutor(RingBufferEventExecutorGroup parent, Executor executor, Queue<Runnable> ring,
+                                        int lowWaterMark, int highWaterMark) {
+            super(parent, executor, false, ring, RejectedExecutionHandlers.reject());
+            this.ring = ring;
+            this.lowWaterMark = lowWaterMark;
+            this.highWaterMark = highWaterMark;
+        }
+
+        /**
+         * @return true, if channels submitting tasks should stop reading
+         */
+        boolean isAboveHighWaterMark() {
+            return !overflow.isEmpty() || ring.size() > highWaterMark;
+        }
+
+        /**
+         * Enables auto read of the channel, when the executor has {@code lowWaterMark} pending tasks or less.
+         *
+         * @param channel a channel with disabled auto read
+         */
+        void resumeBelowLowWaterMark(Channel channel) {
+            paused.offer(channel);
+            // the executor checks paused channels whenever it polls a task
+            execute(this::resumePaused);
+        }
+
+        @Override
+        protected void addTask(Runnable task) {
+            if (isShutdown()) {
+                reject();
+            }
+            // once a task overflows, later ones follow it to keep the order
+            if (!overflow.isEmpty() || !ring.offer(task)) {
+                overflow.offer(task);
+            }
+        }
+
+        @Override
+        protected Runnable pollTask() {
+            Runnable task = super.pollTask();
+            if (task == null && transferOverflow()) {
+                task = super.pollTask();
+            }
+            if (!paused.isEmpty()) {
+                resumePaused();
+            }
+            return task;
+        }
+
+        @Override
+        protected boolean hasTasks() {
+            return super.hasTasks() || !overflow.isEmpty();
+        }
+
+        @Override
+        public int pendingTasks() {
+            return ring.size() + overflow.size();
+        }
+
+        @Override
+        protected void afterRunningAllTasks() {
+            transferOverflow();
+        }
+
+        /**
+         * Moves overflowed tasks to the ring. A task is removed from the overflow only after it is in the ring,
+         * so tasks submitted meanwhile are queued after it.
+         *
+         * @return true, if any task was moved
+         */
+        private boolean transferOverflow() {
+            boolean transferred = false;
+            Runnable task;
+            while ((task = overflow.peek()) != null && ring.offer(task)) {
+                overflow.poll();
+                transferred = true;
+            }
+            return transferred;
+        }
+
+        private void resumePaused() {
+            if (!overflow.isEmpty() || ring.size() > lowWaterMark) {
+                return;
+            }
+            Channel channel;
+            while ((channel = paused.poll()) != null) {
+                channel.config().setAutoRead(true);
+            }
+        }
+
+        @Override
+        protected void run() {
+            thread = Thread.currentThread();
+            for (; ; ) {
+                if (!runAllTasks(TASK_BATCH_NANOS) && !hasTasks()) {
+                    LockSupport.parkNanos(this, delayNanos(System.nanoTime()));
+                }
+                if (confirmShutdown()) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        protected void wakeup(boolean inEventLoop) {
+            if (!inEventLoop) {
+                final Thread thread = this.thread;
+                if (thread != null) {
+                    LockSupport.unpark(thread);
+                }
+            }
+        }
+    }
+}
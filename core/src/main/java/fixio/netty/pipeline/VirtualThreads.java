@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads, when the JVM supports them, see {@link ApplicationDispatchMode#VIRTUAL_THREAD}.
+ * <p>
+ * The project is compiled for a JVM without virtual threads, so they are created reflectively.
+ * </p>
+ */
+final class VirtualThreads {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY = createVirtualThreadFactory("fixio-app-");
+    private static final ThreadFactory THREAD_FACTORY = (VIRTUAL_THREAD_FACTORY != null)
+            ? VIRTUAL_THREAD_FACTORY
+            : new DefaultThreadFactory("fixio-app", true);
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return a factory of virtual threads, or of daemon platform threads when virtual threads are not supported
+     */
+    static ThreadFactory threadFactory() {
+        return THREAD_FACTORY;
+    }
+
+    static boolean isSupported() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    private static ThreadFactory createVirtualThreadFactory(String prefix) {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Object namedBuilder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(namedBuilder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Virtual threads are not supported: {}", e.toString());
+            return null;
+        }
+    }
+}
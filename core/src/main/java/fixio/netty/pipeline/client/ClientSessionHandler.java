@@ -83,11 +83,8 @@ public class ClientSessionHandler extends AbstractSessionHandler {
                 if (!session.checkAndIncrementIncomingSeqNum(incomingMsgSeqNum)) {
                     int expectedMsgSeqNum = session.getNextIncomingMessageSeqNum();
                     if (incomingMsgSeqNum > expectedMsgSeqNum) {
-                        FixMessageBuilder resendRequest = new FixMessageBuilderImpl(MessageTypes.RESEND_REQUEST);
-                        resendRequest.add(FieldType.BeginSeqNo, expectedMsgSeqNum);
-                        resendRequest.add(FieldType.EndSeqNo, incomingMsgSeqNum - 1);
-                        prepareMessageToSend(ctx, session, resendRequest);
-                        ctx.writeAndFlush(resendRequest);
+                        queueOutOfSequence(session, msg);
+                        ctx.writeAndFlush(newResendRequest(ctx, session, expectedMsgSeqNum, incomingMsgSeqNum - 1));
                     } else {
                         getLogger().warn("Message Sequence Too Low");
                         ctx.channel().close();
@@ -20,6 +20,7 @@ import fixio.fixprotocol.FixMessage;
 import fixio.fixprotocol.FixMessageBuilder;
 import fixio.handlers.FixApplication;
 import fixio.netty.pipeline.FixChannelInitializer;
+import fixio.netty.pipeline.FixChannelSettings;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
 import io.netty.handler.codec.MessageToMessageCodec;
@@ -44,7 +45,17 @@ public class FixInitiatorChannelInitializer<C extends Channel> extends FixChanne
                                           AuthenticationProvider authenticationProvider,
                                           MessageSequenceProvider messageSequenceProvider,
                                           FixApplication fixApplication) {
-        super(workerGroup, fixApplication);
+        this(workerGroup, settingsProvider, authenticationProvider, messageSequenceProvider, fixApplication,
+                FixChannelSettings.defaults());
+    }
+
+    public FixInitiatorChannelInitializer(EventLoopGroup workerGroup,
+                                          FixSessionSettingsProvider settingsProvider,
+                                          AuthenticationProvider authenticationProvider,
+                                          MessageSequenceProvider messageSequenceProvider,
+                                          FixApplication fixApplication,
+                                          FixChannelSettings channelSettings) {
+        super(workerGroup, fixApplication, channelSettings);
         this.authenticationProvider = authenticationProvider;
         this.messageSequenceProvider = (messageSequenceProvider == null) ? StatelessMessageSequenceProvider.getInstance() : messageSequenceProvider;
         this.settingsProvider = settingsProvider;
@@ -69,7 +80,7 @@ public class FixInitiatorChannelInitializer<C extends Channel> extends FixChanne
     public void initChannel(C ch) throws Exception {
         super.initChannel(ch);
         if (sslContext != null) {
-            ch.pipeline().addBefore(TAG_DECODER_HANDLER_NAME, "ssl", sslContext.newHandler(ch.alloc()));
+            ch.pipeline().addBefore(DECODER_HANDLER_NAME, "ssl", sslContext.newHandler(ch.alloc()));
         }
     }
 }
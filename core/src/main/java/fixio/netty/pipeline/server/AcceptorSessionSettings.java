@@ -0,0 +1,165 @@
+/*
+ * Copyright 2013 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline.server;
+
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+import fixio.fixprotocol.session.SessionId;
+
+/**
+ * Settings of a session allowed by acceptor.
+ * <p>
+ * Identifiers are the ones of received messages: SenderCompID is CompID of the initiator.
+ * </p>
+ * <p>
+ * <strong>Thread-safety:</strong> This class is immutable and thread-safe.
+ * </p>
+ *
+ * @see AcceptorSessionSettingsRegistry
+ */
+public final class AcceptorSessionSettings {
+
+    private final SessionId sessionId;
+    private final int heartbeatIntervalSec;
+    private final TimeStampPrecision timeStampPrecision;
+    private final int maxMessagesPerSecond;
+
+    private AcceptorSessionSettings(Builder builder) {
+        this.sessionId = new SessionId(builder.senderCompID, builder.targetCompID,
+                builder.senderSubID, builder.targetSubID,
+                builder.senderLocationID, builder.targetLocationID).intern();
+        this.heartbeatIntervalSec = builder.heartbeatIntervalSec;
+        this.timeStampPrecision = builder.timeStampPrecision;
+        this.maxMessagesPerSecond = builder.maxMessagesPerSecond;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public SessionId getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return HeartBtInt(108) sent in Logon response, or 0 to accept interval proposed by initiator
+     */
+    public int getHeartbeatInterval() {
+        return heartbeatIntervalSec;
+    }
+
+    /**
+     * @return precision of timestamps sent by acceptor, or null for default precision
+     */
+    public TimeStampPrecision getTimeStampPrecision() {
+        return timeStampPrecision;
+    }
+
+    /**
+     * @return maximum number of messages received per second, or 0 if not limited
+     */
+    public int getMaxMessagesPerSecond() {
+        return maxMessagesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "AcceptorSessionSettings{" + sessionId
+                + ", heartbeatInterval=" + heartbeatIntervalSec
+                + ", timeStampPrecision=" + timeStampPrecision
+                + ", maxMessagesPerSecond=" + maxMessagesPerSecond + '}';
+    }
+
+    public static final class Builder {
+        private String senderCompID;
+        private String senderSubID;
+        private String senderLocationID;
+        private String targetCompID;
+        private String targetSubID;
+        private String targetLocationID;
+        private int heartbeatIntervalSec;
+        private TimeStampPrecision timeStampPrecision;
+        private int maxMessagesPerSecond;
+
+        private Builder() {
+        }
+
+        public Builder senderCompID(String senderCompID) {
+            this.senderCompID = senderCompID;
+            return this;
+        }
+
+        public Builder senderSubID(String senderSubID) {
+            this.senderSubID = senderSubID;
+            return this;
+        }
+
+        public Builder senderLocationID(String senderLocationID) {
+            this.senderLocationID = senderLocationID;
+            return this;
+        }
+
+        public Builder targetCompID(String targetCompID) {
+            this.targetCompID = targetCompID;
+            return this;
+        }
+
+        public Builder targetSubID(String targetSubID) {
+            this.targetSubID = targetSubID;
+            return this;
+        }
+
+        public Builder targetLocationID(String targetLocationID) {
+            this.targetLocationID = targetLocationID;
+            return this;
+        }
+
+        /**
+         * @param heartbeatIntervalSec heartbeat interval in seconds, or 0 to accept interval proposed by initiator
+         * @return this builder
+         */
+        public Builder heartbeatInterval(int heartbeatIntervalSec) {
+            if (heartbeatIntervalSec < 0) {
+                throw new IllegalArgumentException("heartbeatInterval must not be negative: " + heartbeatIntervalSec);
+            }
+            this.heartbeatIntervalSec = heartbeatIntervalSec;
+            return this;
+        }
+
+        public Builder timeStampPrecision(TimeStampPrecision timeStampPrecision) {
+            this.timeStampPrecision = timeStampPrecision;
+            return this;
+        }
+
+        /**
+         * @param maxMessagesPerSecond maximum number of messages received per second, or 0 if not limited
+         * @return this builder
+         */
+        public Builder maxMessagesPerSecond(int maxMessagesPerSecond) {
+            if (maxMessagesPerSecond < 0) {
+                throw new IllegalArgumentException("maxMessagesPerSecond must not be negative: " + maxMessagesPerSecond);
+            }
+            this.maxMessagesPerSecond = maxMessagesPerSecond;
+            return this;
+        }
+
+        public AcceptorSessionSettings build() {
+            if (senderCompID == null || targetCompID == null) {
+                throw new IllegalArgumentException("SenderCompID and TargetCompID are required");
+            }
+            return new AcceptorSessionSettings(this);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline.server;
+
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+import fixio.fixprotocol.FixMessageHeader;
+import fixio.fixprotocol.session.SessionId;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Sessions allowed by acceptor and their settings. Logon of any other session is rejected.
+ * <p>
+ * Settings are kept in an immutable map, which is replaced when settings are registered or removed,
+ * so lookups on Logon are lock-free.
+ * </p>
+ */
+public final class AcceptorSessionSettingsRegistry {
+
+    private volatile Map<SessionId, AcceptorSessionSettings> settings = Map.of();
+
+    public AcceptorSessionSettingsRegistry() {
+    }
+
+    public AcceptorSessionSettingsRegistry(Collection<AcceptorSessionSettings> settings) {
+        final Map<SessionId, AcceptorSessionSettings> map = new HashMap<>();
+        for (AcceptorSessionSettings s : settings) {
+            map.put(s.getSessionId(), s);
+        }
+        this.settings = Map.copyOf(map);
+    }
+
+    /**
+     * Loads session settings from properties. Every session is described with properties having same prefix:
+     * <pre>
+     * client1.SenderCompID=CLIENT1
+     * client1.TargetCompID=SERVER
+     * client1.HeartBtInt=30
+     * client1.TimeStampPrecision=MICROS
+     * client1.MaxMessagesPerSecond=1000
+     * </pre>
+     * SenderSubID, SenderLocationID, TargetSubID and TargetLocationID are optional.
+     *
+     * @param properties session properties
+     * @return a registry
+     * @throws IllegalArgumentException if a property has invalid value
+     */
+    public static AcceptorSessionSettingsRegistry load(Properties properties) {
+        final String suffix = ".SenderCompID";
+        final Map<SessionId, AcceptorSessionSettings> map = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (!name.endsWith(suffix)) {
+                continue;
+            }
+            final String prefix = name.substring(0, name.length() - suffix.length() + 1);
+            final AcceptorSessionSettings.Builder builder = AcceptorSessionSettings.newBuilder()
+                    .senderCompID(properties.getProperty(name))
+                    .senderSubID(properties.getProperty(prefix + "SenderSubID"))
+                    .senderLocationID(properties.getProperty(prefix + "SenderLocationID"))
+                    .targetCompID(properties.getProperty(prefix + "TargetCompID"))
+                    .targetSubID(properties.getProperty(prefix + "TargetSubID"))
+                    .targetLocationID(properties.getProperty(prefix + "TargetLocationID"))
+                    .heartbeatInterval(Integer.parseInt(properties.getProperty(prefix + "HeartBtInt", "0")))
+                    .maxMessagesPerSecond(Integer.parseInt(properties.getProperty(prefix + "MaxMessagesPerSecond", "0")));
+            final String precision = properties.getProperty(prefix + "TimeStampPrecision");
+            if (precision != null) {
+                builder.timeStampPrecision(TimeStampPrecision.valueOf(precision));
+            }
+            final AcceptorSessionSettings sessionSettings = builder.build();
+            map.put(sessionSettings.getSessionId(), sessionSettings);
+        }
+        return new AcceptorSessionSettingsRegistry(map.values());
+    }
+
+    /**
+     * @param header header of received Logon
+     * @return settings or null, if session is not allowed
+     */
+    public AcceptorSessionSettings get(FixMessageHeader header) {
+        return settings.get(SessionId.of(header));
+    }
+
+    public AcceptorSessionSettings get(SessionId sessionId) {
+        return settings.get(sessionId);
+    }
+
+    public int size() {
+        return settings.size();
+    }
+
+    /**
+     * Adds or replaces settings of a session. Established sessions keep their settings.
+     *
+     * @param sessionSettings session settings
+     */
+    public synchronized void register(AcceptorSessionSettings sessionSettings) {
+        final Map<SessionId, AcceptorSessionSettings> map = new HashMap<>(settings);
+        map.put(sessionSettings.getSessionId(), sessionSettings);
+        settings = Map.copyOf(map);
+    }
+
+    /**
+     * Removes settings of a session, so it can't log on anymore.
+     *
+     * @param sessionId session identifier
+     * @return true, if session settings were removed
+     */
+    public synchronized boolean remove(SessionId sessionId) {
+        if (!settings.containsKey(sessionId)) {
+            return false;
+        }
+        final Map<SessionId, AcceptorSessionSettings> map = new HashMap<>(settings);
+        map.remove(sessionId);
+        settings = Map.copyOf(map);
+        return true;
+    }
+}
@@ -20,6 +20,7 @@ import fixio.fixprotocol.FixMessage;
 import fixio.fixprotocol.FixMessageBuilder;
 import fixio.handlers.FixApplication;
 import fixio.netty.pipeline.FixChannelInitializer;
+import fixio.netty.pipeline.FixChannelSettings;
 import fixio.netty.pipeline.SessionRepository;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
@@ -29,19 +30,41 @@ public class FixAcceptorChannelInitializer<C extends Channel> extends FixChannel
 
     private final FixAuthenticator authenticator;
     private final SessionRepository sessionRepository;
+    private final AcceptorSessionSettingsRegistry settingsRegistry;
 
     public FixAcceptorChannelInitializer(EventLoopGroup workerGroup,
                                          FixApplication fixApplication,
                                          FixAuthenticator authenticator,
                                          SessionRepository sessionRepository) {
-        super(workerGroup, fixApplication);
+        this(workerGroup, fixApplication, authenticator, sessionRepository, FixChannelSettings.defaults());
+    }
+
+    public FixAcceptorChannelInitializer(EventLoopGroup workerGroup,
+                                         FixApplication fixApplication,
+                                         FixAuthenticator authenticator,
+                                         SessionRepository sessionRepository,
+                                         FixChannelSettings settings) {
+        this(workerGroup, fixApplication, authenticator, sessionRepository, settings, null);
+    }
+
+    /**
+     * @param settingsRegistry sessions allowed to log on, or null to accept any session
+     */
+    public FixAcceptorChannelInitializer(EventLoopGroup workerGroup,
+                                         FixApplication fixApplication,
+                                         FixAuthenticator authenticator,
+                                         SessionRepository sessionRepository,
+                                         FixChannelSettings settings,
+                                         AcceptorSessionSettingsRegistry settingsRegistry) {
+        super(workerGroup, fixApplication, settings);
         this.authenticator = authenticator;
         this.sessionRepository = sessionRepository;
+        this.settingsRegistry = settingsRegistry;
     }
 
     @Override
     protected MessageToMessageCodec<FixMessage, FixMessageBuilder> createSessionHandler() {
-        return new ServerSessionHandler(getFixApplication(), authenticator, sessionRepository);
+        return new ServerSessionHandler(getFixApplication(), authenticator, sessionRepository, settingsRegistry);
     }
 
 }
@@ -18,12 +18,14 @@ package fixio.netty.pipeline.server;
 
 import fixio.events.LogonEvent;
 import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixConst;
 import fixio.fixprotocol.FixMessage;
 import fixio.fixprotocol.FixMessageBuilder;
 import fixio.fixprotocol.FixMessageBuilderImpl;
 import fixio.fixprotocol.FixMessageHeader;
 import fixio.fixprotocol.MessageTypes;
 import fixio.fixprotocol.session.FixSession;
+import fixio.fixprotocol.session.SessionId;
 import fixio.handlers.FixApplication;
 import fixio.netty.pipeline.AbstractSessionHandler;
 import fixio.netty.pipeline.FixClock;
@@ -34,19 +36,36 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class ServerSessionHandler extends AbstractSessionHandler {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(ServerSessionHandler.class);
+    private static final int DEFAULT_HEARTBEAT_INTERVAL_SEC = 30;
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
     private final FixAuthenticator authenticator;
-    private final int heartbeatIntervalSec = 30;
+    private final AcceptorSessionSettingsRegistry settingsRegistry;
+    private AcceptorSessionSettings sessionSettings;
+    private long rateWindowStartNanos;
+    private int rateWindowCount;
 
     public ServerSessionHandler(FixApplication fixApplication,
                                 FixAuthenticator authenticator,
                                 SessionRepository sessionRepository) {
+        this(fixApplication, authenticator, sessionRepository, null);
+    }
+
+    /**
+     * @param settingsRegistry sessions allowed to log on, or null to accept any session
+     */
+    public ServerSessionHandler(FixApplication fixApplication,
+                                FixAuthenticator authenticator,
+                                SessionRepository sessionRepository,
+                                AcceptorSessionSettingsRegistry settingsRegistry) {
         super(fixApplication, FixClock.systemUTC(), sessionRepository);
         assert (authenticator != null) : "FixAuthenticator is required for ServerSessionHandler";
         this.authenticator = authenticator;
+        this.settingsRegistry = settingsRegistry;
     }
 
     @Override
@@ -59,8 +78,13 @@ public class ServerSessionHandler extends AbstractSessionHandler {
         return LOGGER;
     }
 
-    private FixMessageBuilder createLogonResponse() {
+    private FixMessageBuilder createLogonResponse(FixMessage logon) {
         FixMessageBuilder logonResponse = new FixMessageBuilderImpl(MessageTypes.LOGON);
+        int heartbeatIntervalSec = (sessionSettings != null) ? sessionSettings.getHeartbeatInterval() : 0;
+        if (heartbeatIntervalSec == 0) {
+            // acceptor agrees to heartbeat interval proposed by initiator
+            heartbeatIntervalSec = logon.getIntOrDefault(FieldType.HeartBtInt.tag(), DEFAULT_HEARTBEAT_INTERVAL_SEC);
+        }
         logonResponse.add(FieldType.HeartBtInt, heartbeatIntervalSec);
         return logonResponse;
     }
@@ -77,6 +101,14 @@ public class ServerSessionHandler extends AbstractSessionHandler {
             if (fixSession != null) {
                 throw new IllegalStateException("Duplicate Logon Request. Session Already Established.");
             } else {
+                if (settingsRegistry != null) {
+                    sessionSettings = settingsRegistry.get(header);
+                    if (sessionSettings == null) {
+                        LOGGER.warn("Unknown session {}. Closing connection.", SessionId.of(header));
+                        ctx.close();
+                        return;
+                    }
+                }
                 if (authenticator.authenticate(msg)) {
                     fixSession = initSession(ctx, header);
 
@@ -94,18 +126,15 @@ public class ServerSessionHandler extends AbstractSessionHandler {
                         }
                     }
 
-                    final FixMessageBuilder logonResponse = createLogonResponse();
+                    final FixMessageBuilder logonResponse = createLogonResponse(msg);
                     prepareMessageToSend(ctx, fixSession, logonResponse);
                     LOGGER.info("Sending Logon Response: {}", logonResponse);
                     ctx.write(logonResponse);
 
                     if (seqTooHigh) {
                         assert (expectedMsgSeqNum > 0);
-                        FixMessageBuilder resendRequest = new FixMessageBuilderImpl(MessageTypes.RESEND_REQUEST);
-                        resendRequest.add(FieldType.BeginSeqNo, expectedMsgSeqNum);
-                        resendRequest.add(FieldType.EndSeqNo, msgSeqNum - 1);
-                        prepareMessageToSend(ctx, fixSession, resendRequest);
-                        ctx.write(resendRequest);
+                        queueOutOfSequence(fixSession, msg);
+                        ctx.write(newResendRequest(ctx, fixSession, expectedMsgSeqNum, msgSeqNum - 1));
                     }
                     ctx.flush();
                     out.add(new LogonEvent(fixSession));
@@ -116,15 +145,35 @@ public class ServerSessionHandler extends AbstractSessionHandler {
                     ctx.close();
                 }
             }
+        } else if (fixSession != null && isRateExceeded()) {
+            LOGGER.warn("Message rate exceeded: more than {} messages per second.", sessionSettings.getMaxMessagesPerSecond());
+            sendLogoutAndClose(ctx, fixSession, "Message rate exceeded");
         } else {
             super.decode(ctx, msg, out);
         }
     }
 
+    /**
+     * Counts received message in the current one-second window.
+     */
+    private boolean isRateExceeded() {
+        if (sessionSettings == null || sessionSettings.getMaxMessagesPerSecond() == 0) {
+            return false;
+        }
+        final long now = System.nanoTime();
+        if (now - rateWindowStartNanos >= RATE_WINDOW_NANOS) {
+            rateWindowStartNanos = now;
+            rateWindowCount = 0;
+        }
+        return ++rateWindowCount > sessionSettings.getMaxMessagesPerSecond();
+    }
+
     private FixSession initSession(ChannelHandlerContext ctx, FixMessageHeader header) {
+        // sequence numbers are initialized by the repository
         FixSession session = getSessionRepository().getOrCreateSession(header);
-
-        session.setNextOutgoingMessageSeqNum(1);
+        if (sessionSettings != null && sessionSettings.getTimeStampPrecision() != null) {
+            session.setDateTimeFormatter(FixConst.dateTimeFormatter(sessionSettings.getTimeStampPrecision()));
+        }
 
         setSession(ctx, session);
         LOGGER.info("Fix Session Established.");
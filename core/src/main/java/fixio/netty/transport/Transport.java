@@ -0,0 +1,208 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.transport;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Netty transport used by {@link fixio.FixServer} and {@link fixio.FixClient}.
+ * <p>
+ * Native transports are loaded reflectively, so they are used only when the corresponding Netty artifact
+ * ({@code netty-transport-native-epoll} or {@code netty-incubator-transport-native-io_uring})
+ * with a native library for the platform is on the classpath.
+ * </p>
+ *
+ * @see TransportSettings
+ */
+public enum Transport {
+
+    NIO(null, null, null, null, null),
+
+    EPOLL("io.netty.channel.epoll.Epoll",
+            "io.netty.channel.epoll.EpollEventLoopGroup",
+            "io.netty.channel.epoll.EpollServerSocketChannel",
+            "io.netty.channel.epoll.EpollSocketChannel",
+            "io.netty.channel.epoll.EpollChannelOption"),
+
+    IO_URING("io.netty.incubator.channel.uring.IOUring",
+            "io.netty.incubator.channel.uring.IOUringEventLoopGroup",
+            "io.netty.incubator.channel.uring.IOUringServerSocketChannel",
+            "io.netty.incubator.channel.uring.IOUringSocketChannel",
+            "io.netty.incubator.channel.uring.IOUringChannelOption");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Transport.class);
+
+    private final String availabilityClassName;
+    private final String eventLoopGroupClassName;
+    private final String serverChannelClassName;
+    private final String socketChannelClassName;
+    private final String channelOptionClassName;
+    private volatile Boolean available;
+
+    Transport(String availabilityClassName,
+              String eventLoopGroupClassName,
+              String serverChannelClassName,
+              String socketChannelClassName,
+              String channelOptionClassName) {
+        this.availabilityClassName = availabilityClassName;
+        this.eventLoopGroupClassName = eventLoopGroupClassName;
+        this.serverChannelClassName = serverChannelClassName;
+        this.socketChannelClassName = socketChannelClassName;
+        this.channelOptionClassName = channelOptionClassName;
+    }
+
+    /**
+     * Returns the first available transport of {@link #EPOLL}, {@link #IO_URING} and {@link #NIO}.
+     *
+     * @return a transport, never null
+     */
+    public static Transport best() {
+        if (EPOLL.isAvailable()) {
+            return EPOLL;
+        }
+        if (IO_URING.isAvailable()) {
+            return IO_URING;
+        }
+        return NIO;
+    }
+
+    /**
+     * @return true if the transport classes and native library are loaded
+     */
+    public boolean isAvailable() {
+        if (availabilityClassName == null) {
+            return true;
+        }
+        Boolean result = available;
+        if (result == null) {
+            result = checkAvailable();
+            available = result;
+        }
+        return result;
+    }
+
+    private boolean checkAvailable() {
+        try {
+            final Class<?> availability = Class.forName(availabilityClassName, true, Transport.class.getClassLoader());
+            final boolean result = (Boolean) availability.getMethod("isAvailable").invoke(null);
+            if (!result) {
+                final Object cause = availability.getMethod("unavailabilityCause").invoke(null);
+                LOGGER.debug("{} transport is not available: {}", this, cause);
+            }
+            return result;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.debug("{} transport is not available: {}", this, e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Creates an event loop group of this transport.
+     *
+     * @param nThreads number of threads, or 0 to use Netty default
+     * @return a new event loop group
+     * @throws IllegalStateException if the transport is not available
+     */
+    public EventLoopGroup newEventLoopGroup(int nThreads) {
+        return newEventLoopGroup(nThreads, null);
+    }
+
+    /**
+     * Creates an event loop group of this transport with threads created by given factory,
+     * e.g. a factory pinning threads to CPU cores.
+     *
+     * @param nThreads      number of threads, or 0 to use Netty default
+     * @param threadFactory a thread factory, or null to use Netty default
+     * @return a new event loop group
+     * @throws IllegalStateException if the transport is not available
+     */
+    public EventLoopGroup newEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+        if (this == NIO) {
+            return new NioEventLoopGroup(nThreads, threadFactory);
+        }
+        try {
+            return (EventLoopGroup) load(eventLoopGroupClassName)
+                    .getConstructor(int.class, ThreadFactory.class)
+                    .newInstance(nThreads, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't create " + this + " event loop group", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Class<? extends ServerChannel> serverChannelClass() {
+        if (this == NIO) {
+            return NioServerSocketChannel.class;
+        }
+        return (Class<? extends ServerChannel>) load(serverChannelClassName);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Class<? extends Channel> socketChannelClass() {
+        if (this == NIO) {
+            return NioSocketChannel.class;
+        }
+        return (Class<? extends Channel>) load(socketChannelClassName);
+    }
+
+    /**
+     * Looks up a transport specific channel option, like {@code EpollChannelOption.SO_BUSY_POLL}.
+     *
+     * @param name a name of the option constant
+     * @return the option or null, if the transport does not support it
+     */
+    public ChannelOption<?> channelOption(String name) {
+        if (channelOptionClassName == null || !isAvailable()) {
+            return null;
+        }
+        try {
+            return (ChannelOption<?>) load(channelOptionClassName).getField(name).get(null);
+        } catch (NoSuchFieldException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can't read " + this + " channel option " + name, e);
+        }
+    }
+
+    /**
+     * Looks up a constant of a transport specific enum, like {@code EpollMode.EDGE_TRIGGERED}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Object enumConstant(String className, String name) {
+        return Enum.valueOf((Class<? extends Enum>) load(className), name);
+    }
+
+    private Class<?> load(String className) {
+        if (!isAvailable()) {
+            throw new IllegalStateException(this + " transport is not available");
+        }
+        try {
+            return Class.forName(className, true, Transport.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(this + " transport is not available", e);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Transport and socket settings of {@link fixio.FixServer} and {@link fixio.FixClient}.
+ * <p>
+ * Native socket options are applied only when the selected transport supports them,
+ * otherwise they are ignored with a warning.
+ * </p>
+ */
+public class TransportSettings {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransportSettings.class);
+
+    private static final TransportSettings DEFAULT = newBuilder().build();
+
+    private static final String EPOLL_MODE_CLASS = "io.netty.channel.epoll.EpollMode";
+
+    private final Transport transport;
+    private final boolean tcpNoDelay;
+    private final int busyPollMicros;
+    private final boolean tcpQuickAck;
+    private final Boolean edgeTriggered;
+    private final int acceptorCount;
+
+    private TransportSettings(Builder builder) {
+        this.transport = builder.transport;
+        this.tcpNoDelay = builder.tcpNoDelay;
+        this.busyPollMicros = builder.busyPollMicros;
+        this.tcpQuickAck = builder.tcpQuickAck;
+        this.edgeTriggered = builder.edgeTriggered;
+        this.acceptorCount = builder.acceptorCount;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static TransportSettings defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the transport to use: the configured one, if it is available, or {@link Transport#best()}.
+     *
+     * @return an available transport
+     */
+    public Transport getTransport() {
+        if (transport == null) {
+            return Transport.best();
+        }
+        if (!transport.isAvailable()) {
+            LOGGER.warn("{} transport is not available, falling back to {}", transport, Transport.NIO);
+            return Transport.NIO;
+        }
+        return transport;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * @return SO_BUSY_POLL timeout, in microseconds, or 0 if busy polling is disabled
+     */
+    public int getBusyPollMicros() {
+        return busyPollMicros;
+    }
+
+    public boolean isTcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    /**
+     * @return true for edge-triggered, false for level-triggered epoll mode, or null to use transport default
+     */
+    public Boolean getEdgeTriggered() {
+        return edgeTriggered;
+    }
+
+    /**
+     * Number of server channels bound to the same port with SO_REUSEPORT.
+     *
+     * @return a positive number
+     */
+    public int getAcceptorCount() {
+        return acceptorCount;
+    }
+
+    /**
+     * Sets channel class and options of a server bootstrap.
+     *
+     * @param bootstrap a bootstrap
+     * @param transport a transport returned by {@link #getTransport()}
+     * @return number of server channels to bind: {@link #getAcceptorCount()}, or 1 if SO_REUSEPORT is not supported
+     */
+    public int configure(ServerBootstrap bootstrap, Transport transport) {
+        bootstrap.channel(transport.serverChannelClass());
+        int acceptors = 1;
+        if (acceptorCount > 1) {
+            final ChannelOption<?> reusePort = transport.channelOption("SO_REUSEPORT");
+            if (reusePort != null) {
+                option(bootstrap, reusePort, true);
+                acceptors = acceptorCount;
+            } else {
+                LOGGER.warn("SO_REUSEPORT is not supported by {} transport, binding a single acceptor", transport);
+            }
+        }
+        final Object epollMode = epollMode(transport);
+        if (epollMode != null) {
+            option(bootstrap, transport.channelOption("EPOLL_MODE"), epollMode);
+        }
+        socketOptions(transport, epollMode).forEach(bootstrap::childOption);
+        return acceptors;
+    }
+
+    /**
+     * Sets channel class and options of a client bootstrap.
+     *
+     * @param bootstrap a bootstrap
+     * @param transport a transport returned by {@link #getTransport()}
+     */
+    public void configure(Bootstrap bootstrap, Transport transport) {
+        bootstrap.channel(transport.socketChannelClass());
+        socketOptions(transport, epollMode(transport)).forEach(bootstrap::option);
+    }
+
+    private Map<ChannelOption<Object>, Object> socketOptions(Transport transport, Object epollMode) {
+        final Map<ChannelOption<Object>, Object> options = new LinkedHashMap<>();
+        put(options, ChannelOption.TCP_NODELAY, tcpNoDelay);
+        if (busyPollMicros > 0) {
+            put(options, nativeOption(transport, "SO_BUSY_POLL"), busyPollMicros);
+        }
+        if (tcpQuickAck) {
+            put(options, nativeOption(transport, "TCP_QUICKACK"), true);
+        }
+        if (epollMode != null) {
+            put(options, transport.channelOption("EPOLL_MODE"), epollMode);
+        }
+        return options;
+    }
+
+    private Object epollMode(Transport transport) {
+        if (edgeTriggered == null) {
+            return null;
+        }
+        if (transport != Transport.EPOLL) {
+            LOGGER.warn("Epoll mode is not supported by {} transport", transport);
+            return null;
+        }
+        return transport.enumConstant(EPOLL_MODE_CLASS, edgeTriggered ? "EDGE_TRIGGERED" : "LEVEL_TRIGGERED");
+    }
+
+    private static ChannelOption<?> nativeOption(Transport transport, String name) {
+        final ChannelOption<?> option = transport.channelOption(name);
+        if (option == null) {
+            LOGGER.warn("{} is not supported by {} transport", name, transport);
+        }
+        return option;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<ChannelOption<Object>, Object> options, ChannelOption<?> option, Object value) {
+        if (option != null) {
+            options.put((ChannelOption<Object>) option, value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void option(ServerBootstrap bootstrap, ChannelOption<?> option, Object value) {
+        if (option != null) {
+            bootstrap.option((ChannelOption<Object>) option, value);
+        }
+    }
+
+    public static class Builder {
+
+        private Transport transport;
+        private boolean tcpNoDelay = Boolean.parseBoolean(System.getProperty("nfs.rpc.tcp.nodelay", "true"));
+        private int busyPollMicros;
+        private boolean tcpQuickAck;
+        private Boolean edgeTriggered;
+        private int acceptorCount = 1;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the transport. By default, {@link Transport#best()} available transport is used.
+         * An unavailable transport is replaced with {@link Transport#NIO}.
+         *
+         * @param transport a transport, or null to select automatically
+         * @return this builder
+         */
+        public Builder transport(Transport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * Sets TCP_NODELAY of connections. Default is true, unless {@code nfs.rpc.tcp.nodelay} system property is false.
+         *
+         * @param tcpNoDelay true to disable Nagle's algorithm
+         * @return this builder
+         */
+        public Builder tcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        /**
+         * Enables SO_BUSY_POLL on connections, {@link Transport#EPOLL} only.
+         *
+         * @param busyPollMicros busy polling timeout in microseconds, or 0 to disable busy polling
+         * @return this builder
+         */
+        public Builder busyPollMicros(int busyPollMicros) {
+            if (busyPollMicros < 0) {
+                throw new IllegalArgumentException("busyPollMicros must not be negative: " + busyPollMicros);
+            }
+            this.busyPollMicros = busyPollMicros;
+            return this;
+        }
+
+        /**
+         * Enables TCP_QUICKACK on connections, native transports only.
+         *
+         * @param tcpQuickAck true to send ACKs immediately
+         * @return this builder
+         */
+        public Builder tcpQuickAck(boolean tcpQuickAck) {
+            this.tcpQuickAck = tcpQuickAck;
+            return this;
+        }
+
+        /**
+         * Sets epoll mode of channels, {@link Transport#EPOLL} only.
+         *
+         * @param edgeTriggered true for edge-triggered, false for level-triggered mode
+         * @return this builder
+         */
+        public Builder edgeTriggered(boolean edgeTriggered) {
+            this.edgeTriggered = edgeTriggered;
+            return this;
+        }
+
+        /**
+         * Sets number of server channels bound to the same port with SO_REUSEPORT,
+         * so the kernel distributes accepted connections among them.
+         * Native transports only, a single channel is bound otherwise.
+         *
+         * @param acceptorCount a positive number
+         * @return this builder
+         */
+        public Builder acceptorCount(int acceptorCount) {
+            if (acceptorCount <= 0) {
+                throw new IllegalArgumentException("acceptorCount must be positive: " + acceptorCount);
+            }
+            this.acceptorCount = acceptorCount;
+            return this;
+        }
+
+        public TransportSettings build() {
+            return new TransportSettings(this);
+        }
+    }
+}
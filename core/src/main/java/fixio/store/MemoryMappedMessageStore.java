@@ -0,0 +1,1179 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.store;
+
+import fixio.fixprotocol.session.SessionId;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link MessageStore} writing messages to append-only, memory-mapped journal files.
+ * <p>
+ * Every session has its own journal: a sequence of segment files named
+ * {@code <session>.<number>.journal} in the store directory.
+ * A record consists of message length, CRC32C checksum of MsgSeqNum and message bytes, MsgSeqNum and message bytes.
+ * Message length is written last, so a partially written record is not read back.
+ * Pages may reach the storage device in any order, so records appended after the last index checkpoint
+ * are verified on recovery: the journal is truncated at the first record with wrong checksum.
+ * </p>
+ * <p>
+ * Appending a message is a memory copy: the operating system writes dirty pages to the file.
+ * All file operations are done by a background thread: pages are forced to the storage device
+ * every {@code syncIntervalMillis} and after {@code syncBatchSize} bytes were appended to a journal,
+ * and segment files are created, mapped and touched before they are needed.
+ * If there is no segment to write to, messages are kept in heap until the background thread provides one,
+ * so disk latency never hits the event loop.
+ * Segments exceeding {@code maxJournalSize} are deleted, oldest first.
+ * </p>
+ * <p>
+ * Records are looked up by MsgSeqNum with a sparse index, which is saved to {@code <session>.index}
+ * after the journal is synced. Journals are recovered when the store is opened:
+ * the saved index is loaded and only records appended after it was saved are scanned.
+ * </p>
+ */
+public class MemoryMappedMessageStore implements MessageStore {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 100;
+    public static final int DEFAULT_SYNC_BATCH_SIZE = 1024 * 1024;
+    public static final long DEFAULT_MAX_JOURNAL_SIZE = 1024L * 1024 * 1024;
+
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final String INDEX_SUFFIX = ".index";
+    /**
+     * Record header: message length, checksum and MsgSeqNum.
+     */
+    static final int RECORD_HEADER_SIZE = 12;
+    /**
+     * Offset of checksum in a record. Checksum covers MsgSeqNum and message bytes.
+     */
+    static final int CHECKSUM_OFFSET = 4;
+    /**
+     * Offset of MsgSeqNum in a record.
+     */
+    static final int SEQ_NUM_OFFSET = 8;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryMappedMessageStore.class);
+    private static final int PAGE_SIZE = 4096;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int syncBatchSize;
+    private final long maxJournalSize;
+    private final ScheduledExecutorService syncExecutor;
+    private final ConcurrentHashMap<SessionId, Journal> journals = new ConcurrentHashMap<>();
+    /**
+     * Journals found in the directory, which are not accessed yet. Keyed by file name prefix.
+     */
+    private final ConcurrentHashMap<String, Journal> recovered = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    private MemoryMappedMessageStore(Builder builder) {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.syncBatchSize = builder.syncBatchSize;
+        this.maxJournalSize = builder.maxJournalSize;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't create message store directory " + directory, e);
+        }
+        syncExecutor = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("fixio-store", true));
+        recover();
+        if (builder.syncIntervalMillis > 0) {
+            syncExecutor.scheduleWithFixedDelay(this::sync,
+                    builder.syncIntervalMillis, builder.syncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns journal file name prefix of the session.
+     * Characters other than letters, digits, '.' and '-' are percent-encoded, identifiers are separated with '_'.
+     */
+    static String fileName(SessionId sessionId) {
+        final StringBuilder sb = new StringBuilder(64);
+        appendEncoded(sb, sessionId.getSenderCompID());
+        appendEncoded(sb.append('_'), sessionId.getSenderSubID());
+        appendEncoded(sb.append('_'), sessionId.getSenderLocationID());
+        appendEncoded(sb.append('_'), sessionId.getTargetCompID());
+        appendEncoded(sb.append('_'), sessionId.getTargetSubID());
+        appendEncoded(sb.append('_'), sessionId.getTargetLocationID());
+        return sb.toString();
+    }
+
+    private static void appendEncoded(StringBuilder sb, String id) {
+        if (id == null) {
+            return;
+        }
+        for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+            if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '.' || b == '-') {
+                sb.append((char) b);
+            } else {
+                sb.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void append(SessionId sessionId, int msgSeqNum, ByteBuf message, int index, int length) {
+        assert (msgSeqNum > 0) : "MsgSeqNum must be positive";
+        journal(sessionId).append(msgSeqNum, message, index, length);
+    }
+
+    @Override
+    public boolean get(SessionId sessionId, int msgSeqNum, ByteBuf out) {
+        return msgSeqNum > 0 && journal(sessionId).get(msgSeqNum, out);
+    }
+
+    @Override
+    public void reset(SessionId sessionId) {
+        journal(sessionId).reset();
+    }
+
+    /**
+     * Forces appended messages to the storage device and saves indexes. Called periodically by background thread.
+     */
+    public void sync() {
+        for (Journal journal : journals.values()) {
+            journal.sync();
+        }
+        for (Journal journal : recovered.values()) {
+            journal.sync();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        syncExecutor.shutdown();
+        try {
+            if (!syncExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.warn("Message store sync is not completed in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Journal journal : journals.values()) {
+            journal.close();
+        }
+        for (Journal journal : recovered.values()) {
+            journal.close();
+        }
+    }
+
+    private Journal journal(SessionId sessionId) {
+        if (closed) {
+            throw new IllegalStateException("Message store is closed");
+        }
+        final Journal journal = journals.get(sessionId);
+        return (journal != null) ? journal : journals.computeIfAbsent(sessionId, this::openJournal);
+    }
+
+    private Journal openJournal(SessionId sessionId) {
+        final String name = fileName(sessionId);
+        final Journal journal = recovered.remove(name);
+        return (journal != null) ? journal : new Journal(name);
+    }
+
+    /**
+     * Finds segment files in the directory and recovers their journals.
+     */
+    private void recover() {
+        final Map<String, List<Integer>> numbers = new HashMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(file -> file.endsWith(SEGMENT_SUFFIX))
+                    .map(file -> file.substring(0, file.length() - SEGMENT_SUFFIX.length()))
+                    .forEach(file -> {
+                        final int dot = file.lastIndexOf('.');
+                        final String number = file.substring(dot + 1);
+                        if (dot > 0 && !number.isEmpty() && number.length() < 10
+                                && number.chars().allMatch(Character::isDigit)) {
+                            numbers.computeIfAbsent(file.substring(0, dot), name -> new ArrayList<>())
+                                    .add(Integer.valueOf(number));
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read message store directory " + directory, e);
+        }
+        numbers.forEach((name, segmentNumbers) -> recovered.put(name, new Journal(name, segmentNumbers)));
+    }
+
+    private void execute(Runnable task) {
+        try {
+            syncExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // store is being closed, segments are forced by close()
+        }
+    }
+
+    private static void force(Segment segment, int from, int to) {
+        try {
+            segment.mapped.force(from, to - from);
+        } catch (UncheckedIOException e) {
+            LOGGER.warn("Can't sync journal segment {}", segment.path, e);
+        }
+    }
+
+    /**
+     * Deletes segment file and releases its mapping.
+     */
+    private static void release(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            LOGGER.warn("Can't delete journal segment {}", segment.path, e);
+        }
+        segment.unmap();
+    }
+
+    /**
+     * Memory-mapped journal file.
+     */
+    private static final class Segment {
+
+        private final int number;
+        private final Path path;
+        private final MappedByteBuffer mapped;
+        private final ByteBuf buffer;
+        /**
+         * View of the mapped buffer used to calculate checksums.
+         */
+        private final ByteBuffer view;
+        private final int capacity;
+        private int position;
+        private int syncedPosition;
+        /**
+         * Number of background threads forcing the segment. Guarded by journal lock.
+         */
+        private int forcing;
+        private boolean discarded;
+
+        private Segment(int number, Path path, MappedByteBuffer mapped) {
+            this.number = number;
+            this.path = path;
+            this.mapped = mapped;
+            this.buffer = Unpooled.wrappedBuffer(mapped);
+            this.view = mapped.duplicate();
+            this.capacity = mapped.capacity();
+        }
+
+        static Segment open(int number, Path path, int capacity) {
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final long size = Math.max(channel.size(), capacity);
+                return new Segment(number, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't map journal segment " + path, e);
+            }
+        }
+
+        /**
+         * Touches every page, so that first writes to the segment do not page fault.
+         */
+        void preallocate() {
+            for (int i = 0; i < capacity; i += PAGE_SIZE) {
+                buffer.setByte(i, 0);
+            }
+        }
+
+        boolean fits(int length) {
+            return position + RECORD_HEADER_SIZE + length <= capacity;
+        }
+
+        /**
+         * Calculates checksum of the record at given position.
+         */
+        int checksum(CRC32C crc, int pos, int length) {
+            crc.reset();
+            view.limit(pos + RECORD_HEADER_SIZE + length).position(pos + SEQ_NUM_OFFSET);
+            crc.update(view);
+            return (int) crc.getValue();
+        }
+
+        /**
+         * Skips valid records starting at given position, adding them to the index.
+         * If a record is damaged, the rest of the segment is cleared.
+         *
+         * @return false, if the segment was truncated at a damaged record
+         */
+        boolean recover(SeqNumIndex index, int from, CRC32C crc) {
+            int pos = Math.min(from, capacity);
+            boolean valid = true;
+            while (pos + RECORD_HEADER_SIZE <= capacity) {
+                final int length = buffer.getInt(pos);
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || pos + RECORD_HEADER_SIZE + length > capacity
+                        || buffer.getInt(pos + CHECKSUM_OFFSET) != checksum(crc, pos, length)) {
+                    LOGGER.warn("Damaged record in journal segment {} at {}, the journal is truncated", path, pos);
+                    // stale records after the damaged one must not be read back once it is overwritten
+                    buffer.setZero(pos, capacity - pos);
+                    valid = false;
+                    break;
+                }
+                index.put(buffer.getInt(pos + SEQ_NUM_OFFSET), SeqNumIndex.entry(number, pos));
+                pos += RECORD_HEADER_SIZE + length;
+            }
+            position = pos;
+            syncedPosition = pos;
+            return valid;
+        }
+
+        void unmap() {
+            PlatformDependent.freeDirectBuffer(mapped);
+        }
+    }
+
+    /**
+     * Maps MsgSeqNum to segment number and record position. Index pages are allocated on demand.
+     * Pages modified since the last {@link #pagesToSave(boolean)} are tracked, so that only they are saved.
+     */
+    static final class SeqNumIndex {
+
+        static final long NONE = -1;
+        static final int PAGE_BITS = 12;
+        static final int PAGE_ENTRIES = 1 << PAGE_BITS;
+        static final int MAX_PAGES = 1 << (31 - PAGE_BITS);
+        private static final int PAGE_MASK = PAGE_ENTRIES - 1;
+
+        private long[][] pages = new long[16][];
+        private final BitSet dirty = new BitSet();
+
+        static long entry(int segmentNumber, int position) {
+            return ((long) segmentNumber << 32) | (position & 0xFFFFFFFFL);
+        }
+
+        static int segmentNumber(long entry) {
+            return (int) (entry >>> 32);
+        }
+
+        static int position(long entry) {
+            return (int) entry;
+        }
+
+        long get(int msgSeqNum) {
+            final int page = msgSeqNum >>> PAGE_BITS;
+            if (page >= pages.length || pages[page] == null) {
+                return NONE;
+            }
+            return pages[page][msgSeqNum & PAGE_MASK];
+        }
+
+        void put(int msgSeqNum, long entry) {
+            final int page = msgSeqNum >>> PAGE_BITS;
+            if (page >= pages.length) {
+                pages = Arrays.copyOf(pages, Math.max(page + 1, pages.length << 1));
+            }
+            long[] entries = pages[page];
+            if (entries == null) {
+                entries = new long[PAGE_ENTRIES];
+                Arrays.fill(entries, NONE);
+                pages[page] = entries;
+            }
+            entries[msgSeqNum & PAGE_MASK] = entry;
+            dirty.set(page);
+        }
+
+        /**
+         * Sets a page loaded from saved index.
+         */
+        void setPage(int page, long[] entries) {
+            if (page >= pages.length) {
+                pages = Arrays.copyOf(pages, Math.max(page + 1, pages.length << 1));
+            }
+            pages[page] = entries;
+        }
+
+        /**
+         * Returns numbers of modified pages, or of all pages, and clears modification flags.
+         */
+        int[] pagesToSave(boolean all) {
+            final BitSet toSave = new BitSet();
+            if (all) {
+                for (int page = 0; page < pages.length; page++) {
+                    if (pages[page] != null) {
+                        toSave.set(page);
+                    }
+                }
+            } else {
+                toSave.or(dirty);
+            }
+            dirty.clear();
+            return toSave.stream().toArray();
+        }
+
+        long[] copyPage(int page) {
+            return pages[page].clone();
+        }
+
+        boolean isDirty() {
+            return !dirty.isEmpty();
+        }
+
+        void clear() {
+            Arrays.fill(pages, null);
+            dirty.clear();
+        }
+    }
+
+    /**
+     * Saved {@link SeqNumIndex}. Written by background thread only.
+     * <p>
+     * The file starts with a header followed by a bitmap of saved pages. Page {@code N} is stored at a fixed offset,
+     * so the file is sparse, like the index. The header is written after pages, when the journal is synced up to
+     * the tail position, so the index never refers to records which are not on the storage device.
+     * </p>
+     */
+    private static final class IndexFile {
+
+        private static final int MAGIC = 0x46495849;
+        private static final int VERSION = 2;
+        private static final int HEADER_SIZE = 64;
+        private static final int BITMAP_SIZE = SeqNumIndex.MAX_PAGES / 8;
+        private static final int PAGE_BYTES = SeqNumIndex.PAGE_ENTRIES * 8;
+        private static final long PAGES_OFFSET = HEADER_SIZE + BITMAP_SIZE;
+
+        private final Path path;
+        private final byte[] bitmap = new byte[BITMAP_SIZE];
+        private FileChannel channel;
+        private ByteBuffer pageBuffer;
+
+        IndexFile(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * Loads saved pages into the index.
+         *
+         * @return first segment number, tail segment number and tail position, or null if there is no valid index
+         */
+        int[] load(SeqNumIndex index) {
+            if (!Files.exists(path)) {
+                return null;
+            }
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                if (in.size() < PAGES_OFFSET || !readFully(in, header, 0)
+                        || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    return null;
+                }
+                if (!readFully(in, ByteBuffer.wrap(bitmap), HEADER_SIZE)) {
+                    return null;
+                }
+                final ByteBuffer page = ByteBuffer.allocate(PAGE_BYTES);
+                for (int i = 0; i < SeqNumIndex.MAX_PAGES; i++) {
+                    if ((bitmap[i >>> 3] & (1 << (i & 7))) == 0) {
+                        continue;
+                    }
+                    page.clear();
+                    if (!readFully(in, page, PAGES_OFFSET + (long) i * PAGE_BYTES)) {
+                        return null;
+                    }
+                    final long[] entries = new long[SeqNumIndex.PAGE_ENTRIES];
+                    page.flip();
+                    page.asLongBuffer().get(entries);
+                    index.setPage(i, entries);
+                }
+                return new int[]{header.getInt(8), header.getInt(12), header.getInt(16)};
+            } catch (IOException e) {
+                LOGGER.warn("Can't read journal index {}, journal is scanned", path, e);
+                return null;
+            }
+        }
+
+        private static boolean readFully(FileChannel in, ByteBuffer dst, long position) throws IOException {
+            while (dst.hasRemaining()) {
+                if (in.read(dst, position + dst.position()) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        synchronized void write(Checkpoint checkpoint) throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                pageBuffer = ByteBuffer.allocateDirect(PAGE_BYTES);
+            }
+            if (checkpoint.full) {
+                channel.truncate(0);
+                Arrays.fill(bitmap, (byte) 0);
+            }
+            boolean pagesAdded = checkpoint.full;
+            for (int i = 0; i < checkpoint.pageNumbers.length; i++) {
+                final int page = checkpoint.pageNumbers[i];
+                pageBuffer.clear();
+                pageBuffer.asLongBuffer().put(checkpoint.pages[i]);
+                writeFully(pageBuffer, PAGES_OFFSET + (long) page * PAGE_BYTES);
+                if ((bitmap[page >>> 3] & (1 << (page & 7))) == 0) {
+                    bitmap[page >>> 3] |= (byte) (1 << (page & 7));
+                    pagesAdded = true;
+                }
+            }
+            if (pagesAdded) {
+                writeFully(ByteBuffer.wrap(bitmap), HEADER_SIZE);
+            }
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putInt(8, checkpoint.firstNumber)
+                    .putInt(12, checkpoint.tailNumber)
+                    .putInt(16, checkpoint.tailPosition);
+            writeFully(header, 0);
+            channel.force(false);
+        }
+
+        private void writeFully(ByteBuffer src, long position) throws IOException {
+            src.position(0);
+            while (src.hasRemaining()) {
+                channel.write(src, position + src.position());
+            }
+        }
+
+        synchronized void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Can't close journal index {}", path, e);
+                }
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * State of a journal to save.
+     */
+    private static final class Checkpoint {
+        private final boolean full;
+        private final int firstNumber;
+        private final int tailNumber;
+        private final int tailPosition;
+        private final int[] pageNumbers;
+        private final long[][] pages;
+
+        Checkpoint(boolean full, int firstNumber, int tailNumber, int tailPosition, SeqNumIndex index) {
+            this.full = full;
+            this.firstNumber = firstNumber;
+            this.tailNumber = tailNumber;
+            this.tailPosition = tailPosition;
+            this.pageNumbers = index.pagesToSave(full);
+            this.pages = new long[pageNumbers.length][];
+            for (int i = 0; i < pageNumbers.length; i++) {
+                pages[i] = index.copyPage(pageNumbers[i]);
+            }
+        }
+    }
+
+    /**
+     * Segments of a session. Accessed by session event loop and by background thread.
+     * The event loop only touches memory: files are created, forced and deleted by background thread.
+     */
+    private final class Journal {
+
+        /**
+         * Segment number of records kept in heap.
+         */
+        private static final int PENDING = -1;
+
+        private final String name;
+        private final List<Segment> segments = new ArrayList<>();
+        private final SeqNumIndex index = new SeqNumIndex();
+        private final IndexFile indexFile;
+        private final CRC32C crc = new CRC32C();
+        private Segment current;
+        private Segment next;
+        /**
+         * Records waiting for a segment, in the same format as in segments.
+         */
+        private ByteBuf pending;
+        private int requestedNumber = -1;
+        private int requestedCapacity;
+        private int nextNumber;
+        /**
+         * Segments with lower numbers are discarded and ignored on recovery.
+         */
+        private int firstNumber;
+        private long size;
+        private int unsyncedBytes;
+        private boolean syncRequested;
+        private boolean journalClosed;
+        private boolean fullCheckpoint;
+        private int savedFirstNumber = -1;
+        private int savedTailNumber = -1;
+        private int savedTailPosition = -1;
+
+        /**
+         * Creates a journal without segments. The first segment is created in background.
+         */
+        Journal(String name) {
+            this.name = name;
+            this.indexFile = new IndexFile(directory.resolve(name + INDEX_SUFFIX));
+            this.fullCheckpoint = true;
+            synchronized (this) {
+                requestSegment(RECORD_HEADER_SIZE);
+            }
+        }
+
+        /**
+         * Recovers a journal from segment files and saved index. Called when the store is opened.
+         */
+        Journal(String name, List<Integer> numbers) {
+            this.name = name;
+            this.indexFile = new IndexFile(directory.resolve(name + INDEX_SUFFIX));
+            final int[] saved = indexFile.load(index);
+            final int tailNumber;
+            final int tailPosition;
+            if (saved != null) {
+                firstNumber = saved[0];
+                tailNumber = saved[1];
+                tailPosition = saved[2];
+                savedFirstNumber = firstNumber;
+                savedTailNumber = tailNumber;
+                savedTailPosition = tailPosition;
+            } else {
+                index.clear();
+                fullCheckpoint = true;
+                tailNumber = -1;
+                tailPosition = 0;
+            }
+            numbers.sort(null);
+            boolean truncated = false;
+            for (int number : numbers) {
+                nextNumber = Math.max(nextNumber, number + 1);
+                final Path path = segmentPath(number);
+                if (number < firstNumber || truncated) {
+                    try {
+                        Files.deleteIfExists(path);
+                    } catch (IOException e) {
+                        LOGGER.warn("Can't delete journal segment {}", path, e);
+                    }
+                    continue;
+                }
+                final Segment segment = Segment.open(number, path, 0);
+                if (number > tailNumber) {
+                    truncated = !segment.recover(index, 0, crc);
+                } else if (number == tailNumber) {
+                    truncated = !segment.recover(index, tailPosition, crc);
+                } else {
+                    segment.position = segment.capacity;
+                    segment.syncedPosition = segment.capacity;
+                }
+                segments.add(segment);
+                size += segment.capacity;
+            }
+            nextNumber = Math.max(nextNumber, firstNumber);
+            current = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        }
+
+        private Path segmentPath(int number) {
+            return directory.resolve(name + "." + number + SEGMENT_SUFFIX);
+        }
+
+        synchronized void append(int msgSeqNum, ByteBuf message, int messageIndex, int length) {
+            ensureOpen();
+            if (pending == null && (current == null || !current.fits(length)) && next != null) {
+                if (next.fits(length)) {
+                    install(next);
+                } else {
+                    discard(next);
+                }
+                next = null;
+            }
+            if (pending != null || current == null || !current.fits(length)) {
+                appendPending(msgSeqNum, message, messageIndex, length);
+                requestSegment(RECORD_HEADER_SIZE + length);
+                return;
+            }
+            final Segment segment = current;
+            final int pos = segment.position;
+            segment.buffer.setInt(pos + SEQ_NUM_OFFSET, msgSeqNum);
+            segment.buffer.setBytes(pos + RECORD_HEADER_SIZE, message, messageIndex, length);
+            segment.buffer.setInt(pos + CHECKSUM_OFFSET, segment.checksum(crc, pos, length));
+            segment.buffer.setInt(pos, length);
+            segment.position = pos + RECORD_HEADER_SIZE + length;
+            index.put(msgSeqNum, SeqNumIndex.entry(segment.number, pos));
+
+            unsyncedBytes += RECORD_HEADER_SIZE + length;
+            if (syncBatchSize > 0 && unsyncedBytes >= syncBatchSize && !syncRequested) {
+                syncRequested = true;
+                execute(this::sync);
+            }
+            if (next == null && segment.position > segment.capacity >>> 1) {
+                requestSegment(RECORD_HEADER_SIZE);
+            }
+        }
+
+        private void appendPending(int msgSeqNum, ByteBuf message, int messageIndex, int length) {
+            if (pending == null) {
+                pending = Unpooled.buffer(Math.max(RECORD_HEADER_SIZE + length, PAGE_SIZE));
+            }
+            final int pos = pending.writerIndex();
+            pending.writeInt(length)
+                    .writeInt(0)
+                    .writeInt(msgSeqNum)
+                    .writeBytes(message, messageIndex, length);
+            crc.reset();
+            crc.update(pending.array(), pending.arrayOffset() + pos + SEQ_NUM_OFFSET, 4 + length);
+            pending.setInt(pos + CHECKSUM_OFFSET, (int) crc.getValue());
+            index.put(msgSeqNum, SeqNumIndex.entry(PENDING, pos));
+        }
+
+        /**
+         * Asks background thread to create a segment, unless one is being created already.
+         */
+        private void requestSegment(int recordSize) {
+            if (requestedNumber >= 0 || journalClosed) {
+                // when the segment is too small for pending records, the next one is requested after it is ready
+                return;
+            }
+            final int number = nextNumber++;
+            requestedNumber = number;
+            requestedCapacity = Math.max(segmentSize, recordSize);
+            final int capacity = requestedCapacity;
+            execute(() -> createSegment(number, capacity));
+        }
+
+        /**
+         * Creates and maps a segment file in background. Segment numbers are never reused,
+         * so the file is not shared with another segment.
+         */
+        private void createSegment(int number, int capacity) {
+            Segment segment = null;
+            try {
+                segment = Segment.open(number, segmentPath(number), capacity);
+                segment.preallocate();
+            } catch (UncheckedIOException e) {
+                LOGGER.warn("Can't create journal segment, messages are kept in memory", e);
+            }
+            final boolean accepted;
+            synchronized (this) {
+                if (requestedNumber != number) {
+                    accepted = false;
+                } else {
+                    requestedNumber = -1;
+                    accepted = segment != null && !journalClosed && accept(segment);
+                }
+            }
+            if (segment != null && !accepted) {
+                release(segment);
+            }
+        }
+
+        /**
+         * Moves pending records to the new segment, or keeps it as the next one.
+         */
+        private boolean accept(Segment segment) {
+            if (pending == null) {
+                if (next != null) {
+                    return false;
+                }
+                next = segment;
+                return true;
+            }
+            int copied = 0;
+            while (pending.isReadable()) {
+                final int from = pending.readerIndex();
+                final int length = pending.getInt(from);
+                if (!segment.fits(length)) {
+                    break;
+                }
+                final int msgSeqNum = pending.getInt(from + SEQ_NUM_OFFSET);
+                final int pos = segment.position;
+                segment.buffer.setBytes(pos + CHECKSUM_OFFSET, pending, from + CHECKSUM_OFFSET,
+                        RECORD_HEADER_SIZE - CHECKSUM_OFFSET + length);
+                segment.buffer.setInt(pos, length);
+                segment.position = pos + RECORD_HEADER_SIZE + length;
+                if (index.get(msgSeqNum) == SeqNumIndex.entry(PENDING, from)) {
+                    index.put(msgSeqNum, SeqNumIndex.entry(segment.number, pos));
+                }
+                pending.readerIndex(from + RECORD_HEADER_SIZE + length);
+                unsyncedBytes += RECORD_HEADER_SIZE + length;
+                copied++;
+            }
+            if (copied > 0) {
+                install(segment);
+            }
+            if (pending.isReadable()) {
+                requestSegment(RECORD_HEADER_SIZE + pending.getInt(pending.readerIndex()));
+            } else {
+                pending.release();
+                pending = null;
+            }
+            return copied > 0;
+        }
+
+        private void install(Segment segment) {
+            segments.add(segment);
+            current = segment;
+            size += segment.capacity;
+            while (maxJournalSize > 0 && size > maxJournalSize && segments.size() > 1) {
+                final Segment oldest = segments.remove(0);
+                size -= oldest.capacity;
+                firstNumber = segments.get(0).number;
+                discard(oldest);
+            }
+        }
+
+        private Segment segment(int number) {
+            int low = 0;
+            int high = segments.size() - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final Segment segment = segments.get(mid);
+                if (segment.number < number) {
+                    low = mid + 1;
+                } else if (segment.number > number) {
+                    high = mid - 1;
+                } else {
+                    return segment;
+                }
+            }
+            return null;
+        }
+
+        synchronized boolean get(int msgSeqNum, ByteBuf out) {
+            ensureOpen();
+            final long entry = index.get(msgSeqNum);
+            if (entry == SeqNumIndex.NONE) {
+                return false;
+            }
+            final int number = SeqNumIndex.segmentNumber(entry);
+            final ByteBuf buffer;
+            if (number == PENDING) {
+                buffer = pending;
+            } else {
+                final Segment segment = segment(number);
+                buffer = (segment != null) ? segment.buffer : null;
+            }
+            if (buffer == null) {
+                // segment was deleted by retention policy
+                return false;
+            }
+            final int pos = SeqNumIndex.position(entry);
+            out.writeBytes(buffer, pos + RECORD_HEADER_SIZE, buffer.getInt(pos));
+            return true;
+        }
+
+        synchronized void reset() {
+            ensureOpen();
+            for (Segment segment : segments) {
+                discard(segment);
+            }
+            segments.clear();
+            size = 0;
+            current = null;
+            if (next != null) {
+                discard(next);
+                next = null;
+            }
+            if (pending != null) {
+                pending.release();
+                pending = null;
+            }
+            index.clear();
+            fullCheckpoint = true;
+            unsyncedBytes = 0;
+            firstNumber = (requestedNumber >= 0) ? requestedNumber : nextNumber;
+            requestSegment(RECORD_HEADER_SIZE);
+            if (!syncRequested) {
+                syncRequested = true;
+                execute(this::sync);
+            }
+        }
+
+        /**
+         * Removes segment from use. The file is deleted and the mapping is released by background thread,
+         * when the segment is not forced anymore.
+         */
+        private void discard(Segment segment) {
+            segment.discarded = true;
+            if (segment.forcing == 0) {
+                try {
+                    syncExecutor.execute(() -> release(segment));
+                } catch (RejectedExecutionException e) {
+                    release(segment);
+                }
+            }
+        }
+
+        void sync() {
+            final List<Segment> toSync = new ArrayList<>(2);
+            final int[] ranges;
+            final Checkpoint checkpoint;
+            synchronized (this) {
+                syncRequested = false;
+                unsyncedBytes = 0;
+                if (journalClosed) {
+                    return;
+                }
+                for (int i = segments.size() - 1; i >= 0; i--) {
+                    final Segment segment = segments.get(i);
+                    if (segment.syncedPosition == segment.position) {
+                        break;
+                    }
+                    toSync.add(segment);
+                }
+                ranges = new int[toSync.size() * 2];
+                for (int i = 0; i < toSync.size(); i++) {
+                    final Segment segment = toSync.get(i);
+                    ranges[i * 2] = segment.syncedPosition;
+                    ranges[i * 2 + 1] = segment.position;
+                    segment.syncedPosition = segment.position;
+                    segment.forcing++;
+                }
+                checkpoint = checkpoint();
+            }
+            List<Segment> toRelease = null;
+            try {
+                for (int i = 0; i < toSync.size(); i++) {
+                    force(toSync.get(i), ranges[i * 2], ranges[i * 2 + 1]);
+                }
+                if (checkpoint != null) {
+                    save(checkpoint);
+                }
+            } finally {
+                synchronized (this) {
+                    for (Segment segment : toSync) {
+                        segment.forcing--;
+                        if (segment.discarded && segment.forcing == 0) {
+                            if (toRelease == null) {
+                                toRelease = new ArrayList<>(1);
+                            }
+                            toRelease.add(segment);
+                        }
+                    }
+                }
+            }
+            if (toRelease != null) {
+                toRelease.forEach(MemoryMappedMessageStore::release);
+            }
+        }
+
+        /**
+         * Captures index changes. Called with the lock held, after segments to force are collected.
+         *
+         * @return checkpoint, or null if nothing changed since the last one
+         */
+        private Checkpoint checkpoint() {
+            final int tailNumber = (current != null) ? current.number : -1;
+            final int tailPosition = (current != null) ? current.position : 0;
+            if (!fullCheckpoint && !index.isDirty() && firstNumber == savedFirstNumber
+                    && tailNumber == savedTailNumber && tailPosition == savedTailPosition) {
+                return null;
+            }
+            final boolean full = fullCheckpoint;
+            fullCheckpoint = false;
+            savedFirstNumber = firstNumber;
+            savedTailNumber = tailNumber;
+            savedTailPosition = tailPosition;
+            return new Checkpoint(full, firstNumber, tailNumber, tailPosition, index);
+        }
+
+        private void save(Checkpoint checkpoint) {
+            try {
+                indexFile.write(checkpoint);
+            } catch (IOException e) {
+                LOGGER.warn("Can't save journal index {}", name, e);
+                synchronized (this) {
+                    fullCheckpoint = true;
+                }
+            }
+        }
+
+        /**
+         * Writes pending records and forces all segments. Called after background thread is stopped.
+         */
+        void close() {
+            final Checkpoint checkpoint;
+            synchronized (this) {
+                if (journalClosed) {
+                    return;
+                }
+                if (pending != null) {
+                    final int number = nextNumber++;
+                    requestedNumber = -1;
+                    try {
+                        accept(Segment.open(number, segmentPath(number),
+                                Math.max(segmentSize, pending.readableBytes())));
+                    } catch (UncheckedIOException e) {
+                        LOGGER.warn("Can't write pending messages of journal {}", name, e);
+                    }
+                    if (pending != null) {
+                        pending.release();
+                        pending = null;
+                    }
+                }
+                for (Segment segment : segments) {
+                    if (segment.syncedPosition != segment.position) {
+                        force(segment, segment.syncedPosition, segment.position);
+                        segment.syncedPosition = segment.position;
+                    }
+                }
+                checkpoint = checkpoint();
+                journalClosed = true;
+            }
+            if (checkpoint != null) {
+                save(checkpoint);
+            }
+            indexFile.close();
+            synchronized (this) {
+                for (Segment segment : segments) {
+                    segment.unmap();
+                }
+                if (next != null) {
+                    release(next);
+                    next = null;
+                }
+                segments.clear();
+                index.clear();
+            }
+        }
+
+        private void ensureOpen() {
+            if (journalClosed) {
+                throw new IllegalStateException("Message store is closed");
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private Path directory;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private long syncIntervalMillis = DEFAULT_SYNC_INTERVAL_MILLIS;
+        private int syncBatchSize = DEFAULT_SYNC_BATCH_SIZE;
+        private long maxJournalSize = DEFAULT_MAX_JOURNAL_SIZE;
+
+        private Builder() {
+        }
+
+        /**
+         * @param directory a directory for journal files, created if it does not exist
+         * @return this builder
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Sets size of journal segment files. Larger messages are written to segments of their size.
+         *
+         * @param segmentSize segment size in bytes
+         * @return this builder
+         */
+        public Builder segmentSize(int segmentSize) {
+            if (segmentSize < PAGE_SIZE) {
+                throw new IllegalArgumentException("segmentSize must be at least " + PAGE_SIZE + ": " + segmentSize);
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets interval of forcing appended messages to the storage device.
+         *
+         * @param syncIntervalMillis interval in milliseconds, or 0 to disable periodic sync
+         * @return this builder
+         */
+        public Builder syncIntervalMillis(long syncIntervalMillis) {
+            if (syncIntervalMillis < 0) {
+                throw new IllegalArgumentException("syncIntervalMillis must not be negative: " + syncIntervalMillis);
+            }
+            this.syncIntervalMillis = syncIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Sets number of bytes appended to a journal causing a sync before the sync interval expires.
+         *
+         * @param syncBatchSize number of bytes, or 0 to sync by interval only
+         * @return this builder
+         */
+        public Builder syncBatchSize(int syncBatchSize) {
+            if (syncBatchSize < 0) {
+                throw new IllegalArgumentException("syncBatchSize must not be negative: " + syncBatchSize);
+            }
+            this.syncBatchSize = syncBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets size of session journal segments, above which the oldest segments are deleted.
+         * Messages of deleted segments can't be resent anymore. The current segment is never deleted.
+         *
+         * @param maxJournalSize size in bytes, or 0 to keep all messages until the session is reset
+         * @return this builder
+         */
+        public Builder maxJournalSize(long maxJournalSize) {
+            if (maxJournalSize < 0) {
+                throw new IllegalArgumentException("maxJournalSize must not be negative: " + maxJournalSize);
+            }
+            this.maxJournalSize = maxJournalSize;
+            return this;
+        }
+
+        public MemoryMappedMessageStore build() {
+            if (directory == null) {
+                throw new IllegalArgumentException("Message store directory is required");
+            }
+            return new MemoryMappedMessageStore(this);
+        }
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.store;
+
+import fixio.fixprotocol.FixMessageHeader;
+import fixio.fixprotocol.session.FixSession;
+import fixio.fixprotocol.session.SessionId;
+import fixio.fixprotocol.session.SessionRegistry;
+import fixio.netty.codec.ByteBufFixMessageHeader;
+import fixio.netty.pipeline.SessionRepository;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link SessionRepository} persisting sequence numbers of sessions to small memory-mapped files,
+ * named {@code <session>.session} in the repository directory.
+ * <p>
+ * Existing session files are mapped when the repository is built. Files of new sessions are created
+ * and mapped by a background thread, so sessions are created and removed on the event loop without disk I/O.
+ * </p>
+ * <p>
+ * Sessions keep counting sequence numbers in memory. The background thread writes changed
+ * sequence numbers to the files and forces them to the storage device every {@code checkpointIntervalMillis}.
+ * Sequence numbers are also written when the session is removed, i.e. when its connection is closed,
+ * and when the repository is closed.
+ * When a session is created after restart, its sequence numbers are read from its file.
+ * </p>
+ * <p>
+ * After a crash, up to one checkpoint interval of incoming messages is received again with a ResendRequest.
+ * Outgoing messages sent after the last checkpoint can't be recovered this way, so periodic checkpoints
+ * store the next outgoing MsgSeqNum increased by {@code outgoingSeqNumHeadroom}: a session resumed after a crash
+ * skips at most that many sequence numbers instead of reusing ones already sent, as long as fewer messages
+ * are sent within a checkpoint interval. Removing the session or closing the repository stores the exact value.
+ * </p>
+ */
+public class MemoryMappedSessionRepository implements SessionRepository, Closeable {
+
+    public static final long DEFAULT_CHECKPOINT_INTERVAL_MILLIS = 100;
+    public static final int DEFAULT_OUTGOING_SEQ_NUM_HEADROOM = 1000;
+
+    static final String FILE_SUFFIX = ".session";
+    /**
+     * File layout: magic, next incoming MsgSeqNum, next outgoing MsgSeqNum, reserved.
+     */
+    static final int FILE_SIZE = 16;
+    private static final int MAGIC = 0x46495853; // "FIXS"
+    private static final int INCOMING_OFFSET = 4;
+    private static final int OUTGOING_OFFSET = 8;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryMappedSessionRepository.class);
+
+    private final Path directory;
+    private final int outgoingSeqNumHeadroom;
+    private final ScheduledExecutorService checkpointExecutor;
+    private final ConcurrentHashMap<String, SessionFile> files = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<SessionId, Checkpoint> sessions = new ConcurrentHashMap<>();
+    private final SessionRegistry registry = new SessionRegistry();
+    private volatile boolean closed;
+
+    private MemoryMappedSessionRepository(Builder builder) {
+        this.directory = builder.directory;
+        this.outgoingSeqNumHeadroom = builder.outgoingSeqNumHeadroom;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't create session repository directory " + directory, e);
+        }
+        load();
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(
+                new DefaultThreadFactory("fixio-checkpoint", true));
+        if (builder.checkpointIntervalMillis > 0) {
+            checkpointExecutor.scheduleWithFixedDelay(this::checkpoint,
+                    builder.checkpointIntervalMillis, builder.checkpointIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public FixSession getOrCreateSession(FixMessageHeader header) {
+        if (closed) {
+            throw new IllegalStateException("Session repository is closed");
+        }
+        final FixSession session = findSession(header);
+        if (session != null) {
+            return session;
+        }
+        return sessions.computeIfAbsent(SessionId.of(header), sessionId -> open(sessionId, header)).session;
+    }
+
+    @Override
+    public FixSession getSession(FixMessageHeader header) {
+        return findSession(header);
+    }
+
+    private FixSession findSession(FixMessageHeader header) {
+        if (header instanceof ByteBufFixMessageHeader byteBufHeader) {
+            return byteBufHeader.findSession(registry);
+        }
+        return registry.get(header);
+    }
+
+    /**
+     * Writes sequence numbers of the session and forgets it.
+     * The file is forced to the storage device by the background thread.
+     * Next {@link #getOrCreateSession(FixMessageHeader)} resumes sequence numbers from the file.
+     */
+    @Override
+    public void removeSession(SessionId sessionId) {
+        final Checkpoint checkpoint = sessions.remove(sessionId);
+        if (checkpoint != null) {
+            registry.remove(sessionId);
+            checkpoint.write(true);
+            execute(checkpoint.file::force);
+        }
+    }
+
+    /**
+     * Writes changed sequence numbers of all sessions and forces them to the storage device.
+     */
+    public void checkpoint() {
+        for (Checkpoint checkpoint : sessions.values()) {
+            checkpoint.write(false);
+        }
+        for (SessionFile file : files.values()) {
+            file.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        checkpointExecutor.shutdown();
+        boolean terminated = false;
+        try {
+            terminated = checkpointExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            if (!terminated) {
+                LOGGER.warn("Session checkpoint is not completed in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Checkpoint checkpoint : sessions.values()) {
+            checkpoint.write(true);
+            registry.remove(checkpoint.session.getId());
+        }
+        sessions.clear();
+        for (SessionFile file : files.values()) {
+            file.map();
+            file.force();
+            if (terminated) {
+                // files are unmapped only when no checkpoint is running, otherwise they are left to GC
+                file.unmap();
+            }
+        }
+    }
+
+    /**
+     * Maps existing session files, so sessions are resumed without disk I/O.
+     */
+    private void load() {
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .forEach(path -> {
+                        final String name = path.getFileName().toString();
+                        final SessionFile file = new SessionFile(path);
+                        file.map();
+                        files.put(name.substring(0, name.length() - FILE_SUFFIX.length()), file);
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't list session repository directory " + directory, e);
+        }
+    }
+
+    private Checkpoint open(SessionId sessionId, FixMessageHeader header) {
+        final FixSession session = FixSession.newBuilder()
+                .beginString(header.getBeginString())
+                .senderCompID(header.getSenderCompID())
+                .senderSubID(header.getSenderSubID())
+                .senderLocationID(header.getSenderLocationID())
+                .targetCompID(header.getTargetCompID())
+                .targetSubID(header.getTargetSubID())
+                .targetLocationID(header.getTargetLocationID())
+                .build();
+
+        final SessionFile file = files.computeIfAbsent(MemoryMappedMessageStore.fileName(sessionId),
+                name -> new SessionFile(directory.resolve(name + FILE_SUFFIX)));
+        final Checkpoint checkpoint = new Checkpoint(session, file);
+        if (checkpoint.incoming > 0) {
+            session.setNextIncomingMessageSeqNum(checkpoint.incoming);
+            session.setNextOutgoingMessageSeqNum(checkpoint.outgoing);
+            LOGGER.info("Session resumed from {}: next incoming MsgSeqNum={}, next outgoing MsgSeqNum={}.",
+                    file.path, checkpoint.incoming, checkpoint.outgoing);
+        } else {
+            session.setNextIncomingMessageSeqNum(1);
+            session.setNextOutgoingMessageSeqNum(1);
+            checkpoint.write(false);
+        }
+        registry.putIfAbsent(session);
+        if (!file.isMapped()) {
+            execute(() -> {
+                file.map();
+                file.force();
+            });
+        }
+        return checkpoint;
+    }
+
+    private void execute(Runnable task) {
+        try {
+            checkpointExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // repository is closing and writes all files itself
+            LOGGER.debug("Session checkpoint task rejected", e);
+        }
+    }
+
+    /**
+     * Sequence numbers of a session, written to its file.
+     */
+    private final class Checkpoint {
+
+        private final FixSession session;
+        private final SessionFile file;
+        private int incoming;
+        private int outgoing;
+
+        Checkpoint(FixSession session, SessionFile file) {
+            this.session = session;
+            this.file = file;
+            synchronized (file) {
+                this.incoming = file.incoming;
+                this.outgoing = file.outgoing;
+            }
+        }
+
+        /**
+         * @param exact true to store the next outgoing MsgSeqNum without headroom, when session is no longer used
+         */
+        synchronized void write(boolean exact) {
+            final int nextIncoming = session.getNextIncomingMessageSeqNum();
+            final int nextOutgoing = session.getNextOutgoingMessageSeqNum() + (exact ? 0 : outgoingSeqNumHeadroom);
+            if (nextIncoming == incoming && nextOutgoing == outgoing) {
+                return;
+            }
+            file.put(nextIncoming, nextOutgoing);
+            incoming = nextIncoming;
+            outgoing = nextOutgoing;
+        }
+    }
+
+    /**
+     * Memory-mapped file holding sequence numbers of a session.
+     * Last written sequence numbers are kept in memory, so they are available before the file is mapped.
+     */
+    private static final class SessionFile {
+
+        private final Path path;
+        private MappedByteBuffer mapped;
+        private int incoming = -1;
+        private int outgoing = -1;
+        private boolean dirty;
+        private boolean unmapped;
+
+        SessionFile(Path path) {
+            this.path = path;
+        }
+
+        synchronized boolean isMapped() {
+            return mapped != null;
+        }
+
+        /**
+         * Creates and maps the file, reading sequence numbers from it or writing ones put before.
+         */
+        synchronized void map() {
+            if (mapped != null || unmapped) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            } catch (IOException e) {
+                LOGGER.warn("Can't map session file {}", path, e);
+                return;
+            }
+            if (incoming > 0) {
+                writeMapped();
+            } else if (mapped.getInt(0) == MAGIC) {
+                incoming = mapped.getInt(INCOMING_OFFSET);
+                outgoing = mapped.getInt(OUTGOING_OFFSET);
+            }
+        }
+
+        synchronized void put(int nextIncoming, int nextOutgoing) {
+            incoming = nextIncoming;
+            outgoing = nextOutgoing;
+            if (mapped != null) {
+                writeMapped();
+            }
+        }
+
+        private void writeMapped() {
+            mapped.putInt(INCOMING_OFFSET, incoming);
+            mapped.putInt(OUTGOING_OFFSET, outgoing);
+            mapped.putInt(0, MAGIC);
+            dirty = true;
+        }
+
+        void force() {
+            final MappedByteBuffer buffer;
+            synchronized (this) {
+                if (!dirty || mapped == null) {
+                    return;
+                }
+                dirty = false;
+                buffer = mapped;
+            }
+            // forced outside of the lock, so the event loop never waits for the storage device.
+            // Files are unmapped only after checkpoint thread is terminated.
+            try {
+                buffer.force();
+            } catch (UncheckedIOException e) {
+                LOGGER.warn("Can't sync session file {}", path, e);
+                synchronized (this) {
+                    dirty = true;
+                }
+            }
+        }
+
+        synchronized void unmap() {
+            unmapped = true;
+            if (mapped != null) {
+                PlatformDependent.freeDirectBuffer(mapped);
+                mapped = null;
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private Path directory;
+        private long checkpointIntervalMillis = DEFAULT_CHECKPOINT_INTERVAL_MILLIS;
+        private int outgoingSeqNumHeadroom = DEFAULT_OUTGOING_SEQ_NUM_HEADROOM;
+
+        private Builder() {
+        }
+
+        /**
+         * @param directory a directory for session files, created if it does not exist
+         * @return this builder
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Sets interval of writing sequence numbers to session files.
+         *
+         * @param checkpointIntervalMillis interval in milliseconds, or 0 to write only when session is removed
+         * @return this builder
+         */
+        public Builder checkpointIntervalMillis(long checkpointIntervalMillis) {
+            if (checkpointIntervalMillis < 0) {
+                throw new IllegalArgumentException("checkpointIntervalMillis must not be negative: " + checkpointIntervalMillis);
+            }
+            this.checkpointIntervalMillis = checkpointIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Sets number added to the next outgoing MsgSeqNum by periodic checkpoints.
+         * It should exceed the number of messages a session sends within a checkpoint interval.
+         *
+         * @param outgoingSeqNumHeadroom number of outgoing sequence numbers skipped after a crash
+         * @return this builder
+         */
+        public Builder outgoingSeqNumHeadroom(int outgoingSeqNumHeadroom) {
+            if (outgoingSeqNumHeadroom < 0) {
+                throw new IllegalArgumentException("outgoingSeqNumHeadroom must not be negative: " + outgoingSeqNumHeadroom);
+            }
+            this.outgoingSeqNumHeadroom = outgoingSeqNumHeadroom;
+            return this;
+        }
+
+        public MemoryMappedSessionRepository build() {
+            if (directory == null) {
+                throw new IllegalArgumentException("Session repository directory is required");
+            }
+            return new MemoryMappedSessionRepository(this);
+        }
+    }
+}
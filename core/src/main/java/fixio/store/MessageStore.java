@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.store;
+
+import fixio.fixprotocol.session.SessionId;
+import io.netty.buffer.ByteBuf;
+
+import java.io.Closeable;
+
+/**
+ * Stores sent messages, so they can be sent again in response to a ResendRequest(2).
+ * <p>
+ * Messages are stored as encoded bytes, keyed by {@link SessionId} and MsgSeqNum(34).
+ * When a message with the same MsgSeqNum is stored again, the latest one is returned.
+ * </p>
+ * <p>
+ * Implementations should be thread safe. Messages of a session are stored and read on its channel event loop,
+ * so implementations must not block on disk I/O.
+ * </p>
+ *
+ * @see MemoryMappedMessageStore
+ */
+public interface MessageStore extends Closeable {
+
+    /**
+     * Stores encoded message. Reader and writer indexes of the buffer are not modified.
+     *
+     * @param sessionId session identifier
+     * @param msgSeqNum message sequence number
+     * @param message   buffer holding message bytes
+     * @param index     index of the first message byte in the buffer
+     * @param length    number of message bytes
+     */
+    void append(SessionId sessionId, int msgSeqNum, ByteBuf message, int index, int length);
+
+    /**
+     * Writes stored message bytes to the buffer.
+     *
+     * @param sessionId session identifier
+     * @param msgSeqNum message sequence number
+     * @param out       destination buffer
+     * @return true, if message was found and written
+     */
+    boolean get(SessionId sessionId, int msgSeqNum, ByteBuf out);
+
+    /**
+     * Discards all messages of the session, when outgoing sequence numbers are reset.
+     * {@link fixio.netty.codec.FixMessageEncoder} calls it before storing a message with MsgSeqNum(34) 1.
+     *
+     * @param sessionId session identifier
+     */
+    void reset(SessionId sessionId);
+
+    /**
+     * Closes the store, writing stored messages to the storage device.
+     */
+    @Override
+    void close();
+}
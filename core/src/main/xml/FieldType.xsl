@@ -40,7 +40,7 @@
         */
         package fixio.fixprotocol;
 
-        import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
+        import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
         import static fixio.fixprotocol.DataType.*;
 
         public enum FieldType {
@@ -54,18 +54,49 @@
         private final DataType type;
         private final String[] enumValues;
 
-        private static final Int2ObjectArrayMap&lt;FieldType&gt; TYPES = new Int2ObjectArrayMap&lt;&gt;(FieldType.values().length);
+        /**
+        * Max tag number stored in {@link #TYPES_BY_TAG} table. Types of greater tags are looked up in {@link #SPARSE_TYPES}.
+        */
+        private static final int MAX_DENSE_TAG = 5000;
+
+        /**
+        * FieldTypes indexed by tag number.
+        */
+        private static final FieldType[] TYPES_BY_TAG;
+
+        /**
+        * FieldTypes with tag number greater than {@link #MAX_DENSE_TAG}, e.g. user-defined fields.
+        */
+        private static final Int2ObjectOpenHashMap&lt;FieldType&gt; SPARSE_TYPES = new Int2ObjectOpenHashMap&lt;&gt;();
 
         static {
-        for (FieldType fieldType : FieldType.values()) {
-        if (fieldType.tag &gt; 0) {
-        TYPES.put(fieldType.tag, fieldType);
+        final FieldType[] values = FieldType.values();
+        int maxTag = 0;
+        for (FieldType fieldType : values) {
+        if (fieldType.tag &lt;= MAX_DENSE_TAG) {
+        maxTag = Math.max(maxTag, fieldType.tag);
+        }
         }
+        TYPES_BY_TAG = new FieldType[maxTag + 1];
+        for (FieldType fieldType : values) {
+        if (fieldType.tag &gt; MAX_DENSE_TAG) {
+        SPARSE_TYPES.put(fieldType.tag, fieldType);
+        } else if (fieldType.tag &gt; 0) {
+        TYPES_BY_TAG[fieldType.tag] = fieldType;
         }
         }
+        SPARSE_TYPES.trim();
+        }
 
         public static FieldType forTag(int tag) {
-        FieldType fieldType = TYPES.get(tag);
+        final FieldType fieldType;
+        if (tag &gt;= 0 &amp;&amp; tag &lt; TYPES_BY_TAG.length) {
+        fieldType = TYPES_BY_TAG[tag];
+        } else if (tag &gt; MAX_DENSE_TAG) {
+        fieldType = SPARSE_TYPES.get(tag);
+        } else {
+        fieldType = null;
+        }
         return (fieldType != null) ? fieldType : UNKNOWN;
         }
 
@@ -0,0 +1,391 @@
+<?xml version="1.0" encoding="UTF-8" ?>
+<!--
+  ~ Copyright 2014 The FIX.io Project
+  ~
+  ~ The FIX.io Project licenses this file to you under the Apache License,
+  ~ version 2.0 (the "License"); you may not use this file except in compliance
+  ~ with the License. You may obtain a copy of the License at:
+  ~
+  ~   http://www.apache.org/licenses/LICENSE-2.0
+  ~
+  ~ Unless required by applicable law or agreed to in writing, software
+  ~ distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+  ~ WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+  ~ License for the specific language governing permissions and limitations
+  ~ under the License.
+  -->
+<!--
+  Generates flyweight decoders and encoders of frequently used message types.
+  Decoder has getters of the message fields, encoder has setters of the message fields and fields of its groups.
+  Encoder also has a view with setters of entry fields of every repeating group.
+  Components are flattened.
+  -->
+<stylesheet version="2.0"
+            xmlns="http://www.w3.org/1999/XSL/Transform"
+            xmlns:xs="http://www.w3.org/2001/XMLSchema"
+            xmlns:fix="urn:fixio:flyweights"
+            exclude-result-prefixes="xs fix">
+    <output method="text" indent="no" standalone="yes" media-type="text/java" omit-xml-declaration="yes"/>
+
+    <strip-space elements="*"/>
+
+    <!--
+      NewOrderSingle, ExecutionReport, OrderCancelRequest, OrderCancelReplaceRequest, OrderCancelReject,
+      Quote, QuoteRequest, MarketDataRequest, MarketDataSnapshotFullRefresh, MarketDataIncrementalRefresh
+      -->
+    <param name="messageTypes" as="xs:string*" select="('D', '8', 'F', 'G', '9', 'S', 'R', 'V', 'W', 'X')"/>
+
+    <key name="field" match="/fix/fields/field" use="@name"/>
+    <key name="component" match="/fix/components/component" use="@name"/>
+
+    <template match="fix">
+        /*
+        * Copyright 2015 The FIX.io Project
+        *
+        * The FIX.io Project licenses this file to you under the Apache License,
+        * version 2.0 (the "License"); you may not use this file except in compliance
+        * with the License. You may obtain a copy of the License at:
+        *
+        * http://www.apache.org/licenses/LICENSE-2.0
+        *
+        * Unless required by applicable law or agreed to in writing, software
+        * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+        * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+        * License for the specific language governing permissions and limitations
+        * under the License.
+        */
+        package fixio.netty.codec;
+
+        import io.netty.buffer.ByteBuf;
+        import io.netty.util.internal.ObjectPool;
+
+        /**
+        * Flyweight decoders and encoders of frequently used messages, generated from FIX dictionary.
+        *
+        * @see FlyweightDecoder
+        * @see FlyweightEncoder
+        */
+        public final class Flyweights {
+
+        private Flyweights() {
+        }
+        <for-each select="messages/message[@msgtype = $messageTypes]">
+            <call-template name="decoder"/>
+            <call-template name="encoder"/>
+        </for-each>
+        }
+    </template>
+
+    <template name="decoder">
+        <variable name="fields" as="element()*" select="fix:distinct(fix:fields(.))"/>
+        /**
+        * <value-of select="@name"/>(<value-of select="@msgtype"/>) decoder.
+        */
+        public static final class <value-of select="@name"/>Decoder extends FlyweightDecoder {
+
+        public static final String MSG_TYPE = "<value-of select="@msgtype"/>";
+
+        public <value-of select="@name"/>Decoder() {
+        super(MSG_TYPE, <value-of select="count($fields)"/>);
+        }
+
+        @Override
+        protected int fieldIndex(int tagNum) {
+        return switch (tagNum) {
+        <for-each select="$fields">
+            case <value-of select="@number"/> -&gt; <value-of select="position() - 1"/>;
+        </for-each>
+        default -&gt; -1;
+        };
+        }
+
+        @Override
+        public <value-of select="@name"/>Decoder wrap(ByteBufFixMessage message) {
+        super.wrap(message);
+        return this;
+        }
+
+        @Override
+        public <value-of select="@name"/>Decoder wrap(ByteBuf buffer, int offset, int length) {
+        super.wrap(buffer, offset, length);
+        return this;
+        }
+        <for-each select="$fields">
+            <variable name="index" select="position() - 1"/>
+            <variable name="kind" select="fix:kind(@type)"/>
+
+            /**
+            * @return true, if <value-of select="@name"/>(<value-of select="@number"/>) is present
+            */
+            public boolean has<value-of select="@name"/>() {
+            return has(<value-of select="$index"/>);
+            }
+
+            <choose>
+                <when test="$kind = 'int'">
+                    /**
+                    * @return <value-of select="@name"/>(<value-of select="@number"/>) value, or 0 if the field is not present
+                    */
+                    public int get<value-of select="@name"/>() {
+                    return getInt(<value-of select="$index"/>);
+                    }
+                </when>
+                <when test="$kind = 'decimal'">
+                    /**
+                    * @param scale number of fraction digits
+                    * @return <value-of select="@name"/>(<value-of select="@number"/>) value multiplied by 10^scale, or 0 if the field is not present
+                    */
+                    public long get<value-of select="@name"/>(int scale) {
+                    return getScaled(<value-of select="$index"/>, scale);
+                    }
+                </when>
+                <when test="$kind = 'char'">
+                    /**
+                    * @return <value-of select="@name"/>(<value-of select="@number"/>) value, or 0 if the field is not present
+                    */
+                    public char get<value-of select="@name"/>() {
+                    return getChar(<value-of select="$index"/>);
+                    }
+                </when>
+                <when test="$kind = 'boolean'">
+                    /**
+                    * @return <value-of select="@name"/>(<value-of select="@number"/>) value, or false if the field is not present
+                    */
+                    public boolean get<value-of select="@name"/>() {
+                    return getBoolean(<value-of select="$index"/>);
+                    }
+                </when>
+                <when test="$kind = 'timestamp'">
+                    /**
+                    * @return <value-of select="@name"/>(<value-of select="@number"/>) in nanoseconds since the epoch, or Long.MIN_VALUE if the field is not present
+                    */
+                    public long get<value-of select="@name"/>() {
+                    return getTimestamp(<value-of select="$index"/>);
+                    }
+                </when>
+                <otherwise>
+                    /**
+                    * @return <value-of select="@name"/>(<value-of select="@number"/>) value, or null if the field is not present
+                    */
+                    public String get<value-of select="@name"/>() {
+                    return getString(<value-of select="$index"/>);
+                    }
+                </otherwise>
+            </choose>
+        </for-each>
+        }
+    </template>
+
+    <template name="encoder">
+        <variable name="class" select="concat(@name, 'Encoder')"/>
+        /**
+        * <value-of select="@name"/>(<value-of select="@msgtype"/>) encoder.
+        */
+        public static final class <value-of select="$class"/> extends FlyweightEncoder {
+
+        private static final ObjectPool&lt;<value-of select="$class"/>&gt; POOL = ObjectPool.newPool(<value-of select="$class"/>::new);
+
+        private <value-of select="$class"/>(ObjectPool.Handle&lt;<value-of select="$class"/>&gt; handle) {
+        super(handle, <value-of select="@name"/>Decoder.MSG_TYPE);
+        }
+
+        /**
+        * Takes an encoder from the pool of the current thread.
+        *
+        * @return an empty encoder
+        */
+        public static <value-of select="$class"/> newInstance() {
+        return POOL.get();
+        }
+        <for-each select="fix:distinct(fix:allFields(.))">
+            <call-template name="setter">
+                <with-param name="class" select="$class"/>
+            </call-template>
+        </for-each>
+        <for-each select="fix:distinctGroups(fix:groups(.))">
+            <call-template name="newGroup"/>
+        </for-each>
+        <for-each select="fix:distinctGroups(fix:allGroups(.))">
+            <call-template name="groupView"/>
+        </for-each>
+        }
+    </template>
+
+    <!-- Setters of entry fields of a repeating group, writing to the body of the enclosing encoder -->
+    <template name="groupView">
+        <variable name="group" select="."/>
+        <variable name="class" select="concat(@name, 'Group')"/>
+
+        private final <value-of select="$class"/> <value-of select="' '"/><value-of select="fix:variable(@name)"/> = new <value-of select="$class"/>();
+
+        /**
+        * Setters of <value-of select="@name"/>(<value-of select="key('field', @name)/@number"/>) entry fields.
+        * Fields of every entry are set in order, starting with the first field of the group.
+        */
+        public final class <value-of select="$class"/> {
+
+        private <value-of select="$class"/>() {
+        }
+        <for-each select="fix:distinct(fix:fields(.))">
+            <choose>
+                <when test="@name = fix:groups($group)/@name">
+                    <call-template name="newGroup"/>
+                </when>
+                <otherwise>
+                    <call-template name="setter">
+                        <with-param name="class" select="$class"/>
+                    </call-template>
+                </otherwise>
+            </choose>
+        </for-each>
+        }
+    </template>
+
+    <!-- Writes NumInGroup field of a group and returns its view -->
+    <template name="newGroup">
+        <variable name="field" select="key('field', @name)"/>
+
+        /**
+        * Writes <value-of select="@name"/>(<value-of select="$field/@number"/>), followed by entries set with the returned view.
+        *
+        * @param numInGroup number of entries
+        * @return setters of entry fields
+        */
+        public <value-of select="@name"/>Group new<value-of select="@name"/>(int numInGroup) {
+        appendInt(<value-of select="$field/@number"/>, numInGroup);
+        return <value-of select="fix:variable(@name)"/>;
+        }
+    </template>
+
+    <template name="setter">
+        <param name="class" as="xs:string"/>
+        <variable name="kind" select="fix:kind(@type)"/>
+        <choose>
+            <when test="$kind = 'int'">
+                public <value-of select="$class"/> set<value-of select="@name"/>(int value) {
+                appendInt(<value-of select="@number"/>, value);
+                return this;
+                }
+            </when>
+            <when test="$kind = 'decimal'">
+                public <value-of select="$class"/> set<value-of select="@name"/>(long scaledValue, int scale) {
+                appendFixedPoint(<value-of select="@number"/>, scaledValue, scale);
+                return this;
+                }
+            </when>
+            <when test="$kind = 'char'">
+                public <value-of select="$class"/> set<value-of select="@name"/>(char value) {
+                appendChar(<value-of select="@number"/>, value);
+                return this;
+                }
+            </when>
+            <when test="$kind = 'boolean'">
+                public <value-of select="$class"/> set<value-of select="@name"/>(boolean value) {
+                appendBoolean(<value-of select="@number"/>, value);
+                return this;
+                }
+            </when>
+            <when test="$kind = 'timestamp'">
+                public <value-of select="$class"/> set<value-of select="@name"/>(long epochNanos) {
+                appendTimestamp(<value-of select="@number"/>, epochNanos);
+                return this;
+                }
+            </when>
+            <otherwise>
+                public <value-of select="$class"/> set<value-of select="@name"/>(CharSequence value) {
+                appendString(<value-of select="@number"/>, value);
+                return this;
+                }
+            </otherwise>
+        </choose>
+    </template>
+
+    <!-- Dictionary fields of the message, NumInGroup fields included, group members excluded -->
+    <function name="fix:fields" as="element()*">
+        <param name="element" as="element()"/>
+        <for-each select="$element/*">
+            <choose>
+                <when test="self::field or self::group">
+                    <sequence select="key('field', @name, root($element))"/>
+                </when>
+                <when test="self::component">
+                    <sequence select="fix:fields(key('component', @name, root($element)))"/>
+                </when>
+            </choose>
+        </for-each>
+    </function>
+
+    <!-- Dictionary fields of the message and its groups -->
+    <function name="fix:allFields" as="element()*">
+        <param name="element" as="element()"/>
+        <for-each select="$element/*">
+            <choose>
+                <when test="self::field">
+                    <sequence select="key('field', @name, root($element))"/>
+                </when>
+                <when test="self::group">
+                    <sequence select="key('field', @name, root($element)), fix:allFields(.)"/>
+                </when>
+                <when test="self::component">
+                    <sequence select="fix:allFields(key('component', @name, root($element)))"/>
+                </when>
+            </choose>
+        </for-each>
+    </function>
+
+    <!-- Repeating groups of the message, nested groups excluded -->
+    <function name="fix:groups" as="element()*">
+        <param name="element" as="element()"/>
+        <for-each select="$element/*">
+            <choose>
+                <when test="self::group">
+                    <sequence select="."/>
+                </when>
+                <when test="self::component">
+                    <sequence select="fix:groups(key('component', @name, root($element)))"/>
+                </when>
+            </choose>
+        </for-each>
+    </function>
+
+    <!-- Repeating groups of the message and its groups -->
+    <function name="fix:allGroups" as="element()*">
+        <param name="element" as="element()"/>
+        <for-each select="fix:groups($element)">
+            <sequence select=". , fix:allGroups(.)"/>
+        </for-each>
+    </function>
+
+    <function name="fix:distinctGroups" as="element()*">
+        <param name="groups" as="element()*"/>
+        <for-each-group select="$groups" group-by="@name">
+            <sequence select="current-group()[1]"/>
+        </for-each-group>
+    </function>
+
+    <!-- Name of a field holding the view of a group -->
+    <function name="fix:variable" as="xs:string">
+        <param name="name" as="xs:string"/>
+        <sequence select="concat(lower-case(substring($name, 1, 1)), substring($name, 2))"/>
+    </function>
+
+    <function name="fix:distinct" as="element()*">
+        <param name="fields" as="element()*"/>
+        <for-each-group select="$fields" group-by="@number">
+            <sequence select="current-group()[1]"/>
+        </for-each-group>
+    </function>
+
+    <function name="fix:kind" as="xs:string">
+        <param name="type" as="xs:string"/>
+        <choose>
+            <when test="$type = ('INT', 'LENGTH', 'SEQNUM', 'NUMINGROUP')">int</when>
+            <when test="$type = ('FLOAT', 'PRICE', 'PRICEOFFSET', 'QTY', 'AMT', 'PERCENTAGE')">decimal</when>
+            <when test="$type = 'CHAR'">char</when>
+            <when test="$type = 'BOOLEAN'">boolean</when>
+            <when test="$type = 'UTCTIMESTAMP'">timestamp</when>
+            <otherwise>string</otherwise>
+        </choose>
+    </function>
+
+</stylesheet>
@@ -0,0 +1,110 @@
+<?xml version="1.0" encoding="UTF-8" ?>
+<!--
+  ~ Copyright 2014 The FIX.io Project
+  ~
+  ~ The FIX.io Project licenses this file to you under the Apache License,
+  ~ version 2.0 (the "License"); you may not use this file except in compliance
+  ~ with the License. You may obtain a copy of the License at:
+  ~
+  ~   http://www.apache.org/licenses/LICENSE-2.0
+  ~
+  ~ Unless required by applicable law or agreed to in writing, software
+  ~ distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+  ~ WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+  ~ License for the specific language governing permissions and limitations
+  ~ under the License.
+  -->
+<!--
+  Generates repeating group layouts of every message type.
+  Layout of a group is written as "countTag{delimiterTag,memberTag,...}", nested groups are written the same way.
+  Components are flattened.
+  -->
+<stylesheet version="2.0"
+            xmlns="http://www.w3.org/1999/XSL/Transform"
+            xmlns:xs="http://www.w3.org/2001/XMLSchema"
+            xmlns:fix="urn:fixio:layouts"
+            exclude-result-prefixes="xs fix">
+    <output method="text" indent="no" standalone="yes" media-type="text/java" omit-xml-declaration="yes"/>
+
+    <strip-space elements="*"/>
+
+    <key name="field" match="/fix/fields/field" use="@name"/>
+    <key name="component" match="/fix/components/component" use="@name"/>
+
+    <template match="fix">
+        /*
+        * Copyright 2015 The FIX.io Project
+        *
+        * The FIX.io Project licenses this file to you under the Apache License,
+        * version 2.0 (the "License"); you may not use this file except in compliance
+        * with the License. You may obtain a copy of the License at:
+        *
+        * http://www.apache.org/licenses/LICENSE-2.0
+        *
+        * Unless required by applicable law or agreed to in writing, software
+        * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+        * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+        * License for the specific language governing permissions and limitations
+        * under the License.
+        */
+        package fixio.fixprotocol;
+
+        /**
+        * Repeating group layouts generated from FIX dictionary.
+        *
+        * @see GroupLayout
+        */
+        final class GroupLayoutDefinitions {
+
+        /**
+        * Pairs of message type and layouts of its groups.
+        */
+        static final String[] DEFINITIONS = {
+        <for-each select="messages/message[exists(fix:groups(.))]">
+            "<value-of select="@msgtype"/>", "<value-of select="string-join(fix:groups(.), ',')"/>",
+        </for-each>
+        };
+
+        private GroupLayoutDefinitions() {
+        }
+        }
+    </template>
+
+    <function name="fix:groups" as="xs:string*">
+        <param name="element" as="element()"/>
+        <for-each select="$element/*">
+            <choose>
+                <when test="self::group">
+                    <sequence select="fix:group(.)"/>
+                </when>
+                <when test="self::component">
+                    <sequence select="fix:groups(key('component', @name, root($element)))"/>
+                </when>
+            </choose>
+        </for-each>
+    </function>
+
+    <function name="fix:members" as="xs:string*">
+        <param name="element" as="element()"/>
+        <for-each select="$element/*">
+            <choose>
+                <when test="self::field">
+                    <sequence select="string(key('field', @name, root($element))/@number)"/>
+                </when>
+                <when test="self::group">
+                    <sequence select="fix:group(.)"/>
+                </when>
+                <when test="self::component">
+                    <sequence select="fix:members(key('component', @name, root($element)))"/>
+                </when>
+            </choose>
+        </for-each>
+    </function>
+
+    <function name="fix:group" as="xs:string">
+        <param name="group" as="element()"/>
+        <sequence select="concat(key('field', $group/@name, root($group))/@number,
+                                 '{', string-join(fix:members($group), ','), '}')"/>
+    </function>
+
+</stylesheet>
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio;
+
+import fixio.handlers.FixApplicationAdapter;
+import fixio.netty.pipeline.InMemorySessionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FixClientManagerTest {
+
+    private ServerSocket serverSocket;
+    private FixClientManager manager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        manager = FixClientManager.newBuilder().ioThreads(1).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        manager.close();
+        serverSocket.close();
+    }
+
+    private FixClient connectClient() throws InterruptedException {
+        FixClient client = manager.newClient(new FixApplicationAdapter(), new InMemorySessionRepository());
+        client.setSettingsResource("/fixClient.properties");
+        client.connectAsync(new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort())).sync();
+        return client;
+    }
+
+    private void disconnect(FixClient client) throws InterruptedException {
+        client.disconnect();
+        // connection releases event loops in a close listener
+        manager.getEventLoopGroup().submit(() -> {
+        }).sync();
+    }
+
+    @Test
+    void shareEventLoopsUntilLastConnectionIsClosed() throws Exception {
+        FixClient client1 = connectClient();
+        FixClient client2 = connectClient();
+        assertThat(manager.getConnectionCount()).isEqualTo(2);
+
+        disconnect(client1);
+        assertThat(manager.getConnectionCount()).isEqualTo(1);
+        assertThat(manager.getEventLoopGroup().isShuttingDown()).isFalse();
+
+        manager.close();
+        assertThat(manager.getEventLoopGroup().isShuttingDown()).isFalse();
+        assertThatThrownBy(this::connectClient).isInstanceOf(IllegalStateException.class);
+
+        client2.disconnect();
+        assertThat(manager.terminationFuture().await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(manager.getConnectionCount()).isZero();
+    }
+
+    @Test
+    void shutDownOnCloseWithoutConnections() throws Exception {
+        disconnect(connectClient());
+
+        manager.close();
+
+        assertThat(manager.terminationFuture().await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void rejectInvalidThreadCount() {
+        assertThatThrownBy(() -> FixClientManager.newBuilder().ioThreads(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
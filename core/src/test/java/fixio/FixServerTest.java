@@ -18,6 +18,7 @@ package fixio;
 import fixio.handlers.FixApplication;
 import fixio.netty.pipeline.SessionRepository;
 import fixio.netty.pipeline.server.FixAuthenticator;
+import fixio.netty.transport.TransportSettings;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -48,6 +49,13 @@ class FixServerTest {
         server.stop();
     }
 
+    @Test
+    void startStopWithSeveralAcceptors() throws Exception {
+        server.setTransportSettings(TransportSettings.newBuilder().acceptorCount(2).build());
+        server.start();
+        server.stop();
+    }
+
     @Test
     void stopBeforeStart() {
         assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() ->
@@ -15,6 +15,7 @@
  */
 package fixio.fixprotocol;
 
+import fixio.fixprotocol.fields.FixedPointNumber;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -113,4 +114,17 @@ class FixMessageBuilderImplTest {
 
         assertThat(messageBuilder.getInt(tag)).isEqualTo((Integer) value);
     }
+
+    @Test
+    void primitiveAccessors() {
+        fixMessage.add(FieldType.HeartBtInt, 30);
+        fixMessage.add(FieldType.Price, new FixedPointNumber(12345, (byte) 4));
+        fixMessage.add(FieldType.Side, 2);
+
+        assertThat(fixMessage.getIntOrDefault(FieldType.HeartBtInt, -1)).isEqualTo(30);
+        assertThat(fixMessage.getIntOrDefault(FieldType.OrderQty, -1)).isEqualTo(-1);
+        assertThat(fixMessage.getLong(FieldType.HeartBtInt, -1)).isEqualTo(30);
+        assertThat(fixMessage.getChar(FieldType.Side, ' ')).isEqualTo('2');
+        assertThat(fixMessage.getScaledPrice(FieldType.Price, 6, 0)).isEqualTo(1234500);
+    }
 }
@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.apache.commons.lang3.RandomStringUtils.randomAscii;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class FixMessageImplTest {
 
@@ -50,5 +51,28 @@ class FixMessageImplTest {
         assertThat(fixMessage.getHeader().getTargetCompID()).as("targetCompID").isEqualTo(targetCompID);
     }
 
+    @Test
+    void primitiveAccessors() {
+        fixMessage.add(FieldType.MsgType.tag(), "8".getBytes());
+        fixMessage.add(FieldType.OrderQty.tag(), "1500".getBytes());
+        fixMessage.add(FieldType.Price.tag(), "1.2345".getBytes());
+        fixMessage.add(FieldType.Side.tag(), "2".getBytes());
+        fixMessage.add(FieldType.LastQty.tag(), "10.5".getBytes());
+        fixMessage.add(FieldType.HeartBtInt.tag(), "30".getBytes());
+
+        assertThat(fixMessage.getIntOrDefault(FieldType.HeartBtInt, -1)).isEqualTo(30);
+        assertThat(fixMessage.getIntOrDefault(FieldType.Account, -1)).isEqualTo(-1);
+        assertThat(fixMessage.getLong(FieldType.OrderQty, -1)).isEqualTo(1500);
+        assertThat(fixMessage.getLong(FieldType.HeartBtInt, -1)).isEqualTo(30);
+        assertThat(fixMessage.getLong(FieldType.Account, -1)).isEqualTo(-1);
+        assertThat(fixMessage.getChar(FieldType.Side, ' ')).isEqualTo('2');
+        assertThat(fixMessage.getChar(FieldType.OrdType, ' ')).isEqualTo(' ');
+        assertThat(fixMessage.getScaledPrice(FieldType.Price, 5, 0)).isEqualTo(123450);
+        assertThat(fixMessage.getScaledPrice(FieldType.OrderQty, 2, 0)).isEqualTo(150000);
+        assertThat(fixMessage.getScaledPrice(FieldType.Account, 2, -1)).isEqualTo(-1);
 
+        assertThatThrownBy(() -> fixMessage.getScaledPrice(FieldType.Price, 2, 0)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> fixMessage.getLong(FieldType.LastQty, 0)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> fixMessage.getChar(FieldType.OrderQty, ' ')).isInstanceOf(IllegalArgumentException.class);
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GroupLayoutTest {
+
+    @Test
+    void layoutDependsOnMessageType() {
+        GroupLayout incremental = GroupLayout.forMessageType(MessageTypes.MARKET_DATA_INCREMENTAL_REFRESH)
+                .get(FieldType.NoMDEntries.tag());
+        GroupLayout snapshot = GroupLayout.forMessageType(MessageTypes.MARKET_DATA_SNAPSHOT_FULL_REFRESH)
+                .get(FieldType.NoMDEntries.tag());
+
+        assertThat(incremental.getDelimiterTag()).isEqualTo(FieldType.MDUpdateAction.tag());
+        assertThat(snapshot.getDelimiterTag()).isEqualTo(FieldType.MDEntryType.tag());
+        assertThat(incremental.isMember(FieldType.MDEntryPx.tag())).isTrue();
+        assertThat(incremental.isMember(FieldType.MDReqID.tag())).isFalse();
+    }
+
+    @Test
+    void nestedGroups() {
+        GroupLayout relatedSym = GroupLayout.forMessageType(MessageTypes.MARKET_DATA_REQUEST)
+                .get(FieldType.NoRelatedSym.tag());
+
+        assertThat(relatedSym.getDelimiterTag()).isEqualTo(FieldType.Symbol.tag());
+        GroupLayout securityAltIds = relatedSym.getNestedGroup(FieldType.NoSecurityAltID.tag());
+        assertThat(securityAltIds.getDelimiterTag()).isEqualTo(FieldType.SecurityAltID.tag());
+        assertThat(relatedSym.getNestedGroup(FieldType.Symbol.tag())).isNull();
+    }
+
+    @Test
+    void unknownMessageType() {
+        assertThat(GroupLayout.forMessageType("ZZZ").get(FieldType.NoPartyIDs.tag()).getDelimiterTag())
+                .isEqualTo(FieldType.PartyID.tag());
+        assertThat(GroupLayout.forMessageType(null)).isNotEmpty();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol;
+
+import fixio.fixprotocol.fields.FixedPointNumber;
+import fixio.fixprotocol.fields.FloatField;
+import fixio.fixprotocol.fields.IntField;
+import fixio.fixprotocol.fields.StringField;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PooledFixMessageBuilderTest {
+
+    @Test
+    void storeFieldsAsPrimitives() {
+        PooledFixMessageBuilder builder = PooledFixMessageBuilder.newInstance(MessageTypes.NEW_ORDER_SINGLE);
+        builder.add(FieldType.ClOrdID, "order-1")
+                .add(FieldType.OrderQty, 100)
+                .add(FieldType.Price, new FixedPointNumber(12345, (byte) 2))
+                .addFixedPoint(FieldType.StopPx, 5, 1)
+                .add(FieldType.TransactTime, "20240101-10:00:00.000");
+
+        assertThat(builder.size()).isEqualTo(5);
+        assertThat(builder.kind(0)).isEqualTo(PooledFixMessageBuilder.KIND_STRING);
+        assertThat(builder.kind(1)).isEqualTo(PooledFixMessageBuilder.KIND_INT);
+        assertThat(builder.longValue(1)).isEqualTo(100);
+        assertThat(builder.kind(2)).isEqualTo(PooledFixMessageBuilder.KIND_FIXED_POINT);
+        assertThat(builder.longValue(2)).isEqualTo(12345);
+        assertThat(builder.aux(2)).isEqualTo(2);
+        assertThat(builder.kind(4)).isEqualTo(PooledFixMessageBuilder.KIND_FRAGMENT);
+
+        List<FixMessageFragment> body = builder.getBody();
+        assertThat(body).extracting(FixMessageFragment::getTagNum).containsExactly(11, 38, 44, 99, 60);
+        assertThat(((StringField) body.get(0)).getValue()).isEqualTo("order-1");
+        assertThat(((IntField) body.get(1)).intValue()).isEqualTo(100);
+        assertThat(((FloatField) body.get(3)).getValue()).isEqualTo(new FixedPointNumber(5, (byte) 1));
+        builder.recycle();
+    }
+
+    @Test
+    void sameBodyAsFixMessageBuilderImpl() {
+        FixMessageBuilderImpl expected = new FixMessageBuilderImpl(MessageTypes.MARKET_DATA_INCREMENTAL_REFRESH);
+        PooledFixMessageBuilder builder = PooledFixMessageBuilder.newInstance(MessageTypes.MARKET_DATA_INCREMENTAL_REFRESH);
+        for (FixMessageBuilder b : List.<FixMessageBuilder>of(expected, builder)) {
+            b.add(FieldType.MDReqID, "req")
+                    .add(FieldType.Side, '1')
+                    .add(FieldType.ApplQueueDepth, 3L);
+            b.newGroup(FieldType.NoMDEntries).add(FieldType.MDEntryType, '0').add(FieldType.Symbol, "EUR/USD");
+            b.newGroup(FieldType.NoMDEntries).add(FieldType.MDEntryType, '1');
+        }
+
+        assertThat(builder.getBody()).hasToString(expected.getBody().toString());
+        builder.recycle();
+    }
+
+    @Test
+    void reuseRecycledInstance() {
+        PooledFixMessageBuilder builder = PooledFixMessageBuilder.newInstance(MessageTypes.HEARTBEAT);
+        builder.getHeader().setSenderCompID("SENDER");
+        builder.add(FieldType.TestReqID, "1");
+        builder.recycle();
+
+        PooledFixMessageBuilder next = PooledFixMessageBuilder.newInstance(MessageTypes.TEST_REQUEST);
+
+        assertThat(next).isSameAs(builder);
+        assertThat(next.size()).isZero();
+        assertThat(next.getBody()).isEmpty();
+        assertThat(next.getHeader().getSenderCompID()).isNull();
+        assertThat(next.getHeader().getMessageType()).isEqualTo(MessageTypes.TEST_REQUEST);
+        next.recycle();
+    }
+
+    @Test
+    void copyBody() {
+        PooledFixMessageBuilder builder = PooledFixMessageBuilder.newInstance(MessageTypes.HEARTBEAT);
+        builder.add(FieldType.TestReqID, "1");
+
+        builder.copyBody(List.of(new StringField(FieldType.Text.tag(), "text")));
+
+        assertThat(builder.size()).isEqualTo(1);
+        assertThat(builder.getBody()).extracting(FixMessageFragment::getTagNum).containsExactly(FieldType.Text.tag());
+        builder.recycle();
+    }
+}
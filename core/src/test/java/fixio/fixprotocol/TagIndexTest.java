@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol;
+
+import fixio.fixprotocol.fields.StringField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TagIndexTest {
+
+    private List<FixMessageFragment> body;
+    private TagIndex index;
+
+    @BeforeEach
+    void setUp() {
+        body = new ArrayList<>();
+        index = new TagIndex(body);
+    }
+
+    private void add(int tagNum, String value) {
+        body.add(new StringField(tagNum, value));
+    }
+
+    private static List<Object> values(List<FixMessageFragment> fragments) {
+        final List<Object> values = new ArrayList<>();
+        for (FixMessageFragment fragment : fragments) {
+            values.add(fragment.getValue());
+        }
+        return values;
+    }
+
+    @Test
+    void smallBody() {
+        add(1, "a");
+        add(2, "b");
+        add(1, "c");
+
+        assertThat(index.getFirst(1).getValue()).isEqualTo("a");
+        assertThat(index.getLast(1).getValue()).isEqualTo("c");
+        assertThat(index.getFirst(3)).isNull();
+        assertThat(values(index.getAll(1))).containsExactly("a", "c");
+        assertThat(index.getAll(3)).isEmpty();
+    }
+
+    @Test
+    void largeBody() {
+        for (int i = 0; i < 200; i++) {
+            add(1000 + i % 50, "v" + i);
+        }
+
+        assertThat(index.getFirst(1010).getValue()).isEqualTo("v10");
+        assertThat(index.getLast(1010).getValue()).isEqualTo("v160");
+        assertThat(index.getFirst(999)).isNull();
+        assertThat(values(index.getAll(1010))).containsExactly("v10", "v60", "v110", "v160");
+        assertThat(index.getAll(1010).get(2).getValue()).isEqualTo("v110");
+        assertThat(index.getAll(999)).isEmpty();
+    }
+
+    @Test
+    void indexAppendedFragments() {
+        for (int i = 1; i <= 20; i++) {
+            add(i, "v" + i);
+        }
+        assertThat(index.getLast(5).getValue()).isEqualTo("v5");
+
+        add(5, "w5");
+        add(100, "w100");
+
+        assertThat(index.getLast(5).getValue()).isEqualTo("w5");
+        assertThat(index.getFirst(100).getValue()).isEqualTo("w100");
+        assertThat(values(index.getAll(5))).containsExactly("v5", "w5");
+    }
+
+    @Test
+    void reindexModifiedBody() {
+        for (int i = 1; i <= 20; i++) {
+            add(i, "v" + i);
+        }
+        assertThat(index.getFirst(5).getValue()).isEqualTo("v5");
+
+        body.set(4, new StringField(55, "x"));
+
+        assertThat(index.getFirst(5)).isNull();
+        assertThat(index.getFirst(55).getValue()).isEqualTo("x");
+
+        body.clear();
+        index.invalidate();
+        for (int i = 1; i <= 20; i++) {
+            add(i + 20, "u" + i);
+        }
+        assertThat(index.getFirst(5)).isNull();
+        assertThat(index.getFirst(25).getValue()).isEqualTo("u5");
+    }
+
+    @Test
+    void viewIsUnmodifiable() {
+        for (int i = 0; i < 20; i++) {
+            add(7, "v" + i);
+        }
+        final List<FixMessageFragment> all = index.getAll(7);
+        assertThat(all).hasSize(20);
+        assertThat(all.get(19).getValue()).isEqualTo("v19");
+        assertThat(all.get(3).getValue()).isEqualTo("v3");
+        assertThatThrownBy(() -> all.add(null)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> all.get(20)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void viewIsReused() {
+        for (int i = 0; i < 20; i++) {
+            add(i % 2 == 0 ? 7 : 8, "v" + i);
+        }
+        final List<FixMessageFragment> sevens = index.getAll(7);
+        assertThat(sevens.get(9).getValue()).isEqualTo("v18");
+
+        final List<FixMessageFragment> eights = index.getAll(8);
+        assertThat(eights).isSameAs(sevens);
+        assertThat(values(eights)).hasSize(10).startsWith("v1", "v3");
+        assertThat(index.getAll(9)).isEmpty();
+    }
+}
@@ -3,6 +3,7 @@ package fixio.fixprotocol.fields;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class FixedPointNumberTest {
 
@@ -17,4 +18,23 @@ class FixedPointNumberTest {
         final FixedPointNumber fixedPointNumber = new FixedPointNumber(0, 20);
         assertThat(fixedPointNumber.toString()).isEqualTo("0");
     }
-}
\ No newline at end of file
+
+    @Test
+    void negativeFractionToString() {
+        assertThat(new FixedPointNumber(-5, (byte) 2).toString()).isEqualTo("-0.05");
+        assertThat(new FixedPointNumber(-50, (byte) 2).toString()).isEqualTo("-0.50");
+        assertThat(new FixedPointNumber(-1005, (byte) 3).toString()).isEqualTo("-1.005");
+        assertThat(new FixedPointNumber(Long.MIN_VALUE, (byte) 18).toString()).isEqualTo("-9.223372036854775808");
+        assertThat(new FixedPointNumber(12345, (byte) 10).toString()).isEqualTo("0.0000012345");
+    }
+
+    @Test
+    void scaledValueOfGivenScale() {
+        final FixedPointNumber fixedPointNumber = new FixedPointNumber(-12340, (byte) 4);
+        assertThat(fixedPointNumber.getScaledValue(6)).isEqualTo(-1234000);
+        assertThat(fixedPointNumber.getScaledValue(3)).isEqualTo(-1234);
+        assertThatThrownBy(() -> fixedPointNumber.getScaledValue(2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> new FixedPointNumber(Long.MAX_VALUE / 5).getScaledValue(1))
+                .isInstanceOf(ArithmeticException.class);
+    }
+}
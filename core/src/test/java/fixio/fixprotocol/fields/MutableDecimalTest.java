@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol.fields;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MutableDecimalTest {
+
+    private static MutableDecimal parse(String s) {
+        return new MutableDecimal().parse(Unpooled.wrappedBuffer(s.getBytes(US_ASCII)), 0, s.length());
+    }
+
+    @Test
+    void parseAndWrite() {
+        ByteBuf buf = Unpooled.buffer();
+        for (String s : new String[]{"0", "1", "-1", "123.45", "-0.05", "0.001", "+7.10", "-9223372036854775808",
+                "9223372036854775807"}) {
+            MutableDecimal decimal = parse(s);
+            buf.clear();
+            assertThat(decimal.writeTo(buf)).isEqualTo(buf.readableBytes());
+            assertThat(buf.toString(US_ASCII)).isEqualTo(s.startsWith("+") ? s.substring(1) : s);
+            assertThat(decimal.toString()).isEqualTo(buf.toString(US_ASCII));
+        }
+        MutableDecimal decimal = parse("-12.340");
+        assertThat(decimal.getScaledValue()).isEqualTo(-12340);
+        assertThat(decimal.getScale()).isEqualTo((byte) 3);
+
+        ByteBuf direct = Unpooled.directBuffer();
+        decimal.writeTo(direct);
+        assertThat(direct.toString(US_ASCII)).isEqualTo("-12.340");
+        direct.release();
+    }
+
+    @Test
+    void failOnInvalidValue() {
+        assertThatThrownBy(() -> parse("1.2.3")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("-")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("9223372036854775808")).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void addAndSubtract() {
+        MutableDecimal decimal = new MutableDecimal(1005, 2);
+        decimal.add(5, 3);
+        assertThat(decimal.getScaledValue()).isEqualTo(10055);
+        assertThat(decimal.getScale()).isEqualTo((byte) 3);
+
+        decimal.subtract(new MutableDecimal(11, 0));
+        assertThat(decimal.toString()).isEqualTo("-0.945");
+
+        decimal.negate().add(55, 3);
+        assertThat(decimal.toString()).isEqualTo("1.000");
+        assertThatThrownBy(() -> new MutableDecimal(Long.MAX_VALUE, 0).add(1, 0)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void compareRegardlessOfScale() {
+        assertThat(new MutableDecimal(10, 1).compareTo(new MutableDecimal(100, 2))).isZero();
+        assertThat(new MutableDecimal(-5, 2).compareTo(new MutableDecimal(0, 0))).isNegative();
+        assertThat(new MutableDecimal(1, 0).compareTo(Long.MAX_VALUE, 18)).isNegative();
+        assertThat(new MutableDecimal(10, 0).compareTo(Long.MAX_VALUE, 18)).isPositive();
+        assertThat(new MutableDecimal(-10, 0).compareTo(Long.MIN_VALUE, 18)).isNegative();
+        assertThat(new MutableDecimal(Long.MAX_VALUE, 0).compareTo(1, 30)).isPositive();
+    }
+
+    @Test
+    void rescale() {
+        MutableDecimal decimal = new MutableDecimal(1230, 3).rescale(2);
+        assertThat(decimal.getScaledValue()).isEqualTo(123);
+        assertThat(decimal.getScaledValue(4)).isEqualTo(12300);
+        assertThat(decimal.longValue()).isEqualTo(1);
+        assertThat(decimal.doubleValue()).isEqualTo(1.23);
+        assertThat(decimal.toFixedPointNumber()).isEqualTo(new FixedPointNumber(123, (byte) 2));
+        assertThatThrownBy(() -> decimal.rescale(1)).isInstanceOf(ArithmeticException.class);
+    }
+}
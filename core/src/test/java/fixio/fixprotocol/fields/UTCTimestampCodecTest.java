@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol.fields;
+
+import fixio.fixprotocol.FixConst;
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.text.ParseException;
+import java.time.ZonedDateTime;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UTCTimestampCodecTest {
+
+    private static final Random RANDOM = new Random();
+
+    private static DateTimeFormatterWrapper formatter(TimeStampPrecision precision) {
+        return switch (precision) {
+            case SECONDS -> FixConst.DATE_TIME_FORMATTER_SECONDS;
+            case MILLIS -> FixConst.DATE_TIME_FORMATTER_MILLIS;
+            case MICROS -> FixConst.DATE_TIME_FORMATTER_MICROS;
+            case NANOS -> FixConst.DATE_TIME_FORMATTER_NANOS;
+            case PICOS -> FixConst.DATE_TIME_FORMATTER_PICOS;
+        };
+    }
+
+    private static long randomEpochNanos() {
+        // 1900-01-01 .. 2200-01-01
+        return -2208988800_000_000_000L + (long) (RANDOM.nextDouble() * 300 * 365.25 * 86400 * 1_000_000_000L);
+    }
+
+    @ParameterizedTest
+    @EnumSource(TimeStampPrecision.class)
+    void formatLikeDateTimeFormatter(TimeStampPrecision precision) {
+        for (int i = 0; i < 1000; i++) {
+            final long epochNanos = randomEpochNanos();
+            final ZonedDateTime dateTime = UTCTimestampCodec.toZonedDateTime(epochNanos);
+            final String expected = formatter(precision).format(dateTime);
+
+            assertThat(new String(UTCTimestampCodec.format(epochNanos, precision), US_ASCII)).isEqualTo(expected);
+            assertThat(UTCTimestampCodec.length(precision)).isEqualTo(expected.length());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(TimeStampPrecision.class)
+    void parseFormatted(TimeStampPrecision precision) throws ParseException {
+        for (int i = 0; i < 1000; i++) {
+            final long epochNanos = randomEpochNanos();
+            final byte[] bytes = UTCTimestampCodec.format(epochNanos, precision);
+
+            final long parsed = UTCTimestampCodec.parseEpochNanos(bytes, 0, bytes.length);
+
+            assertThat(UTCTimestampCodec.format(parsed, precision)).isEqualTo(bytes);
+            assertThat(UTCTimestampField.parse(bytes)).isEqualTo(formatter(precision).parseZonedDateTime(new String(bytes, US_ASCII)));
+            assertThat(UTCTimestampCodec.precisionOf(bytes.length)).isEqualTo(precision);
+        }
+    }
+
+    @Test
+    void parseLeapDay() throws ParseException {
+        final byte[] bytes = "20240229-23:59:59.999".getBytes(US_ASCII);
+        assertThat(UTCTimestampCodec.toZonedDateTime(UTCTimestampCodec.parseEpochNanos(bytes, 0, bytes.length)))
+                .isEqualTo(ZonedDateTime.of(2024, 2, 29, 23, 59, 59, 999_000_000, FixConst.DEFAULT_ZONE_ID));
+    }
+
+    @Test
+    void parseBeforeEpoch() throws ParseException {
+        final byte[] bytes = "19691231-23:59:59.5".getBytes(US_ASCII);
+        assertThat(UTCTimestampCodec.parseEpochNanos(bytes, 0, bytes.length)).isEqualTo(-500_000_000L);
+        assertThat(new String(UTCTimestampCodec.format(-500_000_000L, TimeStampPrecision.MILLIS), US_ASCII))
+                .isEqualTo("19691231-23:59:59.500");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "2024022-23:59:59", "20240230-10:00:00", "20241301-10:00:00", "20240101 10:00:00",
+            "20240101-24:00:00", "20240101-10:00:00.", "20240101-10:00:00.12a", "20240101-10:00:00.1234567891x"})
+    void rejectMalformed(String timestamp) {
+        final byte[] bytes = timestamp.getBytes(US_ASCII);
+        assertThatThrownBy(() -> UTCTimestampCodec.parseEpochNanos(bytes, 0, bytes.length))
+                .isInstanceOf(ParseException.class);
+    }
+
+    @Test
+    void writeAndParseDirectBuffer() throws ParseException {
+        final ByteBuf buf = Unpooled.directBuffer(64);
+        try {
+            buf.writeByte('x');
+            final long epochNanos = randomEpochNanos();
+
+            assertThat(UTCTimestampCodec.write(buf, epochNanos, TimeStampPrecision.NANOS)).isEqualTo(27);
+
+            assertThat(UTCTimestampCodec.parseEpochNanos(buf, 1, 27)).isEqualTo(epochNanos);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    void parseTimestampLongerThanPicosFromDirectBuffer() throws ParseException {
+        final String valid = "20240101-10:00:00.1234567890123456789";
+        final String malformed = "20240101-10:00:00.123456789012345678x";
+        final ByteBuf direct = Unpooled.directBuffer(64).writeBytes(valid.getBytes(US_ASCII));
+        final ByteBuf heap = Unpooled.wrappedBuffer(valid.getBytes(US_ASCII));
+        try {
+            assertThat(UTCTimestampCodec.parseEpochNanos(direct, 0, direct.readableBytes()))
+                    .isEqualTo(UTCTimestampCodec.parseEpochNanos(heap, 0, heap.readableBytes()));
+
+            direct.clear().writeBytes(malformed.getBytes(US_ASCII));
+            assertThatThrownBy(() -> UTCTimestampCodec.parseEpochNanos(direct, 0, direct.readableBytes()))
+                    .isInstanceOf(ParseException.class);
+        } finally {
+            direct.release();
+        }
+    }
+
+    @Test
+    void writeAndParseHeapBuffer() throws ParseException {
+        final ByteBuf buf = Unpooled.buffer(64);
+        final long epochNanos = randomEpochNanos();
+
+        UTCTimestampCodec.write(buf, epochNanos, TimeStampPrecision.MICROS);
+
+        assertThat(UTCTimestampCodec.parseEpochNanos(buf, 0, buf.readableBytes())).isEqualTo(Math.floorDiv(epochNanos, 1000) * 1000);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.fixprotocol.session;
+
+import fixio.fixprotocol.FixMessageHeader;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionRegistryTest {
+
+    private final SessionRegistry registry = new SessionRegistry();
+
+    private static FixSession session(String senderCompID, String targetCompID, String senderSubID) {
+        return FixSession.newBuilder()
+                .senderCompID(senderCompID)
+                .targetCompID(targetCompID)
+                .senderSubID(senderSubID)
+                .build();
+    }
+
+    private FixSession find(String senderCompID, String targetCompID, String senderSubID) {
+        FixMessageHeader header = new FixMessageHeader();
+        header.setSenderCompID(senderCompID);
+        header.setTargetCompID(targetCompID);
+        header.setSenderSubID(senderSubID);
+        return registry.get(header);
+    }
+
+    private FixSession find(String message) {
+        ByteBuf buf = Unpooled.copiedBuffer(message, StandardCharsets.US_ASCII);
+        int sender = indexOf(buf, "49=", 0) + 3;
+        int target = indexOf(buf, "56=", 0) + 3;
+        return registry.find(buf, sender, indexOf(buf, "|", sender) - sender,
+                target, indexOf(buf, "|", target) - target);
+    }
+
+    private static int indexOf(ByteBuf buf, String s, int from) {
+        return ByteBufUtil.indexOf(Unpooled.copiedBuffer(s, StandardCharsets.US_ASCII),
+                buf.slice(from, buf.readableBytes() - from)) + from;
+    }
+
+    @Test
+    void putGetAndRemove() {
+        FixSession session = session("CLIENT", "SERVER", null);
+
+        assertThat(registry.putIfAbsent(session)).isNull();
+        assertThat(registry.putIfAbsent(session("CLIENT", "SERVER", null))).isSameAs(session);
+        assertThat(registry.get(new SessionId("CLIENT", "SERVER", null, null, null, null))).isSameAs(session);
+        assertThat(registry.size()).isEqualTo(1);
+
+        assertThat(registry.remove(session.getId())).isSameAs(session);
+        assertThat(registry.get(session.getId())).isNull();
+        assertThat(find("CLIENT", "SERVER", null)).isNull();
+        assertThat(find("35=0|49=CLIENT|56=SERVER|")).isNull();
+    }
+
+    @Test
+    void findByCompIdBytes() {
+        FixSession client1 = session("CLIENT1", "SERVER", null);
+        FixSession client2 = session("CLIENT2", "SERVER", null);
+        registry.putIfAbsent(client1);
+        registry.putIfAbsent(client2);
+
+        assertThat(find("35=0|49=CLIENT1|56=SERVER|")).isSameAs(client1);
+        assertThat(find("35=0|49=CLIENT2|56=SERVER|")).isSameAs(client2);
+        assertThat(find("35=0|49=CLIENT3|56=SERVER|")).isNull();
+        assertThat(find("35=0|49=SERVER|56=CLIENT1|")).isNull();
+    }
+
+    @Test
+    void sessionsDifferingBySubIdAreNotFoundByCompIds() {
+        registry.putIfAbsent(session("CLIENT", "SERVER", "desk1"));
+        registry.putIfAbsent(session("CLIENT", "SERVER", "desk2"));
+
+        assertThat(find("49=CLIENT|56=SERVER|")).isNull();
+
+        registry.remove(new SessionId("CLIENT", "SERVER", "desk2", null, null, null));
+
+        assertThat(find("49=CLIENT|56=SERVER|").getSenderSubID()).isEqualTo("desk1");
+    }
+
+    @Test
+    void findByHeader() {
+        FixSession client1 = session("CLIENT1", "SERVER", null);
+        FixSession client2 = session("CLIENT2", "SERVER", null);
+        registry.putIfAbsent(client1);
+        registry.putIfAbsent(client2);
+
+        assertThat(find("CLIENT1", "SERVER", null)).isSameAs(client1);
+        assertThat(find("CLIENT2", "SERVER", null)).isSameAs(client2);
+        assertThat(find("CLIENT3", "SERVER", null)).isNull();
+        assertThat(find("SERVER", "CLIENT1", null)).isNull();
+        assertThat(find(null, "SERVER", null)).isNull();
+    }
+
+    @Test
+    void findManySessions() {
+        for (int i = 0; i < 1000; i++) {
+            registry.putIfAbsent(session("CLIENT" + i, "SERVER", null));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(find("CLIENT" + i, "SERVER", null).getSenderCompID()).isEqualTo("CLIENT" + i);
+            assertThat(find("49=CLIENT" + i + "|56=SERVER|").getSenderCompID()).isEqualTo("CLIENT" + i);
+        }
+    }
+
+    @Test
+    void findSessionsDifferingBySubId() {
+        FixSession desk1 = session("CLIENT", "SERVER", "desk1");
+        FixSession desk2 = session("CLIENT", "SERVER", "desk2");
+        registry.putIfAbsent(desk1);
+        registry.putIfAbsent(desk2);
+
+        assertThat(find("CLIENT", "SERVER", "desk1")).isSameAs(desk1);
+        assertThat(find("CLIENT", "SERVER", "desk2")).isSameAs(desk2);
+        assertThat(find("CLIENT", "SERVER", null)).isNull();
+
+        registry.remove(desk2.getId());
+
+        assertThat(find("CLIENT", "SERVER", "desk2")).isNull();
+    }
+
+    @Test
+    void hashOfHeaderIsHashOfSessionId() {
+        FixMessageHeader header = new FixMessageHeader();
+        header.setSenderCompID("CLIENT");
+        header.setTargetCompID("SERVER");
+        header.setTargetLocationID("NY");
+
+        assertThat(SessionId.hash(header)).isEqualTo(SessionId.of(header).hashCode());
+        assertThat(SessionId.of(header).matches(header)).isTrue();
+    }
+
+    @Test
+    void internSessionId() {
+        SessionId id = new SessionId("CLIENT", "SERVER", "desk", null, null, "NY");
+        SessionId canonical = id.intern();
+
+        assertThat(new SessionId("CLIENT", "SERVER", "desk", null, null, "NY").intern()).isSameAs(canonical);
+        assertThat(canonical.toString()).isEqualTo("CLIENT/desk->SERVER@NY");
+    }
+}
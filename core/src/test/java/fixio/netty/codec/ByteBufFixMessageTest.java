@@ -0,0 +1,241 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.codec;
+
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessage;
+import fixio.fixprotocol.MessageTypes;
+import fixio.fixprotocol.fields.FixedPointNumber;
+import fixio.fixprotocol.session.FixSession;
+import fixio.fixprotocol.session.SessionRegistry;
+import fixio.handlers.FixApplicationAdapter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import io.netty.util.IllegalReferenceCountException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ByteBufFixMessageTest {
+
+    private static final String EXECUTION_REPORT = "8=FIX.4.2|9=178|35=8|49=PHLX|56=PERS|52=20071123-05:30:00.000|"
+            + "11=ATOMNOCCC9990900|20=3|150=E|39=E|55=MSFT|167=CS|54=1|38=15|40=2|44=15|58=PHLX EQUITY TESTING|"
+            + "59=0|47=C|32=0|31=0|151=15|14=0|6=0|10=128|";
+
+    private EmbeddedChannel channel;
+    private ByteBufFixMessage message;
+
+    private static ByteBuf buffer(String message) {
+        return Unpooled.wrappedBuffer(message.replace('|', '\u0001').getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel(new FixMessageFrameDecoder(1024, true));
+        channel.writeInbound(buffer(EXECUTION_REPORT));
+        message = channel.readInbound();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (message.refCnt() > 0) {
+            message.release();
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void header() {
+        assertThat(message.getHeader().getBeginString()).isEqualTo("FIX.4.2");
+        assertThat(message.getMessageType()).isEqualTo("8");
+        assertThat(message.getHeader().getSenderCompID()).isEqualTo("PHLX");
+        assertThat(message.getHeader().getTargetCompID()).isEqualTo("PERS");
+        assertThat(message.getChecksum()).isEqualTo(128);
+        assertThat(message.content().readableBytes()).isEqualTo(EXECUTION_REPORT.length());
+    }
+
+    @Test
+    void knownHeaderValuesAreNotAllocated() {
+        assertThat(message.getHeader().getBeginString()).isSameAs(FixMessage.FIX_4_2);
+        assertThat(message.getMessageType()).isSameAs(MessageTypes.EXECUTION_REPORT);
+
+        final EmbeddedChannel customChannel = new EmbeddedChannel(new FixMessageFrameDecoder(1024, true));
+        customChannel.writeInbound(buffer("8=FIX.4.2|9=20|35=U1|49=SRV|56=CLI|10=075|"));
+        final ByteBufFixMessage custom = customChannel.readInbound();
+        try {
+            assertThat(custom.getMessageType()).isEqualTo("U1");
+        } finally {
+            custom.release();
+        }
+    }
+
+    @Test
+    void compIDsAreDecodedWhenRequested() {
+        final ByteBufFixMessageHeader header = message.getHeader();
+        assertThat(header.content().toString(header.getSenderCompIDIndex(), header.getSenderCompIDLength(),
+                StandardCharsets.US_ASCII)).isEqualTo("PHLX");
+        assertThat(header.content().toString(header.getTargetCompIDIndex(), header.getTargetCompIDLength(),
+                StandardCharsets.US_ASCII)).isEqualTo("PERS");
+
+        final String senderCompID = header.getSenderCompID();
+        assertThat(header.getSenderCompID()).isSameAs(senderCompID);
+
+        header.setTargetCompID("OTHER");
+        assertThat(header.getTargetCompID()).isEqualTo("OTHER");
+        assertThat(header.getTargetCompIDLength()).isZero();
+    }
+
+    @Test
+    void compIDsReadBeforeReleaseStayAvailable() {
+        assertThat(message.getHeader().getSenderCompID()).isEqualTo("PHLX");
+        message.release();
+        assertThat(message.getHeader().getSenderCompID()).isEqualTo("PHLX");
+        assertThat(message.toString()).contains("senderCompID='PHLX'");
+    }
+
+    @Test
+    void findSessionWithoutDecodingCompIDs() {
+        final SessionRegistry registry = new SessionRegistry();
+        final FixSession phlx = FixSession.newBuilder().senderCompID("PHLX").targetCompID("PERS").build();
+        registry.putIfAbsent(phlx);
+
+        final FixSession session = message.getHeader().findSession(registry);
+        message.release();
+
+        assertThat(session).isSameAs(phlx);
+        // CompIDs were not decoded, so they are not available after release
+        assertThatThrownBy(() -> message.getHeader().getSenderCompID()).isInstanceOf(IllegalReferenceCountException.class);
+    }
+
+    @Test
+    void findSessionComparesSubIDs() {
+        final SessionRegistry registry = new SessionRegistry();
+        registry.putIfAbsent(FixSession.newBuilder().senderCompID("PHLX").targetCompID("PERS")
+                .targetSubID("desk").build());
+
+        assertThat(message.getHeader().findSession(registry)).isNull();
+    }
+
+    @Test
+    void lazyFieldAccess() {
+        assertThat(message.getString(FieldType.ClOrdID)).isEqualTo("ATOMNOCCC9990900");
+        assertThat(message.getString(FieldType.Text)).isEqualTo("PHLX EQUITY TESTING");
+        assertThat(message.getInt(FieldType.BodyLength)).isEqualTo(178);
+        assertThat(message.getInt(FieldType.ClOrdID)).isNull();
+        assertThat(message.getChar(FieldType.Side)).isEqualTo('1');
+        assertThat(message.<FixedPointNumber>getValue(FieldType.Price)).isEqualTo(new FixedPointNumber("15"));
+        assertThat(message.getString(FieldType.Account)).isNull();
+        assertThat(message.getFirst(FieldType.Symbol.tag()).getValue()).isEqualTo("MSFT");
+        assertThatThrownBy(() -> message.getChar(FieldType.Symbol)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void primitiveAccessors() {
+        assertThat(message.getIntOrDefault(FieldType.BodyLength, -1)).isEqualTo(178);
+        assertThat(message.getIntOrDefault(FieldType.ClOrdID, -1)).isEqualTo(-1);
+        assertThat(message.getLong(FieldType.OrderQty, -1)).isEqualTo(15);
+        assertThat(message.getLong(FieldType.Account, -1)).isEqualTo(-1);
+        assertThat(message.getChar(FieldType.Side, ' ')).isEqualTo('1');
+        assertThat(message.getChar(FieldType.Account, ' ')).isEqualTo(' ');
+        assertThat(message.getScaledPrice(FieldType.Price, 4, 0)).isEqualTo(150000);
+        assertThat(message.getScaledPrice(FieldType.Symbol, 4, -1)).isEqualTo(-1);
+        assertThatThrownBy(() -> message.getChar(FieldType.Symbol, ' ')).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void parseScaled() {
+        assertThat(ByteBufFixMessage.parseScaled(buffer("-1.25"), 0, 5, 3)).isEqualTo(-1250);
+        assertThat(ByteBufFixMessage.parseScaled(buffer("0.50"), 0, 4, 1)).isEqualTo(5);
+        assertThat(ByteBufFixMessage.parseScaled(buffer("42"), 0, 2, 0)).isEqualTo(42);
+        assertThatThrownBy(() -> ByteBufFixMessage.parseScaled(buffer("1.25"), 0, 4, 1))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> ByteBufFixMessage.parseScaled(buffer("1.2.5"), 0, 5, 2))
+                .isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void body() {
+        assertThat(message.getFieldCount()).isEqualTo(20);
+        assertThat(message.getBody()).hasSize(20);
+        assertThat(message.getBody().get(1).getTagNum()).isEqualTo(FieldType.SendingTime.tag());
+    }
+
+    @Test
+    void bodyWithRepeatingGroups() {
+        final EmbeddedChannel mdChannel = new EmbeddedChannel(new FixMessageFrameDecoder(1024, true));
+        mdChannel.writeInbound(buffer("8=FIX.4.4|9=87|35=X|49=SRV|56=CLI|34=5|52=20240101-10:00:00.000|"
+                + "268=2|279=0|269=0|270=1.1|279=2|269=1|10=109|"));
+        final ByteBufFixMessage md = mdChannel.readInbound();
+        try {
+            assertThat(md.getFieldCount()).isEqualTo(8);
+            assertThat(md.getBody()).hasSize(3);
+            assertThat(md.getGroups(FieldType.NoMDEntries.tag())).hasSize(2);
+            assertThat(md.getString(FieldType.MDEntryType)).isEqualTo("0");
+            assertThat(md.getLast(FieldType.MDUpdateAction.tag()).getValue()).isEqualTo('2');
+        } finally {
+            md.release();
+        }
+    }
+
+    @Test
+    void headerIsAvailableAfterRelease() {
+        assertThat(message.release()).isTrue();
+        assertThat(message.getMessageType()).isEqualTo("8");
+        assertThat(message.toString()).contains("(released)");
+    }
+
+    @Test
+    void releasedByApplicationAdapter() {
+        final List<FixMessage> messages = new ArrayList<>();
+        final List<String> symbols = new ArrayList<>();
+        final EmbeddedChannel appChannel = new EmbeddedChannel(new FixMessageFrameDecoder(1024, true),
+                new FixApplicationAdapter() {
+                    @Override
+                    public void onMessage(ChannelHandlerContext ctx, FixMessage msg, List<Object> out) {
+                        messages.add(msg);
+                        symbols.add(msg.getString(FieldType.Symbol));
+                    }
+                });
+        final ByteBuf in = buffer(EXECUTION_REPORT);
+
+        appChannel.writeInbound(in);
+
+        assertThat(symbols).containsExactly("MSFT");
+        assertThat(((ByteBufFixMessage) messages.get(0)).refCnt()).isZero();
+        assertThat(in.refCnt()).isZero();
+        assertThat(appChannel.finish()).isFalse();
+    }
+
+    @Test
+    void releaseBufferOnChecksumMismatch() {
+        final ByteBuf in = buffer(EXECUTION_REPORT.replace("10=128", "10=127"));
+
+        assertThatThrownBy(() -> channel.writeInbound(in))
+                .isInstanceOf(DecoderException.class)
+                .hasMessageContaining("Checksum mismatch");
+        assertThat(in.refCnt()).isZero();
+    }
+}
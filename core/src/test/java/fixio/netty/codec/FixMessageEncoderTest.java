@@ -15,32 +15,55 @@
  */
 package fixio.netty.codec;
 
+import fixio.events.MessageStoreFailureEvent;
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
 import fixio.fixprotocol.FixMessage;
 import fixio.fixprotocol.FixMessageBuilder;
 import fixio.fixprotocol.FixMessageBuilderImpl;
 import fixio.fixprotocol.FixMessageHeader;
 import fixio.fixprotocol.Group;
 import fixio.fixprotocol.MessageTypes;
+import fixio.fixprotocol.PooledFixMessageBuilder;
 import fixio.fixprotocol.fields.FieldFactory;
+import fixio.fixprotocol.fields.FixedPointNumber;
+import fixio.fixprotocol.session.FixSession;
+import fixio.netty.pipeline.AbstractSessionHandler;
+import fixio.store.MessageStore;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -122,13 +145,25 @@ class FixMessageEncoderTest {
 
         encoder.encode(ctx, messageBuilder, out);
 
-        verify(ctx).flush();
+        verify(ctx, never()).flush();
 
         String expectedString = "8=FIX.4.2\u00019=89\u000135=0\u000149=SenderCompID\u000156=TargetCompID\u000134=2\u000152=19700102-10:17:36.789\u00011001=test2\u00011000=test1\u000110=204\u0001";
 
         assertResult(expectedString);
     }
 
+    @Test
+    void encodeSendingTimeNanos() {
+        messageBuilder.getHeader().setSendingTimeNanos(123_456_789_000_000L);
+
+        encoder.encode(ctx, messageBuilder, out);
+
+        assertThat(messageBuilder.getHeader().getSendingTime()).isEqualTo(timestamp);
+        String expectedString = "8=FIX.4.2\u00019=89\u000135=0\u000149=SenderCompID\u000156=TargetCompID\u000134=2\u000152=19700102-10:17:36.789\u00011001=test2\u00011000=test1\u000110=204\u0001";
+
+        assertResult(expectedString);
+    }
+
     @Test
     void encodeWithCustomHeader() {
         messageBuilder.getHeader().setCustomFields(Arrays.asList(
@@ -138,7 +173,7 @@ class FixMessageEncoderTest {
 
         encoder.encode(ctx, messageBuilder, out);
 
-        verify(ctx).flush();
+        verify(ctx, never()).flush();
 
         String expectedString = "8=FIX.4.2\u00019=105\u000135=0\u000149=SenderCompID\u000156=TargetCompID\u000134=2\u000152=19700102-10:17:36.789\u00011128=9\u00011129=1.0\u00011001=test2\u00011000=test1\u000110=206\u0001";
 
@@ -158,15 +193,252 @@ class FixMessageEncoderTest {
 
         encoder.encode(ctx, messageBuilder, out);
 
-        verify(ctx).flush();
+        verify(ctx, never()).flush();
 
         String expectedString = "8=FIX.4.2\u00019=136\u000135=0\u000149=SenderCompID\u000156=TargetCompID\u000134=2\u000152=19700102-10:17:36.789\u00011001=test2\u00011000=test1\u00011002=2\u00011003=g1-1\u00011004=g1-2\u00011003=g2-1\u00011004=g2-2\u000110=014\u0001";
 
         assertResult(expectedString);
     }
 
+    @Test
+    void encodeAfterPreviousMessage() {
+        out.writeBytes("previous".getBytes(US_ASCII));
+        out.readerIndex(2);
+
+        encoder.encode(ctx, messageBuilder, out);
+
+        String expectedString = "evious8=FIX.4.2\u00019=89\u000135=0\u000149=SenderCompID\u000156=TargetCompID\u000134=2\u000152=19700102-10:17:36.789\u00011001=test2\u00011000=test1\u000110=204\u0001";
+
+        assertResult(expectedString);
+    }
+
+    @Test
+    void encodeNumericFields() {
+        messageBuilder.add(FieldType.OrderQty, 1500);
+        messageBuilder.add(FieldType.Price, new FixedPointNumber(-5, (byte) 3));
+        messageBuilder.add(FieldType.Side, 1);
+        messageBuilder.add(10001, -42);
+
+        encoder.encode(ctx, messageBuilder, out);
+
+        String message = out.toString(US_ASCII);
+        assertThat(message).contains("\u000138=1500\u000144=-0.005\u000154=1\u000110001=-42\u000110=");
+        assertThat(message).startsWith("8=FIX.4.2\u00019=" + (message.indexOf("\u000110=") + 1 - message.indexOf("35=")) + "\u0001");
+
+        out.writerIndex(out.writerIndex() - 7);
+        assertThat(message).endsWith(String.format("10=%03d\u0001", FixMessageEncoder.calculateChecksum(out, out.readerIndex())));
+    }
+
+    @Test
+    void encodePooledBuilder() {
+        PooledFixMessageBuilder pooled = PooledFixMessageBuilder.newInstance(MessageTypes.HEARTBEAT);
+        for (FixMessageBuilder builder : Arrays.asList(messageBuilder, pooled)) {
+            builder.copyHeader(messageBuilder.getHeader());
+            builder.getHeader().setSendingTime(timestamp);
+            if (builder == pooled) {
+                builder.add(1001, "test2");
+                builder.add(1000, "test1");
+            }
+            builder.add(FieldType.OrderQty, 1500);
+            builder.add(FieldType.Price, new FixedPointNumber(-5, (byte) 3));
+            builder.add(FieldType.Side, '1');
+            builder.add(10001, -42L);
+            builder.add(FieldType.TransactTime, "20240101-10:00:00.000");
+            Group group = builder.newGroup(1002);
+            group.add(1003, "g1-1");
+            builder.newGroup(1002).add(1003, "g2-1");
+        }
+        pooled.addFixedPoint(FieldType.StopPx, 12345, 2);
+        messageBuilder.add(FieldType.StopPx, new FixedPointNumber(12345, (byte) 2));
+
+        encoder.encode(ctx, messageBuilder, out);
+        ByteBuf pooledOut = Unpooled.buffer();
+        encoder.encode(ctx, pooled, pooledOut);
+
+        assertThat(pooledOut.toString(US_ASCII)).isEqualTo(out.toString(US_ASCII));
+        // recycled after encoding
+        PooledFixMessageBuilder next = PooledFixMessageBuilder.newInstance(MessageTypes.LOGON);
+        assertThat(next).isSameAs(pooled);
+        assertThat(next.size()).isZero();
+        assertThat(next.getHeader().getSenderCompID()).isNull();
+        next.recycle();
+    }
+
+    @Test
+    void writeLong() {
+        ByteBuf buf = Unpooled.buffer();
+        for (long value : new long[]{0, 7, -7, 10, 1234567890L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            buf.clear();
+            int sum = FixMessageEncoder.writeLong(buf, value);
+            assertThat(buf.toString(US_ASCII)).isEqualTo(Long.toString(value));
+            assertThat(sum).isEqualTo(sum(Long.toString(value)));
+        }
+    }
+
+    @Test
+    void writeFixedPoint() {
+        assertFixedPoint(0, 2, "0");
+        assertFixedPoint(15, 0, "15");
+        assertFixedPoint(150, 2, "1.50");
+        assertFixedPoint(5, 3, "0.005");
+        assertFixedPoint(-5, 3, "-0.005");
+        assertFixedPoint(-123456, 2, "-1234.56");
+    }
+
+    @Test
+    void encodePossDup() {
+        messageBuilder.getHeader().setPossDupFlag(true);
+        messageBuilder.getHeader().setOrigSendingTimeNanos(123_000_000_000L);
+        FixMessageBuilderImpl gapFill = new FixMessageBuilderImpl(MessageTypes.SEQUENCE_RESET);
+
+        encoder.encode(ctx, messageBuilder, out);
+
+        assertResult(withTrailer("8=FIX.4.2|9=120|35=0|49=SenderCompID|56=TargetCompID|34=2|43=Y|52=19700102-10:17:36.789|"
+                + "122=19700101-00:02:03.000|1001=test2|1000=test1|"));
+
+        gapFill.getHeader().setBeginString(FixMessage.FIX_4_2);
+        gapFill.getHeader().setSenderCompID("S");
+        gapFill.getHeader().setTargetCompID("T");
+        gapFill.getHeader().setMsgSeqNum(3);
+        gapFill.getHeader().setPossDupFlag(true);
+        gapFill.getHeader().setSendingTime(timestamp);
+        gapFill.add(FieldType.GapFillFlag, "Y");
+        gapFill.add(FieldType.NewSeqNo, 10);
+        out.clear();
+
+        encoder.encode(ctx, gapFill, out);
+
+        assertResult(withTrailer("8=FIX.4.2|9=88|35=4|49=S|56=T|34=3|43=Y|52=19700102-10:17:36.789|"
+                + "122=19700102-10:17:36.789|123=Y|36=10|"));
+    }
+
+    @Test
+    void encodeResend() {
+        ByteBuf stored = Unpooled.copiedBuffer(("8=FIX.4.4|9=000|35=D|49=S|56=T|34=2|43=N|52=20240101-10:00:00.000|"
+                + "122=20231231-10:00:00.000|58=text|10=000|").replace('|', '\u0001'), US_ASCII);
+
+        FixMessageEncoder.encodeResend(stored, 123_456_789_000_000L, TimeStampPrecision.MICROS, out);
+
+        assertResult(withTrailer("8=FIX.4.4|9=87|35=D|49=S|56=T|34=2|52=19700102-10:17:36.789000|43=Y|"
+                + "122=20240101-10:00:00.000|58=text|"));
+        assertThat(stored.readerIndex()).isZero();
+    }
+
+    @Test
+    void encodeResendMalformed() {
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                FixMessageEncoder.encodeResend(Unpooled.copiedBuffer("35=D\u000110=000\u0001", US_ASCII),
+                        0, TimeStampPrecision.MILLIS, out));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() ->
+                FixMessageEncoder.encodeResend(Unpooled.copiedBuffer("8=FIX.4.4\u00019=5\u000135=D\u0001", US_ASCII),
+                        0, TimeStampPrecision.MILLIS, out));
+    }
+
+    /**
+     * Replaces '|' with SOH, checks BodyLength and appends CheckSum.
+     */
+    private static String withTrailer(String message) {
+        String fix = message.replace('|', '\u0001');
+        int bodyStart = fix.indexOf("35=");
+        assertThat(fix).contains("\u00019=" + (fix.length() - bodyStart) + "\u0001");
+        return fix + String.format("10=%03d\u0001", sum(fix) % 256);
+    }
+
+    @Test
+    void storeEncodedMessage() {
+        Map<Integer, String> stored = new HashMap<>();
+        MessageStore store = mock(MessageStore.class);
+        doAnswer(invocation -> {
+            ByteBuf message = invocation.getArgument(2);
+            stored.put(invocation.getArgument(1), message.toString(invocation.getArgument(3), invocation.getArgument(4), US_ASCII));
+            return null;
+        }).when(store).append(any(), anyInt(), any(), anyInt(), anyInt());
+        FixSession session = FixSession.newBuilder().senderCompID("SenderCompID").targetCompID("TargetCompID").build();
+        EmbeddedChannel channel = new EmbeddedChannel(new FixMessageEncoder(store));
+
+        channel.writeOutbound(messageBuilder);
+        ByteBuf first = channel.readOutbound();
+        assertThat(stored).isEmpty();
+
+        messageBuilder.getHeader().setPossDupFlag(true);
+        channel.attr(AbstractSessionHandler.FIX_SESSION_KEY).set(session);
+        channel.writeOutbound(messageBuilder);
+        ((ByteBuf) channel.readOutbound()).release();
+        assertThat(stored).isEmpty();
+        messageBuilder.getHeader().setPossDupFlag(false);
+
+        channel.attr(AbstractSessionHandler.FIX_SESSION_KEY).set(session);
+        channel.writeOutbound(messageBuilder);
+
+        ByteBuf second = channel.readOutbound();
+        assertThat(stored).containsOnlyKeys(2);
+        assertThat(stored.get(2)).isEqualTo(second.toString(US_ASCII)).isEqualTo(first.toString(US_ASCII));
+        verify(store).append(eq(session.getId()), eq(2), any(), anyInt(), anyInt());
+        first.release();
+        second.release();
+    }
+
+    @Test
+    void resetStoreWhenSequenceStartsAgain() {
+        MessageStore store = mock(MessageStore.class);
+        FixSession session = FixSession.newBuilder().senderCompID("SenderCompID").targetCompID("TargetCompID").build();
+        EmbeddedChannel channel = new EmbeddedChannel(new FixMessageEncoder(store));
+        channel.attr(AbstractSessionHandler.FIX_SESSION_KEY).set(session);
+
+        channel.writeOutbound(messageBuilder);
+        ((ByteBuf) channel.readOutbound()).release();
+        verify(store, never()).reset(any());
+
+        messageBuilder.getHeader().setMsgSeqNum(1);
+        channel.writeOutbound(messageBuilder);
+        ((ByteBuf) channel.readOutbound()).release();
+
+        InOrder inOrder = inOrder(store);
+        inOrder.verify(store).reset(session.getId());
+        inOrder.verify(store).append(eq(session.getId()), eq(1), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void sendMessageWhenStoreFails() {
+        MessageStore store = mock(MessageStore.class);
+        IllegalStateException failure = new IllegalStateException("Message store is closed");
+        doThrow(failure).when(store).append(any(), anyInt(), any(), anyInt(), anyInt());
+        FixSession session = FixSession.newBuilder().senderCompID("SenderCompID").targetCompID("TargetCompID").build();
+        FixMessageEncoder storingEncoder = new FixMessageEncoder(store);
+        List<Object> events = new ArrayList<>();
+        EmbeddedChannel channel = new EmbeddedChannel(storingEncoder, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                events.add(evt);
+            }
+        });
+        channel.attr(AbstractSessionHandler.FIX_SESSION_KEY).set(session);
+
+        assertThat(channel.writeOutbound(messageBuilder)).isTrue();
+
+        ByteBuf sent = channel.readOutbound();
+        assertThat(sent.toString(US_ASCII)).contains("\u000134=2\u0001");
+        sent.release();
+        assertThat(storingEncoder.getStoreFailureCount()).isEqualTo(1);
+        assertThat(events).singleElement().isInstanceOfSatisfying(MessageStoreFailureEvent.class, event -> {
+            assertThat(event.getSession()).isSameAs(session);
+            assertThat(event.getMsgSeqNum()).isEqualTo(2);
+            assertThat(event.getCause()).isSameAs(failure);
+        });
+    }
+
+    private static void assertFixedPoint(long scaledValue, int scale, String expected) {
+        ByteBuf buf = Unpooled.buffer();
+        int sum = FixMessageEncoder.writeFixedPoint(buf, scaledValue, scale);
+        assertThat(buf.toString(US_ASCII)).isEqualTo(expected);
+        assertThat(sum).isEqualTo(sum(expected));
+    }
+
+    private static int sum(String s) {
+        return s.chars().sum();
+    }
+
     private void assertResult(String expectedString) {
-        final String string = new String(out.array(), out.arrayOffset(), out.readableBytes(), US_ASCII);
-        assertThat(string).isEqualTo(expectedString);
+        assertThat(out.toString(US_ASCII)).isEqualTo(expectedString);
     }
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.codec;
+
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessageImpl;
+import fixio.fixprotocol.Group;
+import fixio.fixprotocol.GroupField;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FixMessageFrameDecoderTest {
+
+    private static final String EXECUTION_REPORT = "8=FIX.4.2|9=178|35=8|49=PHLX|56=PERS|52=20071123-05:30:00.000|"
+            + "11=ATOMNOCCC9990900|20=3|150=E|39=E|55=MSFT|167=CS|54=1|38=15|40=2|44=15|58=PHLX EQUITY TESTING|"
+            + "59=0|47=C|32=0|31=0|151=15|14=0|6=0|10=128|";
+    private static final String LOGON = "8=FIX.4.2|9=65|35=A|49=SERVER|56=CLIENT|34=177|52=20090107-18:15:16|"
+            + "98=0|108=30|10=062|";
+    private static final String LOGON_BAD_CHECKSUM = "8=FIX.4.2|9=65|35=A|49=SERVER|56=CLIENT|34=177|"
+            + "52=20090107-18:15:16|98=0|108=30|10=060|";
+    private static final String MARKET_DATA_INCREMENTAL_REFRESH = "8=FIX.4.4|9=168|35=X|49=SRV|56=CLI|34=5|"
+            + "52=20240101-10:00:00.000|262=req1|268=2|279=0|269=0|55=EUR/USD|454=2|455=EURUSD|456=4|455=EU|456=8|"
+            + "270=1.1|279=1|269=1|55=EUR/USD|270=1.2|813=3|10=029|";
+
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel(new FixMessageFrameDecoder(512));
+    }
+
+    private static byte[] bytes(String message) {
+        return message.replace('|', '\u0001').getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Adds BeginString(8), BodyLength(9) and CheckSum(10) to the body.
+     */
+    private static String message(String body) {
+        String prefix = "8=FIX.4.2|9=" + body.length() + "|";
+        int sum = 0;
+        for (byte b : bytes(prefix + body)) {
+            sum += b;
+        }
+        return prefix + body + String.format("10=%03d|", sum & 0xFF);
+    }
+
+    @Test
+    void decodeSingleMessage() {
+        assertThat(channel.writeInbound(Unpooled.wrappedBuffer(bytes(LOGON)))).isTrue();
+
+        FixMessageImpl message = channel.readInbound();
+        assertThat(message.getHeader().getBeginString()).isEqualTo("FIX.4.2");
+        assertThat(message.getMessageType()).isEqualTo("A");
+        assertThat(message.getHeader().getSenderCompID()).isEqualTo("SERVER");
+        assertThat(message.getHeader().getTargetCompID()).isEqualTo("CLIENT");
+        assertThat(message.getMsgSeqNum()).isEqualTo(177);
+        assertThat(message.getInt(FieldType.HeartBtInt)).isEqualTo(30);
+        assertThat(message.getChecksum()).isEqualTo(62);
+        assertThat((Object) channel.readInbound()).isNull();
+    }
+
+    @Test
+    void decodeFragmentedMessage() {
+        byte[] bytes = bytes(EXECUTION_REPORT);
+        for (int i = 0; i < bytes.length - 1; i++) {
+            assertThat(channel.writeInbound(Unpooled.wrappedBuffer(bytes, i, 1))).isFalse();
+        }
+        assertThat(channel.writeInbound(Unpooled.wrappedBuffer(bytes, bytes.length - 1, 1))).isTrue();
+
+        FixMessageImpl message = channel.readInbound();
+        assertThat(message.getMessageType()).isEqualTo("8");
+        assertThat(message.getString(FieldType.Text)).isEqualTo("PHLX EQUITY TESTING");
+        assertThat(message.getChecksum()).isEqualTo(128);
+    }
+
+    @Test
+    void decodeSeveralMessagesInOneBuffer() {
+        assertThat(channel.writeInbound(Unpooled.wrappedBuffer(bytes(LOGON + EXECUTION_REPORT + LOGON)))).isTrue();
+
+        assertThat(((FixMessageImpl) channel.readInbound()).getMessageType()).isEqualTo("A");
+        assertThat(((FixMessageImpl) channel.readInbound()).getMessageType()).isEqualTo("8");
+        assertThat(((FixMessageImpl) channel.readInbound()).getMessageType()).isEqualTo("A");
+        assertThat((Object) channel.readInbound()).isNull();
+    }
+
+    @Test
+    void decodeRepeatingGroups() {
+        assertThat(channel.writeInbound(Unpooled.wrappedBuffer(bytes(MARKET_DATA_INCREMENTAL_REFRESH)))).isTrue();
+
+        FixMessageImpl message = channel.readInbound();
+        assertThat(message.getString(FieldType.MDReqID)).isEqualTo("req1");
+        assertThat(message.getInt(FieldType.ApplQueueDepth)).isEqualTo(3);
+
+        List<Group> entries = message.getGroups(FieldType.NoMDEntries.tag());
+        assertThat(entries).hasSize(2);
+        assertThat(entries.get(0).getContents()).hasSize(5);
+        assertThat(entries.get(0).<Character>getValue(FieldType.MDUpdateAction)).isEqualTo('0');
+        assertThat(entries.get(0).<String>getValue(FieldType.Symbol)).isEqualTo("EUR/USD");
+        assertThat(entries.get(1).<Character>getValue(FieldType.MDEntryType)).isEqualTo('1');
+        assertThat(entries.get(1).getContents()).hasSize(4);
+
+        assertThat(entries.get(0).getContents().get(3)).isInstanceOf(GroupField.class);
+        List<Group> altIds = entries.get(0).getValue(FieldType.NoSecurityAltID);
+        assertThat(altIds).hasSize(2);
+        assertThat(altIds.get(1).<String>getValue(FieldType.SecurityAltID)).isEqualTo("EU");
+    }
+
+    @Test
+    void failOnChecksumMismatchAndContinue() {
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.wrappedBuffer(bytes(LOGON_BAD_CHECKSUM + LOGON))))
+                .isInstanceOf(DecoderException.class)
+                .hasMessageContaining("Checksum mismatch. Expected: 60 but found: 62");
+
+        assertThat(channel.writeInbound(Unpooled.EMPTY_BUFFER)).isTrue();
+        assertThat(((FixMessageImpl) channel.readInbound()).getChecksum()).isEqualTo(62);
+    }
+
+    @Test
+    void skipGarbageBeforeMessage() {
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.wrappedBuffer(bytes("foo|bar|" + LOGON))))
+                .isInstanceOf(DecoderException.class)
+                .hasMessageContaining("BeginString tag expected");
+
+        assertThat(channel.writeInbound(Unpooled.EMPTY_BUFFER)).isTrue();
+        assertThat(((FixMessageImpl) channel.readInbound()).getMessageType()).isEqualTo("A");
+    }
+
+    @Test
+    void failOnInvalidBodyLength() {
+        String message = LOGON.replace("9=65", "9=60");
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.wrappedBuffer(bytes(message + LOGON))))
+                .isInstanceOf(DecoderException.class)
+                .hasMessageContaining("CheckSum(10) expected");
+
+        assertThat(channel.writeInbound(Unpooled.EMPTY_BUFFER)).isTrue();
+        assertThat(((FixMessageImpl) channel.readInbound()).getMessageType()).isEqualTo("A");
+    }
+
+    @Test
+    void failOnTooLongTag() {
+        // 4294967345 overflows to 49
+        String message = message("35=0|4294967345=SERVER|56=CLIENT|34=1|52=20090107-18:15:16|");
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.wrappedBuffer(bytes(message))))
+                .isInstanceOf(DecoderException.class)
+                .hasMessageContaining("Tag is too long");
+
+        channel = new EmbeddedChannel(new FixMessageFrameDecoder(512, true));
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.wrappedBuffer(bytes(message))))
+                .isInstanceOf(DecoderException.class)
+                .hasMessageContaining("Tag is too long");
+    }
+
+    @Test
+    void decodeLongestTag() {
+        assertThat(channel.writeInbound(Unpooled.wrappedBuffer(bytes(message("35=0|999999999=x|"))))).isTrue();
+        assertThat(((FixMessageImpl) channel.readInbound()).<String>getValue(999999999)).isEqualTo("x");
+    }
+
+    @Test
+    void discardTooLongMessage() {
+        String message = LOGON.replace("9=65", "9=1000");
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.wrappedBuffer(bytes(message))))
+                .isInstanceOf(TooLongFrameException.class);
+    }
+
+    @Test
+    void failOnTooManyFieldsAndContinue() {
+        channel = new EmbeddedChannel(new FixMessageFrameDecoder(512, 10, 8, false));
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.wrappedBuffer(bytes(EXECUTION_REPORT + LOGON))))
+                .isInstanceOf(DecoderException.class)
+                .hasMessageContaining("Message has more than 10 fields");
+
+        assertThat(channel.writeInbound(Unpooled.EMPTY_BUFFER)).isTrue();
+        assertThat(((FixMessageImpl) channel.readInbound()).getMessageType()).isEqualTo("A");
+    }
+
+    @Test
+    void failOnTooManyFieldsInZeroCopyMode() {
+        channel = new EmbeddedChannel(new FixMessageFrameDecoder(512, 9, 8, true));
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.wrappedBuffer(bytes(EXECUTION_REPORT))))
+                .isInstanceOf(DecoderException.class)
+                .hasMessageContaining("Message has more than 9 fields");
+    }
+
+    @Test
+    void failOnTooDeepGroups() {
+        channel = new EmbeddedChannel(new FixMessageFrameDecoder(512, 100, 1, false));
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.wrappedBuffer(bytes(MARKET_DATA_INCREMENTAL_REFRESH))))
+                .isInstanceOf(DecoderException.class)
+                .hasRootCauseMessage("Repeating groups are nested deeper than 1");
+
+        channel = new EmbeddedChannel(new FixMessageFrameDecoder(512, 100, 1, true));
+        assertThat(channel.writeInbound(Unpooled.wrappedBuffer(bytes(MARKET_DATA_INCREMENTAL_REFRESH)))).isTrue();
+        ByteBufFixMessage message = channel.readInbound();
+        try {
+            assertThatThrownBy(message::getBody).isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            message.release();
+        }
+    }
+
+    @Test
+    void decodeWithCompositeCumulation() {
+        FixMessageFrameDecoder decoder = new FixMessageFrameDecoder(512, true);
+        decoder.setCumulator(Cumulation.COMPOSITE.cumulator());
+        channel = new EmbeddedChannel(decoder);
+        byte[] bytes = bytes(EXECUTION_REPORT + LOGON);
+        for (int i = 0; i < bytes.length; i += 16) {
+            channel.writeInbound(Unpooled.wrappedBuffer(bytes, i, Math.min(16, bytes.length - i)));
+        }
+
+        ByteBufFixMessage report = channel.readInbound();
+        ByteBufFixMessage logon = channel.readInbound();
+        try {
+            assertThat(report.getString(FieldType.Text)).isEqualTo("PHLX EQUITY TESTING");
+            assertThat(report.getChecksum()).isEqualTo(128);
+            assertThat(logon.getInt(FieldType.HeartBtInt)).isEqualTo(30);
+        } finally {
+            report.release();
+            logon.release();
+        }
+        assertThat((Object) channel.readInbound()).isNull();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.codec;
+
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessageFragment;
+import fixio.fixprotocol.Group;
+import fixio.fixprotocol.GroupField;
+import fixio.fixprotocol.fields.FixedPointNumber;
+import fixio.netty.codec.Flyweights.ExecutionReportDecoder;
+import fixio.netty.codec.Flyweights.MarketDataIncrementalRefreshDecoder;
+import fixio.netty.codec.Flyweights.MarketDataIncrementalRefreshEncoder;
+import fixio.netty.codec.Flyweights.NewOrderSingleDecoder;
+import fixio.netty.codec.Flyweights.NewOrderSingleEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlyweightsTest {
+
+    private static final String EXECUTION_REPORT = "8=FIX.4.2|9=178|35=8|49=PHLX|56=PERS|52=20071123-05:30:00.000|"
+            + "11=ATOMNOCCC9990900|20=3|150=E|39=E|55=MSFT|167=CS|54=1|38=15|40=2|44=15|58=PHLX EQUITY TESTING|"
+            + "59=0|47=C|32=0|31=0|151=15|14=0|6=0|10=128|";
+    private static final String MARKET_DATA_INCREMENTAL_REFRESH = "8=FIX.4.4|9=168|35=X|49=SRV|56=CLI|34=5|"
+            + "52=20240101-10:00:00.000|262=req1|268=2|279=0|269=0|55=EUR/USD|454=2|455=EURUSD|456=4|455=EU|456=8|"
+            + "270=1.1|279=1|269=1|55=EUR/USD|270=1.2|813=3|10=029|";
+    private static final long TRANSACT_TIME = Instant.parse("2024-01-01T10:00:00.123Z").toEpochMilli() * 1_000_000L;
+
+    private EmbeddedChannel decoderChannel;
+    private EmbeddedChannel encoderChannel;
+
+    @BeforeEach
+    void setUp() {
+        decoderChannel = new EmbeddedChannel(new FixMessageFrameDecoder(1024, true));
+        encoderChannel = new EmbeddedChannel(new FixMessageEncoder());
+    }
+
+    @AfterEach
+    void tearDown() {
+        decoderChannel.finishAndReleaseAll();
+        encoderChannel.finishAndReleaseAll();
+    }
+
+    private ByteBufFixMessage decode(ByteBuf bytes) {
+        assertThat(decoderChannel.writeInbound(bytes)).isTrue();
+        return decoderChannel.readInbound();
+    }
+
+    private ByteBufFixMessage decode(String message) {
+        return decode(Unpooled.wrappedBuffer(message.replace('|', '\u0001').getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void decodeExecutionReport() {
+        ByteBufFixMessage message = decode(EXECUTION_REPORT);
+        try {
+            ExecutionReportDecoder report = new ExecutionReportDecoder().wrap(message);
+
+            assertThat(report.getClOrdID()).isEqualTo("ATOMNOCCC9990900");
+            assertThat(report.getExecType()).isEqualTo('E');
+            assertThat(report.getSide()).isEqualTo('1');
+            assertThat(report.getOrderQty(2)).isEqualTo(1500);
+            assertThat(report.getPrice(4)).isEqualTo(150000);
+            assertThat(report.getLeavesQty(0)).isEqualTo(15);
+            assertThat(report.getText()).isEqualTo("PHLX EQUITY TESTING");
+            assertThat(report.hasTransactTime()).isFalse();
+            assertThat(report.getTransactTime()).isEqualTo(Long.MIN_VALUE);
+            assertThat(report.hasOrderID()).isFalse();
+            assertThat(report.getOrderID()).isNull();
+        } finally {
+            message.release();
+        }
+    }
+
+    @Test
+    void skipGroupMembers() {
+        ByteBufFixMessage message = decode(MARKET_DATA_INCREMENTAL_REFRESH);
+        try {
+            MarketDataIncrementalRefreshDecoder refresh = new MarketDataIncrementalRefreshDecoder().wrap(message);
+
+            assertThat(refresh.getMDReqID()).isEqualTo("req1");
+            assertThat(refresh.getNoMDEntries()).isEqualTo(2);
+            assertThat(refresh.getApplQueueDepth()).isEqualTo(3);
+            // group entries are read with the generic accessors
+            assertThat(message.getGroups(FieldType.NoMDEntries.tag())).hasSize(2);
+        } finally {
+            message.release();
+        }
+    }
+
+    @Test
+    void rejectOtherMessageType() {
+        ByteBufFixMessage message = decode(EXECUTION_REPORT);
+        try {
+            assertThatThrownBy(() -> new NewOrderSingleDecoder().wrap(message))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            message.release();
+        }
+    }
+
+    @Test
+    void encodeAndDecodeNewOrderSingle() {
+        NewOrderSingleEncoder order = NewOrderSingleEncoder.newInstance();
+        order.getHeader().setBeginString("FIX.4.4");
+        order.getHeader().setSenderCompID("CLI");
+        order.getHeader().setTargetCompID("SRV");
+        order.getHeader().setMsgSeqNum(7);
+        order.getHeader().setSendingTimeNanos(TRANSACT_TIME);
+        order.setClOrdID("order-1")
+                .setSymbol("EUR/USD")
+                .setSide('1')
+                .setTransactTime(TRANSACT_TIME)
+                .setOrderQty(1500, 2)
+                .setOrdType('2')
+                .setPrice(-5, 3)
+                .setLocateReqd(true);
+        order.add(FieldType.Text, "generic");
+
+        List<FixMessageFragment> body = order.getBody();
+        assertThat(body).hasSize(9);
+        assertThat(body.get(0).getTagNum()).isEqualTo(FieldType.ClOrdID.tag());
+
+        assertThat(encoderChannel.writeOutbound(order)).isTrue();
+        ByteBufFixMessage message = decode((ByteBuf) encoderChannel.readOutbound());
+        try {
+            assertThat(message.getString(FieldType.Price)).isEqualTo("-0.005");
+
+            NewOrderSingleDecoder decoder = new NewOrderSingleDecoder().wrap(message);
+            assertThat(decoder.getClOrdID()).isEqualTo("order-1");
+            assertThat(decoder.getSymbol()).isEqualTo("EUR/USD");
+            assertThat(decoder.getSide()).isEqualTo('1');
+            assertThat(decoder.getTransactTime()).isEqualTo(TRANSACT_TIME);
+            assertThat(decoder.getOrderQty(2)).isEqualTo(1500);
+            assertThat(decoder.getOrdType()).isEqualTo('2');
+            assertThat(decoder.getPrice(3)).isEqualTo(-5);
+            assertThat(decoder.getLocateReqd()).isTrue();
+            assertThat(decoder.getText()).isEqualTo("generic");
+        } finally {
+            message.release();
+        }
+
+        // recycled after encoding
+        NewOrderSingleEncoder next = NewOrderSingleEncoder.newInstance();
+        assertThat(next).isSameAs(order);
+        assertThat(next.body().readableBytes()).isZero();
+        assertThat(next.getHeader().getSenderCompID()).isNull();
+        assertThat(next.getHeader().getMessageType()).isEqualTo(NewOrderSingleDecoder.MSG_TYPE);
+        next.recycle();
+    }
+
+    @Test
+    void encodeGroupFieldByField() {
+        MarketDataIncrementalRefreshEncoder refresh = MarketDataIncrementalRefreshEncoder.newInstance();
+        refresh.setMDReqID("req1")
+                .setNoMDEntries(2)
+                .setMDUpdateAction('0').setMDEntryType('0').setSymbol("EUR/USD").setMDEntryPx(11, 1)
+                .setMDUpdateAction('1').setMDEntryType('1').setSymbol("EUR/USD").setMDEntryPx(12, 1)
+                .setApplQueueDepth(3);
+
+        List<FixMessageFragment> body = refresh.getBody();
+        assertThat(body).hasSize(3);
+        List<Group> entries = ((GroupField) body.get(1)).getGroups();
+        assertThat(entries).hasSize(2);
+        assertThat(entries.get(1).<FixedPointNumber>getValue(FieldType.MDEntryPx).toString()).isEqualTo("1.2");
+
+        refresh.recycle();
+    }
+
+    @Test
+    void encodeGroupWithTypedSetters() {
+        MarketDataIncrementalRefreshEncoder refresh = MarketDataIncrementalRefreshEncoder.newInstance();
+        refresh.setMDReqID("req1")
+                .newNoMDEntries(2)
+                .setMDUpdateAction('0').setMDEntryType('0').setSymbol("EUR/USD").setMDEntryPx(11, 1)
+                .setMDUpdateAction('1').setMDEntryType('1').setSymbol("EUR/USD").setMDEntryPx(12, 1);
+        refresh.setApplQueueDepth(3);
+
+        assertThat(refresh.body().toString(StandardCharsets.US_ASCII)).isEqualTo(
+                "262=req1\u0001268=2\u0001"
+                        + "279=0\u0001269=0\u000155=EUR/USD\u0001270=1.1\u0001"
+                        + "279=1\u0001269=1\u000155=EUR/USD\u0001270=1.2\u0001"
+                        + "813=3\u0001");
+        refresh.recycle();
+    }
+
+    @Test
+    void encodeGroupAddedWithNewGroup() {
+        MarketDataIncrementalRefreshEncoder typed = MarketDataIncrementalRefreshEncoder.newInstance();
+        typed.setMDReqID("req1")
+                .newNoMDEntries(2)
+                .setMDUpdateAction('0').setMDEntryType('0')
+                .setMDUpdateAction('1').setMDEntryType('1');
+        final String expected = typed.body().toString(StandardCharsets.US_ASCII);
+        final int expectedSum = typed.bodySum();
+        typed.recycle();
+
+        MarketDataIncrementalRefreshEncoder refresh = MarketDataIncrementalRefreshEncoder.newInstance();
+        refresh.setMDReqID("req1");
+        refresh.newGroup(FieldType.NoMDEntries).add(FieldType.MDUpdateAction, "0").add(FieldType.MDEntryType, "0");
+        refresh.newGroup(FieldType.NoMDEntries, 2).add(FieldType.MDUpdateAction, "1").add(FieldType.MDEntryType, "1");
+
+        // entries are written, when the group is followed by the end of the message
+        assertThat(refresh.body().toString(StandardCharsets.US_ASCII)).isEqualTo(expected);
+        assertThat(refresh.bodySum()).isEqualTo(expectedSum);
+
+        refresh.recycle();
+        refresh = MarketDataIncrementalRefreshEncoder.newInstance();
+        refresh.newGroup(FieldType.NoMDEntries).add(FieldType.MDUpdateAction, "0");
+        refresh.setApplQueueDepth(3);
+
+        // or by the next field
+        assertThat(refresh.body().toString(StandardCharsets.US_ASCII)).isEqualTo("268=1\u0001279=0\u0001813=3\u0001");
+        refresh.recycle();
+    }
+}
@@ -19,6 +19,7 @@ import fixio.events.LogoutEvent;
 import fixio.fixprotocol.FieldType;
 import fixio.fixprotocol.FixMessage;
 import fixio.fixprotocol.FixMessageBuilder;
+import fixio.fixprotocol.FixMessageBuilderImpl;
 import fixio.fixprotocol.MessageTypes;
 import fixio.fixprotocol.session.FixSession;
 import fixio.fixprotocol.session.SessionId;
@@ -37,6 +38,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -163,4 +165,170 @@ class AbstractSessionHandlerTest {
         assertThat(businessReject.getString(FieldType.RefMsgType)).isEqualTo(refMsgType);
         assertThat(businessReject.getString(FieldType.Text)).isEqualTo(rejectText);
     }
+
+    private List<Object> decode(int nextIncomingSeqNum, FixMessageBuilderImpl message) throws Exception {
+        AbstractSessionHandler handler = newSessionHandler(nextIncomingSeqNum);
+        List<Object> out = new ArrayList<>();
+        handler.decode(ctx, message, out);
+        return out;
+    }
+
+    private AbstractSessionHandler newSessionHandler(int nextIncomingSeqNum) {
+        FixSession session = FixSession.newBuilder().senderCompID("S").targetCompID("T").build();
+        session.setNextIncomingMessageSeqNum(nextIncomingSeqNum);
+        when(channel.attr(AbstractSessionHandler.FIX_SESSION_KEY)).thenReturn(sessionAttr);
+        when(sessionAttr.get()).thenReturn(session);
+        fixSession = session;
+        return new AbstractSessionHandler(fixApplication, FixClock.systemUTC(), sessionRepository) {
+            @Override
+            protected Logger getLogger() {
+                return LOGGER;
+            }
+        };
+    }
+
+    private static FixMessageBuilderImpl message(int msgSeqNum) {
+        FixMessageBuilderImpl message = new FixMessageBuilderImpl("D");
+        message.getHeader().setMsgSeqNum(msgSeqNum);
+        return message;
+    }
+
+    private static FixMessageBuilderImpl sequenceReset(int msgSeqNum, int newSeqNo, boolean gapFill) {
+        FixMessageBuilderImpl sequenceReset = new FixMessageBuilderImpl(MessageTypes.SEQUENCE_RESET);
+        sequenceReset.getHeader().setMsgSeqNum(msgSeqNum);
+        if (gapFill) {
+            sequenceReset.add(FieldType.GapFillFlag, "Y");
+        }
+        sequenceReset.add(FieldType.NewSeqNo, newSeqNo);
+        return sequenceReset;
+    }
+
+    @Test
+    void sequenceResetGapFill() throws Exception {
+        assertThat(decode(5, sequenceReset(5, 10, true))).isEmpty();
+
+        assertThat(fixSession.getNextIncomingMessageSeqNum()).isEqualTo(10);
+    }
+
+    @Test
+    void sequenceResetGapFillOutOfSequenceIsIgnored() throws Exception {
+        assertThat(decode(5, sequenceReset(7, 10, true))).isEmpty();
+
+        assertThat(fixSession.getNextIncomingMessageSeqNum()).isEqualTo(5);
+    }
+
+    @Test
+    void sequenceResetIgnoresMsgSeqNum() throws Exception {
+        assertThat(decode(5, sequenceReset(1, 20, false))).isEmpty();
+
+        assertThat(fixSession.getNextIncomingMessageSeqNum()).isEqualTo(20);
+    }
+
+    @Test
+    void sequenceResetToLowerNumberIsRejected() throws Exception {
+        assertThat(decode(5, sequenceReset(5, 3, false))).isEmpty();
+
+        assertThat(fixSession.getNextIncomingMessageSeqNum()).isEqualTo(5);
+        verify(ctx).writeAndFlush(rejectCaptor.capture());
+        assertThat(rejectCaptor.getValue().getMessageType()).isEqualTo(MessageTypes.REJECT);
+        assertThat(rejectCaptor.getValue().getInt(FieldType.RefSeqNum)).isEqualTo(5);
+    }
+
+    @Test
+    void possibleDuplicateIsIgnored() throws Exception {
+        FixMessageBuilderImpl message = new FixMessageBuilderImpl("D");
+        message.getHeader().setMsgSeqNum(3);
+        message.add(FieldType.PossDupFlag, "Y");
+
+        assertThat(decode(5, message)).isEmpty();
+
+        assertThat(fixSession.getNextIncomingMessageSeqNum()).isEqualTo(5);
+    }
+
+    @Test
+    void inSequenceMessageIsPassed() throws Exception {
+        FixMessageBuilderImpl message = new FixMessageBuilderImpl("D");
+        message.getHeader().setMsgSeqNum(5);
+
+        assertThat(decode(5, message)).containsExactly(message);
+
+        assertThat(fixSession.getNextIncomingMessageSeqNum()).isEqualTo(6);
+    }
+
+    @Test
+    void outOfSequenceMessagesAreQueuedUntilGapIsFilled() throws Exception {
+        AbstractSessionHandler handler = newSessionHandler(5);
+        FixMessageBuilderImpl message5 = message(5);
+        FixMessageBuilderImpl message6 = message(6);
+        FixMessageBuilderImpl message7 = message(7);
+        FixMessageBuilderImpl message8 = message(8);
+        List<Object> out = new ArrayList<>();
+
+        handler.decode(ctx, message7, out);
+        handler.decode(ctx, message8, out);
+
+        assertThat(out).isEmpty();
+        assertThat(fixSession.getNextIncomingMessageSeqNum()).isEqualTo(5);
+        assertThat(handler.getReorderQueue().size()).isEqualTo(2);
+        verify(ctx, times(1)).writeAndFlush(rejectCaptor.capture());
+        FixMessageAsserts.assertResendRequest((FixMessageBuilderImpl) rejectCaptor.getValue(), 5, 0);
+
+        handler.decode(ctx, message5, out);
+        assertThat(out).containsExactly(message5);
+
+        handler.decode(ctx, message6, out);
+        assertThat(out).containsExactly(message5, message6, message7, message8);
+        assertThat(fixSession.getNextIncomingMessageSeqNum()).isEqualTo(9);
+        assertThat(handler.getReorderQueue().isEmpty()).isTrue();
+        assertThat(handler.getReorderQueue().getGapCount()).isEqualTo(1);
+        assertThat(handler.getReorderQueue().getMaxSize()).isEqualTo(2);
+
+        // next gap is requested again
+        handler.decode(ctx, message(11), out);
+        verify(ctx, times(2)).writeAndFlush(rejectCaptor.capture());
+        FixMessageAsserts.assertResendRequest((FixMessageBuilderImpl) rejectCaptor.getValue(), 9, 0);
+    }
+
+    @Test
+    void queuedMessagesAreReleasedAfterGapFill() throws Exception {
+        AbstractSessionHandler handler = newSessionHandler(5);
+        FixMessageBuilderImpl message8 = message(8);
+        List<Object> out = new ArrayList<>();
+
+        handler.decode(ctx, message8, out);
+        handler.decode(ctx, sequenceReset(5, 8, true), out);
+
+        assertThat(out).containsExactly(message8);
+        assertThat(fixSession.getNextIncomingMessageSeqNum()).isEqualTo(9);
+    }
+
+    @Test
+    void queuedMessagesBelowSequenceResetAreDiscarded() throws Exception {
+        AbstractSessionHandler handler = newSessionHandler(5);
+        FixMessageBuilderImpl message12 = message(12);
+        List<Object> out = new ArrayList<>();
+
+        handler.decode(ctx, message(7), out);
+        handler.decode(ctx, message12, out);
+        handler.decode(ctx, sequenceReset(1, 12, false), out);
+
+        assertThat(out).containsExactly(message12);
+        assertThat(fixSession.getNextIncomingMessageSeqNum()).isEqualTo(13);
+        assertThat(handler.getReorderQueue().isEmpty()).isTrue();
+    }
+
+    @Test
+    void messageTooFarAheadIsDropped() throws Exception {
+        AbstractSessionHandler handler = newSessionHandler(5);
+        handler.setReorderQueueCapacity(4);
+        List<Object> out = new ArrayList<>();
+
+        handler.decode(ctx, message(10), out);
+        handler.decode(ctx, message(5), out);
+
+        assertThat(out).hasSize(1);
+        assertThat(handler.getReorderQueue().isEmpty()).isTrue();
+        verify(ctx, times(1)).writeAndFlush(rejectCaptor.capture());
+        FixMessageAsserts.assertResendRequest((FixMessageBuilderImpl) rejectCaptor.getValue(), 5, 0);
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchFlushHandlerTest {
+
+    private BatchFlushHandler handler;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        handler = new BatchFlushHandler(3, 100);
+        channel = new EmbeddedChannel(handler);
+        channel.freezeTime();
+    }
+
+    private void writeAndFlush(int count) {
+        for (int i = 0; i < count; i++) {
+            channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[]{(byte) i}));
+        }
+    }
+
+    @Test
+    void flushWhenBatchIsFull() {
+        writeAndFlush(2);
+        assertThat(channel.outboundMessages()).isEmpty();
+        assertThat(handler.getPendingFlushes()).isEqualTo(2);
+
+        writeAndFlush(1);
+        assertThat(channel.outboundMessages()).hasSize(3);
+        assertThat(handler.getPendingFlushes()).isZero();
+    }
+
+    @Test
+    void flushWhenDelayElapsed() {
+        writeAndFlush(1);
+        channel.advanceTimeBy(99, TimeUnit.MICROSECONDS);
+        channel.runScheduledPendingTasks();
+        assertThat(channel.outboundMessages()).isEmpty();
+
+        channel.advanceTimeBy(1, TimeUnit.MICROSECONDS);
+        channel.runScheduledPendingTasks();
+        assertThat(channel.outboundMessages()).hasSize(1);
+        assertThat(handler.getPendingFlushes()).isZero();
+    }
+
+    @Test
+    void flushOnClose() {
+        writeAndFlush(2);
+        channel.close();
+        assertThat(channel.outboundMessages()).hasSize(2);
+    }
+
+    @Test
+    void rejectInvalidSettings() {
+        assertThatThrownBy(() -> new BatchFlushHandler(0, 100)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BatchFlushHandler(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import fixio.fixprotocol.FixMessage;
+import fixio.fixprotocol.FixMessageBuilder;
+import fixio.handlers.FixApplicationAdapter;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class FixChannelInitializerTest {
+
+    private final EventLoopGroup workerGroup = mock(EventLoopGroup.class);
+
+    private EventExecutorGroup applicationExecutor(FixChannelSettings settings, Channel channel) {
+        return new TestChannelInitializer(workerGroup, settings).createApplicationExecutor(channel);
+    }
+
+    @Test
+    void dispatchToWorkerGroupByDefault() {
+        assertThat(applicationExecutor(FixChannelSettings.defaults(), new EmbeddedChannel())).isSameAs(workerGroup);
+    }
+
+    @Test
+    void dispatchInEventLoop() {
+        final FixChannelSettings settings = FixChannelSettings.newBuilder()
+                .applicationDispatchMode(ApplicationDispatchMode.IO_LOOP)
+                .build();
+
+        assertThat(applicationExecutor(settings, new EmbeddedChannel())).isNull();
+    }
+
+    @Test
+    void dispatchToRingBuffer() {
+        final RingBufferEventExecutorGroup group = mock(RingBufferEventExecutorGroup.class);
+        final FixChannelSettings settings = FixChannelSettings.newBuilder().ringBufferDispatch(group).build();
+
+        assertThat(settings.getApplicationDispatchMode()).isEqualTo(ApplicationDispatchMode.RING_BUFFER);
+        assertThat(applicationExecutor(settings, new EmbeddedChannel())).isSameAs(group);
+    }
+
+    @Test
+    void addBackpressureHandlerForRingBuffer() throws Exception {
+        final RingBufferEventExecutorGroup group = new RingBufferEventExecutorGroup(1, 16);
+        final FixChannelSettings settings = FixChannelSettings.newBuilder().ringBufferDispatch(group).build();
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        try {
+            new TestChannelInitializer(workerGroup, settings) {
+                @Override
+                protected MessageToMessageCodec<FixMessage, FixMessageBuilder> createSessionHandler() {
+                    return new MessageToMessageCodec<>() {
+                        @Override
+                        protected void encode(ChannelHandlerContext ctx, FixMessageBuilder msg, List<Object> out) {
+                        }
+
+                        @Override
+                        protected void decode(ChannelHandlerContext ctx, FixMessage msg, List<Object> out) {
+                        }
+                    };
+                }
+            }.initChannel(channel);
+
+            assertThat(channel.pipeline().names()).containsSubsequence("resendRequest",
+                    FixChannelInitializer.BACKPRESSURE_HANDLER_NAME, FixChannelInitializer.APPLICATION_HANDLER_NAME);
+        } finally {
+            channel.close();
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void dispatchToSessionThread() {
+        final FixChannelSettings settings = FixChannelSettings.newBuilder()
+                .applicationDispatchMode(ApplicationDispatchMode.VIRTUAL_THREAD)
+                .build();
+        final EmbeddedChannel channel1 = new EmbeddedChannel();
+        final EmbeddedChannel channel2 = new EmbeddedChannel();
+
+        final EventExecutorGroup executor1 = applicationExecutor(settings, channel1);
+        final EventExecutorGroup executor2 = applicationExecutor(settings, channel2);
+
+        assertThat(executor1).isNotNull().isNotSameAs(executor2);
+        channel1.close();
+        assertThat(executor1.isShuttingDown()).isTrue();
+        assertThat(executor2.isShuttingDown()).isFalse();
+        channel2.close();
+    }
+
+    private static class TestChannelInitializer extends FixChannelInitializer<Channel> {
+
+        TestChannelInitializer(EventLoopGroup workerGroup, FixChannelSettings settings) {
+            super(workerGroup, new FixApplicationAdapter(), settings);
+        }
+
+        @Override
+        protected MessageToMessageCodec<FixMessage, FixMessageBuilder> createSessionHandler() {
+            return null;
+        }
+    }
+}
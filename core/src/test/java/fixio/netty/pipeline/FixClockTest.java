@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+import fixio.fixprotocol.fields.UTCTimestampCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.Instant;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FixClockTest {
+
+    @Test
+    void epochNanosIsCloseToSystemTime() {
+        long expected = UTCTimestampCodec.toEpochNanos(Instant.now().atZone(FixClock.systemUTC().getZone()));
+        assertThat(FixClock.systemUTC().epochNanos()).isCloseTo(expected, within(1_000_000_000L));
+    }
+
+    @ParameterizedTest
+    @EnumSource(TimeStampPrecision.class)
+    void writeTimestampAcrossSecondBoundary(TimeStampPrecision precision) {
+        long epochNanos = 1_700_000_000_999_999_999L;
+        ByteBuf out = Unpooled.buffer();
+
+        assertWritten(out, epochNanos, precision);
+        assertWritten(out, epochNanos - 123_456_789L, precision);
+        assertWritten(out, epochNanos + 1, precision);
+        assertWritten(out, epochNanos + 1_000_000_001L, precision);
+        assertWritten(out, -1L, precision);
+    }
+
+    private static void assertWritten(ByteBuf out, long epochNanos, TimeStampPrecision precision) {
+        out.clear();
+        int length = FixClock.writeTimestamp(out, epochNanos, precision);
+
+        assertThat(length).isEqualTo(out.readableBytes());
+        assertThat(out.toString(US_ASCII)).isEqualTo(new String(UTCTimestampCodec.format(epochNanos, precision), US_ASCII));
+    }
+}
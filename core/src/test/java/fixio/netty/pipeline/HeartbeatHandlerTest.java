@@ -0,0 +1,215 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessageBuilderImpl;
+import fixio.fixprotocol.MessageTypes;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HeartbeatHandlerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Mock
+    private Timer timer;
+    @Mock
+    private Timeout timeout;
+    @Captor
+    private ArgumentCaptor<Long> delayCaptor;
+    private long nanoTime;
+    private HeartbeatHandler handler;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        handler = new HeartbeatHandler(timer, () -> nanoTime);
+        channel = new EmbeddedChannel(handler);
+    }
+
+    private void logon(int heartBtInt) {
+        when(timer.newTimeout(any(TimerTask.class), anyLong(), eq(TimeUnit.NANOSECONDS))).thenReturn(timeout);
+        FixMessageBuilderImpl logon = new FixMessageBuilderImpl(MessageTypes.LOGON);
+        logon.add(FieldType.HeartBtInt, heartBtInt);
+        channel.writeInbound(logon);
+        assertThat((Object) channel.readInbound()).isSameAs(logon);
+    }
+
+    private long lastDelay() {
+        verify(timer, atLeastOnce()).newTimeout(same(handler), delayCaptor.capture(), eq(TimeUnit.NANOSECONDS));
+        return delayCaptor.getValue();
+    }
+
+    private FixMessageBuilderImpl readOutbound() {
+        return channel.readOutbound();
+    }
+
+    @Test
+    void startOnLogon() {
+        logon(30);
+
+        assertThat(handler.getIntervalNanos()).isEqualTo(30 * SECOND);
+        assertThat(lastDelay()).isEqualTo(30 * SECOND);
+    }
+
+    @Test
+    void restartOnLogonResponse() {
+        logon(30);
+        FixMessageBuilderImpl logonResponse = new FixMessageBuilderImpl(MessageTypes.LOGON);
+        logonResponse.add(FieldType.HeartBtInt, 15);
+
+        channel.writeOutbound(logonResponse);
+
+        verify(timeout).cancel();
+        assertThat(handler.getIntervalNanos()).isEqualTo(15 * SECOND);
+        assertThat(lastDelay()).isEqualTo(15 * SECOND);
+    }
+
+    @Test
+    void notStartedWithoutHeartBtInt() {
+        channel.writeInbound(new FixMessageBuilderImpl(MessageTypes.LOGON));
+
+        assertThat(handler.getIntervalNanos()).isZero();
+        verify(timer, never()).newTimeout(any(), anyLong(), any());
+    }
+
+    @Test
+    void sendHeartbeatWhenNothingSent() {
+        logon(10);
+        nanoTime += 10 * SECOND;
+        channel.writeInbound(new FixMessageBuilderImpl(MessageTypes.NEWS));
+        channel.readInbound();
+
+        handler.check(timeout);
+
+        assertThat(readOutbound().getMessageType()).isEqualTo(MessageTypes.HEARTBEAT);
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(lastDelay()).isEqualTo(10 * SECOND);
+    }
+
+    @Test
+    void writesPostponeHeartbeat() {
+        logon(10);
+        nanoTime += 6 * SECOND;
+        channel.writeOutbound(new FixMessageBuilderImpl(MessageTypes.NEWS));
+        channel.readOutbound();
+        nanoTime += 4 * SECOND;
+
+        handler.check(timeout);
+
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(lastDelay()).isEqualTo(2 * SECOND);
+    }
+
+    @Test
+    void sendTestRequestThenLogoutWhenNothingReceived() {
+        logon(10);
+        nanoTime += 12 * SECOND;
+
+        handler.check(timeout);
+
+        FixMessageBuilderImpl testRequest = readOutbound();
+        assertThat(testRequest.getMessageType()).isEqualTo(MessageTypes.TEST_REQUEST);
+        assertThat(testRequest.getString(FieldType.TestReqID)).isEqualTo("1");
+        // TestRequest resets heartbeat interval
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(lastDelay()).isEqualTo(10 * SECOND);
+
+        nanoTime += 12 * SECOND;
+        handler.check(timeout);
+
+        FixMessageBuilderImpl logout = readOutbound();
+        assertThat(logout.getMessageType()).isEqualTo(MessageTypes.LOGOUT);
+        assertThat(channel.isOpen()).isFalse();
+        assertThat(handler.getIntervalNanos()).isZero();
+    }
+
+    @Test
+    void responseToTestRequestKeepsConnection() {
+        logon(10);
+        nanoTime += 12 * SECOND;
+        handler.check(timeout);
+        channel.readOutbound();
+
+        nanoTime += SECOND;
+        channel.writeInbound(new FixMessageBuilderImpl(MessageTypes.HEARTBEAT));
+        channel.readInbound();
+        nanoTime += 11 * SECOND;
+        handler.check(timeout);
+
+        assertThat(readOutbound().getMessageType()).isEqualTo(MessageTypes.HEARTBEAT);
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(channel.isOpen()).isTrue();
+    }
+
+    @Test
+    void skipCheckOfRestartedHeartbeats() {
+        logon(30);
+        Timeout restarted = mock(Timeout.class);
+        when(timer.newTimeout(any(TimerTask.class), anyLong(), eq(TimeUnit.NANOSECONDS))).thenReturn(restarted);
+        FixMessageBuilderImpl logonResponse = new FixMessageBuilderImpl(MessageTypes.LOGON);
+        logonResponse.add(FieldType.HeartBtInt, 15);
+        channel.writeOutbound(logonResponse);
+        channel.readOutbound();
+        nanoTime += 30 * SECOND;
+
+        // queued by the first timeout before it was cancelled
+        handler.check(timeout);
+
+        assertThat((Object) channel.readOutbound()).isNull();
+        verify(timer, times(2)).newTimeout(same(handler), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        handler.check(restarted);
+
+        assertThat((Object) channel.readOutbound()).isNotNull();
+        verify(timer, times(3)).newTimeout(same(handler), anyLong(), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    void cancelOnClose() {
+        logon(10);
+
+        channel.close();
+
+        verify(timeout).cancel();
+        assertThat(handler.getIntervalNanos()).isZero();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import fixio.fixprotocol.FixMessage;
+import fixio.fixprotocol.FixMessageBuilderImpl;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReorderQueueTest {
+
+    private final ReorderQueue queue = new ReorderQueue(8);
+
+    private static FixMessage message(int msgSeqNum) {
+        FixMessageBuilderImpl message = new FixMessageBuilderImpl("D");
+        message.getHeader().setMsgSeqNum(msgSeqNum);
+        return message;
+    }
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(new ReorderQueue(1).getCapacity()).isEqualTo(1);
+        assertThat(new ReorderQueue(5).getCapacity()).isEqualTo(8);
+        assertThat(new ReorderQueue(1024).getCapacity()).isEqualTo(1024);
+        assertThatThrownBy(() -> new ReorderQueue(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pollInSequence() {
+        FixMessage message3 = message(3);
+        FixMessage message4 = message(4);
+        assertThat(queue.offer(4, message4, 2)).isTrue();
+        assertThat(queue.offer(3, message3, 2)).isTrue();
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.getCurrentGapNanos()).isPositive();
+
+        assertThat(queue.poll(2)).isNull();
+        assertThat(queue.poll(3)).isSameAs(message3);
+        assertThat(queue.poll(4)).isSameAs(message4);
+        assertThat(queue.poll(5)).isNull();
+
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.getMaxSize()).isEqualTo(2);
+        assertThat(queue.getGapCount()).isEqualTo(1);
+        assertThat(queue.getLastGapNanos()).isPositive();
+        assertThat(queue.getTotalGapNanos()).isEqualTo(queue.getLastGapNanos());
+        assertThat(queue.getCurrentGapNanos()).isZero();
+    }
+
+    @Test
+    void rejectDuplicateAndTooFarAhead() {
+        assertThat(queue.offer(3, message(3), 2)).isTrue();
+        assertThat(queue.offer(3, message(3), 2)).isFalse();
+        assertThat(queue.offer(9, message(9), 2)).isTrue();
+        assertThat(queue.offer(10, message(10), 2)).isFalse();
+
+        assertThat(queue.size()).isEqualTo(2);
+    }
+
+    @Test
+    void discardBelow() {
+        queue.offer(3, message(3), 2);
+        queue.offer(5, message(5), 2);
+        queue.offer(7, message(7), 2);
+
+        queue.discardBelow(6);
+
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.poll(7)).isNotNull();
+        assertThat(queue.getGapCount()).isEqualTo(1);
+    }
+
+    @Test
+    void clear() {
+        queue.offer(3, message(3), 2);
+        queue.offer(4, message(4), 2);
+
+        queue.clear();
+
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.poll(3)).isNull();
+        assertThat(queue.getMaxSize()).isEqualTo(2);
+    }
+}
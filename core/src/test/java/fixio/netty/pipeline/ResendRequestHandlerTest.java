@@ -0,0 +1,219 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixMessageBuilderImpl;
+import fixio.fixprotocol.MessageTypes;
+import fixio.fixprotocol.session.FixSession;
+import fixio.fixprotocol.session.SessionId;
+import fixio.store.MessageStore;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResendRequestHandlerTest {
+
+    private final Map<Integer, String> stored = new HashMap<>();
+    private final MessageStore store = new MessageStore() {
+        @Override
+        public void append(SessionId sessionId, int msgSeqNum, ByteBuf message, int index, int length) {
+            stored.put(msgSeqNum, message.toString(index, length, US_ASCII));
+        }
+
+        @Override
+        public boolean get(SessionId sessionId, int msgSeqNum, ByteBuf out) {
+            String message = stored.get(msgSeqNum);
+            if (message != null) {
+                out.writeCharSequence(message, US_ASCII);
+            }
+            return message != null;
+        }
+
+        @Override
+        public void reset(SessionId sessionId) {
+            stored.clear();
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private FixSession session;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        session = FixSession.newBuilder().beginString("FIX.4.4").senderCompID("S").targetCompID("T").build();
+        session.setNextOutgoingMessageSeqNum(6);
+    }
+
+    private void createChannel(MessageStore messageStore, int batchSize) {
+        channel = new EmbeddedChannel(new ResendRequestHandler(messageStore, batchSize, FixClock.systemUTC()));
+        channel.attr(AbstractSessionHandler.FIX_SESSION_KEY).set(session);
+    }
+
+    private static String message(String msgType, int msgSeqNum) {
+        return ("8=FIX.4.4|9=50|35=" + msgType + "|49=S|56=T|34=" + msgSeqNum + "|52=20240101-10:00:00.000|58=text|10=000|")
+                .replace('|', '\u0001');
+    }
+
+    private static FixMessageBuilderImpl resendRequest(int beginSeqNo, int endSeqNo) {
+        FixMessageBuilderImpl resendRequest = new FixMessageBuilderImpl(MessageTypes.RESEND_REQUEST);
+        resendRequest.add(FieldType.BeginSeqNo, beginSeqNo);
+        resendRequest.add(FieldType.EndSeqNo, endSeqNo);
+        return resendRequest;
+    }
+
+    private List<Object> outbound() {
+        List<Object> messages = new ArrayList<>();
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            messages.add(msg);
+        }
+        return messages;
+    }
+
+    private static void assertGapFill(Object msg, int msgSeqNum, int newSeqNo) {
+        assertThat(msg).isInstanceOf(FixMessageBuilderImpl.class);
+        FixMessageBuilderImpl gapFill = (FixMessageBuilderImpl) msg;
+        assertThat(gapFill.getMessageType()).isEqualTo(MessageTypes.SEQUENCE_RESET);
+        assertThat(gapFill.getHeader().getMsgSeqNum()).isEqualTo(msgSeqNum);
+        assertThat(gapFill.getHeader().isPossDupFlag()).isTrue();
+        assertThat(gapFill.<Boolean>getValue(FieldType.GapFillFlag)).isTrue();
+        assertThat(gapFill.getInt(FieldType.NewSeqNo)).isEqualTo(newSeqNo);
+    }
+
+    private static void assertResent(Object msg, int msgSeqNum) {
+        assertThat(msg).isInstanceOf(ByteBuf.class);
+        ByteBuf buf = (ByteBuf) msg;
+        String resent = buf.toString(US_ASCII).replace('\u0001', '|');
+        buf.release();
+        assertThat(resent)
+                .startsWith("8=FIX.4.4|9=")
+                .contains("|35=D|49=S|56=T|34=" + msgSeqNum + "|52=")
+                .contains("|43=Y|122=20240101-10:00:00.000|58=text|10=");
+    }
+
+    @Test
+    void replayStoredMessagesAndGapFillAdminMessages() {
+        createChannel(store, 10);
+        stored.put(1, message(MessageTypes.LOGON, 1));
+        stored.put(2, message("D", 2));
+        stored.put(3, message(MessageTypes.HEARTBEAT, 3));
+        stored.put(5, message("D", 5));
+
+        assertThat(channel.writeInbound(resendRequest(1, 0))).isFalse();
+
+        List<Object> messages = outbound();
+        assertThat(messages).hasSize(4);
+        assertGapFill(messages.get(0), 1, 2);
+        assertResent(messages.get(1), 2);
+        assertGapFill(messages.get(2), 3, 5);
+        assertResent(messages.get(3), 5);
+    }
+
+    @Test
+    void trailingGapFill() {
+        createChannel(store, 10);
+        stored.put(2, message("D", 2));
+        stored.put(3, message(MessageTypes.TEST_REQUEST, 3));
+
+        channel.writeInbound(resendRequest(2, 4));
+
+        List<Object> messages = outbound();
+        assertThat(messages).hasSize(2);
+        assertResent(messages.get(0), 2);
+        assertGapFill(messages.get(1), 3, 5);
+    }
+
+    @Test
+    void gapFillWithoutStore() {
+        createChannel(null, 10);
+
+        channel.writeInbound(resendRequest(2, 100));
+
+        List<Object> messages = outbound();
+        assertThat(messages).hasSize(1);
+        assertGapFill(messages.get(0), 2, 6);
+    }
+
+    @Test
+    void ignoreRequestBeyondLastSentMessage() {
+        createChannel(store, 10);
+
+        channel.writeInbound(resendRequest(6, 0));
+
+        assertThat(outbound()).isEmpty();
+    }
+
+    @Test
+    void replayInBatches() {
+        createChannel(store, 3);
+        session.setNextOutgoingMessageSeqNum(101);
+        for (int i = 1; i <= 100; i++) {
+            stored.put(i, message("D", i));
+        }
+
+        channel.writeInbound(resendRequest(1, 0));
+
+        List<Object> messages = outbound();
+        assertThat(messages).hasSize(100);
+        for (int i = 0; i < 100; i++) {
+            assertResent(messages.get(i), i + 1);
+        }
+    }
+
+    @Test
+    void suspendReplayWhenNotWritable() {
+        createChannel(store, 100);
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(100, 200));
+        session.setNextOutgoingMessageSeqNum(51);
+        for (int i = 1; i <= 50; i++) {
+            stored.put(i, message("D", i));
+        }
+
+        channel.writeInbound(resendRequest(1, 50));
+
+        List<Object> messages = outbound();
+        assertThat(messages).hasSize(50);
+        for (int i = 0; i < 50; i++) {
+            assertResent(messages.get(i), i + 1);
+        }
+    }
+
+    @Test
+    void passOtherMessages() {
+        createChannel(store, 10);
+        FixMessageBuilderImpl heartbeat = new FixMessageBuilderImpl(MessageTypes.HEARTBEAT);
+
+        assertThat(channel.writeInbound(heartbeat)).isTrue();
+
+        assertThat((Object) channel.readInbound()).isSameAs(heartbeat);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.EventExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingBufferEventExecutorGroupTest {
+
+    private final RingBufferEventExecutorGroup group = new RingBufferEventExecutorGroup(2, 16);
+
+    @AfterEach
+    void tearDown() {
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void executeTasksInOrder() throws Exception {
+        final EventExecutor executor = group.next();
+        final List<Integer> executed = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 1000; i++) {
+            final int n = i;
+            executor.execute(() -> {
+                assertThat(executor.inEventLoop()).isTrue();
+                executed.add(n);
+            });
+        }
+        executor.execute(done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).hasSize(1000).isSorted();
+    }
+
+    @Test
+    void overflowFullRingInOrder() throws Exception {
+        final RingBufferEventExecutorGroup.RingBufferEventExecutor executor =
+                (RingBufferEventExecutorGroup.RingBufferEventExecutor) group.next();
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+        final List<Integer> executed = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        // the ring has 16 slots, submitting thread is neither blocked nor rejected
+        for (int i = 0; i < 1000; i++) {
+            final int n = i;
+            executor.execute(() -> executed.add(n));
+        }
+        executor.execute(done::countDown);
+        assertThat(executor.pendingTasks()).isGreaterThan(1000);
+
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).hasSize(1000).isSorted();
+    }
+
+    @Test
+    void stopReadingWhenRingIsFull() throws Exception {
+        final RingBufferEventExecutorGroup.RingBufferEventExecutor executor =
+                (RingBufferEventExecutorGroup.RingBufferEventExecutor) group.next();
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+        final List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast(executor, "app", new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                received.add(msg);
+            }
+        });
+        channel.pipeline().addBefore("app", "backpressure", new RingBufferBackpressureHandler(executor));
+
+        for (int i = 0; i < 100; i++) {
+            channel.writeInbound(i);
+        }
+        assertThat(channel.config().isAutoRead()).isFalse();
+
+        release.countDown();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((received.size() < 100 || !channel.config().isAutoRead()) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(received).hasSize(100);
+        assertThat(received).isSortedAccordingTo((a, b) -> Integer.compare((Integer) a, (Integer) b));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void invalidWaterMarks() {
+        assertThatThrownBy(() -> new RingBufferEventExecutorGroup(1, Thread::new, 16, 8, 4))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void runScheduledTasks() throws Exception {
+        final long started = System.nanoTime();
+        final long elapsed = group.next()
+                .schedule(() -> System.nanoTime() - started, 50, TimeUnit.MILLISECONDS)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(elapsed).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void shutdown() throws Exception {
+        group.next().submit(() -> {
+        }).sync();
+
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+
+        assertThat(group.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -20,12 +20,15 @@ import fixio.fixprotocol.FixMessage;
 import fixio.fixprotocol.FixMessageBuilderImpl;
 import fixio.fixprotocol.FixMessageHeader;
 import fixio.fixprotocol.MessageTypes;
+import fixio.fixprotocol.session.FixSession;
 import fixio.handlers.FixApplicationAdapter;
 import fixio.netty.pipeline.server.FixAcceptorChannelInitializer;
 import fixio.netty.pipeline.server.FixAuthenticator;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.local.LocalAddress;
 import io.netty.channel.local.LocalServerChannel;
@@ -37,7 +40,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.apache.commons.lang3.RandomStringUtils.randomAscii;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
@@ -93,6 +99,51 @@ class ServerChannelPipelineIntegrationTest {
         pipeline.flush();
     }
 
+    @Test
+    void resumeRegisteredSessionOnLogon() {
+        final InMemorySessionRepository repository = new InMemorySessionRepository();
+        final EmbeddedChannel channel = new EmbeddedChannel(new FixAcceptorChannelInitializer<>(
+                null, new FixApplicationAdapter(), authenticator, repository));
+        final FixMessageBuilderImpl logon = new FixMessageBuilderImpl(MessageTypes.LOGON);
+        final FixMessageHeader header = logon.getHeader();
+        header.setSenderCompID("CLIENT");
+        header.setTargetCompID("SERVER");
+        header.setMsgSeqNum(5);
+        logon.add(FieldType.HeartBtInt, 30);
+        final FixSession registered = repository.getOrCreateSession(header);
+        registered.setNextIncomingMessageSeqNum(5);
+
+        channel.writeInbound(logon);
+
+        assertThat(channel.attr(AbstractSessionHandler.FIX_SESSION_KEY).get()).isSameAs(registered);
+        assertThat(registered.getNextIncomingMessageSeqNum()).isEqualTo(6);
+
+        channel.finishAndReleaseAll();
+
+        assertThat(repository.getSession(header)).isNull();
+    }
+
+    @Test
+    void resumeRegisteredSessionOnZeroCopyLogon() {
+        final InMemorySessionRepository repository = new InMemorySessionRepository();
+        final EmbeddedChannel channel = new EmbeddedChannel(new FixAcceptorChannelInitializer<>(
+                null, new FixApplicationAdapter(), authenticator, repository,
+                FixChannelSettings.newBuilder().zeroCopyDecoding(true).build()));
+        final FixMessageHeader header = new FixMessageHeader();
+        header.setSenderCompID("CLIENT");
+        header.setTargetCompID("SERVER");
+        final FixSession registered = repository.getOrCreateSession(header);
+        registered.setNextIncomingMessageSeqNum(5);
+
+        channel.writeInbound(Unpooled.copiedBuffer(("8=FIX.4.2|9=67|35=A|49=CLIENT|56=SERVER|34=5|"
+                + "52=20240101-10:00:00.000|98=0|108=30|10=118|").replace('|', '\u0001'), StandardCharsets.US_ASCII));
+
+        assertThat(channel.attr(AbstractSessionHandler.FIX_SESSION_KEY).get()).isSameAs(registered);
+        assertThat(registered.getNextIncomingMessageSeqNum()).isEqualTo(6);
+
+        channel.finishAndReleaseAll();
+    }
+
     @Test
     void processHeartbeat() {
         final FixMessageBuilderImpl testRequest = new FixMessageBuilderImpl(MessageTypes.TEST_REQUEST);
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.pipeline.server;
+
+import fixio.fixprotocol.FixConst.TimeStampPrecision;
+import fixio.fixprotocol.FixMessageHeader;
+import fixio.fixprotocol.session.SessionId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AcceptorSessionSettingsRegistryTest {
+
+    private static FixMessageHeader header(String senderCompID, String targetCompID) {
+        FixMessageHeader header = new FixMessageHeader();
+        header.setSenderCompID(senderCompID);
+        header.setTargetCompID(targetCompID);
+        return header;
+    }
+
+    @Test
+    void loadFromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("client1.SenderCompID", "CLIENT1");
+        properties.setProperty("client1.TargetCompID", "SERVER");
+        properties.setProperty("client1.HeartBtInt", "15");
+        properties.setProperty("client1.TimeStampPrecision", "NANOS");
+        properties.setProperty("client1.MaxMessagesPerSecond", "100");
+        properties.setProperty("client2.SenderCompID", "CLIENT2");
+        properties.setProperty("client2.SenderSubID", "desk");
+        properties.setProperty("client2.TargetCompID", "SERVER");
+
+        AcceptorSessionSettingsRegistry registry = AcceptorSessionSettingsRegistry.load(properties);
+
+        assertThat(registry.size()).isEqualTo(2);
+        AcceptorSessionSettings client1 = registry.get(header("CLIENT1", "SERVER"));
+        assertThat(client1.getHeartbeatInterval()).isEqualTo(15);
+        assertThat(client1.getTimeStampPrecision()).isEqualTo(TimeStampPrecision.NANOS);
+        assertThat(client1.getMaxMessagesPerSecond()).isEqualTo(100);
+
+        AcceptorSessionSettings client2 = registry.get(new SessionId("CLIENT2", "SERVER", "desk", null, null, null));
+        assertThat(client2.getHeartbeatInterval()).isZero();
+        assertThat(client2.getTimeStampPrecision()).isNull();
+        assertThat(registry.get(header("CLIENT2", "SERVER"))).isNull();
+        assertThat(registry.get(header("SERVER", "CLIENT1"))).isNull();
+    }
+
+    @Test
+    void loadInvalidProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("client1.SenderCompID", "CLIENT1");
+
+        assertThatThrownBy(() -> AcceptorSessionSettingsRegistry.load(properties))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void registerAndRemove() {
+        AcceptorSessionSettingsRegistry registry = new AcceptorSessionSettingsRegistry();
+        AcceptorSessionSettings settings = AcceptorSessionSettings.newBuilder()
+                .senderCompID("CLIENT")
+                .targetCompID("SERVER")
+                .build();
+
+        registry.register(settings);
+
+        assertThat(registry.get(header("CLIENT", "SERVER"))).isSameAs(settings);
+        assertThat(settings.getSessionId()).isSameAs(new SessionId("CLIENT", "SERVER", null, null, null, null).intern());
+
+        assertThat(registry.remove(settings.getSessionId())).isTrue();
+        assertThat(registry.remove(settings.getSessionId())).isFalse();
+        assertThat(registry.get(header("CLIENT", "SERVER"))).isNull();
+    }
+}
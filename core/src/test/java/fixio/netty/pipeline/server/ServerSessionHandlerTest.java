@@ -16,6 +16,8 @@
 package fixio.netty.pipeline.server;
 
 import fixio.events.LogonEvent;
+import fixio.fixprotocol.FieldType;
+import fixio.fixprotocol.FixConst;
 import fixio.fixprotocol.FixMessage;
 import fixio.fixprotocol.FixMessageBuilderImpl;
 import fixio.fixprotocol.FixMessageHeader;
@@ -50,6 +52,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.same;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -154,4 +157,64 @@ class ServerSessionHandlerTest {
 
         FixMessageAsserts.assertLogout(messageCaptor.getValue());
     }
+
+    @Test
+    void unknownSessionIsRejected() throws Exception {
+        handler = new ServerSessionHandler(fixApplication, authenticator, new InMemorySessionRepository(),
+                new AcceptorSessionSettingsRegistry());
+
+        handler.decode(ctx, logonMsg, outgoingMessages);
+
+        assertThat(outgoingMessages).isEmpty();
+        verify(ctx).close();
+        verifyNoInteractions(authenticator);
+        assertThat(channel.attr(AbstractSessionHandler.FIX_SESSION_KEY).get()).isNull();
+    }
+
+    @Test
+    void logonWithSessionSettings() throws Exception {
+        handler = new ServerSessionHandler(fixApplication, authenticator, new InMemorySessionRepository(),
+                new AcceptorSessionSettingsRegistry(List.of(AcceptorSessionSettings.newBuilder()
+                        .senderCompID(logonMsg.getHeader().getSenderCompID())
+                        .targetCompID(logonMsg.getHeader().getTargetCompID())
+                        .heartbeatInterval(15)
+                        .timeStampPrecision(FixConst.TimeStampPrecision.MICROS)
+                        .build())));
+        when(authenticator.authenticate(same(logonMsg))).thenReturn(true);
+        ((FixMessageBuilderImpl) logonMsg).add(FieldType.HeartBtInt, 30);
+
+        handler.decode(ctx, logonMsg, outgoingMessages);
+
+        assertThat(outgoingMessages).hasSize(1);
+        verify(ctx).write(messageCaptor.capture());
+        assertThat(messageCaptor.getValue().getInt(FieldType.HeartBtInt)).isEqualTo(15);
+        FixSession session = channel.attr(AbstractSessionHandler.FIX_SESSION_KEY).get();
+        assertThat(session.getDateTimeFormatter()).isSameAs(FixConst.DATE_TIME_FORMATTER_MICROS);
+    }
+
+    @Test
+    void messageRateExceeded() throws Exception {
+        handler = new ServerSessionHandler(fixApplication, authenticator, new InMemorySessionRepository(),
+                new AcceptorSessionSettingsRegistry(List.of(AcceptorSessionSettings.newBuilder()
+                        .senderCompID(logonMsg.getHeader().getSenderCompID())
+                        .targetCompID(logonMsg.getHeader().getTargetCompID())
+                        .maxMessagesPerSecond(2)
+                        .build())));
+        when(authenticator.authenticate(same(logonMsg))).thenReturn(true);
+        ChannelFuture channelFuture = mock(ChannelFuture.class);
+        when(ctx.writeAndFlush(any())).thenReturn(channelFuture);
+        handler.decode(ctx, logonMsg, outgoingMessages);
+        outgoingMessages.clear();
+
+        for (int msgSeqNum = 2; msgSeqNum <= 4; msgSeqNum++) {
+            FixMessageBuilderImpl message = new FixMessageBuilderImpl(MessageTypes.NEWS);
+            message.getHeader().setMsgSeqNum(msgSeqNum);
+            handler.decode(ctx, message, outgoingMessages);
+        }
+
+        assertThat(outgoingMessages).hasSize(2);
+        verify(ctx).writeAndFlush(messageCaptor.capture());
+        FixMessageAsserts.assertLogout(messageCaptor.getValue());
+        verify(channelFuture).addListener(ChannelFutureListener.CLOSE);
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.netty.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class TransportSettingsTest {
+
+    @Test
+    void nioIsAlwaysAvailable() {
+        assertThat(Transport.NIO.isAvailable()).isTrue();
+        assertThat(Transport.NIO.serverChannelClass()).isEqualTo(NioServerSocketChannel.class);
+        assertThat(Transport.NIO.socketChannelClass()).isEqualTo(NioSocketChannel.class);
+        assertThat(Transport.NIO.channelOption("SO_REUSEPORT")).isNull();
+    }
+
+    @Test
+    void fallBackToNioIfNativeTransportIsNotAvailable() {
+        assumeFalse(Transport.EPOLL.isAvailable());
+        assertThat(Transport.EPOLL.channelOption("SO_BUSY_POLL")).isNull();
+
+        TransportSettings settings = TransportSettings.newBuilder().transport(Transport.EPOLL).build();
+
+        assertThat(settings.getTransport()).isEqualTo(Transport.NIO);
+        assertThatThrownBy(() -> Transport.EPOLL.newEventLoopGroup(1))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void ignoreNativeOptionsOnNio() {
+        TransportSettings settings = TransportSettings.newBuilder()
+                .transport(Transport.NIO)
+                .tcpNoDelay(false)
+                .busyPollMicros(50)
+                .tcpQuickAck(true)
+                .edgeTriggered(true)
+                .acceptorCount(4)
+                .build();
+
+        ServerBootstrap serverBootstrap = new ServerBootstrap();
+        assertThat(settings.configure(serverBootstrap, Transport.NIO)).isEqualTo(1);
+        assertThat(serverBootstrap.config().options()).isEmpty();
+        assertThat(serverBootstrap.config().childOptions()).containsOnlyKeys(ChannelOption.TCP_NODELAY);
+        assertThat(serverBootstrap.config().childOptions().get(ChannelOption.TCP_NODELAY)).isEqualTo(false);
+
+        Bootstrap bootstrap = new Bootstrap();
+        settings.configure(bootstrap, Transport.NIO);
+        assertThat(bootstrap.config().options()).containsOnlyKeys(ChannelOption.TCP_NODELAY);
+    }
+
+    @Test
+    void rejectInvalidValues() {
+        TransportSettings.Builder builder = TransportSettings.newBuilder();
+        assertThatThrownBy(() -> builder.busyPollMicros(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder.acceptorCount(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
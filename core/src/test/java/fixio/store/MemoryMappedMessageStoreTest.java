@@ -0,0 +1,306 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.store;
+
+import fixio.fixprotocol.session.SessionId;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemoryMappedMessageStoreTest {
+
+    private static final SessionId SESSION_ID = new SessionId("SENDER", "TARGET", null, null, null, null);
+    private static final SessionId OTHER_SESSION_ID = new SessionId("SENDER", "OTHER/TARGET", "sub", null, null, null);
+
+    @TempDir
+    Path directory;
+
+    private MemoryMappedMessageStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private MemoryMappedMessageStore open(int segmentSize) {
+        return MemoryMappedMessageStore.newBuilder()
+                .directory(directory)
+                .segmentSize(segmentSize)
+                .syncIntervalMillis(10)
+                .syncBatchSize(1024)
+                .build();
+    }
+
+    private static void append(MessageStore store, SessionId sessionId, int msgSeqNum, String message) {
+        ByteBuf buf = Unpooled.copiedBuffer("garbage" + message, US_ASCII);
+        store.append(sessionId, msgSeqNum, buf, 7, message.length());
+        assertThat(buf.readerIndex()).isZero();
+    }
+
+    private static String get(MessageStore store, SessionId sessionId, int msgSeqNum) {
+        ByteBuf out = Unpooled.buffer();
+        return store.get(sessionId, msgSeqNum, out) ? out.toString(US_ASCII) : null;
+    }
+
+    private static String message(int msgSeqNum) {
+        return "8=FIX.4.4|9=20|35=D|34=" + msgSeqNum + "|10=000|";
+    }
+
+    @Test
+    void appendAndGet() {
+        store = open(MemoryMappedMessageStore.DEFAULT_SEGMENT_SIZE);
+        append(store, SESSION_ID, 1, message(1));
+        append(store, SESSION_ID, 2, message(2));
+        append(store, OTHER_SESSION_ID, 1, "other");
+
+        assertThat(get(store, SESSION_ID, 1)).isEqualTo(message(1));
+        assertThat(get(store, SESSION_ID, 2)).isEqualTo(message(2));
+        assertThat(get(store, SESSION_ID, 3)).isNull();
+        assertThat(get(store, SESSION_ID, 0)).isNull();
+        assertThat(get(store, OTHER_SESSION_ID, 1)).isEqualTo("other");
+    }
+
+    @Test
+    void latestMessageWins() {
+        store = open(MemoryMappedMessageStore.DEFAULT_SEGMENT_SIZE);
+        append(store, SESSION_ID, 1, "first");
+        append(store, SESSION_ID, 1, "second");
+
+        assertThat(get(store, SESSION_ID, 1)).isEqualTo("second");
+    }
+
+    @Test
+    void sparseSeqNums() {
+        store = open(MemoryMappedMessageStore.DEFAULT_SEGMENT_SIZE);
+        append(store, SESSION_ID, 7, "seven");
+        append(store, SESSION_ID, 1_000_000, "million");
+        append(store, SESSION_ID, Integer.MAX_VALUE, "max");
+
+        assertThat(get(store, SESSION_ID, 7)).isEqualTo("seven");
+        assertThat(get(store, SESSION_ID, 1_000_000)).isEqualTo("million");
+        assertThat(get(store, SESSION_ID, Integer.MAX_VALUE)).isEqualTo("max");
+        assertThat(get(store, SESSION_ID, 8)).isNull();
+    }
+
+    @Test
+    void rolloverSegments() throws IOException {
+        store = open(4096);
+        for (int i = 1; i <= 500; i++) {
+            append(store, SESSION_ID, i, message(i));
+        }
+        append(store, SESSION_ID, 501, "x".repeat(10_000));
+
+        for (int i = 1; i <= 500; i++) {
+            assertThat(get(store, SESSION_ID, i)).isEqualTo(message(i));
+        }
+        assertThat(get(store, SESSION_ID, 501)).hasSize(10_000);
+        // segments are created in background
+        awaitJournalFiles(files -> files > 5);
+    }
+
+    @Test
+    void recoverFromSavedIndex() throws IOException {
+        store = open(4096);
+        for (int i = 1; i <= 100; i++) {
+            append(store, SESSION_ID, i, message(i));
+        }
+        store.sync();
+        for (int i = 101; i <= 150; i++) {
+            append(store, SESSION_ID, i, message(i));
+        }
+        store.close();
+        assertThat(Files.exists(directory.resolve(MemoryMappedMessageStore.fileName(SESSION_ID)
+                + MemoryMappedMessageStore.INDEX_SUFFIX))).isTrue();
+
+        store = open(4096);
+        for (int i = 1; i <= 150; i++) {
+            assertThat(get(store, SESSION_ID, i)).isEqualTo(message(i));
+        }
+    }
+
+    @Test
+    void recoverWithoutSavedIndex() throws IOException {
+        store = open(4096);
+        for (int i = 1; i <= 150; i++) {
+            append(store, SESSION_ID, i, message(i));
+        }
+        store.close();
+        Files.delete(directory.resolve(MemoryMappedMessageStore.fileName(SESSION_ID)
+                + MemoryMappedMessageStore.INDEX_SUFFIX));
+
+        store = open(4096);
+        for (int i = 1; i <= 150; i++) {
+            assertThat(get(store, SESSION_ID, i)).isEqualTo(message(i));
+        }
+    }
+
+    @Test
+    void truncateAtDamagedRecord() throws IOException {
+        store = open(4096);
+        for (int i = 1; i <= 150; i++) {
+            append(store, SESSION_ID, i, message(i));
+        }
+        store.close();
+        final String name = MemoryMappedMessageStore.fileName(SESSION_ID);
+        Files.delete(directory.resolve(name + MemoryMappedMessageStore.INDEX_SUFFIX));
+
+        int position = 0;
+        for (int i = 1; i < 10; i++) {
+            position += MemoryMappedMessageStore.RECORD_HEADER_SIZE + message(i).length();
+        }
+        final Path firstSegment = directory.resolve(name + ".0" + MemoryMappedMessageStore.SEGMENT_SUFFIX);
+        final byte[] bytes = Files.readAllBytes(firstSegment);
+        bytes[position + MemoryMappedMessageStore.RECORD_HEADER_SIZE + 5] ^= 1;
+        Files.write(firstSegment, bytes);
+
+        store = open(4096);
+        for (int i = 1; i < 10; i++) {
+            assertThat(get(store, SESSION_ID, i)).isEqualTo(message(i));
+        }
+        for (int i = 10; i <= 150; i++) {
+            assertThat(get(store, SESSION_ID, i)).as("record %d", i).isNull();
+        }
+        append(store, SESSION_ID, 10, "new");
+        store.close();
+
+        store = open(4096);
+        assertThat(get(store, SESSION_ID, 9)).isEqualTo(message(9));
+        assertThat(get(store, SESSION_ID, 10)).isEqualTo("new");
+        assertThat(get(store, SESSION_ID, 11)).isNull();
+    }
+
+    @Test
+    void deleteOldestSegmentsAboveMaxJournalSize() throws Exception {
+        store = MemoryMappedMessageStore.newBuilder()
+                .directory(directory)
+                .segmentSize(4096)
+                .maxJournalSize(3 * 4096)
+                .syncIntervalMillis(10)
+                .build();
+        for (int i = 1; i <= 1000; i++) {
+            append(store, SESSION_ID, i, message(i));
+            if (i % 50 == 0) {
+                // let background thread provide segments
+                Thread.sleep(20);
+            }
+        }
+
+        assertThat(get(store, SESSION_ID, 1)).isNull();
+        assertThat(get(store, SESSION_ID, 1000)).isEqualTo(message(1000));
+        awaitJournalFiles(files -> files <= 4);
+        store.close();
+
+        store = open(4096);
+        assertThat(get(store, SESSION_ID, 1)).isNull();
+        assertThat(get(store, SESSION_ID, 1000)).isEqualTo(message(1000));
+    }
+
+    @Test
+    void recoverAfterReopen() {
+        store = open(4096);
+        for (int i = 1; i <= 200; i++) {
+            append(store, SESSION_ID, i, message(i));
+        }
+        append(store, OTHER_SESSION_ID, 42, "other");
+        store.close();
+
+        store = open(4096);
+        for (int i = 1; i <= 200; i++) {
+            assertThat(get(store, SESSION_ID, i)).isEqualTo(message(i));
+        }
+        assertThat(get(store, OTHER_SESSION_ID, 42)).isEqualTo("other");
+
+        append(store, SESSION_ID, 201, message(201));
+        store.close();
+
+        store = open(4096);
+        assertThat(get(store, SESSION_ID, 200)).isEqualTo(message(200));
+        assertThat(get(store, SESSION_ID, 201)).isEqualTo(message(201));
+    }
+
+    @Test
+    void reset() throws IOException {
+        store = open(4096);
+        for (int i = 1; i <= 200; i++) {
+            append(store, SESSION_ID, i, message(i));
+        }
+        append(store, OTHER_SESSION_ID, 1, "other");
+
+        store.reset(SESSION_ID);
+
+        assertThat(get(store, SESSION_ID, 1)).isNull();
+        assertThat(get(store, OTHER_SESSION_ID, 1)).isEqualTo("other");
+        append(store, SESSION_ID, 1, "new");
+        store.close();
+
+        store = open(4096);
+        assertThat(get(store, SESSION_ID, 1)).isEqualTo("new");
+        assertThat(get(store, SESSION_ID, 2)).isNull();
+    }
+
+    @Test
+    void failWhenClosed() {
+        store = open(4096);
+        store.close();
+
+        assertThatThrownBy(() -> append(store, SESSION_ID, 1, "message"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void fileNameIsEscaped() {
+        assertThat(MemoryMappedMessageStore.fileName(SESSION_ID)).isEqualTo("SENDER___TARGET__");
+        assertThat(MemoryMappedMessageStore.fileName(OTHER_SESSION_ID)).isEqualTo("SENDER_sub__OTHER%2FTARGET__");
+    }
+
+    @Test
+    void rejectInvalidSettings() {
+        assertThatThrownBy(() -> MemoryMappedMessageStore.newBuilder().build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MemoryMappedMessageStore.newBuilder().segmentSize(100))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MemoryMappedMessageStore.newBuilder().syncIntervalMillis(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void awaitJournalFiles(LongPredicate condition) throws IOException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.test(journalFiles()) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(condition.test(journalFiles())).as("journal files: %d", journalFiles()).isTrue();
+    }
+
+    private long journalFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(MemoryMappedMessageStore.SEGMENT_SUFFIX)).count();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 The FIX.io Project
+ *
+ * The FIX.io Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package fixio.store;
+
+import fixio.fixprotocol.FixMessageBuilderImpl;
+import fixio.fixprotocol.FixMessageHeader;
+import fixio.fixprotocol.session.FixSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemoryMappedSessionRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private static final int HEADROOM = 100;
+
+    private MemoryMappedSessionRepository repository;
+    private FixMessageHeader header;
+
+    @BeforeEach
+    void setUp() {
+        header = new FixMessageHeader();
+        header.setBeginString("FIX.4.4");
+        header.setSenderCompID("CLIENT");
+        header.setTargetCompID("SERVER");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    private MemoryMappedSessionRepository open(long checkpointIntervalMillis) {
+        return MemoryMappedSessionRepository.newBuilder()
+                .directory(directory)
+                .checkpointIntervalMillis(checkpointIntervalMillis)
+                .outgoingSeqNumHeadroom(HEADROOM)
+                .build();
+    }
+
+    /**
+     * Reads sequence numbers from files by another repository, without removing the session from the first one,
+     * until the next outgoing MsgSeqNum is expected one.
+     */
+    private FixSession awaitCheckpoint(int nextOutgoing) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        FixSession copy;
+        do {
+            Thread.sleep(10);
+            try (MemoryMappedSessionRepository other = open(0)) {
+                copy = other.getOrCreateSession(header);
+            }
+        } while (copy.getNextOutgoingMessageSeqNum() != nextOutgoing && System.nanoTime() < deadline);
+        return copy;
+    }
+
+    private static void exchange(FixSession session, int messages) {
+        for (int i = 0; i < messages; i++) {
+            session.prepareOutgoing(new FixMessageBuilderImpl("0"));
+            assertThat(session.checkAndIncrementIncomingSeqNum(session.getNextIncomingMessageSeqNum())).isTrue();
+        }
+    }
+
+    @Test
+    void newSessionStartsFromOne() {
+        repository = open(0);
+
+        FixSession session = repository.getOrCreateSession(header);
+
+        assertThat(session.getNextIncomingMessageSeqNum()).isEqualTo(1);
+        assertThat(session.getNextOutgoingMessageSeqNum()).isEqualTo(1);
+        assertThat(session.getSenderCompID()).isEqualTo("CLIENT");
+        assertThat(repository.getOrCreateSession(header)).isSameAs(session);
+        assertThat(repository.getSession(header)).isSameAs(session);
+
+        // file is created by the checkpoint thread
+        Path file = directory.resolve("CLIENT___SERVER__" + MemoryMappedSessionRepository.FILE_SUFFIX);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Files.exists(file) && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(Files.exists(file)).isTrue();
+    }
+
+    @Test
+    void resumeRemovedSession() {
+        repository = open(0);
+        FixSession session = repository.getOrCreateSession(header);
+        exchange(session, 5);
+
+        repository.removeSession(session.getId());
+        assertThat(repository.getSession(header)).isNull();
+
+        FixSession resumed = repository.getOrCreateSession(header);
+        assertThat(resumed).isNotSameAs(session);
+        assertThat(resumed.getNextIncomingMessageSeqNum()).isEqualTo(6);
+        assertThat(resumed.getNextOutgoingMessageSeqNum()).isEqualTo(6);
+    }
+
+    @Test
+    void resumeAfterRestart() {
+        repository = open(0);
+        exchange(repository.getOrCreateSession(header), 3);
+        repository.close();
+
+        repository = open(0);
+        FixSession resumed = repository.getOrCreateSession(header);
+
+        assertThat(resumed.getNextIncomingMessageSeqNum()).isEqualTo(4);
+        assertThat(resumed.getNextOutgoingMessageSeqNum()).isEqualTo(4);
+    }
+
+    @Test
+    void checkpointPeriodically() throws Exception {
+        repository = open(10);
+        FixSession session = repository.getOrCreateSession(header);
+        exchange(session, 7);
+
+        FixSession copy = awaitCheckpoint(8 + HEADROOM);
+
+        assertThat(copy.getNextIncomingMessageSeqNum()).isEqualTo(8);
+        assertThat(copy.getNextOutgoingMessageSeqNum()).isEqualTo(8 + HEADROOM);
+    }
+
+    @Test
+    void outgoingSeqNumAfterCrashIsNotBehindSentMessages() throws Exception {
+        repository = open(10);
+        FixSession session = repository.getOrCreateSession(header);
+        exchange(session, 7);
+        awaitCheckpoint(8 + HEADROOM);
+
+        // sent after the last checkpoint and lost with the crash
+        exchange(session, 3);
+        try (MemoryMappedSessionRepository other = open(0)) {
+            FixSession resumed = other.getOrCreateSession(header);
+
+            assertThat(resumed.getNextOutgoingMessageSeqNum())
+                    .isGreaterThanOrEqualTo(session.getNextOutgoingMessageSeqNum());
+        }
+    }
+
+    @Test
+    void closedRepositoryCannotCreateSessions() {
+        repository = open(0);
+        repository.close();
+
+        assertThatThrownBy(() -> repository.getOrCreateSession(header)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void directoryIsRequired() {
+        assertThatThrownBy(() -> MemoryMappedSessionRepository.newBuilder().build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -18,6 +18,8 @@ package fixio.examples.priceserver;
 import fixio.FixServer;
 import fixio.examples.common.Quote;
 import fixio.examples.common.QuoteGeneratorTask;
+import fixio.netty.pipeline.FixChannelSettings;
+import fixio.netty.pipeline.FlushMode;
 import fixio.netty.pipeline.InMemorySessionRepository;
 import fixio.netty.pipeline.server.AcceptAllAuthenticator;
 
@@ -39,6 +41,10 @@ public class PriceServer {
                 new AcceptAllAuthenticator(),
                 new InMemorySessionRepository()
         );
+        // quotes are streamed to every subscriber, so consolidate flushes instead of a syscall per quote
+        server.setChannelSettings(FixChannelSettings.newBuilder()
+                .flushMode(FlushMode.CONSOLIDATE)
+                .build());
     }
 
     public static void main(String[] args) throws InterruptedException {